@@ -1,17 +1,20 @@
 package com.solace.acme.bank.accountmanagement.models;
 
+import com.solace.acme.bank.journal.AccountsRegistry;
 import lombok.Data;
 import lombok.Getter;
 import lombok.Setter;
 
-import java.util.HashMap;
+import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Data
 @Getter
 @Setter
-public class AccountsList {
+public class AccountsList implements AccountsRegistry<Account> {
 
+    private static final Account.Status[] STATUSES = Account.Status.values();
     private static volatile AccountsList accountsListInstance;
     private Map<String, Account> accountsList;
 
@@ -24,10 +27,53 @@ public class AccountsList {
             synchronized (AccountsList.class) {
                 if (accountsListInstance == null) {
                     accountsListInstance = new AccountsList(); // Initialize on first access
-                    accountsListInstance.accountsList = new HashMap<>();
+                    accountsListInstance.accountsList = new ConcurrentHashMap<>();
                 }
             }
         }
         return accountsListInstance;
     }
+
+    /**
+     * Moves the account to the target status with a compare-and-set on the immutable {@link Account} held in the map,
+     * retrying only when another thread changed the account in between. Returns the new account state, or null when
+     * the account is unknown or the lifecycle does not allow the transition from its current status.
+     */
+    public Account transition(final String accountNumber, final Account.Status targetStatus, final String comment) {
+        while (true) {
+            final Account currentAccount = accountsList.get(accountNumber);
+            if (currentAccount == null || !currentAccount.getCurrentStatus().canTransitionTo(targetStatus)) {
+                return null;
+            }
+            final Account transitionedAccount = currentAccount.toBuilder().currentStatus(targetStatus).comment(comment).build();
+            if (accountsList.replace(accountNumber, currentAccount, transitionedAccount)) {
+                return transitionedAccount;
+            }
+        }
+    }
+
+    @Override
+    public Collection<Account> accounts() {
+        return accountsList.values();
+    }
+
+    @Override
+    public String accountNumber(final Account account) {
+        return account.getAccountNumber();
+    }
+
+    @Override
+    public int statusOrdinal(final Account account) {
+        return account.getCurrentStatus().ordinal();
+    }
+
+    @Override
+    public String comment(final Account account) {
+        return account.getComment();
+    }
+
+    @Override
+    public void restore(final String accountNumber, final int statusOrdinal, final String comment) {
+        accountsList.put(accountNumber, Account.builder().accountNumber(accountNumber).currentStatus(STATUSES[statusOrdinal]).comment(comment).build());
+    }
 }
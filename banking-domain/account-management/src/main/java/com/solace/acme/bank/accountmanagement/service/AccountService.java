@@ -4,6 +4,7 @@ import com.solace.acme.bank.accountmanagement.config.SolaceConnectionParameters;
 import com.solace.acme.bank.accountmanagement.models.Account;
 import com.solace.acme.bank.accountmanagement.models.AccountAction;
 import com.solace.acme.bank.accountmanagement.models.AccountsList;
+import com.solace.acme.bank.journal.AccountsJournal;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -20,12 +21,18 @@ import java.util.concurrent.TimeUnit;
 public class AccountService {
 
     private SolaceEventPublisher solaceEventPublisher;
+    private AccountsJournal<Account> accountsJournal;
 
     @Autowired
     public void setSolaceEventPublisher(SolaceEventPublisher solaceEventPublisher) {
         this.solaceEventPublisher = solaceEventPublisher;
     }
 
+    @Autowired
+    public void setAccountsJournal(AccountsJournal<Account> accountsJournal) {
+        this.accountsJournal = accountsJournal;
+    }
+
     public boolean connectToBroker(final SolaceConnectionParameters solaceConnectionParameters) {
         return solaceEventPublisher.connectToBroker(solaceConnectionParameters);
     }
@@ -35,7 +42,10 @@ public class AccountService {
         final Account newAccount = Account.builder().accountNumber(newAccountNumber).currentStatus(Account.Status.APPLIED).comment("New account application under processing").build();
         final AccountAction newAccountAppliedAction = createAccountAppliedEventPayload(newAccountNumber);
         solaceEventPublisher.publishAccountAppliedEvent(newAccountAppliedAction);
-        AccountsList.getInstance().getAccountsList().put(newAccountNumber, newAccount);
+        accountsJournal.transition(newAccountNumber, () -> {
+            AccountsList.getInstance().getAccountsList().put(newAccountNumber, newAccount);
+            return newAccount;
+        });
         scheduleAccountOpenedEvent(newAccountNumber);
     }
 
@@ -46,12 +56,14 @@ public class AccountService {
     }
 
     public void processAccountResumedRequest(final String accountNumber) {
+        final Account resumedAccount = accountsJournal.transition(accountNumber,
+                () -> AccountsList.getInstance().transition(accountNumber, Account.Status.RESUMED, "Account resumed after suspension"));
+        if (resumedAccount == null) {
+            logRejectedTransition(accountNumber, Account.Status.RESUMED);
+            return;
+        }
         final AccountAction accountResumedAction = createAccountResumedEventPayload(accountNumber);
         solaceEventPublisher.publishAccountResumedEvent(accountResumedAction);
-        Account account = AccountsList.getInstance().getAccountsList().get(accountNumber);
-        account.setCurrentStatus(Account.Status.RESUMED);
-        account.setComment("Account resumed after suspension");
-        AccountsList.getInstance().getAccountsList().put(accountNumber, account);
     }
 
     private AccountAction createAccountResumedEventPayload(final String accountNumber) {
@@ -63,12 +75,23 @@ public class AccountService {
     }
 
     public void processAccountOpening(final String accountNumber) {
+        final Account openedAccount = accountsJournal.transition(accountNumber,
+                () -> AccountsList.getInstance().transition(accountNumber, Account.Status.OPENED, "Account operational"));
+        if (openedAccount == null) {
+            logRejectedTransition(accountNumber, Account.Status.OPENED);
+            return;
+        }
         final AccountAction accountOpenedAction = createAccountOpenedEventPayload(accountNumber);
         solaceEventPublisher.publishAccountOpenedEvent(accountOpenedAction);
-        Account account = AccountsList.getInstance().getAccountsList().get(accountNumber);
-        account.setCurrentStatus(Account.Status.OPENED);
-        account.setComment("Account operational");
-        AccountsList.getInstance().getAccountsList().put(accountNumber, account);
+    }
+
+    private void logRejectedTransition(final String accountNumber, final Account.Status targetStatus) {
+        final Account account = AccountsList.getInstance().getAccountsList().get(accountNumber);
+        if (account == null) {
+            log.warn("Rejected transition to {} for unknown account:{}", targetStatus, accountNumber);
+        } else {
+            log.warn("Rejected transition from {} to {} for account:{}", account.getCurrentStatus(), targetStatus, accountNumber);
+        }
     }
 
     private AccountAction createAccountAppliedEventPayload(final String newAccountNumber) {
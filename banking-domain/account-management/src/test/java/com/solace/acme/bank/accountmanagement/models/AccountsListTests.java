@@ -0,0 +1,59 @@
+package com.solace.acme.bank.accountmanagement.models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccountsListTests {
+
+    private static final String ACCOUNT_NUMBER = "1000000001";
+
+    @BeforeEach
+    void resetAccounts() {
+        AccountsList.getInstance().getAccountsList().clear();
+        AccountsList.getInstance().getAccountsList().put(ACCOUNT_NUMBER,
+                Account.builder().accountNumber(ACCOUNT_NUMBER).currentStatus(Account.Status.APPLIED).build());
+    }
+
+    @Test
+    void rejectsUnknownAccountsAndIllegalTransitions() {
+        assertNull(AccountsList.getInstance().transition("unknown", Account.Status.RESUMED, "resumed"));
+        assertNull(AccountsList.getInstance().transition(ACCOUNT_NUMBER, Account.Status.RESUMED, "resumed"));
+        assertEquals(Account.Status.APPLIED, AccountsList.getInstance().getAccountsList().get(ACCOUNT_NUMBER).getCurrentStatus());
+    }
+
+    @Test
+    void onlyOneConcurrentOpeningWins() throws InterruptedException {
+        final int threads = 8;
+        final AtomicInteger accepted = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            executorService.execute(() -> {
+                try {
+                    start.await();
+                    if (AccountsList.getInstance().transition(ACCOUNT_NUMBER, Account.Status.OPENED, "Account operational") != null) {
+                        accepted.incrementAndGet();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        start.countDown();
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(1, accepted.get());
+        assertEquals(Account.Status.OPENED, AccountsList.getInstance().getAccountsList().get(ACCOUNT_NUMBER).getCurrentStatus());
+    }
+}
@@ -0,0 +1,153 @@
+package com.solace.acme.bank.journal;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Write-ahead journal of an accounts registry, shared by the banking services. Each service registers one instance as
+ * a bean over its own {@link AccountsRegistry}.
+ * <p>
+ * While the journal is enabled every transition runs under one of {@value #LOCK_STRIPES} striped locks, so the
+ * compare-and-set of the registry and the append of its outcome happen as one step. Transitions of accounts on
+ * different stripes still run in parallel; the cost of the lock over the bare registry is what the journaled variant
+ * of {@code AccountLifecycleBenchmark} measures.
+ */
+@Slf4j
+public class AccountsJournal<A> {
+
+    private static final int LOCK_STRIPES = 256;
+
+    private final AccountsJournalProperties journalProperties;
+    private final AccountsRegistry<A> registry;
+    private final Object[] accountLocks = new Object[LOCK_STRIPES];
+    private final LongAdder appendFailures = new LongAdder();
+    private AccountsWriteAheadLog writeAheadLog;
+    private ScheduledExecutorService journalExecutor;
+    private Path journalDirectory;
+
+    public AccountsJournal(final AccountsJournalProperties journalProperties, final AccountsRegistry<A> registry) {
+        this.journalProperties = journalProperties;
+        this.registry = registry;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            accountLocks[i] = new Object();
+        }
+    }
+
+    @PostConstruct
+    public void recoverAccounts() throws IOException {
+        if (!journalProperties.isEnabled()) {
+            log.info("Accounts journal is disabled, accounts will only be held in memory");
+            return;
+        }
+        journalDirectory = Paths.get(journalProperties.getDirectory());
+        final long startTime = System.nanoTime();
+        final long snapshotGeneration = AccountsSnapshot.load(journalDirectory, registry::restore);
+        final long lastGeneration = AccountsWriteAheadLog.replay(journalDirectory, snapshotGeneration, registry::restore);
+        writeAheadLog = new AccountsWriteAheadLog(journalDirectory, Math.max(lastGeneration, snapshotGeneration) + 1,
+                journalProperties.getSegmentSizeBytes(), journalProperties.getFsyncBatchSize());
+        log.info("Recovered {} accounts from journal in {} ms", registry.accounts().size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+
+        journalExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "accounts-journal"));
+        if (journalProperties.getFsyncIntervalMillis() > 0) {
+            journalExecutor.scheduleWithFixedDelay(writeAheadLog::sync, journalProperties.getFsyncIntervalMillis(), journalProperties.getFsyncIntervalMillis(), TimeUnit.MILLISECONDS);
+        }
+        if (journalProperties.getSnapshotIntervalSeconds() > 0) {
+            journalExecutor.scheduleWithFixedDelay(this::takeSnapshot, journalProperties.getSnapshotIntervalSeconds(), journalProperties.getSnapshotIntervalSeconds(), TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Applies a change to one account and journals its outcome inside the same per-account critical section, so two
+     * transitions of an account reach the log in the order they were applied to the registry and replay ends on the
+     * state the registry holds. The change returns the new account state, or null when it was rejected, in which case
+     * nothing is journaled.
+     * <p>
+     * A snapshot running concurrently either sees the new state or the record lands in a segment that is replayed on
+     * top of that snapshot. When the append fails the registry is ahead of the log; the failure is counted and a
+     * snapshot of the registry is scheduled, which makes the journal catch up again.
+     */
+    public A transition(final String accountNumber, final Supplier<A> change) {
+        if (writeAheadLog == null) {
+            return change.get();
+        }
+        synchronized (accountLocks[Math.floorMod(accountNumber.hashCode(), LOCK_STRIPES)]) {
+            final A account = change.get();
+            if (account != null) {
+                append(account);
+            }
+            return account;
+        }
+    }
+
+    private void append(final A account) {
+        try {
+            final boolean segmentRolled = writeAheadLog.append(registry.accountNumber(account), registry.statusOrdinal(account), registry.comment(account));
+            if (segmentRolled) {
+                scheduleSnapshot();
+            }
+        } catch (IOException ioException) {
+            appendFailures.increment();
+            log.error("Error encountered while journaling account:{}, scheduling a snapshot, exception:", registry.accountNumber(account), ioException);
+            scheduleSnapshot();
+        }
+    }
+
+    /**
+     * Number of transitions applied to the registry whose append to the write-ahead log failed.
+     */
+    public long getAppendFailures() {
+        return appendFailures.sum();
+    }
+
+    private void scheduleSnapshot() {
+        if (journalExecutor.isShutdown()) {
+            return;
+        }
+        try {
+            journalExecutor.execute(this::takeSnapshot);
+        } catch (RejectedExecutionException rejectedExecutionException) {
+            // the journal is closing in between, its final segment is replayed on recovery instead
+            log.debug("Skipped accounts snapshot of a closing journal");
+        }
+    }
+
+    void takeSnapshot() {
+        try {
+            final long replayFromGeneration = writeAheadLog.rollSegment();
+            final long startTime = System.nanoTime();
+            AccountsSnapshot.write(journalDirectory, replayFromGeneration, registry);
+            AccountsWriteAheadLog.deleteSegmentsBefore(journalDirectory, replayFromGeneration);
+            AccountsSnapshot.deleteSnapshotsBefore(journalDirectory, replayFromGeneration);
+            log.info("Accounts snapshot at journal generation {} written in {} ms", replayFromGeneration, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+        } catch (IOException | RuntimeException exception) {
+            log.error("Error encountered while writing accounts snapshot, exception:", exception);
+        }
+    }
+
+    @PreDestroy
+    public void closeJournal() {
+        if (writeAheadLog == null) {
+            return;
+        }
+        journalExecutor.shutdown();
+        try {
+            journalExecutor.awaitTermination(30, TimeUnit.SECONDS);
+            writeAheadLog.close();
+        } catch (IOException ioException) {
+            log.error("Error encountered while closing the accounts journal, exception:", ioException);
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.solace.acme.bank.journal;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "accounts.journal")
+@Getter
+@Setter
+public class AccountsJournalProperties {
+    private boolean enabled;
+    private String directory;
+    private int segmentSizeBytes;
+    // group commit: fsync once this many records are pending, or when the interval elapses, whichever comes first
+    private int fsyncBatchSize;
+    private long fsyncIntervalMillis;
+    private long snapshotIntervalSeconds;
+}
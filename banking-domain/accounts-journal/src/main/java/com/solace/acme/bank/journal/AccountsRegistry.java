@@ -0,0 +1,20 @@
+package com.solace.acme.bank.journal;
+
+import java.util.Collection;
+
+/**
+ * The service side of the journal: how an account of the service's own model is written into the journal, and where
+ * accounts recovered from it go.
+ */
+public interface AccountsRegistry<A> {
+
+    Collection<A> accounts();
+
+    String accountNumber(A account);
+
+    int statusOrdinal(A account);
+
+    String comment(A account);
+
+    void restore(String accountNumber, int statusOrdinal, String comment);
+}
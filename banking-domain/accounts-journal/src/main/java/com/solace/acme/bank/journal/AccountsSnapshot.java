@@ -0,0 +1,139 @@
+package com.solace.acme.bank.journal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Compact point-in-time image of the accounts registry. The header records the write-ahead log generation from which
+ * replay has to continue, the trailer carries the record count as a consistency check.
+ */
+public final class AccountsSnapshot {
+
+    private static final String SNAPSHOT_PREFIX = "accounts-";
+    private static final String SNAPSHOT_SUFFIX = ".snapshot";
+    private static final int MAGIC = 0x41434D45;
+    private static final int FORMAT_VERSION = 1;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private AccountsSnapshot() {
+    }
+
+    public static <A> Path write(final Path directory, final long walGeneration, final AccountsRegistry<A> registry) throws IOException {
+        Files.createDirectories(directory);
+        final Path target = snapshotPath(directory, walGeneration);
+        final Path temporary = directory.resolve(target.getFileName() + ".tmp");
+        long count = 0;
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE))) {
+            output.writeInt(MAGIC);
+            output.writeInt(FORMAT_VERSION);
+            output.writeLong(walGeneration);
+            for (A account : registry.accounts()) {
+                output.writeByte(1);
+                writeString(output, registry.accountNumber(account));
+                output.writeByte(registry.statusOrdinal(account));
+                writeString(output, registry.comment(account));
+                count++;
+            }
+            output.writeByte(0);
+            output.writeLong(count);
+            output.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return target;
+    }
+
+    /**
+     * Loads the newest snapshot into the visitor and returns the write-ahead log generation replay should start from;
+     * 0 when there is no snapshot yet. Snapshots only appear under their final name once fully written and forced.
+     */
+    public static long load(final Path directory, final AccountsWriteAheadLog.RecordVisitor visitor) throws IOException {
+        final long[] generations = listGenerations(directory);
+        if (generations.length == 0) {
+            return 0;
+        }
+        return read(snapshotPath(directory, generations[generations.length - 1]), visitor);
+    }
+
+    public static void deleteSnapshotsBefore(final Path directory, final long walGeneration) throws IOException {
+        for (long generation : listGenerations(directory)) {
+            if (generation < walGeneration) {
+                Files.deleteIfExists(snapshotPath(directory, generation));
+            }
+        }
+    }
+
+    private static long read(final Path snapshot, final AccountsWriteAheadLog.RecordVisitor visitor) throws IOException {
+        // account comments repeat a handful of fixed texts, share one instance of each across millions of accounts
+        final Map<String, String> comments = new HashMap<>();
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot), BUFFER_SIZE))) {
+            if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION) {
+                throw new IOException("Unrecognised snapshot format in " + snapshot);
+            }
+            final long walGeneration = input.readLong();
+            long count = 0;
+            while (input.readByte() == 1) {
+                final String accountNumber = readString(input);
+                final int statusOrdinal = input.readByte();
+                final String comment = readString(input);
+                visitor.onRecord(accountNumber, statusOrdinal, comment == null ? null : comments.computeIfAbsent(comment, key -> key));
+                count++;
+            }
+            if (input.readLong() != count) {
+                throw new IOException("Truncated snapshot " + snapshot);
+            }
+            return walGeneration;
+        }
+    }
+
+    private static void writeString(final DataOutputStream output, final String value) throws IOException {
+        if (value == null) {
+            output.writeShort(-1);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeShort(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(final DataInputStream input) throws IOException {
+        final int length = input.readShort();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static Path snapshotPath(final Path directory, final long walGeneration) {
+        return directory.resolve(String.format("%s%016x%s", SNAPSHOT_PREFIX, walGeneration, SNAPSHOT_SUFFIX));
+    }
+
+    private static long[] listGenerations(final Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return new long[0];
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX))
+                    .mapToLong(name -> Long.parseLong(name.substring(SNAPSHOT_PREFIX.length(), name.length() - SNAPSHOT_SUFFIX.length()), 16))
+                    .sorted()
+                    .toArray();
+        }
+    }
+}
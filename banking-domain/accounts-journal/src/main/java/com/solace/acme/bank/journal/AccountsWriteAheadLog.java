@@ -0,0 +1,231 @@
+package com.solace.acme.bank.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of account state transitions, written into fixed size memory-mapped segments.
+ * <p>
+ * Every record is laid out as {@code [int bodyLength][int crc32c][body]} where the body holds the status ordinal,
+ * the account number and the comment. The unused tail of a segment is zero filled, so replay stops at the first
+ * zero length or at the first record whose checksum does not match (a torn write after a crash).
+ */
+public class AccountsWriteAheadLog implements Closeable {
+
+    static final String SEGMENT_PREFIX = "accounts-";
+    static final String SEGMENT_SUFFIX = ".wal";
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final int MAX_FIELD_BYTES = Short.MAX_VALUE;
+
+    private final Path directory;
+    private final int segmentSizeBytes;
+    private final int fsyncBatchSize;
+    private final ByteBuffer scratch;
+    private final CRC32C crc = new CRC32C();
+
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long generation;
+    private int unsyncedRecords;
+    private boolean closed;
+
+    public interface RecordVisitor {
+        void onRecord(String accountNumber, int statusOrdinal, String comment);
+    }
+
+    public AccountsWriteAheadLog(final Path directory, final long generation, final int segmentSizeBytes, final int fsyncBatchSize) throws IOException {
+        this.directory = directory;
+        this.segmentSizeBytes = segmentSizeBytes;
+        this.fsyncBatchSize = fsyncBatchSize;
+        this.scratch = ByteBuffer.allocate(RECORD_HEADER_BYTES + 5 + 2 * MAX_FIELD_BYTES);
+        Files.createDirectories(directory);
+        openSegment(generation);
+    }
+
+    /**
+     * Appends one transition. Returns {@code true} when the append had to roll over to a new segment, which is the
+     * signal for the owner to take a snapshot so older segments can be discarded.
+     */
+    public synchronized boolean append(final String accountNumber, final int statusOrdinal, final String comment) throws IOException {
+        if (closed) {
+            throw new IOException("Write-ahead log in " + directory + " is closed");
+        }
+        final int recordSize = encode(accountNumber, statusOrdinal, comment);
+        if (recordSize + RECORD_HEADER_BYTES > segmentSizeBytes) {
+            throw new IOException("Record of " + recordSize + " bytes does not fit into a segment of " + segmentSizeBytes + " bytes");
+        }
+        boolean rolled = false;
+        if (segment.remaining() < recordSize + RECORD_HEADER_BYTES) {
+            rollSegment();
+            rolled = true;
+        }
+        segment.put(scratch.array(), 0, recordSize);
+        unsyncedRecords++;
+        if (fsyncBatchSize > 0 && unsyncedRecords >= fsyncBatchSize) {
+            sync();
+        }
+        return rolled;
+    }
+
+    /**
+     * Forces all records appended since the last call to the storage device. Called by the group commit timer and
+     * whenever {@code fsyncBatchSize} records have piled up.
+     */
+    public synchronized void sync() {
+        if (!closed && unsyncedRecords > 0) {
+            segment.force();
+            unsyncedRecords = 0;
+        }
+    }
+
+    /**
+     * Closes the current segment and continues in a fresh one. Every transition appended after this call lands in
+     * the returned generation, so a snapshot taken afterwards only needs that generation (and later) replayed on top.
+     */
+    public synchronized long rollSegment() throws IOException {
+        if (closed) {
+            throw new IOException("Write-ahead log in " + directory + " is closed");
+        }
+        sync();
+        channel.close();
+        openSegment(generation + 1);
+        return generation;
+    }
+
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        sync();
+        closed = true;
+        channel.close();
+    }
+
+    /**
+     * Replays every segment with a generation greater than or equal to {@code fromGeneration}, oldest first.
+     * Returns the highest generation seen on disk, or {@code fromGeneration - 1} when there is none.
+     */
+    public static long replay(final Path directory, final long fromGeneration, final RecordVisitor visitor) throws IOException {
+        long highestGeneration = fromGeneration - 1;
+        for (long segmentGeneration : listGenerations(directory)) {
+            highestGeneration = Math.max(highestGeneration, segmentGeneration);
+            if (segmentGeneration < fromGeneration) {
+                continue;
+            }
+            try (FileChannel segmentChannel = FileChannel.open(segmentPath(directory, segmentGeneration), StandardOpenOption.READ)) {
+                replaySegment(segmentChannel.map(FileChannel.MapMode.READ_ONLY, 0, segmentChannel.size()), visitor);
+            }
+        }
+        return highestGeneration;
+    }
+
+    public static void deleteSegmentsBefore(final Path directory, final long generation) throws IOException {
+        for (long segmentGeneration : listGenerations(directory)) {
+            if (segmentGeneration < generation) {
+                Files.deleteIfExists(segmentPath(directory, segmentGeneration));
+            }
+        }
+    }
+
+    private static void replaySegment(final ByteBuffer buffer, final RecordVisitor visitor) {
+        final CRC32C checksum = new CRC32C();
+        while (buffer.remaining() >= RECORD_HEADER_BYTES) {
+            final int bodyLength = buffer.getInt();
+            final int expectedCrc = buffer.getInt();
+            if (bodyLength <= 0 || bodyLength > buffer.remaining()) {
+                return;
+            }
+            final ByteBuffer body = buffer.slice(buffer.position(), bodyLength);
+            checksum.reset();
+            checksum.update(body.duplicate());
+            if ((int) checksum.getValue() != expectedCrc) {
+                return;
+            }
+            buffer.position(buffer.position() + bodyLength);
+            final int statusOrdinal = body.get();
+            final String accountNumber = readString(body);
+            final String comment = readString(body);
+            visitor.onRecord(accountNumber, statusOrdinal, comment);
+        }
+    }
+
+    private int encode(final String accountNumber, final int statusOrdinal, final String comment) throws IOException {
+        scratch.clear();
+        scratch.position(RECORD_HEADER_BYTES);
+        scratch.put((byte) statusOrdinal);
+        writeString(scratch, accountNumber);
+        writeString(scratch, comment);
+        final int bodyLength = scratch.position() - RECORD_HEADER_BYTES;
+        crc.reset();
+        crc.update(scratch.array(), RECORD_HEADER_BYTES, bodyLength);
+        scratch.putInt(0, bodyLength);
+        scratch.putInt(4, (int) crc.getValue());
+        return scratch.position();
+    }
+
+    private static void writeString(final ByteBuffer target, final String value) throws IOException {
+        if (value == null) {
+            target.putShort((short) -1);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_FIELD_BYTES) {
+            throw new IOException("Field of " + bytes.length + " bytes exceeds the journal limit of " + MAX_FIELD_BYTES);
+        }
+        target.putShort((short) bytes.length);
+        target.put(bytes);
+    }
+
+    private static String readString(final ByteBuffer source) {
+        final int length = source.getShort();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        source.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void openSegment(final long segmentGeneration) throws IOException {
+        channel = FileChannel.open(segmentPath(directory, segmentGeneration),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSizeBytes);
+        generation = segmentGeneration;
+        unsyncedRecords = 0;
+    }
+
+    static Path segmentPath(final Path directory, final long segmentGeneration) {
+        return directory.resolve(String.format("%s%016x%s", SEGMENT_PREFIX, segmentGeneration, SEGMENT_SUFFIX));
+    }
+
+    static List<Long> listGenerations(final Path directory) throws IOException {
+        final List<Long> generations = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return generations;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()), 16))
+                    .sorted()
+                    .forEach(generations::add);
+        }
+        return generations;
+    }
+}
@@ -0,0 +1,110 @@
+package com.solace.acme.bank.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccountsJournalTests {
+
+    @TempDir
+    Path journalDirectory;
+
+    @Test
+    void recoversTheStateTheRegistryHeldUnderConcurrentTransitions() throws Exception {
+        final TestAccountsRegistry registry = new TestAccountsRegistry();
+        final AccountsJournal<TestAccountsRegistry.TestAccount> journal = new AccountsJournal<>(journalProperties(), registry);
+        journal.recoverAccounts();
+
+        final ExecutorService writers = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 20_000; i++) {
+            final String accountNumber = "account-" + (i % 4);
+            writers.execute(() -> journal.transition(accountNumber, () -> registry.accounts.merge(accountNumber,
+                    new TestAccountsRegistry.TestAccount(accountNumber, 0, "1"),
+                    (current, ignored) -> new TestAccountsRegistry.TestAccount(accountNumber, 0, String.valueOf(Integer.parseInt(current.comment()) + 1)))));
+        }
+        writers.shutdown();
+        assertTrue(writers.awaitTermination(30, TimeUnit.SECONDS));
+        journal.closeJournal();
+
+        final TestAccountsRegistry recovered = recover();
+
+        assertEquals(registry.accounts, recovered.accounts);
+        assertEquals("5000", recovered.accounts.get("account-3").comment());
+    }
+
+    @Test
+    void journalsNothingForRejectedTransitions() throws Exception {
+        final TestAccountsRegistry registry = new TestAccountsRegistry();
+        final AccountsJournal<TestAccountsRegistry.TestAccount> journal = new AccountsJournal<>(journalProperties(), registry);
+        journal.recoverAccounts();
+        journal.transition("1000000001", () -> null);
+        journal.closeJournal();
+
+        final TestAccountsRegistry recovered = recover();
+
+        assertFalse(recovered.accounts.containsKey("1000000001"));
+    }
+
+    @Test
+    void countsFailedAppendsAndSnapshotsTheRegistryTheLogFellBehind() throws Exception {
+        final TestAccountsRegistry registry = new TestAccountsRegistry();
+        final AccountsJournal<TestAccountsRegistry.TestAccount> journal = new AccountsJournal<>(journalProperties(), registry);
+        journal.recoverAccounts();
+        // a record larger than a segment is rejected by the write-ahead log after the registry already changed
+        final String comment = "x".repeat(5000);
+        journal.transition("1000000001", () -> {
+            registry.restore("1000000001", 1, comment);
+            return registry.accounts.get("1000000001");
+        });
+        assertEquals(1, journal.getAppendFailures());
+        journal.closeJournal();
+
+        final TestAccountsRegistry recovered = recover();
+
+        assertEquals(comment, recovered.accounts.get("1000000001").comment());
+    }
+
+    @Test
+    void keepsApplyingTransitionsAfterTheJournalClosed() throws Exception {
+        final TestAccountsRegistry registry = new TestAccountsRegistry();
+        final AccountsJournal<TestAccountsRegistry.TestAccount> journal = new AccountsJournal<>(journalProperties(), registry);
+        journal.recoverAccounts();
+        journal.closeJournal();
+
+        for (int i = 0; i < 100; i++) {
+            final String accountNumber = "account-" + i;
+            assertNotNull(journal.transition(accountNumber, () -> {
+                registry.restore(accountNumber, 1, "opened after shutdown");
+                return registry.accounts.get(accountNumber);
+            }));
+        }
+        assertEquals(100, registry.accounts.size());
+    }
+
+    private TestAccountsRegistry recover() throws Exception {
+        final TestAccountsRegistry recovered = new TestAccountsRegistry();
+        final AccountsJournal<TestAccountsRegistry.TestAccount> journal = new AccountsJournal<>(journalProperties(), recovered);
+        journal.recoverAccounts();
+        journal.closeJournal();
+        return recovered;
+    }
+
+    private AccountsJournalProperties journalProperties() {
+        final AccountsJournalProperties journalProperties = new AccountsJournalProperties();
+        journalProperties.setEnabled(true);
+        journalProperties.setDirectory(journalDirectory.toString());
+        // small segments so the journal rolls over and snapshots while the writers are still running
+        journalProperties.setSegmentSizeBytes(4096);
+        journalProperties.setFsyncBatchSize(64);
+        return journalProperties;
+    }
+}
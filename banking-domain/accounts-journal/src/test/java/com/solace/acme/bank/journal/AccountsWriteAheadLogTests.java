@@ -0,0 +1,70 @@
+package com.solace.acme.bank.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccountsWriteAheadLogTests {
+
+    private static final int APPLIED = 0;
+    private static final int OPENED = 1;
+    private static final int SUSPENDED = 3;
+    private static final int STATUS_COUNT = 5;
+
+    @TempDir
+    Path journalDirectory;
+
+    @Test
+    void replaysLatestStatePerAccountAcrossSegments() throws Exception {
+        try (AccountsWriteAheadLog writeAheadLog = new AccountsWriteAheadLog(journalDirectory, 1, 1024, 8)) {
+            for (int i = 0; i < 200; i++) {
+                writeAheadLog.append("account-" + (i % 50), i % STATUS_COUNT, "comment-" + i);
+            }
+            assertTrue(writeAheadLog.getGeneration() > 1);
+        }
+
+        final Map<String, String> comments = new HashMap<>();
+        AccountsWriteAheadLog.replay(journalDirectory, 0, (accountNumber, statusOrdinal, comment) -> comments.put(accountNumber, comment));
+
+        assertEquals(50, comments.size());
+        assertEquals("comment-199", comments.get("account-49"));
+    }
+
+    @Test
+    void stopsReplayAtTornRecord() throws Exception {
+        try (AccountsWriteAheadLog writeAheadLog = new AccountsWriteAheadLog(journalDirectory, 1, 4096, 1)) {
+            writeAheadLog.append("1000000001", APPLIED, "applied");
+            writeAheadLog.append("1000000001", OPENED, "opened");
+        }
+        try (RandomAccessFile segment = new RandomAccessFile(AccountsWriteAheadLog.segmentPath(journalDirectory, 1).toFile(), "rw")) {
+            segment.seek(40);
+            segment.write(0x7F);
+        }
+
+        final Map<String, Integer> statuses = new HashMap<>();
+        AccountsWriteAheadLog.replay(journalDirectory, 0, (accountNumber, statusOrdinal, comment) -> statuses.put(accountNumber, statusOrdinal));
+
+        assertEquals(APPLIED, statuses.get("1000000001"));
+    }
+
+    @Test
+    void snapshotRecordsGenerationToReplayFrom() throws Exception {
+        final TestAccountsRegistry accounts = new TestAccountsRegistry();
+        accounts.restore("1000000001", OPENED, "Account operational");
+        accounts.restore("1000000002", SUSPENDED, null);
+        AccountsSnapshot.write(journalDirectory, 42, accounts);
+
+        final Map<String, Integer> statuses = new HashMap<>();
+        final long replayFromGeneration = AccountsSnapshot.load(journalDirectory, (accountNumber, statusOrdinal, comment) -> statuses.put(accountNumber, statusOrdinal));
+
+        assertEquals(42, replayFromGeneration);
+        assertEquals(SUSPENDED, statuses.get("1000000002"));
+    }
+}
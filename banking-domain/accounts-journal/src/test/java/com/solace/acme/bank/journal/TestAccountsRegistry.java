@@ -0,0 +1,38 @@
+package com.solace.acme.bank.journal;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+class TestAccountsRegistry implements AccountsRegistry<TestAccountsRegistry.TestAccount> {
+
+    record TestAccount(String accountNumber, int statusOrdinal, String comment) {
+    }
+
+    final Map<String, TestAccount> accounts = new ConcurrentHashMap<>();
+
+    @Override
+    public Collection<TestAccount> accounts() {
+        return accounts.values();
+    }
+
+    @Override
+    public String accountNumber(final TestAccount account) {
+        return account.accountNumber();
+    }
+
+    @Override
+    public int statusOrdinal(final TestAccount account) {
+        return account.statusOrdinal();
+    }
+
+    @Override
+    public String comment(final TestAccount account) {
+        return account.comment();
+    }
+
+    @Override
+    public void restore(final String accountNumber, final int statusOrdinal, final String comment) {
+        accounts.put(accountNumber, new TestAccount(accountNumber, statusOrdinal, comment));
+    }
+}
@@ -0,0 +1,19 @@
+package com.solace.acme.bank.corebanking.config;
+
+import com.solace.acme.bank.corebanking.models.Account;
+import com.solace.acme.bank.corebanking.models.AccountsList;
+import com.solace.acme.bank.journal.AccountsJournal;
+import com.solace.acme.bank.journal.AccountsJournalProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(AccountsJournalProperties.class)
+public class AccountsJournalConfiguration {
+
+    @Bean
+    public AccountsJournal<Account> accountsJournal(final AccountsJournalProperties journalProperties) {
+        return new AccountsJournal<>(journalProperties, AccountsList.getInstance());
+    }
+}
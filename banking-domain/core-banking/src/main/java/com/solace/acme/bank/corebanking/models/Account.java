@@ -2,26 +2,46 @@ package com.solace.acme.bank.corebanking.models;
 
 
 import lombok.Builder;
-import lombok.Data;
-import lombok.Getter;
-import lombok.Setter;
-
-@Getter
-@Setter
-@Data
-@Builder
+import lombok.Value;
+
+@Value
+@Builder(toBuilder = true)
 public class Account {
 
-    private String accountNumber;
-    private Status currentStatus;
+    String accountNumber;
+    Status currentStatus;
 
+    /**
+     * Core banking learns about accounts once they are opened and marks them ACTIVE with their first transaction.
+     * The order of the constants is journaled, new ones go at the end.
+     */
     public enum Status {
         APPLIED,
         OPENED,
         ACTIVE,
         SUSPENDED,
-        RESUMED
+        RESUMED;
+
+        private int allowedTargets;
+
+        static {
+            APPLIED.allow(OPENED);
+            OPENED.allow(ACTIVE, SUSPENDED);
+            ACTIVE.allow(SUSPENDED);
+            SUSPENDED.allow(RESUMED);
+            RESUMED.allow(ACTIVE, SUSPENDED);
+        }
+
+        private void allow(final Status... targets) {
+            for (Status target : targets) {
+                allowedTargets |= 1 << target.ordinal();
+            }
+        }
+
+        public boolean canTransitionTo(final Status target) {
+            return (allowedTargets & (1 << target.ordinal())) != 0;
+        }
     }
 
-    private String comment;
+    String comment;
 }
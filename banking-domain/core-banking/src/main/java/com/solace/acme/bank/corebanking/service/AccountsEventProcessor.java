@@ -1,28 +1,60 @@
 package com.solace.acme.bank.corebanking.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.solace.acme.bank.corebanking.models.Account;
 import com.solace.acme.bank.corebanking.models.AccountAction;
 import com.solace.acme.bank.corebanking.models.AccountsList;
+import com.solace.acme.bank.journal.AccountsJournal;
+import com.solace.acme.runtime.ReceivedMessage;
+import com.solace.acme.runtime.SolaceRuntime;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+
 @Service
 @Slf4j
 public class AccountsEventProcessor {
 
-    ObjectMapper objectMapper = new ObjectMapper();
-    
-    public boolean processAccountOpenedEvent(final String accountOpenedActionEventPayload) {
+    private AccountsJournal<Account> accountsJournal;
+    private SolaceRuntime solaceRuntime;
+
+    @Autowired
+    public void setAccountsJournal(AccountsJournal<Account> accountsJournal) {
+        this.accountsJournal = accountsJournal;
+    }
+
+    @Autowired
+    public void setSolaceRuntime(SolaceRuntime solaceRuntime) {
+        this.solaceRuntime = solaceRuntime;
+    }
+
+    /**
+     * Registers the opened account. An event that cannot be decoded would fail on every redelivery, it is logged and
+     * dropped so that the caller acknowledges it.
+     */
+    public void processAccountOpenedEvent(final ReceivedMessage accountOpenedMessage) {
         try {
-            AccountAction accountOpenedEvent = objectMapper.readValue(accountOpenedActionEventPayload, AccountAction.class);
-            Account openedAccount = Account.builder().accountNumber(accountOpenedEvent.getAccountNum()).currentStatus(Account.Status.OPENED).build();
-            AccountsList.getInstance().getAccountsList().put(openedAccount.getAccountNumber(), openedAccount);
-            return true;
-        } catch (JsonProcessingException jsonProcessingException) {
-            log.error("Error encountered while processing AccountOpened event:{}, exception:", accountOpenedActionEventPayload, jsonProcessingException);
-            return false;
+            AccountAction accountOpenedEvent = solaceRuntime.decode(accountOpenedMessage, AccountAction.class);
+            final String accountNumber = accountOpenedEvent.getAccountNum();
+            final Account openedAccount = Account.builder().accountNumber(accountNumber).currentStatus(Account.Status.OPENED).comment("Account opened").build();
+            if (accountsJournal.transition(accountNumber, () -> AccountsList.getInstance().register(openedAccount)) == null) {
+                log.debug("Ignored AccountOpened event for already known account:{}", accountNumber);
+            }
+        } catch (IOException ioException) {
+            log.error("Discarding undecodable AccountOpened event on topic:{}, exception:", accountOpenedMessage.getDestinationName(), ioException);
+        }
+    }
+
+    /**
+     * Marks an opened or resumed account ACTIVE once a transaction has been published for it. Accounts that are
+     * already active are left alone without taking the journal's account lock.
+     */
+    public void processAccountTransaction(final String accountNumber) {
+        final Account account = AccountsList.getInstance().getAccountsList().get(accountNumber);
+        if (account == null || !account.getCurrentStatus().canTransitionTo(Account.Status.ACTIVE)) {
+            return;
         }
+        accountsJournal.transition(accountNumber, () -> AccountsList.getInstance().transition(accountNumber, Account.Status.ACTIVE, "Account transacting"));
     }
 }
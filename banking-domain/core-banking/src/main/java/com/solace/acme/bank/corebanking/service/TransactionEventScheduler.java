@@ -3,6 +3,8 @@ package com.solace.acme.bank.corebanking.service;
 import com.solace.acme.bank.corebanking.models.Account;
 import com.solace.acme.bank.corebanking.models.AccountsList;
 import com.solace.acme.bank.corebanking.models.Transaction;
+import com.solace.acme.runtime.PublishRejectedException;
+import com.solace.acme.runtime.TraceContext;
 import lombok.extern.slf4j.Slf4j;
 import org.instancio.Instancio;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -20,23 +22,42 @@ public class TransactionEventScheduler {
 
     @Autowired
     private SolaceEventHandler solaceEventHandler;
+    private AccountsEventProcessor accountsEventProcessor;
+
+    @Autowired
+    public void setAccountsEventProcessor(AccountsEventProcessor accountsEventProcessor) {
+        this.accountsEventProcessor = accountsEventProcessor;
+    }
 
     @Scheduled(fixedDelay = 5000, initialDelay = 10000)
     public void simulateTransactionsForAccounts() {
-        AccountsList.getInstance().getAccountsList().entrySet().stream()
-                .filter(entry -> {
-                    Account.Status status = entry.getValue().getCurrentStatus();
-                    return status == Account.Status.OPENED ||
-                            status == Account.Status.ACTIVE ||
-                            status == Account.Status.RESUMED;
-                })
-                .forEach(entry -> {
-                    Account account = entry.getValue();
-                    log.info("Processing account :{} with status:{} ", account.getAccountNumber(), account.getCurrentStatus());
-
-                    final Transaction transactionForAccount = generateRandomTransactionForAccount(account.getAccountNumber());
-                    solaceEventHandler.publishTransactionEvent(transactionForAccount);
-                });
+        for (Account account : AccountsList.getInstance().getAccountsList().values()) {
+            final Account.Status status = account.getCurrentStatus();
+            if (status != Account.Status.OPENED && status != Account.Status.ACTIVE && status != Account.Status.RESUMED) {
+                continue;
+            }
+            log.info("Processing account :{} with status:{} ", account.getAccountNumber(), status);
+            if (!publishTransactionForAccount(account.getAccountNumber())) {
+                log.warn("Publisher is rejecting transactions, the remaining accounts wait for the next run");
+                return;
+            }
+        }
+    }
+
+    /**
+     * Publishes one random transaction for the account, as the start of a new trace, and marks the account active.
+     *
+     * @return false when the publisher rejected the transaction, in which case the account is left unchanged
+     */
+    public boolean publishTransactionForAccount(final String accountNumber) {
+        final Transaction transactionForAccount = generateRandomTransactionForAccount(accountNumber);
+        try {
+            solaceEventHandler.publishTransactionEvent(transactionForAccount, TraceContext.originate(System.currentTimeMillis()));
+        } catch (PublishRejectedException publishRejectedException) {
+            return false;
+        }
+        accountsEventProcessor.processAccountTransaction(accountNumber);
+        return true;
     }
 
     private Transaction generateRandomTransactionForAccount(final String accountNumber) {
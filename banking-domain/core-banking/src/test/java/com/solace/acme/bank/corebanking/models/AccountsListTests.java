@@ -0,0 +1,48 @@
+package com.solace.acme.bank.corebanking.models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class AccountsListTests {
+
+    private static final String ACCOUNT_NUMBER = "1000000001";
+
+    @BeforeEach
+    void resetAccounts() {
+        AccountsList.getInstance().getAccountsList().clear();
+    }
+
+    @Test
+    void keepsTheKnownStateWhenAnAccountIsRegisteredAgain() {
+        assertNotNull(AccountsList.getInstance().register(account(Account.Status.SUSPENDED)));
+        assertNull(AccountsList.getInstance().register(account(Account.Status.OPENED)));
+        assertEquals(Account.Status.SUSPENDED, AccountsList.getInstance().getAccountsList().get(ACCOUNT_NUMBER).getCurrentStatus());
+    }
+
+    @Test
+    void activatesOpenedAndResumedAccountsOnly() {
+        AccountsList.getInstance().register(account(Account.Status.OPENED));
+        assertNotNull(AccountsList.getInstance().transition(ACCOUNT_NUMBER, Account.Status.ACTIVE, "Account transacting"));
+        assertNull(AccountsList.getInstance().transition(ACCOUNT_NUMBER, Account.Status.ACTIVE, "Account transacting"));
+
+        assertNotNull(AccountsList.getInstance().transition(ACCOUNT_NUMBER, Account.Status.SUSPENDED, "suspended"));
+        assertNull(AccountsList.getInstance().transition(ACCOUNT_NUMBER, Account.Status.ACTIVE, "Account transacting"));
+
+        assertNotNull(AccountsList.getInstance().transition(ACCOUNT_NUMBER, Account.Status.RESUMED, "resumed"));
+        assertEquals(Account.Status.ACTIVE, AccountsList.getInstance().transition(ACCOUNT_NUMBER, Account.Status.ACTIVE, "Account transacting").getCurrentStatus());
+    }
+
+    @Test
+    void rejectsTransitionsOfUnknownAccounts() {
+        assertNull(AccountsList.getInstance().transition(ACCOUNT_NUMBER, Account.Status.SUSPENDED, "suspended"));
+        assertNull(AccountsList.getInstance().getAccountsList().get(ACCOUNT_NUMBER));
+    }
+
+    private static Account account(final Account.Status status) {
+        return Account.builder().accountNumber(ACCOUNT_NUMBER).currentStatus(status).build();
+    }
+}
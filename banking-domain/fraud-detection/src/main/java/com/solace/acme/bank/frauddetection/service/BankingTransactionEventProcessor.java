@@ -1,33 +1,21 @@
 package com.solace.acme.bank.frauddetection.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.solace.acme.bank.frauddetection.config.SolaceConfigProperties;
 import com.solace.acme.bank.frauddetection.config.SolaceConnectionParameters;
 import com.solace.acme.bank.frauddetection.models.FraudDetected;
 import com.solace.acme.bank.frauddetection.models.Transaction;
-import com.solace.messaging.MessagingService;
-import com.solace.messaging.PubSubPlusClientException;
-import com.solace.messaging.config.SolaceProperties;
-import com.solace.messaging.config.profile.ConfigurationProfile;
-import com.solace.messaging.publisher.OutboundMessage;
-import com.solace.messaging.publisher.OutboundMessageBuilder;
-import com.solace.messaging.publisher.PersistentMessagePublisher;
-import com.solace.messaging.receiver.MessageReceiver;
-import com.solace.messaging.receiver.PersistentMessageReceiver;
-import com.solace.messaging.resources.Queue;
-import com.solace.messaging.resources.Topic;
+import com.solace.acme.runtime.ConnectionSettings;
+import com.solace.acme.runtime.ReceivedMessage;
+import com.solace.acme.runtime.SolaceRuntime;
+import com.solace.acme.runtime.TraceContext;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.text.StringSubstitutor;
 import org.instancio.Instancio;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Properties;
 import java.util.Random;
 
 import static org.instancio.Select.field;
@@ -39,9 +27,8 @@ public class BankingTransactionEventProcessor {
 
     @Autowired
     private SolaceConfigProperties configProperties;
-    private PersistentMessagePublisher persistentMessagePublisher;
-    private OutboundMessageBuilder messageBuilder;
-    ObjectMapper objectMapper = new ObjectMapper();
+    @Autowired
+    private SolaceRuntime solaceRuntime;
     private Random random = new Random();
 
 
@@ -49,33 +36,12 @@ public class BankingTransactionEventProcessor {
 
     public boolean connectAndConfigureConsumers(final SolaceConnectionParameters solaceConnectionParameters) {
         try {
-            final Properties properties = setupPropertiesForConnection(solaceConnectionParameters);
-            final MessagingService messagingService = MessagingService.builder(ConfigurationProfile.V1).fromProperties(properties).build();
-            messagingService.connect();
-            setupConnectivityHandlingInMessagingService(messagingService);
-            messageBuilder = messagingService.messageBuilder();
-            persistentMessagePublisher = messagingService.createPersistentMessagePublisherBuilder().onBackPressureWait(1).build();
-            persistentMessagePublisher.start();
-
-            final PersistentMessageReceiver bankingTransactionsEventReceiver = messagingService.createPersistentMessageReceiverBuilder().build(Queue.durableExclusiveQueue(configProperties.getBankingTransactionsQueueName()));
-            bankingTransactionsEventReceiver.setReceiveFailureListener(failedReceiveEvent -> System.out.println("### FAILED RECEIVE EVENT " + failedReceiveEvent));
-            bankingTransactionsEventReceiver.start();
-            bankingTransactionsEventReceiver.receiveAsync(buildBankingTransactionsEventHandler(bankingTransactionsEventReceiver));
-
-            persistentMessagePublisher.setMessagePublishReceiptListener(publishReceipt -> {
-                final PubSubPlusClientException e = publishReceipt.getException();
-                if (e == null) {
-                    OutboundMessage outboundMessage = publishReceipt.getMessage();
-                    log.info(String.format("ACK for Message %s", outboundMessage));
-                } else {
-                    Object userContext = publishReceipt.getUserContext();
-                    if (userContext != null) {
-                        log.warn(String.format("NACK for Message %s - %s", userContext, e));
-                    } else {
-                        OutboundMessage outboundMessage = publishReceipt.getMessage();  // which message got NACKed?
-                        log.warn(String.format("NACK for Message %s - %s", outboundMessage, e));
-                    }
-                }
+            solaceRuntime.connect(new ConnectionSettings(solaceConnectionParameters.getHostUrl(), solaceConnectionParameters.getVpnName(),
+                    solaceConnectionParameters.getUserName(), solaceConnectionParameters.getPassword(),
+                    configProperties.getReconnectionAttempts(), configProperties.getConnectionRetriesPerHost()));
+            solaceRuntime.receive(configProperties.getBankingTransactionsQueueName(), (inboundMessage, acknowledgement) -> {
+                performFraudCheck(inboundMessage);
+                acknowledgement.run();
             });
             log.info("Configuration of Receivers and Producers successful");
             return true;
@@ -85,25 +51,26 @@ public class BankingTransactionEventProcessor {
         }
     }
 
-    public boolean performFraudCheck(String incomingTransactionJson) {
-        ObjectMapper objectMapper = new ObjectMapper();
+    /**
+     * Flags the transaction as fraud or not. A transaction that cannot be decoded would fail on every redelivery, it is
+     * logged and dropped so that the caller acknowledges it.
+     */
+    public void performFraudCheck(final ReceivedMessage inboundMessage) {
         try {
-            final Transaction transactionEvent = objectMapper.readValue(incomingTransactionJson, Transaction.class);
+            final Transaction transactionEvent = solaceRuntime.decode(inboundMessage, Transaction.class);
             boolean isFraud = random.nextBoolean();
             if (isFraud) {
                 log.info("Transaction flagged as fraud: {}", transactionEvent);
-                createAndPublishFraudDetectedEvent(transactionEvent);
+                createAndPublishFraudDetectedEvent(transactionEvent, TraceContext.fromMessage(inboundMessage));
             }
-            return true;
-        } catch (JsonProcessingException jsonProcessingException) {
-            log.error("Error encountered while processing Transaction event:{}, exception:", incomingTransactionJson, jsonProcessingException);
-            return false;
+        } catch (IOException ioException) {
+            log.error("Discarding undecodable Transaction event on topic:{}, exception:", inboundMessage.getDestinationName(), ioException);
         }
     }
 
-    private void createAndPublishFraudDetectedEvent(final Transaction transaction) {
+    private void createAndPublishFraudDetectedEvent(final Transaction transaction, final TraceContext traceContext) {
         final FraudDetected fraudDetected = createFraudDetectedInstance(transaction);
-        publishFraudDetectedEvent(fraudDetected);
+        publishFraudDetectedEvent(fraudDetected, traceContext);
     }
 
     private FraudDetected createFraudDetectedInstance(final Transaction transactionEvent) {
@@ -127,53 +94,8 @@ public class BankingTransactionEventProcessor {
     }
 
 
-    private MessageReceiver.MessageHandler buildBankingTransactionsEventHandler(PersistentMessageReceiver bankingTransactionsEventReceiver) {
-        return (inboundMessage -> {
-            try {
-                final String inboundTopic = inboundMessage.getDestinationName();
-                log.info("Processing message on incoming topic :{} with payload:{}", inboundTopic, inboundMessage.getPayloadAsString());
-                boolean eventProcessed = performFraudCheck(inboundMessage.getPayloadAsString());
-                if (eventProcessed) {
-                    bankingTransactionsEventReceiver.ack(inboundMessage);
-                }
-            } catch (RuntimeException runtimeException) {
-                log.error("Runtime exception encountered while processing incoming event payload :{} on topic:{}. Error is :", inboundMessage.getPayloadAsString(), inboundMessage.getDestinationName(), runtimeException);
-            }
-        });
-    }
-
-    private static void setupConnectivityHandlingInMessagingService(final MessagingService messagingService) {
-        messagingService.addServiceInterruptionListener(serviceEvent -> System.out.println("### SERVICE INTERRUPTION: " + serviceEvent.getCause()));
-        messagingService.addReconnectionAttemptListener(serviceEvent -> System.out.println("### RECONNECTING ATTEMPT: " + serviceEvent));
-        messagingService.addReconnectionListener(serviceEvent -> System.out.println("### RECONNECTED: " + serviceEvent));
-    }
-
-    private Properties setupPropertiesForConnection(final SolaceConnectionParameters solaceConnectionParameters) {
-        final Properties properties = new Properties();
-        properties.setProperty(SolaceProperties.TransportLayerProperties.HOST, solaceConnectionParameters.getHostUrl()); // host:port
-        properties.setProperty(SolaceProperties.ServiceProperties.VPN_NAME, solaceConnectionParameters.getVpnName()); // message-vpn
-        properties.setProperty(SolaceProperties.AuthenticationProperties.SCHEME_BASIC_USER_NAME, solaceConnectionParameters.getUserName());
-        properties.setProperty(SolaceProperties.AuthenticationProperties.SCHEME_BASIC_PASSWORD, solaceConnectionParameters.getPassword());
-        properties.setProperty(SolaceProperties.TransportLayerProperties.RECONNECTION_ATTEMPTS, configProperties.getReconnectionAttempts());
-        properties.setProperty(SolaceProperties.TransportLayerProperties.CONNECTION_RETRIES_PER_HOST, configProperties.getConnectionRetriesPerHost());
-        return properties;
-    }
-
-    public void publishFraudDetectedEvent(final FraudDetected fraudDetected) {
-        try {
-            String fraudDetectedJson = objectMapper.writeValueAsString(fraudDetected);
-            final OutboundMessage message = messageBuilder.build(fraudDetectedJson);
-            final Map<String, Object> params = new HashMap<>();
-            params.put("accountID", fraudDetected.getAccountNum());
-            params.put("transactionID", fraudDetected.getTransactionNum());
-            params.put("amount", fraudDetected.getAmount());
-            String topicString = StringSubstitutor.replace(configProperties.getFraudDetectedEventTopicString(), params, "{", "}");
-            persistentMessagePublisher.publish(message, Topic.of(topicString));
-            log.info("Published Fraud Detected event :{} on topic : {}", fraudDetectedJson, topicString);
-        } catch (final RuntimeException runtimeException) {
-            log.error("Error encountered while publishing event, exception :", runtimeException);
-        } catch (JsonProcessingException jsonProcessingException) {
-            log.error("Error encountered while converting Fraud Detected to JSON string, exception :", jsonProcessingException);
-        }
+    public void publishFraudDetectedEvent(final FraudDetected fraudDetected, final TraceContext traceContext) {
+        solaceRuntime.publish(SolaceRuntime.topic(configProperties.getFraudDetectedEventTopicString(), "accountID", fraudDetected.getAccountNum(),
+                "transactionID", fraudDetected.getTransactionNum(), "amount", fraudDetected.getAmount()), fraudDetected, traceContext);
     }
 }
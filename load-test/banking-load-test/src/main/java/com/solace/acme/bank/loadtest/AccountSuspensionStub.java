@@ -0,0 +1,45 @@
+package com.solace.acme.bank.loadtest;
+
+import com.solace.acme.bank.corebanking.models.Account;
+import com.solace.acme.bank.corebanking.models.AccountAction;
+import com.solace.acme.bank.corebanking.models.AccountsList;
+import com.solace.acme.bank.journal.AccountsJournal;
+import com.solace.acme.runtime.Acknowledgement;
+import com.solace.acme.runtime.InboundHandler;
+import com.solace.acme.runtime.ReceivedMessage;
+import com.solace.acme.runtime.SolaceRuntime;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+
+/**
+ * Runs on the core-banking runtime and suspends the account of every AccountSuspended event in the core-banking
+ * registry, so that no more transactions are generated for it. Core-banking has no flow for these events of its own.
+ */
+@Slf4j
+final class AccountSuspensionStub implements InboundHandler {
+
+    static final String QUEUE_NAME = "accounts-suspended";
+
+    private static final String SUSPENDED_COMMENT = "Account suspended after confirmed fraud";
+
+    private final SolaceRuntime solaceRuntime;
+    private final AccountsJournal<Account> accountsJournal;
+
+    AccountSuspensionStub(final SolaceRuntime solaceRuntime, final AccountsJournal<Account> accountsJournal) {
+        this.solaceRuntime = solaceRuntime;
+        this.accountsJournal = accountsJournal;
+    }
+
+    @Override
+    public void onMessage(final ReceivedMessage message, final Acknowledgement acknowledgement) {
+        try {
+            final String accountNumber = solaceRuntime.decode(message, AccountAction.class).getAccountNum();
+            accountsJournal.transition(accountNumber,
+                    () -> AccountsList.getInstance().transition(accountNumber, Account.Status.SUSPENDED, SUSPENDED_COMMENT));
+        } catch (IOException ioException) {
+            log.warn("Discarding undecodable AccountSuspended event", ioException);
+        }
+        acknowledgement.run();
+    }
+}
@@ -0,0 +1,19 @@
+package com.solace.acme.bank.loadtest;
+
+import com.solace.acme.loadtest.LatencySummary;
+import com.solace.acme.loadtest.ServiceStats;
+
+import java.util.Map;
+
+/**
+ * Measurements of one offered transaction rate, taken over the measurement window after warm-up. Rates are per
+ * second, latencies in milliseconds, and the service counters are cumulative since the services started. A step is
+ * sustained when the transactions were published and fraud checked at the offered rate, and the transactions queue
+ * did not build a backlog of more than a second's worth.
+ */
+record BankingLoadStepReport(double offeredTransactionRate, double publishedTransactionRate, double checkedTransactionRate,
+                             long skippedTransactions, long transactionBacklog, boolean sustained, long detectedFrauds,
+                             long suspendedAccounts, long activeAccounts, long liveHeapBytes,
+                             Map<String, Double> allocatedBytesPerSecond, Map<String, LatencySummary> stageLatencies,
+                             Map<String, LatencySummary> endToEndLatencies, Map<String, ServiceStats> services) {
+}
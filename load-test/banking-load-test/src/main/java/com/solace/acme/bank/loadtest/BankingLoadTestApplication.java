@@ -0,0 +1,344 @@
+package com.solace.acme.bank.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.solace.acme.bank.accountmanagement.AccountManagementApplication;
+import com.solace.acme.bank.accountmanagement.config.SolaceConfigProperties;
+import com.solace.acme.bank.accountmanagement.config.SolaceConnectionParameters;
+import com.solace.acme.bank.accountmanagement.service.AccountService;
+import com.solace.acme.bank.accountmanagement.service.SolaceEventPublisher;
+import com.solace.acme.bank.corebanking.CoreBankingApplication;
+import com.solace.acme.bank.corebanking.models.Account;
+import com.solace.acme.bank.corebanking.models.AccountsList;
+import com.solace.acme.bank.corebanking.service.TransactionEventScheduler;
+import com.solace.acme.bank.frauddetection.FraudDetectionApplication;
+import com.solace.acme.bank.journal.AccountsJournal;
+import com.solace.acme.loadtest.AllocationMonitor;
+import com.solace.acme.loadtest.HeapUsage;
+import com.solace.acme.loadtest.RateDriver;
+import com.solace.acme.loadtest.ServiceLauncher;
+import com.solace.acme.loadtest.ServiceStats;
+import com.solace.acme.runtime.ConnectionSettings;
+import com.solace.acme.runtime.SolaceRuntime;
+import com.solace.acme.runtime.local.LocalBroker;
+import com.solace.acme.runtime.local.LocalTransport;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.Options;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.scheduling.annotation.ScheduledAnnotationBeanPostProcessor;
+import org.springframework.scheduling.config.ScheduledTask;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Boots account-management, core-banking and fraud-detection in this JVM against the local broker, seeds accounts
+ * through the account opening flow and pumps transactions for them, either at each of the given rates in turn or from
+ * the core-banking {@link TransactionEventScheduler}. Every step is held for a warm-up and then a measurement window,
+ * after which throughput, backlog, per-stage latency percentiles from transaction to suspension, live heap and the
+ * allocation rate of each service are taken. The highest offered rate the pipeline kept up with is reported as its
+ * maximum sustained transaction rate. The report is written as JSON to the report directory.
+ * <p>
+ * Only the wire is replaced: the services run their own handlers and journals. Fraud-detection flags every other
+ * transaction and the services have no flow past that, so two harness stubs stand in for it: {@link FraudConfirmationStub}
+ * confirms a share of the flagged transactions in account-management and suspends their accounts, and
+ * {@link AccountSuspensionStub} suspends them in core-banking. The seeded accounts are used up at half the
+ * confirmation rate times the transaction rate; the number of accounts still active is part of every step.
+ */
+@Slf4j
+public class BankingLoadTestApplication {
+
+    private static final String CONFIG_NAMES = "banking-load-test,%s-load-test";
+    private static final String[] BROKER_ARGUMENTS = {"-h", "local", "-v", "default", "-u", "default", "-p", "default"};
+    private static final String ACCOUNT_MANAGEMENT = "account-management";
+    private static final String CORE_BANKING = "core-banking";
+    private static final String FRAUD_DETECTION = "fraud-detection";
+    private static final List<String> SERVICE_NAMES = List.of(FRAUD_DETECTION, CORE_BANKING, ACCOUNT_MANAGEMENT);
+    private static final String TRANSACTIONS_QUEUE = "all-transactions";
+    private static final List<String> BANKING_QUEUES = List.of("accounts-opened", TRANSACTIONS_QUEUE, "fraud-detected-events", AccountSuspensionStub.QUEUE_NAME);
+    // the journal directories set in the service load test yaml files are below this one
+    private static final Path JOURNAL_ROOT = Paths.get("target", "banking-load-test", "journal");
+    private static final long SEEDED_ACCOUNT_NUMBER_BASE = 9_000_000_000L;
+    private static final int ACCOUNT_PICKS_PER_TRANSACTION = 8;
+    private static final double SUSTAINED_RATIO = 0.95;
+
+    private final Map<String, ConfigurableApplicationContext> services = new LinkedHashMap<>();
+    private final Map<String, Long> serviceStartupHeapBytes = new LinkedHashMap<>();
+    private final BankingPipelineObserver pipelineObserver = new BankingPipelineObserver();
+    private final LongAdder publishedTransactions = new LongAdder();
+    private final LongAdder skippedTransactions = new LongAdder();
+    private SolaceRuntime observerRuntime;
+    private AllocationMonitor allocationMonitor;
+    private TransactionEventScheduler transactionEventScheduler;
+    private String[] accountNumbers;
+
+    public static void main(String[] args) throws Exception {
+        final Options options = new Options();
+        options.addOption("a", "accounts", true, "Number of accounts to seed (default 10000)");
+        options.addOption("g", "generator", true, "rate to publish transactions at the given rates, scheduler to leave it to the core-banking scheduler (default rate)");
+        options.addOption("r", "rates", true, "Comma separated transaction rates per second, one step each (default 250,500,1000,2000)");
+        options.addOption("c", "confirmationRate", true, "Share of the flagged transactions confirmed as fraud, suspending their account (default 0.02)");
+        options.addOption("w", "warmupSeconds", true, "Warm-up of each step (default 15)");
+        options.addOption("s", "stepSeconds", true, "Measurement window of each step (default 30)");
+        options.addOption("d", "drainSeconds", true, "Maximum wait for queued events after the last step (default 60)");
+        options.addOption("o", "reportDirectory", true, "Directory of the JSON report (default target/banking-load-test)");
+        final CommandLine line = new DefaultParser().parse(options, args);
+
+        final int accountCount = Integer.parseInt(line.getOptionValue("a", "10000"));
+        final String generator = line.getOptionValue("g", "rate");
+        if (!generator.equals("rate") && !generator.equals("scheduler")) {
+            throw new IllegalArgumentException("Unknown generator " + generator + ", expected rate or scheduler");
+        }
+        final double[] rates = generator.equals("scheduler") ? new double[]{0}
+                : Arrays.stream(line.getOptionValue("r", "250,500,1000,2000").split(",")).map(String::trim).mapToDouble(Double::parseDouble).toArray();
+        final double confirmationRate = Double.parseDouble(line.getOptionValue("c", "0.02"));
+        final long warmupSeconds = Long.parseLong(line.getOptionValue("w", "15"));
+        final long stepSeconds = Long.parseLong(line.getOptionValue("s", "30"));
+        final long drainSeconds = Long.parseLong(line.getOptionValue("d", "60"));
+        final Path reportDirectory = Paths.get(line.getOptionValue("o", "target/banking-load-test"));
+
+        // devtools would restart account-management in its own class loader, away from the shared local broker
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        final BankingLoadTestApplication loadTest = new BankingLoadTestApplication();
+        try {
+            loadTest.startServices(generator.equals("scheduler"), confirmationRate);
+            loadTest.seedAccounts(accountCount);
+            final BankingLoadTestReport report = loadTest.run(generator, rates, warmupSeconds, stepSeconds, drainSeconds);
+            Files.createDirectories(reportDirectory);
+            final Path reportFile = reportDirectory.resolve("banking-load-test-" + report.startedAtEpochMillis() + ".json");
+            new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(reportFile.toFile(), report);
+            log.info("Load test report written to {}", reportFile.toAbsolutePath());
+        } finally {
+            loadTest.stopServices();
+        }
+        System.exit(0);
+    }
+
+    private void startServices(final boolean schedulerGenerator, final double confirmationRate) throws InterruptedException, IOException {
+        // every run starts from empty registries, a journal left by an earlier run would be recovered otherwise
+        FileSystemUtils.deleteRecursively(JOURNAL_ROOT);
+        LocalBroker.getInstance().provisionQueue(BankingPipelineObserver.QUEUE_NAME, List.of("acmebank/>"));
+        observerRuntime = new SolaceRuntime(new LocalTransport(LocalBroker.getInstance()));
+        observerRuntime.connect(new ConnectionSettings("local", "default", "default", "default", "0", "0"));
+        observerRuntime.receive(BankingPipelineObserver.QUEUE_NAME, pipelineObserver);
+        allocationMonitor = new AllocationMonitor(SERVICE_NAMES);
+
+        start(FRAUD_DETECTION, FraudDetectionApplication.class, BROKER_ARGUMENTS);
+        final ConfigurableApplicationContext coreBankingContext = start(CORE_BANKING, CoreBankingApplication.class, BROKER_ARGUMENTS);
+        transactionEventScheduler = coreBankingContext.getBean(TransactionEventScheduler.class);
+        if (!schedulerGenerator) {
+            // the harness drives transactions itself, the scheduler would add its own on top
+            coreBankingContext.getBean(ScheduledAnnotationBeanPostProcessor.class).getScheduledTasks().forEach(ScheduledTask::cancel);
+        }
+        final ConfigurableApplicationContext accountManagementContext = start(ACCOUNT_MANAGEMENT, AccountManagementApplication.class);
+        final AccountService accountService = accountManagementContext.getBean(AccountService.class);
+        final SolaceConnectionParameters connectionParameters = new SolaceConnectionParameters();
+        connectionParameters.setHostUrl("local");
+        connectionParameters.setVpnName("default");
+        connectionParameters.setUserName("default");
+        connectionParameters.setPassword("default");
+        if (!ServiceLauncher.callInService(ACCOUNT_MANAGEMENT, () -> accountService.connectToBroker(connectionParameters))) {
+            throw new IllegalStateException("Account management did not connect to the local broker");
+        }
+        for (ConfigurableApplicationContext context : services.values()) {
+            ServiceLauncher.awaitConnected(context);
+        }
+        startStubs(accountManagementContext, coreBankingContext, confirmationRate);
+    }
+
+    /**
+     * Registers the stubs on the runtime of the service they stand in for, so that their work is attributed to it.
+     */
+    @SuppressWarnings("unchecked")
+    private void startStubs(final ConfigurableApplicationContext accountManagementContext, final ConfigurableApplicationContext coreBankingContext,
+                            final double confirmationRate) throws InterruptedException {
+        final SolaceRuntime accountManagementRuntime = accountManagementContext.getBean(SolaceRuntime.class);
+        final FraudConfirmationStub fraudConfirmationStub = new FraudConfirmationStub(accountManagementRuntime,
+                accountManagementContext.getBean(SolaceEventPublisher.class), accountManagementContext.getBean(AccountsJournal.class), confirmationRate);
+        final String fraudDetectedQueue = accountManagementContext.getBean(SolaceConfigProperties.class).getSolaceFraudDetectedEventQueue();
+        ServiceLauncher.callInService(ACCOUNT_MANAGEMENT, () -> accountManagementRuntime.receive(fraudDetectedQueue, fraudConfirmationStub));
+        final SolaceRuntime coreBankingRuntime = coreBankingContext.getBean(SolaceRuntime.class);
+        final AccountSuspensionStub accountSuspensionStub = new AccountSuspensionStub(coreBankingRuntime, coreBankingContext.getBean(AccountsJournal.class));
+        ServiceLauncher.callInService(CORE_BANKING, () -> coreBankingRuntime.receive(AccountSuspensionStub.QUEUE_NAME, accountSuspensionStub));
+    }
+
+    private ConfigurableApplicationContext start(final String serviceName, final Class<?> applicationClass, final String... args) throws InterruptedException {
+        final long liveHeapBytesBefore = HeapUsage.liveBytes();
+        final ConfigurableApplicationContext context = ServiceLauncher.start(serviceName, applicationClass, String.format(CONFIG_NAMES, serviceName), args);
+        services.put(serviceName, context);
+        serviceStartupHeapBytes.put(serviceName, Math.max(0, HeapUsage.liveBytes() - liveHeapBytesBefore));
+        return context;
+    }
+
+    /**
+     * Applies for the accounts directly in the account-management registry and opens them through the service, so
+     * that core-banking learns about them from the account opened events as it would in production.
+     */
+    private void seedAccounts(final int accountCount) throws InterruptedException {
+        final ConfigurableApplicationContext accountManagementContext = services.get(ACCOUNT_MANAGEMENT);
+        final AccountService accountService = accountManagementContext.getBean(AccountService.class);
+        @SuppressWarnings("unchecked")
+        final AccountsJournal<com.solace.acme.bank.accountmanagement.models.Account> accountsJournal = accountManagementContext.getBean(AccountsJournal.class);
+        final Map<String, com.solace.acme.bank.accountmanagement.models.Account> appliedAccounts =
+                com.solace.acme.bank.accountmanagement.models.AccountsList.getInstance().getAccountsList();
+        final long startTime = System.nanoTime();
+        accountNumbers = new String[accountCount];
+        for (int i = 0; i < accountCount; i++) {
+            final String accountNumber = String.valueOf(SEEDED_ACCOUNT_NUMBER_BASE + i);
+            final com.solace.acme.bank.accountmanagement.models.Account appliedAccount = com.solace.acme.bank.accountmanagement.models.Account.builder()
+                    .accountNumber(accountNumber)
+                    .currentStatus(com.solace.acme.bank.accountmanagement.models.Account.Status.APPLIED)
+                    .comment("Seeded by the banking load test")
+                    .build();
+            accountsJournal.transition(accountNumber, () -> {
+                appliedAccounts.put(accountNumber, appliedAccount);
+                return appliedAccount;
+            });
+            accountService.processAccountOpening(accountNumber);
+            accountNumbers[i] = accountNumber;
+        }
+        final long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(5);
+        while (activeAccounts() < accountCount) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("Core banking only learned about " + activeAccounts() + " of " + accountCount + " seeded accounts");
+            }
+            TimeUnit.MILLISECONDS.sleep(100);
+        }
+        log.info("Seeded {} accounts in {} ms", accountCount, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+    }
+
+    private BankingLoadTestReport run(final String generator, final double[] rates, final long warmupSeconds, final long stepSeconds,
+                                      final long drainSeconds) throws InterruptedException {
+        final long startedAt = System.currentTimeMillis();
+        final long idleLiveHeapBytes = HeapUsage.liveBytes();
+        final List<BankingLoadStepReport> steps = new ArrayList<>();
+        // created on a core-banking thread, so the driver thread and the transactions it generates count against core-banking
+        try (RateDriver transactionDriver = ServiceLauncher.callInService(CORE_BANKING, () -> new RateDriver("transaction-driver", this::submitTransaction))) {
+            for (int step = 0; step < rates.length; step++) {
+                if (generator.equals("rate")) {
+                    log.info("Offering {} transactions/s, warming up for {}s", rates[step], warmupSeconds);
+                    if (step == 0) {
+                        transactionDriver.start(rates[step]);
+                    } else {
+                        transactionDriver.setRate(rates[step]);
+                    }
+                } else {
+                    log.info("Transactions published by the core-banking scheduler, warming up for {}s", warmupSeconds);
+                }
+                TimeUnit.SECONDS.sleep(warmupSeconds);
+                steps.add(measureStep(rates[step], stepSeconds));
+            }
+        }
+        final long drainStart = System.nanoTime();
+        final long drainDeadline = drainStart + TimeUnit.SECONDS.toNanos(drainSeconds);
+        while (queuedMessages() > 0 && System.nanoTime() < drainDeadline) {
+            TimeUnit.MILLISECONDS.sleep(100);
+        }
+        final double maxSustainedTransactionRate = steps.stream().filter(BankingLoadStepReport::sustained)
+                .mapToDouble(BankingLoadStepReport::offeredTransactionRate).max().orElse(0);
+        return new BankingLoadTestReport("banking", generator, startedAt, accountNumbers.length, warmupSeconds, stepSeconds,
+                serviceStartupHeapBytes, idleLiveHeapBytes, steps, maxSustainedTransactionRate,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - drainStart), queuedMessages());
+    }
+
+    private BankingLoadStepReport measureStep(final double rate, final long stepSeconds) throws InterruptedException {
+        pipelineObserver.resetLatencies();
+        final long published = publishedTransactions.sum();
+        final long skipped = skippedTransactions.sum();
+        final long transactionsPublishedByCoreBanking = serviceStats(CORE_BANKING).published();
+        final long checked = serviceStats(FRAUD_DETECTION).acknowledged();
+        final long detected = pipelineObserver.getDetectedFrauds();
+        final long suspended = pipelineObserver.getSuspendedAccounts();
+        final Map<String, Long> allocatedBytes = allocationMonitor.allocatedBytes();
+        final long windowStart = System.nanoTime();
+        TimeUnit.SECONDS.sleep(stepSeconds);
+        final double windowSeconds = (System.nanoTime() - windowStart) / 1e9;
+
+        final Map<String, Double> allocatedBytesPerSecond = new LinkedHashMap<>();
+        allocationMonitor.allocatedBytes().forEach((serviceName, bytes) ->
+                allocatedBytesPerSecond.put(serviceName, (bytes - allocatedBytes.getOrDefault(serviceName, 0L)) / windowSeconds));
+        final Map<String, ServiceStats> serviceStats = new LinkedHashMap<>();
+        services.keySet().forEach(serviceName -> serviceStats.put(serviceName, serviceStats(serviceName)));
+        // in scheduler mode the harness publishes nothing, the offered rate is whatever the scheduler published
+        final double publishedRate = rate > 0 ? (publishedTransactions.sum() - published) / windowSeconds
+                : (serviceStats.get(CORE_BANKING).published() - transactionsPublishedByCoreBanking) / windowSeconds;
+        final double offeredRate = rate > 0 ? rate : publishedRate;
+        final double checkedRate = (serviceStats.get(FRAUD_DETECTION).acknowledged() - checked) / windowSeconds;
+        final long transactionBacklog = LocalBroker.getInstance().getQueueDepth(TRANSACTIONS_QUEUE);
+        final boolean sustained = publishedRate >= SUSTAINED_RATIO * offeredRate && checkedRate >= SUSTAINED_RATIO * publishedRate
+                && transactionBacklog <= Math.max(1, publishedRate);
+        final BankingLoadStepReport stepReport = new BankingLoadStepReport(offeredRate, publishedRate, checkedRate,
+                skippedTransactions.sum() - skipped, transactionBacklog, sustained, pipelineObserver.getDetectedFrauds() - detected,
+                pipelineObserver.getSuspendedAccounts() - suspended, activeAccounts(), HeapUsage.liveBytes(), allocatedBytesPerSecond,
+                pipelineObserver.stageLatencies(), pipelineObserver.endToEndLatencies(), serviceStats);
+        log.info("Offered {} transactions/s: published {}/s, fraud checked {}/s, {} queued, {} accounts active, sustained: {}",
+                String.format("%.1f", offeredRate), String.format("%.1f", publishedRate), String.format("%.1f", checkedRate),
+                transactionBacklog, stepReport.activeAccounts(), sustained);
+        if (stepReport.activeAccounts() < accountNumbers.length / 10) {
+            log.warn("Fewer than a tenth of the seeded accounts are still active, seed more accounts for longer runs");
+        }
+        return stepReport;
+    }
+
+    /**
+     * Publishes a transaction for a random seeded account that core-banking still considers active, as the scheduler
+     * would. Gives up after a few suspended accounts in a row, so the offered rate is kept even when most are used up.
+     * Transactions the publisher rejects are counted as skipped.
+     */
+    private void submitTransaction() {
+        final Map<String, Account> accounts = AccountsList.getInstance().getAccountsList();
+        for (int pick = 0; pick < ACCOUNT_PICKS_PER_TRANSACTION; pick++) {
+            final String accountNumber = accountNumbers[ThreadLocalRandom.current().nextInt(accountNumbers.length)];
+            final Account account = accounts.get(accountNumber);
+            if (account != null && isActive(account.getCurrentStatus())) {
+                if (transactionEventScheduler.publishTransactionForAccount(accountNumber)) {
+                    publishedTransactions.increment();
+                } else {
+                    skippedTransactions.increment();
+                }
+                return;
+            }
+        }
+        skippedTransactions.increment();
+    }
+
+    private long activeAccounts() {
+        return AccountsList.getInstance().getAccountsList().values().stream()
+                .filter(account -> isActive(account.getCurrentStatus()))
+                .count();
+    }
+
+    private static boolean isActive(final Account.Status status) {
+        return status == Account.Status.OPENED || status == Account.Status.ACTIVE || status == Account.Status.RESUMED;
+    }
+
+    private ServiceStats serviceStats(final String serviceName) {
+        return ServiceStats.of(services.get(serviceName).getBean(SolaceRuntime.class).getStats());
+    }
+
+    private long queuedMessages() {
+        return BANKING_QUEUES.stream().mapToLong(LocalBroker.getInstance()::getQueueDepth).sum();
+    }
+
+    private void stopServices() {
+        services.values().forEach(ConfigurableApplicationContext::close);
+        if (observerRuntime != null) {
+            observerRuntime.close();
+        }
+        if (allocationMonitor != null) {
+            allocationMonitor.close();
+        }
+    }
+}
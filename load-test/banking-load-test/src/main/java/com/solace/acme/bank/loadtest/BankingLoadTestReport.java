@@ -0,0 +1,15 @@
+package com.solace.acme.bank.loadtest;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of one run of the harness, written as JSON. The startup heap of a service is the growth of live heap while
+ * it started, the seeded accounts are included in the idle heap. The drain figures cover the time after the last
+ * step until the banking queues were empty or the drain timeout passed.
+ */
+record BankingLoadTestReport(String pipeline, String generator, long startedAtEpochMillis, int seededAccounts, long warmupSeconds,
+                             long stepSeconds, Map<String, Long> serviceStartupHeapBytes, long idleLiveHeapBytes,
+                             List<BankingLoadStepReport> steps, double maxSustainedTransactionRate, long drainMillis,
+                             long undrainedMessages) {
+}
@@ -0,0 +1,86 @@
+package com.solace.acme.bank.loadtest;
+
+import com.solace.acme.loadtest.LatencySummary;
+import com.solace.acme.loadtest.StageLatencies;
+import com.solace.acme.runtime.Acknowledgement;
+import com.solace.acme.runtime.InboundHandler;
+import com.solace.acme.runtime.ReceivedMessage;
+import com.solace.acme.runtime.TraceContext;
+
+import java.util.Map;
+
+/**
+ * Listens to every banking event on a catch-all queue and reads the pipeline off the {@link TraceContext} each event
+ * carries, see {@link StageLatencies}. A transaction starts a trace in core-banking; when it is flagged the trace runs
+ * on to {@code fraud.detected}, and when {@link FraudConfirmationStub} confirms the fraud on to {@code fraud.confirmed}
+ * and {@code account.suspended}. The end-to-end latency of each of those three is kept. Account events published without a trace, such as the openings of the
+ * seeded accounts, are ignored.
+ */
+final class BankingPipelineObserver implements InboundHandler {
+
+    static final String QUEUE_NAME = "banking-load-test-observer";
+
+    private static final String FRAUD_DETECTED = "fraud.detected";
+    private static final String FRAUD_CONFIRMED = "fraud.confirmed";
+    private static final String ACCOUNT_SUSPENDED = "account.suspended";
+
+    private final StageLatencies latencies = new StageLatencies();
+    private long detectedFrauds;
+    private long confirmedFrauds;
+    private long suspendedAccounts;
+
+    @Override
+    public void onMessage(final ReceivedMessage message, final Acknowledgement acknowledgement) {
+        final TraceContext traceContext = TraceContext.fromMessage(message);
+        if (traceContext != null) {
+            final String stage = StageLatencies.stageOf(message.getDestinationName());
+            synchronized (this) {
+                latencies.recordStage(stage, traceContext);
+                switch (stage) {
+                    case FRAUD_DETECTED -> {
+                        detectedFrauds++;
+                        latencies.recordEndToEnd("fraudDetected", traceContext);
+                    }
+                    case FRAUD_CONFIRMED -> {
+                        confirmedFrauds++;
+                        latencies.recordEndToEnd("fraudConfirmed", traceContext);
+                    }
+                    case ACCOUNT_SUSPENDED -> {
+                        suspendedAccounts++;
+                        latencies.recordEndToEnd("accountSuspended", traceContext);
+                    }
+                    default -> {
+                    }
+                }
+            }
+        }
+        acknowledgement.run();
+    }
+
+    synchronized long getDetectedFrauds() {
+        return detectedFrauds;
+    }
+
+    synchronized long getConfirmedFrauds() {
+        return confirmedFrauds;
+    }
+
+    synchronized long getSuspendedAccounts() {
+        return suspendedAccounts;
+    }
+
+    synchronized Map<String, LatencySummary> stageLatencies() {
+        return latencies.stageSummaries();
+    }
+
+    synchronized Map<String, LatencySummary> endToEndLatencies() {
+        return latencies.endToEndSummaries();
+    }
+
+    /**
+     * Forgets the latencies recorded so far, the counts keep running.
+     */
+    synchronized void resetLatencies() {
+        latencies.reset();
+    }
+}
@@ -0,0 +1,88 @@
+package com.solace.acme.bank.loadtest;
+
+import com.solace.acme.bank.accountmanagement.models.Account;
+import com.solace.acme.bank.accountmanagement.models.AccountAction;
+import com.solace.acme.bank.accountmanagement.models.AccountsList;
+import com.solace.acme.bank.accountmanagement.models.FraudConfirmed;
+import com.solace.acme.bank.accountmanagement.models.FraudDetected;
+import com.solace.acme.bank.accountmanagement.service.SolaceEventPublisher;
+import com.solace.acme.bank.journal.AccountsJournal;
+import com.solace.acme.runtime.Acknowledgement;
+import com.solace.acme.runtime.InboundHandler;
+import com.solace.acme.runtime.ReceivedMessage;
+import com.solace.acme.runtime.SolaceRuntime;
+import com.solace.acme.runtime.TraceContext;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Stands in for the fraud team the banking services have no flow for. Runs on the account-management runtime and
+ * confirms the given share of the frauds fraud-detection flags: it publishes FraudConfirmed, suspends the account in
+ * the account-management registry and publishes AccountSuspended, all on the trace of the flagged transaction. The
+ * other flagged transactions are acknowledged without further ado.
+ */
+@Slf4j
+final class FraudConfirmationStub implements InboundHandler {
+
+    private static final String SUSPENDED_COMMENT = "Account suspended after confirmed fraud";
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    private final SolaceRuntime solaceRuntime;
+    private final SolaceEventPublisher solaceEventPublisher;
+    private final AccountsJournal<Account> accountsJournal;
+    private final double confirmationRate;
+
+    FraudConfirmationStub(final SolaceRuntime solaceRuntime, final SolaceEventPublisher solaceEventPublisher, final AccountsJournal<Account> accountsJournal,
+                          final double confirmationRate) {
+        this.solaceRuntime = solaceRuntime;
+        this.solaceEventPublisher = solaceEventPublisher;
+        this.accountsJournal = accountsJournal;
+        this.confirmationRate = confirmationRate;
+    }
+
+    @Override
+    public void onMessage(final ReceivedMessage message, final Acknowledgement acknowledgement) {
+        if (ThreadLocalRandom.current().nextDouble() >= confirmationRate) {
+            acknowledgement.run();
+            return;
+        }
+        final FraudDetected fraudDetected;
+        try {
+            fraudDetected = solaceRuntime.decode(message, FraudDetected.class);
+        } catch (IOException ioException) {
+            log.warn("Discarding undecodable FraudDetected event", ioException);
+            acknowledgement.run();
+            return;
+        }
+        final TraceContext traceContext = TraceContext.fromMessage(message);
+        final String accountNumber = fraudDetected.getAccountNum();
+        final String timestamp = LocalDateTime.now().format(TIMESTAMP_FORMAT);
+        solaceEventPublisher.publishFraudConfirmedEvent(FraudConfirmed.builder()
+                .detectionNum(fraudDetected.getDetectionNum())
+                .transactionNum(fraudDetected.getTransactionNum())
+                .accountNum(accountNumber)
+                .transactionType(fraudDetected.getTransactionType())
+                .amount(fraudDetected.getAmount())
+                .currency(fraudDetected.getCurrency())
+                .incidentDescription("Confirmed fraudulent transaction")
+                .fraudConfirmedBy("banking-load-test")
+                .incidentTimestamp(fraudDetected.getTimestamp())
+                .timestamp(timestamp)
+                .build(), traceContext);
+        final Account suspendedAccount = accountsJournal.transition(accountNumber,
+                () -> AccountsList.getInstance().transition(accountNumber, Account.Status.SUSPENDED, SUSPENDED_COMMENT));
+        // an account with two confirmed frauds in flight is suspended once
+        if (suspendedAccount != null) {
+            solaceEventPublisher.publishAccountSuspendedEvent(AccountAction.builder()
+                    .accountNum(accountNumber)
+                    .accountAction(Account.Status.SUSPENDED.toString())
+                    .timestamp(timestamp)
+                    .build(), traceContext);
+        }
+        acknowledgement.run();
+    }
+}
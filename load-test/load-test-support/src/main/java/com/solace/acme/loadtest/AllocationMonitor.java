@@ -0,0 +1,115 @@
+package com.solace.acme.loadtest;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Attributes heap allocation to the services running in this JVM by the thread group their threads belong to, see
+ * {@link ServiceLauncher}. The bytes allocated by every live thread are sampled at a fixed interval and the growth
+ * since the previous sample is added to the service of the thread, so a thread that ends between two samples loses
+ * at most one interval. Threads outside every service group, the harness itself included, count as {@link #OTHER}.
+ */
+public final class AllocationMonitor implements AutoCloseable {
+
+    public static final String OTHER = "other";
+
+    private static final long SAMPLE_INTERVAL_MILLIS = 100;
+
+    private final com.sun.management.ThreadMXBean threadMXBean;
+    private final Set<String> serviceNames;
+    private final Map<Long, ThreadAllocation> threadAllocations = new HashMap<>();
+    private final Map<String, Long> allocatedBytes = new LinkedHashMap<>();
+    private final ScheduledExecutorService sampler;
+
+    public AllocationMonitor(final Collection<String> serviceNames) {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean allocationMXBean)
+                || !allocationMXBean.isThreadAllocatedMemorySupported()) {
+            throw new IllegalStateException("This JVM does not measure allocation per thread");
+        }
+        this.threadMXBean = allocationMXBean;
+        this.threadMXBean.setThreadAllocatedMemoryEnabled(true);
+        this.serviceNames = new HashSet<>(serviceNames);
+        serviceNames.forEach(serviceName -> allocatedBytes.put(serviceName, 0L));
+        allocatedBytes.put(OTHER, 0L);
+        // the first sample only takes the baseline of the threads already running
+        sample(false);
+        sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "allocation-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sampler.scheduleAtFixedRate(() -> sample(true), SAMPLE_INTERVAL_MILLIS, SAMPLE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Bytes allocated per service since the monitor was created, up to now.
+     */
+    public synchronized Map<String, Long> allocatedBytes() {
+        sample(true);
+        return new LinkedHashMap<>(allocatedBytes);
+    }
+
+    private synchronized void sample(final boolean accumulate) {
+        final Thread[] threads = liveThreads();
+        final long[] threadIds = new long[threads.length];
+        for (int i = 0; i < threads.length; i++) {
+            threadIds[i] = threads[i].getId();
+        }
+        final long[] threadAllocatedBytes = threadMXBean.getThreadAllocatedBytes(threadIds);
+        final Set<Long> liveThreadIds = new HashSet<>(threads.length * 2);
+        for (int i = 0; i < threads.length; i++) {
+            if (threadAllocatedBytes[i] < 0) {
+                continue;
+            }
+            liveThreadIds.add(threadIds[i]);
+            final ThreadAllocation previous = threadAllocations.get(threadIds[i]);
+            final String serviceName = previous == null ? serviceOf(threads[i]) : previous.serviceName;
+            // a thread seen for the first time has allocated everything since it started
+            final long growth = previous == null ? threadAllocatedBytes[i] : threadAllocatedBytes[i] - previous.allocatedBytes;
+            if (accumulate && growth > 0) {
+                allocatedBytes.merge(serviceName, growth, Long::sum);
+            }
+            threadAllocations.put(threadIds[i], new ThreadAllocation(serviceName, threadAllocatedBytes[i]));
+        }
+        threadAllocations.keySet().retainAll(liveThreadIds);
+    }
+
+    private String serviceOf(final Thread thread) {
+        for (ThreadGroup threadGroup = thread.getThreadGroup(); threadGroup != null; threadGroup = threadGroup.getParent()) {
+            if (serviceNames.contains(threadGroup.getName())) {
+                return threadGroup.getName();
+            }
+        }
+        return OTHER;
+    }
+
+    private static Thread[] liveThreads() {
+        ThreadGroup rootGroup = Thread.currentThread().getThreadGroup();
+        while (rootGroup.getParent() != null) {
+            rootGroup = rootGroup.getParent();
+        }
+        Thread[] threads = new Thread[rootGroup.activeCount() + 16];
+        int count;
+        while ((count = rootGroup.enumerate(threads, true)) == threads.length) {
+            threads = new Thread[threads.length * 2];
+        }
+        return Arrays.copyOf(threads, count);
+    }
+
+    @Override
+    public void close() {
+        sampler.shutdownNow();
+    }
+
+    private record ThreadAllocation(String serviceName, long allocatedBytes) {
+    }
+}
@@ -0,0 +1,17 @@
+package com.solace.acme.loadtest;
+
+import java.lang.management.ManagementFactory;
+
+public final class HeapUsage {
+
+    private HeapUsage() {
+    }
+
+    /**
+     * Heap in use after asking for a full collection, an approximation of the live data held.
+     */
+    public static long liveBytes() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
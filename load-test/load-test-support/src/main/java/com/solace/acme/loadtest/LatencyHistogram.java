@@ -0,0 +1,81 @@
+package com.solace.acme.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Log-linear histogram of non-negative latencies. Values below 256 are counted exactly, larger ones in buckets of
+ * 1/128 of their power of two, so percentiles are within 1% of the recorded values while the whole range of a long
+ * fits in a few thousand counters. Not thread safe.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int EXACT_VALUES = SUB_BUCKETS << 1;
+
+    private final long[] counts = new long[EXACT_VALUES + (Long.SIZE - SUB_BUCKET_BITS - 1) * SUB_BUCKETS];
+    private long count;
+    private long sum;
+    private long max;
+
+    public void record(final long value) {
+        if (value < 0) {
+            return;
+        }
+        counts[index(value)]++;
+        count++;
+        sum += value;
+        max = Math.max(max, value);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * The highest value in the bucket holding the given percentile (0 to 100), never above the maximum recorded.
+     */
+    public long percentile(final double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+        long seen = 0;
+        for (int index = 0; index < counts.length; index++) {
+            seen += counts[index];
+            if (seen >= rank) {
+                return Math.min(max, highestValueOf(index));
+            }
+        }
+        return max;
+    }
+
+    public LatencySummary summary() {
+        return new LatencySummary(count, percentile(50), percentile(90), percentile(99), percentile(99.9), max,
+                count == 0 ? 0 : (double) sum / count);
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        max = 0;
+    }
+
+    static int index(final long value) {
+        if (value < EXACT_VALUES) {
+            return (int) value;
+        }
+        final int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - 1 - SUB_BUCKET_BITS;
+        return EXACT_VALUES + (shift - 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    static long highestValueOf(final int index) {
+        if (index < EXACT_VALUES) {
+            return index;
+        }
+        final int shift = (index - EXACT_VALUES) / SUB_BUCKETS + 1;
+        final long top = (index - EXACT_VALUES) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((top + 1) << shift) - 1;
+    }
+}
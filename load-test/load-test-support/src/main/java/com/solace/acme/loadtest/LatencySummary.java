@@ -0,0 +1,7 @@
+package com.solace.acme.loadtest;
+
+/**
+ * Percentiles of one latency, in milliseconds.
+ */
+public record LatencySummary(long count, long p50, long p90, long p99, long p999, long max, double mean) {
+}
@@ -0,0 +1,69 @@
+package com.solace.acme.loadtest;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs an action at a fixed rate on its own thread. The schedule is kept against the start time rather than the
+ * previous run, so an action that falls behind catches up instead of silently lowering the offered rate.
+ */
+public final class RateDriver implements AutoCloseable {
+
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Runnable action;
+    private final LongAdder issued = new LongAdder();
+    private final Thread driver;
+    private volatile double ratePerSecond;
+    private volatile boolean stopped;
+
+    public RateDriver(final String name, final Runnable action) {
+        this.action = action;
+        this.driver = new Thread(this::drive, name);
+        this.driver.setDaemon(true);
+    }
+
+    public void start(final double ratePerSecond) {
+        this.ratePerSecond = ratePerSecond;
+        driver.start();
+    }
+
+    /**
+     * Changes the rate, counting from now on.
+     */
+    public void setRate(final double ratePerSecond) {
+        this.ratePerSecond = ratePerSecond;
+        LockSupport.unpark(driver);
+    }
+
+    public long getIssuedCount() {
+        return issued.sum();
+    }
+
+    private void drive() {
+        double currentRate = ratePerSecond;
+        long periodStart = System.nanoTime();
+        long periodIssued = 0;
+        while (!stopped) {
+            if (currentRate != ratePerSecond) {
+                currentRate = ratePerSecond;
+                periodStart = System.nanoTime();
+                periodIssued = 0;
+            }
+            final long due = (long) ((System.nanoTime() - periodStart) * currentRate / TimeUnit.SECONDS.toNanos(1));
+            while (periodIssued < due && !stopped) {
+                action.run();
+                periodIssued++;
+                issued.increment();
+            }
+            LockSupport.parkNanos(this, TICK_NANOS);
+        }
+    }
+
+    @Override
+    public void close() {
+        stopped = true;
+        LockSupport.unpark(driver);
+    }
+}
@@ -0,0 +1,183 @@
+package com.solace.acme.loadtest;
+
+import com.solace.acme.runtime.SolaceRuntime;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.event.ApplicationEnvironmentPreparedEvent;
+import org.springframework.boot.context.event.ApplicationFailedEvent;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.UrlResource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Starts Spring Boot services side by side in the current JVM.
+ * <p>
+ * Every service jar carries its own {@code application.yaml}, and on a shared class path only the first of them would
+ * be found. Each service is therefore started with {@code spring.config.name} pointing at the harness configuration,
+ * and the {@code application.yaml} of the jar the application class was loaded from is added behind it, so the
+ * harness only has to state what it changes. Services run without a web server and on their own thread, because
+ * several of them block their command line runner until shutdown.
+ * <p>
+ * That thread is placed in a thread group named after the service. Threads inherit the group of the thread that
+ * creates them, so the pools, timers and dispatchers a service starts all end up in its group, which is what
+ * {@link AllocationMonitor} attributes allocation by.
+ */
+@Slf4j
+public final class ServiceLauncher {
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+    private static final Map<String, ThreadGroup> SERVICE_THREAD_GROUPS = new ConcurrentHashMap<>();
+
+    private ServiceLauncher() {
+    }
+
+    /**
+     * Starts the application and returns its context once started and connected to the broker.
+     *
+     * @param serviceName name of the service thread and of the service yaml property source
+     * @param configNames comma separated {@code spring.config.name} of the harness configuration
+     * @param args        command line arguments of the service
+     */
+    public static ConfigurableApplicationContext start(final String serviceName, final Class<?> applicationClass, final String configNames,
+                                                       final String... args) throws InterruptedException {
+        return start(serviceName, applicationClass, configNames, null, args);
+    }
+
+    /**
+     * Starts the application with the given runtime in place of the one the {@code solace-runtime} properties would
+     * configure, e.g. one on a stub transport, and returns its context once started.
+     */
+    public static ConfigurableApplicationContext start(final String serviceName, final Class<?> applicationClass, final String configNames,
+                                                       final SolaceRuntime solaceRuntime, final String... args) throws InterruptedException {
+        final CompletableFuture<ConfigurableApplicationContext> started = new CompletableFuture<>();
+        final URL serviceConfiguration = serviceConfiguration(applicationClass);
+        final SpringApplicationBuilder application = new SpringApplicationBuilder(applicationClass)
+                .web(WebApplicationType.NONE)
+                .properties("spring.config.name=" + configNames)
+                .listeners(new LaunchListener(serviceName, serviceConfiguration, started));
+        if (solaceRuntime != null) {
+            // registered before the auto-configuration runs, which then backs off
+            application.initializers(context -> context.getBeanFactory().registerSingleton("solaceRuntime", solaceRuntime));
+        }
+        final ThreadGroup serviceThreadGroup = new ThreadGroup(serviceName);
+        SERVICE_THREAD_GROUPS.put(serviceName, serviceThreadGroup);
+        final Thread serviceThread = new Thread(serviceThreadGroup, () -> {
+            try {
+                application.run(args);
+            } catch (RuntimeException runtimeException) {
+                started.completeExceptionally(runtimeException);
+            }
+        }, serviceName);
+        serviceThread.setDaemon(true);
+        serviceThread.start();
+        try {
+            final ConfigurableApplicationContext context = started.get(STARTUP_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+            log.info("Started {} from {}", serviceName, serviceConfiguration);
+            return context;
+        } catch (ExecutionException | TimeoutException exception) {
+            throw new IllegalStateException("Service " + serviceName + " did not start", exception);
+        }
+    }
+
+    /**
+     * Runs the call on a thread of the service's thread group and returns its result, for calls into a service that
+     * start threads of their own, such as connecting to the broker, so that those threads are attributed to it.
+     */
+    public static <T> T callInService(final String serviceName, final Callable<T> call) throws InterruptedException {
+        final ThreadGroup serviceThreadGroup = SERVICE_THREAD_GROUPS.get(serviceName);
+        if (serviceThreadGroup == null) {
+            throw new IllegalArgumentException("Service " + serviceName + " was not started");
+        }
+        final FutureTask<T> task = new FutureTask<>(call);
+        final Thread callThread = new Thread(serviceThreadGroup, task, serviceName + "-call");
+        callThread.setDaemon(true);
+        callThread.start();
+        try {
+            return task.get();
+        } catch (ExecutionException executionException) {
+            throw new IllegalStateException("Call into service " + serviceName + " failed", executionException.getCause());
+        }
+    }
+
+    /**
+     * Waits until the runtime of the service is connected, for services that connect from a command line runner.
+     */
+    public static void awaitConnected(final ConfigurableApplicationContext context) throws InterruptedException {
+        final SolaceRuntime solaceRuntime = context.getBean(SolaceRuntime.class);
+        final long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (!solaceRuntime.isConnected()) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("Service " + context.getId() + " did not connect to the broker");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Returns the {@code application.yaml} of the jar the application class was loaded from.
+     */
+    public static URL serviceConfiguration(final Class<?> applicationClass) {
+        final String location = applicationClass.getProtectionDomain().getCodeSource().getLocation().toString()
+                .replaceFirst("^jar:", "").replaceFirst("!/$", "");
+        try {
+            for (URL candidate : Collections.list(applicationClass.getClassLoader().getResources("application.yaml"))) {
+                if (candidate.toString().contains(location)) {
+                    return candidate;
+                }
+            }
+        } catch (IOException ioException) {
+            throw new UncheckedIOException(ioException);
+        }
+        throw new IllegalStateException("No application.yaml next to " + applicationClass.getName() + " in " + location);
+    }
+
+    private static final class LaunchListener implements ApplicationListener<ApplicationEvent> {
+
+        private final String serviceName;
+        private final URL serviceConfiguration;
+        private final CompletableFuture<ConfigurableApplicationContext> started;
+
+        private LaunchListener(final String serviceName, final URL serviceConfiguration, final CompletableFuture<ConfigurableApplicationContext> started) {
+            this.serviceName = serviceName;
+            this.serviceConfiguration = serviceConfiguration;
+            this.started = started;
+        }
+
+        @Override
+        public void onApplicationEvent(final ApplicationEvent event) {
+            if (event instanceof ApplicationEnvironmentPreparedEvent environmentPrepared) {
+                try {
+                    // behind everything else, the harness configuration and system properties take precedence
+                    for (PropertySource<?> propertySource : new YamlPropertySourceLoader().load(serviceName, new UrlResource(serviceConfiguration))) {
+                        environmentPrepared.getEnvironment().getPropertySources().addLast(propertySource);
+                    }
+                } catch (IOException ioException) {
+                    throw new UncheckedIOException(ioException);
+                }
+            } else if (event instanceof ApplicationStartedEvent applicationStarted) {
+                started.complete(applicationStarted.getApplicationContext());
+            } else if (event instanceof ApplicationFailedEvent applicationFailed) {
+                started.completeExceptionally(applicationFailed.getException());
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.solace.acme.loadtest;
+
+import com.solace.acme.runtime.RuntimeStats;
+
+/**
+ * Messaging counters of one service, as kept by its runtime since it started.
+ */
+public record ServiceStats(long published, long publishedBytes, long publishFailures, long publishNacks, long received,
+                           long acknowledged, long handlerFailures) {
+
+    public static ServiceStats of(final RuntimeStats runtimeStats) {
+        return new ServiceStats(runtimeStats.getPublishedCount(), runtimeStats.getPublishedBytes(), runtimeStats.getPublishFailureCount(),
+                runtimeStats.getPublishReceiptsNackedCount(), runtimeStats.getReceivedCount(), runtimeStats.getAcknowledgedCount(),
+                runtimeStats.getHandlerFailureCount());
+    }
+}
@@ -0,0 +1,57 @@
+package com.solace.acme.loadtest;
+
+import com.solace.acme.runtime.TraceContext;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Latencies read off the {@link TraceContext} of the events a pipeline publishes. The stage of an event is named
+ * after the entity and verb levels of its topic, e.g. {@code order.confirmed} or {@code fraud.detected}, and its
+ * latency runs from the publish of the event it was derived from to its own publish. End-to-end latencies run from
+ * the origin of the trace and are kept per outcome. Not thread safe, callers synchronise.
+ */
+public final class StageLatencies {
+
+    private final Map<String, LatencyHistogram> stages = new TreeMap<>();
+    private final Map<String, LatencyHistogram> endToEnd = new TreeMap<>();
+
+    public static String stageOf(final String topic) {
+        final String[] levels = topic.split("/", 5);
+        return levels.length < 4 ? topic : levels[2] + "." + levels[3];
+    }
+
+    public void recordStage(final String stage, final TraceContext traceContext) {
+        if (traceContext != null && traceContext.upstreamTimestamp() > 0) {
+            stages.computeIfAbsent(stage, name -> new LatencyHistogram())
+                    .record(traceContext.publishedTimestamp() - traceContext.upstreamTimestamp());
+        }
+    }
+
+    public void recordEndToEnd(final String outcome, final TraceContext traceContext) {
+        if (traceContext != null && traceContext.originTimestamp() > 0) {
+            endToEnd.computeIfAbsent(outcome, name -> new LatencyHistogram())
+                    .record(traceContext.publishedTimestamp() - traceContext.originTimestamp());
+        }
+    }
+
+    public Map<String, LatencySummary> stageSummaries() {
+        return summaries(stages);
+    }
+
+    public Map<String, LatencySummary> endToEndSummaries() {
+        return summaries(endToEnd);
+    }
+
+    public void reset() {
+        stages.values().forEach(LatencyHistogram::reset);
+        endToEnd.values().forEach(LatencyHistogram::reset);
+    }
+
+    private static Map<String, LatencySummary> summaries(final Map<String, LatencyHistogram> histograms) {
+        final Map<String, LatencySummary> summaries = new LinkedHashMap<>();
+        histograms.forEach((name, histogram) -> summaries.put(name, histogram.summary()));
+        return summaries;
+    }
+}
@@ -0,0 +1,96 @@
+package com.solace.acme.benchmark;
+
+import com.solace.acme.bank.accountmanagement.AccountManagementApplication;
+import com.solace.acme.bank.accountmanagement.models.Account;
+import com.solace.acme.bank.accountmanagement.models.AccountsList;
+import com.solace.acme.bank.journal.AccountsJournal;
+import com.solace.acme.bank.journal.AccountsJournalProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link AccountsList#transition} with several threads racing on the same accounts, e.g. a fraud
+ * suspension arriving while an operator resumes the account. Journaled, every transition goes through the
+ * {@link AccountsJournal} of account-management the way the services run it, with its striped lock and its
+ * write-ahead log in a temporary directory; unjournaled, only the compare-and-set of the registry is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class AccountLifecycleBenchmark {
+
+    @Param({"1", "16", "1024"})
+    private int hotAccounts;
+
+    @Param({"false", "true"})
+    private boolean journaled;
+
+    private String[] accountNumbers;
+    private AccountsList accountsList;
+    private AccountsJournal<Account> accountsJournal;
+    private Path journalDirectory;
+
+    @Setup(Level.Trial)
+    public void seedAccounts() throws IOException {
+        accountsList = AccountsList.getInstance();
+        final Map<String, Account> accounts = accountsList.getAccountsList();
+        accounts.clear();
+        accountNumbers = new String[hotAccounts];
+        for (int i = 0; i < hotAccounts; i++) {
+            accountNumbers[i] = String.valueOf(1_000_000_000L + i);
+            accounts.put(accountNumbers[i], Account.builder().accountNumber(accountNumbers[i]).currentStatus(Account.Status.SUSPENDED).comment("seeded").build());
+        }
+        final AccountsJournalProperties journalProperties = BenchmarkService.bindServiceProperties(AccountManagementApplication.class,
+                "accounts.journal", AccountsJournalProperties.class);
+        journalProperties.setEnabled(journaled);
+        journalDirectory = Files.createTempDirectory("accounts-journal");
+        journalProperties.setDirectory(journalDirectory.toString());
+        accountsJournal = new AccountsJournal<>(journalProperties, accountsList);
+        accountsJournal.recoverAccounts();
+    }
+
+    @Benchmark
+    public Account suspendOrResumeContended() {
+        final String accountNumber = accountNumbers[ThreadLocalRandom.current().nextInt(hotAccounts)];
+        final Account suspended = accountsJournal.transition(accountNumber,
+                () -> accountsList.transition(accountNumber, Account.Status.SUSPENDED, "Suspended by benchmark"));
+        return suspended != null ? suspended : accountsJournal.transition(accountNumber,
+                () -> accountsList.transition(accountNumber, Account.Status.RESUMED, "Resumed by benchmark"));
+    }
+
+    @Benchmark
+    public Account rejectIllegalTransition() {
+        final String accountNumber = accountNumbers[ThreadLocalRandom.current().nextInt(hotAccounts)];
+        return accountsJournal.transition(accountNumber, () -> accountsList.transition(accountNumber, Account.Status.APPLIED, "never applied"));
+    }
+
+    @TearDown(Level.Trial)
+    public void closeJournal() throws IOException {
+        accountsJournal.closeJournal();
+        FileSystemUtils.deleteRecursively(journalDirectory);
+    }
+}
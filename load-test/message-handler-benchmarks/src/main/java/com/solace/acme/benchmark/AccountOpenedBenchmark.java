@@ -0,0 +1,94 @@
+package com.solace.acme.benchmark;
+
+import com.solace.acme.bank.corebanking.CoreBankingApplication;
+import com.solace.acme.bank.corebanking.models.Account;
+import com.solace.acme.bank.corebanking.models.AccountAction;
+import com.solace.acme.bank.corebanking.models.AccountsList;
+import com.solace.acme.runtime.ReceivedMessage;
+import com.solace.acme.runtime.SolaceRuntime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.scheduling.annotation.ScheduledAnnotationBeanPostProcessor;
+import org.springframework.scheduling.config.ScheduledTask;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Core banking receiving an AccountOpened event through {@code processAccountOpenedEvent}. A new account is removed
+ * from the registry again right after it was registered, so every operation opens an account; that removal is part of
+ * the measured time. A redelivered event finds its account already registered and is only acknowledged.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccountOpenedBenchmark {
+
+    private static final int MESSAGES = 1024;
+    private static final String ACCOUNT_OPENED_TOPIC = "acmebank/solace/account/opened/v1/{accountID}";
+
+    private BenchmarkService coreBanking;
+    private Consumer<ReceivedMessage> handler;
+    private Map<String, Account> accounts;
+    private String[] newAccountNumbers;
+    private ReceivedMessage[] newAccountMessages;
+    private ReceivedMessage[] knownAccountMessages;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void startCoreBanking() throws InterruptedException {
+        coreBanking = BenchmarkService.start("core-banking", CoreBankingApplication.class);
+        // transactions for the opened accounts would be generated and published alongside the measurement
+        coreBanking.getBean(ScheduledAnnotationBeanPostProcessor.class).getScheduledTasks().forEach(ScheduledTask::cancel);
+        handler = coreBanking.handler("accounts-opened");
+        accounts = AccountsList.getInstance().getAccountsList();
+        newAccountNumbers = new String[MESSAGES];
+        newAccountMessages = new ReceivedMessage[MESSAGES];
+        knownAccountMessages = new ReceivedMessage[MESSAGES];
+        for (int i = 0; i < MESSAGES; i++) {
+            newAccountNumbers[i] = String.valueOf(2_000_000_000L + i);
+            newAccountMessages[i] = accountOpened(newAccountNumbers[i]);
+            knownAccountMessages[i] = accountOpened(String.valueOf(1_000_000_000L + i));
+            handler.accept(knownAccountMessages[i]);
+        }
+    }
+
+    @Benchmark
+    public void processAccountOpenedEvent() {
+        final int message = next++ & (MESSAGES - 1);
+        handler.accept(newAccountMessages[message]);
+        accounts.remove(newAccountNumbers[message]);
+    }
+
+    @Benchmark
+    public void processRedeliveredAccountOpenedEvent() {
+        handler.accept(knownAccountMessages[next++ & (MESSAGES - 1)]);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopCoreBanking() {
+        coreBanking.close();
+    }
+
+    private static ReceivedMessage accountOpened(final String accountNumber) {
+        return BenchmarkService.message(SolaceRuntime.topic(ACCOUNT_OPENED_TOPIC, "accountID", accountNumber), AccountAction.builder()
+                .accountNum(accountNumber)
+                .accountAction("OPENED")
+                .timestamp("2024-03-01T12:00:00")
+                .build());
+    }
+}
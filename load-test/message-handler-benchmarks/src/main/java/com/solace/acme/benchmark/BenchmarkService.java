@@ -0,0 +1,93 @@
+package com.solace.acme.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.solace.acme.loadtest.ServiceLauncher;
+import com.solace.acme.runtime.ReceivedMessage;
+import com.solace.acme.runtime.SolaceRuntime;
+import com.solace.acme.runtime.TraceContext;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.UrlResource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A service started in the benchmark JVM on a {@link StubTransport}, with the {@code message-handler-benchmarks}
+ * configuration in front of its own.
+ */
+public final class BenchmarkService implements AutoCloseable {
+
+    private static final String CONFIG_NAMES = "message-handler-benchmarks";
+    private static final String[] BROKER_ARGUMENTS = {"-h", "stub", "-v", "default", "-u", "default", "-p", "default"};
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final ConfigurableApplicationContext context;
+    private final StubTransport transport;
+
+    private BenchmarkService(final ConfigurableApplicationContext context, final StubTransport transport) {
+        this.context = context;
+        this.transport = transport;
+    }
+
+    public static BenchmarkService start(final String serviceName, final Class<?> applicationClass) throws InterruptedException {
+        final StubTransport transport = new StubTransport();
+        final ConfigurableApplicationContext context = ServiceLauncher.start(serviceName, applicationClass, CONFIG_NAMES,
+                new SolaceRuntime(transport), BROKER_ARGUMENTS);
+        ServiceLauncher.awaitConnected(context);
+        return new BenchmarkService(context, transport);
+    }
+
+    public <T> T getBean(final Class<T> beanType) {
+        return context.getBean(beanType);
+    }
+
+    public StubTransport getTransport() {
+        return transport;
+    }
+
+    /**
+     * Waits for the service to bind to the queue and returns the handler the runtime delivers its messages to,
+     * acknowledgement and receive statistics included.
+     */
+    public Consumer<ReceivedMessage> handler(final String queueName) throws InterruptedException {
+        return transport.awaitHandler(queueName);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+
+    /**
+     * Encodes the event the way the runtime publishes it, as the start of a new trace.
+     */
+    public static StubMessage message(final String topic, final Object event) {
+        try {
+            return new StubMessage(topic, OBJECT_MAPPER.writeValueAsBytes(event), TraceContext.originate(System.currentTimeMillis()).toMessageProperties());
+        } catch (JsonProcessingException jsonProcessingException) {
+            throw new IllegalArgumentException("Cannot encode " + event.getClass().getSimpleName(), jsonProcessingException);
+        }
+    }
+
+    /**
+     * Binds the properties under the prefix from the {@code application.yaml} of the service, for benchmarks that
+     * use a service component without starting the service.
+     */
+    public static <T> T bindServiceProperties(final Class<?> applicationClass, final String prefix, final Class<T> propertiesType) {
+        try {
+            final List<PropertySource<?>> propertySources = new YamlPropertySourceLoader()
+                    .load(applicationClass.getSimpleName(), new UrlResource(ServiceLauncher.serviceConfiguration(applicationClass)));
+            return new Binder(ConfigurationPropertySources.from(propertySources)).bind(prefix, propertiesType)
+                    .orElseThrow(() -> new IllegalStateException("No " + prefix + " properties for " + applicationClass.getSimpleName()));
+        } catch (IOException ioException) {
+            throw new UncheckedIOException(ioException);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.solace.acme.benchmark;
+
+import com.solace.acme.bank.frauddetection.FraudDetectionApplication;
+import com.solace.acme.bank.frauddetection.models.Transaction;
+import com.solace.acme.bank.frauddetection.service.BankingTransactionEventProcessor;
+import com.solace.acme.runtime.ReceivedMessage;
+import com.solace.acme.runtime.SolaceRuntime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Fraud detection receiving a transaction through {@code performFraudCheck}. With a fraud probability of 0 only the
+ * check itself is measured, at 1 every transaction also creates and publishes a fraud detected event. The service flips
+ * a coin per transaction, so the benchmark swaps its random for a {@link FraudDice} loaded with the probability.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FraudCheckBenchmark {
+
+    private static final int MESSAGES = 1024;
+    private static final String TRANSACTION_TOPIC = "acmebank/solace/core/{transactionType}/v1/{currency}/{amount}/{transactionID}";
+    private static final String[] TRANSACTION_TYPES = {"DEPOSIT", "TRANSFER", "WITHDRAWAL"};
+
+    @Param({"0.0", "0.5", "1.0"})
+    private double fraudProbability;
+
+    private BenchmarkService fraudDetection;
+    private Consumer<ReceivedMessage> handler;
+    private ReceivedMessage[] messages;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void startFraudDetection() throws InterruptedException {
+        fraudDetection = BenchmarkService.start("fraud-detection", FraudDetectionApplication.class);
+        final Field random = ReflectionUtils.findField(BankingTransactionEventProcessor.class, "random");
+        ReflectionUtils.makeAccessible(random);
+        ReflectionUtils.setField(random, fraudDetection.getBean(BankingTransactionEventProcessor.class), new FraudDice(fraudProbability));
+        handler = fraudDetection.handler("all-transactions");
+        final SplittableRandom random = new SplittableRandom(42);
+        messages = new ReceivedMessage[MESSAGES];
+        for (int i = 0; i < MESSAGES; i++) {
+            final Transaction transaction = Transaction.builder()
+                    .transactionNum(random.nextInt(Integer.MAX_VALUE))
+                    .accountNum(String.valueOf(1_000_000_000L + random.nextInt(10_000)))
+                    .transactionType(TRANSACTION_TYPES[random.nextInt(TRANSACTION_TYPES.length)])
+                    .amount(Math.round(random.nextDouble(100) * 100.0) / 100.0)
+                    .currency("Euro")
+                    .timestamp("2024-03-01T12:00:00")
+                    .build();
+            messages[i] = BenchmarkService.message(SolaceRuntime.topic(TRANSACTION_TOPIC, "transactionType", transaction.getTransactionType(),
+                    "currency", transaction.getCurrency(), "amount", transaction.getAmount(), "transactionID", transaction.getTransactionNum()), transaction);
+        }
+    }
+
+    @Benchmark
+    public void performFraudCheck() {
+        handler.accept(messages[next++ & (MESSAGES - 1)]);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopFraudDetection() {
+        fraudDetection.close();
+    }
+
+    /**
+     * Comes up true with the given probability rather than half of the time.
+     */
+    private static final class FraudDice extends Random {
+
+        private final double probability;
+
+        private FraudDice(final double probability) {
+            super(42);
+            this.probability = probability;
+        }
+
+        @Override
+        public boolean nextBoolean() {
+            return nextDouble() < probability;
+        }
+    }
+}
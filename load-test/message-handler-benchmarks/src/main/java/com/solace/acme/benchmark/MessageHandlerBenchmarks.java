@@ -0,0 +1,31 @@
+package com.solace.acme.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the message handler benchmarks with the GC profiler, so every result comes with its allocation rate and the
+ * bytes allocated per operation ({@code gc.alloc.rate.norm}) next to the operations per second. Takes the usual JMH
+ * command line, e.g. {@code FraudCheck -p fraudProbability=0.0} to run a subset:
+ * {@code mvn package exec:exec -Dexec.args="-cp %classpath com.solace.acme.benchmark.MessageHandlerBenchmarks FraudCheck"}.
+ * {@link PublisherBackPressureBenchmark} only runs when a broker is named with {@code -Dbenchmark.broker.host}.
+ */
+public final class MessageHandlerBenchmarks {
+
+    private MessageHandlerBenchmarks() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        final ChainedOptionsBuilder options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class);
+        if (System.getProperty(PublisherBackPressureBenchmark.BROKER_HOST_PROPERTY) == null) {
+            // the only benchmark that needs a PubSub+ broker
+            options.exclude(PublisherBackPressureBenchmark.class.getSimpleName());
+        }
+        new Runner(options.build()).run();
+    }
+}
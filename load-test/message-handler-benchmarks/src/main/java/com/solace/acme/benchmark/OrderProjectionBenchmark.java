@@ -0,0 +1,85 @@
+package com.solace.acme.benchmark;
+
+import com.solace.acme.runtime.ReceivedMessage;
+import com.solace.acme.runtime.SolaceRuntime;
+import com.solace.acme.store.orderservice.OrderServiceApplication;
+import com.solace.acme.store.orderservice.model.Order;
+import com.solace.acme.store.orderservice.model.OrderCache;
+import com.solace.acme.store.orderservice.model.Payment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * The order service projecting a confirmed payment into its order cache through {@code OrderProjectionService}, up
+ * to the acknowledgement. The update is applied on an apply loop, so each operation waits for the acknowledgement of
+ * its payment. Every operation first puts the validated order back into the cache, so each payment moves its order
+ * forward instead of being dropped as stale after the first round; that put is part of the measured time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderProjectionBenchmark {
+
+    private static final int MESSAGES = 1024;
+    private static final String PAYMENT_UPDATED_TOPIC = "acmeretail/onlineservices/payment/updated/v1/{regionId}/{paymentId}";
+
+    private BenchmarkService orderService;
+    private StubTransport transport;
+    private Consumer<ReceivedMessage> handler;
+    private OrderCache orderCache;
+    private Order[] orders;
+    private ReceivedMessage[] messages;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void startOrderService() throws InterruptedException {
+        orderService = BenchmarkService.start("order-service", OrderServiceApplication.class);
+        transport = orderService.getTransport();
+        handler = orderService.handler("all-order-updates");
+        orderCache = OrderCache.getInstance();
+        orders = SampleOrders.generate(MESSAGES, Order.OrderState.VALIDATED);
+        messages = new ReceivedMessage[MESSAGES];
+        for (int i = 0; i < MESSAGES; i++) {
+            final Payment payment = Payment.builder()
+                    .id("payment-" + i)
+                    .orderId(orders[i].getId())
+                    .ccy("USD")
+                    .amount(orders[i].getPrice())
+                    .build();
+            messages[i] = BenchmarkService.message(SolaceRuntime.topic(PAYMENT_UPDATED_TOPIC,
+                    "regionId", orders[i].getDeliveryAddress().getCountry(), "paymentId", payment.getId()), payment);
+        }
+    }
+
+    @Benchmark
+    public void projectConfirmedPayment() {
+        final int message = next++ & (MESSAGES - 1);
+        orderCache.put(orders[message]);
+        final long acknowledged = transport.getAcknowledgedCount();
+        handler.accept(messages[message]);
+        while (transport.getAcknowledgedCount() == acknowledged) {
+            Thread.onSpinWait();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopOrderService() {
+        orderService.close();
+    }
+}
@@ -0,0 +1,91 @@
+package com.solace.acme.benchmark;
+
+import com.solace.acme.bank.accountmanagement.models.AccountAction;
+import com.solace.acme.bank.accountmanagement.models.FraudConfirmed;
+import com.solace.acme.bank.corebanking.models.Transaction;
+import com.solace.acme.bank.frauddetection.models.FraudDetected;
+import com.solace.acme.runtime.PayloadCodec;
+import com.solace.acme.runtime.PayloadEncoding;
+import com.solace.acme.runtime.SolaceRuntime;
+import com.solace.acme.store.inventoryfraudcheckservice.models.StockLevelSnapshot;
+import com.solace.acme.store.inventoryfraudcheckservice.models.StockReservation;
+import com.solace.acme.store.orderservice.model.Order;
+import com.solace.acme.store.paymentservice.models.Payment;
+import com.solace.acme.store.paymentservice.models.SettlementBatch;
+import com.solace.acme.store.shippingservice.models.Shipping;
+import lombok.extern.slf4j.Slf4j;
+import org.instancio.Instancio;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of every event model, in the class of the service that publishes it, in each payload encoding
+ * of the {@link PayloadCodec} used by {@link SolaceRuntime}. Models are filled by Instancio from a fixed seed, so
+ * payload sizes are the same from run to run; the size in each encoding is logged at the start of every trial, next
+ * to the JSON size.
+ */
+@Slf4j
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayloadCodecBenchmark {
+
+    private static final long SEED = 42;
+    private static final Map<String, Class<?>> MODELS = Map.of(
+            "Transaction", Transaction.class,
+            "FraudDetected", FraudDetected.class,
+            "FraudConfirmed", FraudConfirmed.class,
+            "AccountAction", AccountAction.class,
+            "Order", Order.class,
+            "StockReservation", StockReservation.class,
+            "StockLevelSnapshot", StockLevelSnapshot.class,
+            "Payment", Payment.class,
+            "SettlementBatch", SettlementBatch.class,
+            "Shipping", Shipping.class);
+
+    @Param({"Transaction", "FraudDetected", "FraudConfirmed", "AccountAction", "Order", "StockReservation",
+            "StockLevelSnapshot", "Payment", "SettlementBatch", "Shipping"})
+    private String model;
+
+    @Param({"JSON", "SMILE"})
+    private PayloadEncoding encoding;
+
+    private final PayloadCodec payloadCodec = PayloadCodec.json();
+    private Class<?> modelType;
+    private Object event;
+    private byte[] payload;
+
+    @Setup
+    public void createEvent() throws IOException {
+        modelType = MODELS.get(model);
+        event = Instancio.of(modelType).withSeed(SEED).create();
+        payload = payloadCodec.encode(event, encoding);
+        log.info("{} in {}: {} bytes, JSON {} bytes", model, encoding, payload.length, payloadCodec.encode(event, PayloadEncoding.JSON).length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return payloadCodec.encode(event, encoding);
+    }
+
+    @Benchmark
+    public Object decode() throws IOException {
+        return payloadCodec.decode(payload, encoding, modelType);
+    }
+}
@@ -0,0 +1,72 @@
+package com.solace.acme.benchmark;
+
+import com.solace.acme.runtime.ReceivedMessage;
+import com.solace.acme.runtime.SolaceRuntime;
+import com.solace.acme.store.orderservice.model.Order;
+import com.solace.acme.store.paymentservice.PaymentServiceApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * The payment service taking a confirmed order through {@code processPaymentForConfirmedOrder} up to the
+ * acknowledgement. The gateway answers on its own threads, so each operation waits for the acknowledgement of its
+ * order; the stub gateway is configured without latency, declines or errors, leaving the handler and gateway client
+ * overhead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentBenchmark {
+
+    private static final int MESSAGES = 1024;
+    private static final String ORDER_CONFIRMED_TOPIC = "acmeretail/onlineservices/order/confirmed/v2/{regionId}/{orderId}";
+
+    private BenchmarkService payment;
+    private StubTransport transport;
+    private Consumer<ReceivedMessage> handler;
+    private ReceivedMessage[] messages;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void startPayment() throws InterruptedException {
+        payment = BenchmarkService.start("payment-service", PaymentServiceApplication.class);
+        transport = payment.getTransport();
+        handler = payment.handler("all-orders-confirmed");
+        final Order[] orders = SampleOrders.generate(MESSAGES, Order.OrderState.VALIDATED);
+        messages = new ReceivedMessage[MESSAGES];
+        for (int i = 0; i < MESSAGES; i++) {
+            messages[i] = BenchmarkService.message(SolaceRuntime.topic(ORDER_CONFIRMED_TOPIC,
+                    "regionId", orders[i].getDeliveryAddress().getCountry(), "orderId", orders[i].getId()), orders[i]);
+        }
+    }
+
+    @Benchmark
+    public void processPaymentForConfirmedOrder() {
+        final long acknowledged = transport.getAcknowledgedCount();
+        handler.accept(messages[next++ & (MESSAGES - 1)]);
+        while (transport.getAcknowledgedCount() == acknowledged) {
+            Thread.onSpinWait();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopPayment() {
+        payment.close();
+    }
+}
@@ -0,0 +1,132 @@
+package com.solace.acme.benchmark;
+
+import com.solace.acme.runtime.ConnectionSettings;
+import com.solace.acme.runtime.PublishRejectedException;
+import com.solace.acme.runtime.PublisherSettings;
+import com.solace.acme.runtime.SolaceRuntime;
+import com.solace.acme.runtime.solace.SolaceTransport;
+import lombok.extern.slf4j.Slf4j;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publish throughput of four threads sharing one publisher under each back-pressure strategy, against a PubSub+
+ * broker, since the strategies are those of the Solace API. Needs a broker, e.g.
+ * {@code docker run -d -p 55555:55555 --shm-size=1g -e username_admin_globalaccesslevel=admin
+ * -e username_admin_password=admin solace/solace-pubsub-standard}, named with
+ * {@code -Dbenchmark.broker.host=tcp://localhost:55555} and, when not {@code default},
+ * {@code benchmark.broker.vpn}, {@code benchmark.broker.user} and {@code benchmark.broker.password}; without
+ * {@code benchmark.broker.host} {@link MessageHandlerBenchmarks} leaves it out.
+ * <p>
+ * Nothing subscribes to the benchmark topics, so the broker acknowledges each message without spooling it; add a queue
+ * subscribed to {@code acmebench/>} to include spooling. Besides ops/s, the {@code published} and {@code rejected}
+ * counters split the operations by outcome, the {@code blockedMillis} counter adds up the time the threads spent
+ * blocked on a full buffer, and the publishes still pending are logged after every iteration. What to look for: WAIT keeps every message but its ops/s is bounded by the broker, and the blocked
+ * time is what a scheduler or callback thread would lose; REJECT keeps the callers at full speed and sheds the excess;
+ * ELASTIC never blocks nor rejects, and the pending count shows the memory it takes instead.
+ */
+@Slf4j
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Threads(4)
+public class PublisherBackPressureBenchmark {
+
+    static final String BROKER_HOST_PROPERTY = "benchmark.broker.host";
+    private static final String TOPIC = "acmebench/backpressure/v1/transaction";
+
+    @Param({"WAIT", "REJECT", "ELASTIC"})
+    private PublisherSettings.BackPressureStrategy backPressure;
+
+    @Param({"1", "256"})
+    private int bufferCapacity;
+
+    private SolaceTransport transport;
+    private SolaceRuntime solaceRuntime;
+    private final AtomicLong claimedBlockedNanos = new AtomicLong();
+    private final Map<String, Object> event = Map.of(
+            "transactionNum", 1804289383, "accountNum", "1000004242", "transactionType", "TRANSFER",
+            "amount", 42.17, "currency", "Euro", "timestamp", "2024-03-01T12:00:00");
+
+    @Setup(Level.Trial)
+    public void connect() {
+        transport = new SolaceTransport(new PublisherSettings(backPressure, bufferCapacity));
+        solaceRuntime = new SolaceRuntime(transport);
+        solaceRuntime.connect(new ConnectionSettings(System.getProperty(BROKER_HOST_PROPERTY, "tcp://localhost:55555"),
+                System.getProperty("benchmark.broker.vpn", "default"), System.getProperty("benchmark.broker.user", "default"),
+                System.getProperty("benchmark.broker.password", "default"), "0", "0"));
+    }
+
+    @Setup(Level.Iteration)
+    public void markBlockedTime() {
+        claimedBlockedNanos.set(transport.getPublishBlockedNanos());
+    }
+
+    /**
+     * The blocked time no thread has claimed yet in this iteration, so that the claims of all threads add up to it.
+     */
+    long claimBlockedNanos() {
+        final long blockedNanos = transport.getPublishBlockedNanos();
+        return blockedNanos - claimedBlockedNanos.getAndSet(blockedNanos);
+    }
+
+    @Benchmark
+    public void publish(final PublishOutcomes publishOutcomes) {
+        try {
+            solaceRuntime.publish(TOPIC, event);
+            publishOutcomes.published++;
+        } catch (PublishRejectedException publishRejectedException) {
+            publishOutcomes.rejected++;
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportPendingPublishes() {
+        log.info("{} publishes pending after the iteration", solaceRuntime.getStats().getPublishPendingCount());
+    }
+
+    @TearDown(Level.Trial)
+    public void disconnect() {
+        solaceRuntime.close();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PublishOutcomes {
+        public long published;
+        public long rejected;
+        public long blockedMillis;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            published = 0;
+            rejected = 0;
+            blockedMillis = 0;
+        }
+
+        @TearDown(Level.Iteration)
+        public void claimBlockedTime(final PublisherBackPressureBenchmark benchmark) {
+            blockedMillis = TimeUnit.NANOSECONDS.toMillis(benchmark.claimBlockedNanos());
+        }
+    }
+}
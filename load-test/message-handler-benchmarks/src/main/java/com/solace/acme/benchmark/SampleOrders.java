@@ -0,0 +1,34 @@
+package com.solace.acme.benchmark;
+
+import com.solace.acme.store.orderservice.OrderServiceApplication;
+import com.solace.acme.store.orderservice.config.OrderGeneratorProperties;
+import com.solace.acme.store.orderservice.model.Order;
+import com.solace.acme.store.orderservice.service.OrderGenerator;
+
+import java.util.SplittableRandom;
+
+/**
+ * Orders drawn by the order service generator from the catalogue, customers and regions of its
+ * {@code application.yaml}, the same for every run.
+ */
+final class SampleOrders {
+
+    private static final long SEED = 42;
+
+    private SampleOrders() {
+    }
+
+    static Order[] generate(final int count, final Order.OrderState state) {
+        final OrderGeneratorProperties generatorProperties = BenchmarkService.bindServiceProperties(OrderServiceApplication.class,
+                "order-generator", OrderGeneratorProperties.class);
+        generatorProperties.setSeed(SEED);
+        final OrderGenerator orderGenerator = new OrderGenerator(generatorProperties);
+        final SplittableRandom random = orderGenerator.newRandom();
+        final Order[] orders = new Order[count];
+        for (int i = 0; i < count; i++) {
+            orders[i] = orderGenerator.nextOrder(random);
+            orders[i].setState(state);
+        }
+        return orders;
+    }
+}
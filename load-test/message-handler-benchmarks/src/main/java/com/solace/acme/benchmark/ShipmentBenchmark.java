@@ -0,0 +1,72 @@
+package com.solace.acme.benchmark;
+
+import com.solace.acme.runtime.ReceivedMessage;
+import com.solace.acme.runtime.SolaceRuntime;
+import com.solace.acme.store.orderservice.model.Order;
+import com.solace.acme.store.paymentservice.models.Payment;
+import com.solace.acme.store.shippingservice.ShippingServiceApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * The shipping service receiving a confirmed payment through {@code processShipmentForConfirmedPayments}. The handler
+ * hands the payment to the consolidator, which publishes the consolidated shipments from its own thread; that work
+ * shows up in the allocation rate but not in the operations per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShipmentBenchmark {
+
+    private static final int MESSAGES = 1024;
+    private static final String PAYMENT_UPDATED_TOPIC = "acmeretail/onlineservices/payment/updated/v1/{regionId}/{paymentId}";
+
+    private BenchmarkService shipping;
+    private Consumer<ReceivedMessage> handler;
+    private ReceivedMessage[] messages;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void startShipping() throws InterruptedException {
+        shipping = BenchmarkService.start("shipping-service", ShippingServiceApplication.class);
+        handler = shipping.handler("all-payments-confirmed");
+        final Order[] orders = SampleOrders.generate(MESSAGES, Order.OrderState.PAYMENT_PROCESSED);
+        messages = new ReceivedMessage[MESSAGES];
+        for (int i = 0; i < MESSAGES; i++) {
+            final Payment payment = Payment.builder()
+                    .id("payment-" + i)
+                    .orderId(orders[i].getId())
+                    .ccy(String.valueOf(orders[i].getPaymentInfo().getCvv()))
+                    .amount(orders[i].getPrice())
+                    .build();
+            messages[i] = BenchmarkService.message(SolaceRuntime.topic(PAYMENT_UPDATED_TOPIC,
+                    "regionId", orders[i].getDeliveryAddress().getCountry(), "paymentId", payment.getId()), payment);
+        }
+    }
+
+    @Benchmark
+    public void processShipmentForConfirmedPayments() {
+        handler.accept(messages[next++ & (MESSAGES - 1)]);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopShipping() {
+        shipping.close();
+    }
+}
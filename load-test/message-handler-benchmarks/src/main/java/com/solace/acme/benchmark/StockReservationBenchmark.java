@@ -0,0 +1,65 @@
+package com.solace.acme.benchmark;
+
+import com.solace.acme.runtime.ReceivedMessage;
+import com.solace.acme.runtime.SolaceRuntime;
+import com.solace.acme.store.inventoryfraudcheckservice.InventoryServiceApplication;
+import com.solace.acme.store.orderservice.model.Order;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * The inventory service receiving a created order through {@code reserveStockForCreatedOrder}: the customer fraud
+ * check, the warehouse allocation and the publish of the reservation and order confirmed events. Stock and fraud
+ * limits are raised in the benchmark configuration so that every order is confirmed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StockReservationBenchmark {
+
+    private static final int MESSAGES = 1024;
+    private static final String ORDER_CREATED_TOPIC = "acmeretail/onlineservices/order/created/v2/{regionId}/{orderId}";
+
+    private BenchmarkService inventory;
+    private Consumer<ReceivedMessage> handler;
+    private ReceivedMessage[] messages;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void startInventory() throws InterruptedException {
+        inventory = BenchmarkService.start("inventory-fraudcheck-service", InventoryServiceApplication.class);
+        handler = inventory.handler("all-orders-placed");
+        final Order[] orders = SampleOrders.generate(MESSAGES, Order.OrderState.CREATED);
+        messages = new ReceivedMessage[MESSAGES];
+        for (int i = 0; i < MESSAGES; i++) {
+            messages[i] = BenchmarkService.message(SolaceRuntime.topic(ORDER_CREATED_TOPIC,
+                    "regionId", orders[i].getDeliveryAddress().getCountry(), "orderId", orders[i].getId()), orders[i]);
+        }
+    }
+
+    @Benchmark
+    public void reserveStockForCreatedOrder() {
+        handler.accept(messages[next++ & (MESSAGES - 1)]);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopInventory() {
+        inventory.close();
+    }
+}
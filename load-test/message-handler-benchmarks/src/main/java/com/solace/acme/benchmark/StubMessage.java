@@ -0,0 +1,46 @@
+package com.solace.acme.benchmark;
+
+import com.solace.acme.runtime.ReceivedMessage;
+
+import java.util.Properties;
+
+/**
+ * A pre-encoded message, delivered as often as the benchmark likes.
+ */
+public class StubMessage implements ReceivedMessage {
+
+    private final String destinationName;
+    private final byte[] payload;
+    private final Properties properties;
+
+    public StubMessage(final String destinationName, final byte[] payload, final Properties properties) {
+        this.destinationName = destinationName;
+        this.payload = payload;
+        this.properties = properties;
+    }
+
+    @Override
+    public String getDestinationName() {
+        return destinationName;
+    }
+
+    @Override
+    public byte[] getPayloadAsBytes() {
+        return payload;
+    }
+
+    @Override
+    public String getProperty(final String name) {
+        return properties == null ? null : properties.getProperty(name);
+    }
+
+    @Override
+    public Long getSenderTimestamp() {
+        return null;
+    }
+
+    @Override
+    public boolean isRedelivered() {
+        return false;
+    }
+}
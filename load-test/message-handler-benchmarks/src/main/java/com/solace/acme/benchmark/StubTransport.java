@@ -0,0 +1,108 @@
+package com.solace.acme.benchmark;
+
+import com.solace.acme.runtime.ConnectionSettings;
+import com.solace.acme.runtime.MessagingTransport;
+import com.solace.acme.runtime.QueueReceiver;
+import com.solace.acme.runtime.ReceivedMessage;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Transport that takes no part in the measurement: publishes are counted and confirmed on the calling thread, and the
+ * handler a service binds to a queue is handed to the benchmark, which calls it directly instead of having a broker
+ * deliver to it.
+ */
+public class StubTransport implements MessagingTransport {
+
+    private static final Duration HANDLER_TIMEOUT = Duration.ofMinutes(1);
+
+    private final Map<String, Consumer<ReceivedMessage>> handlers = new ConcurrentHashMap<>();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder acknowledged = new LongAdder();
+    private volatile PublishReceiptListener publishReceiptListener = (userContext, failure) -> {
+    };
+    private volatile boolean connected;
+
+    @Override
+    public void connect(final ConnectionSettings connectionSettings) {
+        connected = true;
+    }
+
+    @Override
+    public boolean isConnected() {
+        return connected;
+    }
+
+    @Override
+    public void setPublishReceiptListener(final PublishReceiptListener publishReceiptListener) {
+        this.publishReceiptListener = publishReceiptListener;
+    }
+
+    @Override
+    public void publish(final String topic, final byte[] payload, final Properties properties, final Object userContext) {
+        published.increment();
+        publishReceiptListener.onReceipt(userContext, null);
+    }
+
+    @Override
+    public QueueReceiver receive(final String queueName, final Consumer<ReceivedMessage> handler) {
+        return new QueueReceiver() {
+            @Override
+            public void start() {
+                handlers.put(queueName, handler);
+            }
+
+            @Override
+            public void ack(final ReceivedMessage message) {
+                acknowledged.increment();
+            }
+
+            @Override
+            public void pause() {
+            }
+
+            @Override
+            public void resume() {
+            }
+
+            @Override
+            public void terminate() {
+                handlers.remove(queueName, handler);
+            }
+        };
+    }
+
+    /**
+     * Waits for the service to start receiving from the queue and returns the handler it bound to it.
+     */
+    public Consumer<ReceivedMessage> awaitHandler(final String queueName) throws InterruptedException {
+        final long deadline = System.nanoTime() + HANDLER_TIMEOUT.toNanos();
+        Consumer<ReceivedMessage> handler;
+        while ((handler = handlers.get(queueName)) == null) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("Nothing is receiving from queue " + queueName);
+            }
+            Thread.sleep(10);
+        }
+        return handler;
+    }
+
+    public long getPublishedCount() {
+        return published.sum();
+    }
+
+    public long getAcknowledgedCount() {
+        return acknowledged.sum();
+    }
+
+    @Override
+    public void close() {
+        connected = false;
+        handlers.clear();
+    }
+}
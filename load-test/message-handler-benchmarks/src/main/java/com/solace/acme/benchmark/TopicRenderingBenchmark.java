@@ -0,0 +1,58 @@
+package com.solace.acme.benchmark;
+
+import com.solace.acme.runtime.SolaceRuntime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SolaceRuntime#topic} rendering the topic templates of the services, which every publish goes through.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TopicRenderingBenchmark {
+
+    private static final Map<String, Object[]> TEMPLATES = Map.of(
+            "transaction", new Object[]{"acmebank/solace/core/{transactionType}/v1/{currency}/{amount}/{transactionID}",
+                    "transactionType", "DEPOSIT", "currency", "Euro", "amount", 42.17, "transactionID", 1804289383},
+            "stockReservation", new Object[]{"acmeretail/onlineservices/stockreservation/created/v1/{orderId}/{productId}/{reservationId}",
+                    "orderId", "5f0c6f3e-8a43-4c3f-9a0b-2d5b8e7c1a90", "productId", "Iphone 15 Pro Max", "reservationId", "us-east-1024"},
+            "payment", new Object[]{"acmeretail/onlineservices/payment/{verb}/v1/{regionId}/{paymentId}",
+                    "verb", "created", "regionId", "GB", "paymentId", "pay-7c1a905f0c6f"},
+            "shipment", new Object[]{"acmeretail/shipping/shipment/{verb}/v1/{orderId}/{shipmentId}",
+                    "verb", "created", "orderId", "5f0c6f3e-8a43-4c3f-9a0b-2d5b8e7c1a90", "shipmentId", "846930886"});
+
+    @Param({"transaction", "stockReservation", "payment", "shipment"})
+    private String template;
+
+    private String topicTemplate;
+    private Object[] namesAndValues;
+
+    @Setup
+    public void selectTemplate() {
+        final Object[] templateAndValues = TEMPLATES.get(template);
+        topicTemplate = (String) templateAndValues[0];
+        namesAndValues = new Object[templateAndValues.length - 1];
+        System.arraycopy(templateAndValues, 1, namesAndValues, 0, namesAndValues.length);
+    }
+
+    @Benchmark
+    public String renderTopic() {
+        return SolaceRuntime.topic(topicTemplate, namesAndValues);
+    }
+}
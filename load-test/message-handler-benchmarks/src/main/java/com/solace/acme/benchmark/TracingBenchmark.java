@@ -0,0 +1,84 @@
+package com.solace.acme.benchmark;
+
+import com.solace.acme.runtime.TraceContext;
+import com.solace.acme.runtime.tracing.FileSpanExporter;
+import com.solace.acme.runtime.tracing.InMemorySpanExporter;
+import com.solace.acme.runtime.tracing.Span;
+import com.solace.acme.runtime.tracing.SpanExporter;
+import com.solace.acme.runtime.tracing.Tracer;
+import lombok.extern.slf4j.Slf4j;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What tracing adds to every message: the sampling decision, and starting and ending a span of a sampled trace with
+ * each exporter. The file exporter drops the spans its writer cannot keep up with, the dropped count is logged at the
+ * end of the trial.
+ */
+@Slf4j
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TracingBenchmark {
+
+    @Param({"none", "memory", "file"})
+    private String exporter;
+
+    private SpanExporter spanExporter;
+    private Tracer tracer;
+    private Tracer samplingTracer;
+    private Path spanFile;
+    private final String traceId = TraceContext.originate(System.currentTimeMillis()).correlationId();
+
+    @Setup
+    public void createTracer() throws IOException {
+        spanExporter = switch (exporter) {
+            case "memory" -> new InMemorySpanExporter(65536);
+            case "file" -> new FileSpanExporter(spanFile = Files.createTempFile("tracing-benchmark", ".jsonl"), 65536);
+            default -> span -> {
+            };
+        };
+        tracer = new Tracer("benchmark", 1, spanExporter);
+        samplingTracer = new Tracer("benchmark", 0.01, spanExporter);
+    }
+
+    /**
+     * On a fresh copy of the trace id, as read from each message, so that its hash is computed every time.
+     */
+    @Benchmark
+    public boolean sampleDecision() {
+        return samplingTracer.isSampled(new String(traceId));
+    }
+
+    @Benchmark
+    public void sampledSpan() {
+        tracer.start(Span.Kind.PROCESS, "all-orders-confirmed", traceId, "5f0c6f3e8a434c3f").end(Span.Status.OK);
+    }
+
+    @TearDown
+    public void closeExporter() throws IOException {
+        spanExporter.close();
+        if (spanExporter instanceof FileSpanExporter fileSpanExporter) {
+            log.info("{} spans dropped by the file exporter", fileSpanExporter.getDroppedSpanCount());
+            Files.deleteIfExists(spanFile);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.solace.acme.benchmark;
+
+import com.solace.acme.bank.corebanking.CoreBankingApplication;
+import com.solace.acme.bank.corebanking.service.TransactionEventScheduler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.scheduling.annotation.ScheduledAnnotationBeanPostProcessor;
+import org.springframework.scheduling.config.ScheduledTask;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Core banking generating a random transaction for an account and publishing it, the Instancio generation included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionGenerationBenchmark {
+
+    private static final int ACCOUNTS = 1024;
+
+    private BenchmarkService coreBanking;
+    private TransactionEventScheduler transactionEventScheduler;
+    private String[] accountNumbers;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void startCoreBanking() throws InterruptedException {
+        coreBanking = BenchmarkService.start("core-banking", CoreBankingApplication.class);
+        // only the benchmark publishes, the scheduled run would add transactions of its own
+        coreBanking.getBean(ScheduledAnnotationBeanPostProcessor.class).getScheduledTasks().forEach(ScheduledTask::cancel);
+        transactionEventScheduler = coreBanking.getBean(TransactionEventScheduler.class);
+        accountNumbers = new String[ACCOUNTS];
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accountNumbers[i] = String.valueOf(1_000_000_000L + i);
+        }
+    }
+
+    @Benchmark
+    public void publishTransactionForAccount() {
+        transactionEventScheduler.publishTransactionForAccount(accountNumbers[next++ & (ACCOUNTS - 1)]);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopCoreBanking() {
+        coreBanking.close();
+    }
+}
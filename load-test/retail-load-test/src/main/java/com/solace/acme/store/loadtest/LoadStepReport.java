@@ -0,0 +1,16 @@
+package com.solace.acme.store.loadtest;
+
+import com.solace.acme.loadtest.LatencySummary;
+import com.solace.acme.loadtest.ServiceStats;
+
+import java.util.Map;
+
+/**
+ * Measurements of one offered basket rate, taken over the measurement window after warm-up. Rates are per second,
+ * latencies in milliseconds, and the service counters are cumulative since the services started.
+ */
+record LoadStepReport(double offeredBasketRate, double acceptedBasketRate, long rejectedBaskets, double completedOrderRate,
+                      long shippedOrders, long failedOrders, long inFlightOrders, long liveHeapBytes, long liveHeapBytesPerInFlightOrder,
+                      Map<String, LatencySummary> stageLatencies, Map<String, LatencySummary> endToEndLatencies,
+                      Map<String, ServiceStats> services) {
+}
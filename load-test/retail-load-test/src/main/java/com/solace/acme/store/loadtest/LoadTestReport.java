@@ -0,0 +1,11 @@
+package com.solace.acme.store.loadtest;
+
+import java.util.List;
+
+/**
+ * Outcome of one run of the harness, written as JSON. The drain figures cover the time after the last step until
+ * every accepted basket completed or the drain timeout passed.
+ */
+record LoadTestReport(String pipeline, long startedAtEpochMillis, long warmupSeconds, long stepSeconds, long idleLiveHeapBytes,
+                      List<LoadStepReport> steps, long drainMillis, long undrainedOrders) {
+}
@@ -0,0 +1,68 @@
+package com.solace.acme.store.loadtest;
+
+import com.solace.acme.loadtest.LatencySummary;
+import com.solace.acme.loadtest.StageLatencies;
+import com.solace.acme.runtime.Acknowledgement;
+import com.solace.acme.runtime.InboundHandler;
+import com.solace.acme.runtime.ReceivedMessage;
+import com.solace.acme.runtime.TraceContext;
+
+import java.util.Map;
+
+/**
+ * Listens to every retail event on a catch-all queue and reads the pipeline off the {@link TraceContext} each event
+ * carries, see {@link StageLatencies}. An order is complete once it is shipped, or once its order or payment failed.
+ */
+final class PipelineObserver implements InboundHandler {
+
+    static final String QUEUE_NAME = "retail-load-test-observer";
+
+    private static final String SHIPMENT_CREATED = "shipment.created";
+    private static final String ORDER_FAILED = "order.failed";
+    private static final String PAYMENT_FAILED = "payment.failed";
+
+    private final StageLatencies latencies = new StageLatencies();
+    private long shippedOrders;
+    private long failedOrders;
+
+    @Override
+    public void onMessage(final ReceivedMessage message, final Acknowledgement acknowledgement) {
+        final String stage = StageLatencies.stageOf(message.getDestinationName());
+        final TraceContext traceContext = TraceContext.fromMessage(message);
+        synchronized (this) {
+            latencies.recordStage(stage, traceContext);
+            // each order of a consolidated shipment has its own created event, carrying the trace of that order
+            if (SHIPMENT_CREATED.equals(stage)) {
+                shippedOrders++;
+                latencies.recordEndToEnd("shipped", traceContext);
+            } else if (ORDER_FAILED.equals(stage) || PAYMENT_FAILED.equals(stage)) {
+                failedOrders++;
+                latencies.recordEndToEnd("failed", traceContext);
+            }
+        }
+        acknowledgement.run();
+    }
+
+    synchronized long getShippedOrders() {
+        return shippedOrders;
+    }
+
+    synchronized long getFailedOrders() {
+        return failedOrders;
+    }
+
+    synchronized Map<String, LatencySummary> stageLatencies() {
+        return latencies.stageSummaries();
+    }
+
+    synchronized Map<String, LatencySummary> endToEndLatencies() {
+        return latencies.endToEndSummaries();
+    }
+
+    /**
+     * Forgets the latencies recorded so far, the order counts keep running.
+     */
+    synchronized void resetLatencies() {
+        latencies.reset();
+    }
+}
@@ -0,0 +1,190 @@
+package com.solace.acme.store.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.solace.acme.loadtest.HeapUsage;
+import com.solace.acme.loadtest.RateDriver;
+import com.solace.acme.loadtest.ServiceLauncher;
+import com.solace.acme.loadtest.ServiceStats;
+import com.solace.acme.runtime.ConnectionSettings;
+import com.solace.acme.runtime.SolaceRuntime;
+import com.solace.acme.runtime.local.LocalBroker;
+import com.solace.acme.runtime.local.LocalTransport;
+import com.solace.acme.store.inventoryfraudcheckservice.InventoryServiceApplication;
+import com.solace.acme.store.orderservice.OrderServiceApplication;
+import com.solace.acme.store.orderservice.config.SolaceConnectionParameters;
+import com.solace.acme.store.orderservice.service.OrderService;
+import com.solace.acme.store.paymentservice.PaymentServiceApplication;
+import com.solace.acme.store.shippingservice.ShippingServiceApplication;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.Options;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Boots order-service, inventory-fraudcheck-service, payment-service and shipping-service in this JVM against the
+ * local broker and drives basket creation through the order service at each of the given rates in turn. Every rate is
+ * held for a warm-up and then a measurement window, after which throughput, per-stage latency percentiles and live
+ * heap per in-flight order are taken; the run ends by draining the orders still in flight. The report is written as
+ * JSON to the report directory.
+ * <p>
+ * Only the wire is replaced: the services run their own handlers, thread pools and timers, including the delays they
+ * emulate (payment confirmation and shipment tracking are published 15 seconds after the first event).
+ */
+@Slf4j
+public class RetailLoadTestApplication {
+
+    private static final String CONFIG_NAMES = "retail-load-test,%s-load-test";
+    private static final String[] BROKER_ARGUMENTS = {"-h", "local", "-v", "default", "-u", "default", "-p", "default"};
+
+    private final Map<String, ConfigurableApplicationContext> services = new LinkedHashMap<>();
+    private final PipelineObserver pipelineObserver = new PipelineObserver();
+    private final LongAdder acceptedBaskets = new LongAdder();
+    private final LongAdder rejectedBaskets = new LongAdder();
+    private SolaceRuntime observerRuntime;
+    private OrderService orderService;
+
+    public static void main(String[] args) throws Exception {
+        final Options options = new Options();
+        options.addOption("r", "rates", true, "Comma separated basket rates per second, one step each (default 100,250,500)");
+        options.addOption("w", "warmupSeconds", true, "Warm-up of each step (default 30)");
+        options.addOption("s", "stepSeconds", true, "Measurement window of each step (default 60)");
+        options.addOption("d", "drainSeconds", true, "Maximum wait for in-flight orders after the last step (default 120)");
+        options.addOption("o", "reportDirectory", true, "Directory of the JSON report (default target/retail-load-test)");
+        final CommandLine line = new DefaultParser().parse(options, args);
+
+        final double[] rates = Arrays.stream(line.getOptionValue("r", "100,250,500").split(",")).map(String::trim).mapToDouble(Double::parseDouble).toArray();
+        final long warmupSeconds = Long.parseLong(line.getOptionValue("w", "30"));
+        final long stepSeconds = Long.parseLong(line.getOptionValue("s", "60"));
+        final long drainSeconds = Long.parseLong(line.getOptionValue("d", "120"));
+        final Path reportDirectory = Paths.get(line.getOptionValue("o", "target/retail-load-test"));
+
+        // devtools would restart the order service in its own class loader, away from the shared local broker
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        final RetailLoadTestApplication loadTest = new RetailLoadTestApplication();
+        try {
+            loadTest.startServices();
+            final LoadTestReport report = loadTest.run(rates, warmupSeconds, stepSeconds, drainSeconds);
+            Files.createDirectories(reportDirectory);
+            final Path reportFile = reportDirectory.resolve("retail-load-test-" + report.startedAtEpochMillis() + ".json");
+            new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(reportFile.toFile(), report);
+            log.info("Load test report written to {}", reportFile.toAbsolutePath());
+        } finally {
+            loadTest.stopServices();
+        }
+        System.exit(0);
+    }
+
+    private void startServices() throws InterruptedException {
+        LocalBroker.getInstance().provisionQueue(PipelineObserver.QUEUE_NAME, List.of("acmeretail/>"));
+        observerRuntime = new SolaceRuntime(new LocalTransport(LocalBroker.getInstance()));
+        observerRuntime.connect(new ConnectionSettings("local", "default", "default", "default", "0", "0"));
+        observerRuntime.receive(PipelineObserver.QUEUE_NAME, pipelineObserver);
+
+        start("inventory-fraudcheck-service", InventoryServiceApplication.class, BROKER_ARGUMENTS);
+        start("payment-service", PaymentServiceApplication.class, BROKER_ARGUMENTS);
+        start("shipping-service", ShippingServiceApplication.class, BROKER_ARGUMENTS);
+        final ConfigurableApplicationContext orderServiceContext = start("order-service", OrderServiceApplication.class);
+        orderService = orderServiceContext.getBean(OrderService.class);
+        final SolaceConnectionParameters connectionParameters = new SolaceConnectionParameters();
+        connectionParameters.setHostUrl("local");
+        connectionParameters.setVpnName("default");
+        connectionParameters.setUserName("default");
+        connectionParameters.setPassword("default");
+        if (!orderService.connectToBroker(connectionParameters)) {
+            throw new IllegalStateException("Order service did not connect to the local broker");
+        }
+        for (ConfigurableApplicationContext context : services.values()) {
+            ServiceLauncher.awaitConnected(context);
+        }
+    }
+
+    private ConfigurableApplicationContext start(final String serviceName, final Class<?> applicationClass, final String... args) throws InterruptedException {
+        final ConfigurableApplicationContext context = ServiceLauncher.start(serviceName, applicationClass, String.format(CONFIG_NAMES, serviceName), args);
+        services.put(serviceName, context);
+        return context;
+    }
+
+    private LoadTestReport run(final double[] rates, final long warmupSeconds, final long stepSeconds, final long drainSeconds) throws InterruptedException {
+        final long startedAt = System.currentTimeMillis();
+        final long idleLiveHeapBytes = HeapUsage.liveBytes();
+        final List<LoadStepReport> steps = new ArrayList<>();
+        try (RateDriver basketDriver = new RateDriver("basket-driver", this::submitBasket)) {
+            for (int step = 0; step < rates.length; step++) {
+                log.info("Offering {} baskets/s, warming up for {}s", rates[step], warmupSeconds);
+                if (step == 0) {
+                    basketDriver.start(rates[step]);
+                } else {
+                    basketDriver.setRate(rates[step]);
+                }
+                TimeUnit.SECONDS.sleep(warmupSeconds);
+                steps.add(measureStep(rates[step], stepSeconds, idleLiveHeapBytes));
+            }
+        }
+        final long drainStart = System.nanoTime();
+        final long drainDeadline = drainStart + TimeUnit.SECONDS.toNanos(drainSeconds);
+        while (inFlightOrders() > 0 && System.nanoTime() < drainDeadline) {
+            TimeUnit.MILLISECONDS.sleep(100);
+        }
+        return new LoadTestReport("retail", startedAt, warmupSeconds, stepSeconds, idleLiveHeapBytes, steps,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - drainStart), inFlightOrders());
+    }
+
+    private LoadStepReport measureStep(final double rate, final long stepSeconds, final long idleLiveHeapBytes) throws InterruptedException {
+        pipelineObserver.resetLatencies();
+        final long accepted = acceptedBaskets.sum();
+        final long rejected = rejectedBaskets.sum();
+        final long shipped = pipelineObserver.getShippedOrders();
+        final long failed = pipelineObserver.getFailedOrders();
+        final long windowStart = System.nanoTime();
+        TimeUnit.SECONDS.sleep(stepSeconds);
+        final double windowSeconds = (System.nanoTime() - windowStart) / 1e9;
+
+        final long shippedInWindow = pipelineObserver.getShippedOrders() - shipped;
+        final long failedInWindow = pipelineObserver.getFailedOrders() - failed;
+        final long inFlightOrders = inFlightOrders();
+        final long liveHeapBytes = HeapUsage.liveBytes();
+        final Map<String, ServiceStats> serviceStats = new LinkedHashMap<>();
+        services.forEach((serviceName, context) -> serviceStats.put(serviceName, ServiceStats.of(context.getBean(SolaceRuntime.class).getStats())));
+        final LoadStepReport stepReport = new LoadStepReport(rate, (acceptedBaskets.sum() - accepted) / windowSeconds, rejectedBaskets.sum() - rejected,
+                (shippedInWindow + failedInWindow) / windowSeconds, shippedInWindow, failedInWindow, inFlightOrders, liveHeapBytes,
+                inFlightOrders > 0 ? Math.max(0, liveHeapBytes - idleLiveHeapBytes) / inFlightOrders : 0,
+                pipelineObserver.stageLatencies(), pipelineObserver.endToEndLatencies(), serviceStats);
+        log.info("Offered {} baskets/s: accepted {} baskets/s, completed {} orders/s, {} in flight, {} live heap bytes per in-flight order",
+                rate, String.format("%.1f", stepReport.acceptedBasketRate()), String.format("%.1f", stepReport.completedOrderRate()),
+                inFlightOrders, stepReport.liveHeapBytesPerInFlightOrder());
+        return stepReport;
+    }
+
+    private void submitBasket() {
+        orderService.createBasketAsync().whenComplete((order, failure) -> {
+            if (failure == null) {
+                acceptedBaskets.increment();
+            } else {
+                rejectedBaskets.increment();
+            }
+        });
+    }
+
+    private long inFlightOrders() {
+        return acceptedBaskets.sum() - pipelineObserver.getShippedOrders() - pipelineObserver.getFailedOrders();
+    }
+
+    private void stopServices() {
+        services.values().forEach(ConfigurableApplicationContext::close);
+        if (observerRuntime != null) {
+            observerRuntime.close();
+        }
+    }
+}
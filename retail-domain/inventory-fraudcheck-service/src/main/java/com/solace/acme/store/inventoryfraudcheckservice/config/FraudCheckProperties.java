@@ -0,0 +1,20 @@
+package com.solace.acme.store.inventoryfraudcheckservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "fraud-check")
+@Getter
+@Setter
+public class FraudCheckProperties {
+    private Duration window;
+    private int buckets;
+    private int maxOrders;
+    private double maxOrderValue;
+    private int maxQuantity;
+}
@@ -0,0 +1,35 @@
+package com.solace.acme.store.inventoryfraudcheckservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+@ConfigurationProperties(prefix = "inventory")
+@Getter
+@Setter
+public class InventoryProperties {
+    private int stripes;
+    private List<Warehouse> warehouses = new ArrayList<>();
+    private Map<String, List<String>> regionWarehouses = new HashMap<>();
+    private Duration reservationTimeToLive;
+    private Duration expiryBucketWidth;
+    private Duration sweepInterval;
+    private Duration reportInterval;
+    private Duration snapshotInterval;
+
+    @Getter
+    @Setter
+    public static class Warehouse {
+        private String id;
+        private long defaultStock;
+        private Map<String, Long> stock = new HashMap<>();
+    }
+}
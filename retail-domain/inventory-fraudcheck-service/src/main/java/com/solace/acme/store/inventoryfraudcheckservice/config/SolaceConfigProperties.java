@@ -13,6 +13,10 @@ public class SolaceConfigProperties {
     private String reconnectionAttempts;
     private String connectionRetriesPerHost;
     private String orderCreatedQueueName;
+    private String paymentConfirmedQueueName;
     private String stockReservationTopicString;
     private String orderConfirmedEventTopicString;
+    private String orderFailedEventTopicString;
+    private String stockReleasedTopicString;
+    private String stockLevelSnapshotTopicString;
 }
@@ -0,0 +1,15 @@
+package com.solace.acme.store.inventoryfraudcheckservice.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockLevel {
+    private String productId;
+    private long available;
+}
@@ -0,0 +1,19 @@
+package com.solace.acme.store.inventoryfraudcheckservice.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockLevelSnapshot {
+    private String regionId;
+    private long sequence;
+    private String snapshotTime;
+    private List<StockLevel> stockLevels;
+}
@@ -15,6 +15,7 @@ public class StockReservation {
     private String customerId;
     private String productId;
     private int quantity;
+    private String warehouseId;
     private String reservationTime;
     private String expiryTime;
 }
@@ -0,0 +1,96 @@
+package com.solace.acme.store.inventoryfraudcheckservice.service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Order count, value and quantity of one customer over a sliding window, kept as a ring of time buckets in parallel
+ * primitive arrays. A bucket is lazily reset when it is reused for a later slice of time, so old activity decays out
+ * of the window without any background work. Values are held in cents.
+ * <p>
+ * The ids of the orders recorded within the window are kept as well, so an order delivered again is passed without
+ * being counted twice. Once evicted, an activity records nothing and the caller starts a new one for the customer.
+ */
+final class CustomerActivity {
+
+    static final String EVICTED = "evicted";
+
+    private final long bucketWidthMillis;
+    private final long[] bucketSlices;
+    private final int[] orders;
+    private final long[] valueCents;
+    private final int[] quantities;
+    private final Map<String, Long> recordedOrderSlices = new HashMap<>();
+    private long lastActivityMillis;
+    private boolean evicted;
+
+    CustomerActivity(final int buckets, final long bucketWidthMillis) {
+        this.bucketWidthMillis = bucketWidthMillis;
+        this.bucketSlices = new long[buckets];
+        this.orders = new int[buckets];
+        this.valueCents = new long[buckets];
+        this.quantities = new int[buckets];
+    }
+
+    /**
+     * Records the order when the window totals including it stay within the limits and returns the name of the first
+     * limit breached otherwise. An order recorded before within the window passes again without being recorded, and
+     * an evicted activity returns {@link #EVICTED}.
+     */
+    synchronized String tryRecord(final long nowMillis, final String orderId, final long orderValueCents, final int quantity,
+                                  final int maxOrders, final long maxValueCents, final int maxQuantity) {
+        if (evicted) {
+            return EVICTED;
+        }
+        final long currentSlice = nowMillis / bucketWidthMillis;
+        final long oldestSlice = currentSlice - bucketSlices.length + 1;
+        final Long recordedSlice = recordedOrderSlices.get(orderId);
+        if (recordedSlice != null && recordedSlice >= oldestSlice) {
+            return null;
+        }
+        int windowOrders = 1;
+        long windowValueCents = orderValueCents;
+        int windowQuantity = quantity;
+        for (int bucket = 0; bucket < bucketSlices.length; bucket++) {
+            if (bucketSlices[bucket] >= oldestSlice) {
+                windowOrders += orders[bucket];
+                windowValueCents += valueCents[bucket];
+                windowQuantity += quantities[bucket];
+            }
+        }
+        if (windowOrders > maxOrders) {
+            return "order-count";
+        }
+        if (windowValueCents > maxValueCents) {
+            return "order-value";
+        }
+        if (windowQuantity > maxQuantity) {
+            return "quantity";
+        }
+        final int bucket = (int) Math.floorMod(currentSlice, (long) bucketSlices.length);
+        if (bucketSlices[bucket] != currentSlice) {
+            bucketSlices[bucket] = currentSlice;
+            orders[bucket] = 0;
+            valueCents[bucket] = 0;
+            quantities[bucket] = 0;
+            recordedOrderSlices.values().removeIf(slice -> slice < oldestSlice);
+        }
+        orders[bucket]++;
+        valueCents[bucket] += orderValueCents;
+        quantities[bucket] += quantity;
+        recordedOrderSlices.put(orderId, currentSlice);
+        lastActivityMillis = nowMillis;
+        return null;
+    }
+
+    /**
+     * Evicts the activity when the customer has recorded nothing since the given instant. Runs under the same lock as
+     * recording, so an order is either recorded before the eviction or refused with {@link #EVICTED}.
+     */
+    synchronized boolean evictIfIdle(final long idleSinceMillis) {
+        if (lastActivityMillis < idleSinceMillis) {
+            evicted = true;
+        }
+        return evicted;
+    }
+}
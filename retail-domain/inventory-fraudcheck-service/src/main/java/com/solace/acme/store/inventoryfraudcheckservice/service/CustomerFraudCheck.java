@@ -0,0 +1,96 @@
+package com.solace.acme.store.inventoryfraudcheckservice.service;
+
+import com.solace.acme.store.inventoryfraudcheckservice.config.FraudCheckProperties;
+import com.solace.acme.store.inventoryfraudcheckservice.models.Order;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cumulative order limits per customer over a sliding window. Checking an order is a map lookup and a pass over the
+ * few buckets of the customer's window; customers without activity for a whole window are dropped in the background.
+ * An order that is delivered again, for example after the publisher rejected its events, is passed without counting it
+ * twice.
+ */
+@Slf4j
+@Component
+public class CustomerFraudCheck {
+
+    private FraudCheckProperties fraudCheckProperties;
+    private final Map<String, CustomerActivity> customers = new ConcurrentHashMap<>();
+    private final LongAdder rejections = new LongAdder();
+    private long windowMillis;
+    private long bucketWidthMillis;
+    private long maxValueCents;
+    private ScheduledExecutorService evictionExecutor;
+
+    @Autowired
+    public void setFraudCheckProperties(FraudCheckProperties fraudCheckProperties) {
+        this.fraudCheckProperties = fraudCheckProperties;
+    }
+
+    @PostConstruct
+    public void startIdleCustomerEviction() {
+        windowMillis = fraudCheckProperties.getWindow().toMillis();
+        bucketWidthMillis = Math.max(1, windowMillis / Math.max(1, fraudCheckProperties.getBuckets()));
+        maxValueCents = Math.round(fraudCheckProperties.getMaxOrderValue() * 100);
+        evictionExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "fraud-check-eviction");
+            thread.setDaemon(true);
+            return thread;
+        });
+        evictionExecutor.scheduleWithFixedDelay(() -> evictIdleCustomers(System.currentTimeMillis()), windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns true and counts the order towards the customer's window when it stays within all limits.
+     */
+    public boolean check(final Order order) {
+        final long orderValueCents = Math.round(order.getPrice() * order.getQuantity() * 100);
+        String breachedLimit;
+        do {
+            // an activity evicted between the lookup and the record is out of the map already, the next lookup starts a new one
+            final CustomerActivity customerActivity = customers.computeIfAbsent(order.getCustomerId(),
+                    customerId -> new CustomerActivity(Math.max(1, fraudCheckProperties.getBuckets()), bucketWidthMillis));
+            breachedLimit = customerActivity.tryRecord(System.currentTimeMillis(), order.getId(), orderValueCents, order.getQuantity(),
+                    fraudCheckProperties.getMaxOrders(), maxValueCents, fraudCheckProperties.getMaxQuantity());
+        } while (CustomerActivity.EVICTED.equals(breachedLimit));
+        if (breachedLimit == null) {
+            return true;
+        }
+        rejections.increment();
+        log.info("Fraud check for Order:{}, customer:{}, failed on {} limit", order.getId(), order.getCustomerId(), breachedLimit);
+        return false;
+    }
+
+    public long getRejectionCount() {
+        return rejections.sum();
+    }
+
+    public int getTrackedCustomerCount() {
+        return customers.size();
+    }
+
+    void evictIdleCustomers(final long nowMillis) {
+        final long idleSince = nowMillis - windowMillis;
+        for (Map.Entry<String, CustomerActivity> customer : customers.entrySet()) {
+            if (customer.getValue().evictIfIdle(idleSince)) {
+                customers.remove(customer.getKey(), customer.getValue());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stopIdleCustomerEviction() {
+        evictionExecutor.shutdownNow();
+    }
+}
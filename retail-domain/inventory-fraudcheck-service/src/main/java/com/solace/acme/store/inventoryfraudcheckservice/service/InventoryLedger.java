@@ -0,0 +1,150 @@
+package com.solace.acme.store.inventoryfraudcheckservice.service;
+
+import com.solace.acme.store.inventoryfraudcheckservice.config.InventoryProperties;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * In-memory stock ledger of every warehouse, addressed by the warehouse's position in the configuration. Products
+ * that are not configured for a warehouse start with its default stock the first time they are ordered.
+ */
+@Slf4j
+@Component
+public class InventoryLedger {
+
+    private InventoryProperties inventoryProperties;
+    private String[] warehouseIds;
+    private final Map<String, Integer> warehouseIndexes = new HashMap<>();
+    private final Map<String, ProductStock[]> products = new ConcurrentHashMap<>();
+    private Queue<String>[] changedProducts;
+
+    public interface ChangedStockVisitor {
+        void onChangedStock(String productId, long available, long changes);
+    }
+
+    @Autowired
+    public void setInventoryProperties(InventoryProperties inventoryProperties) {
+        this.inventoryProperties = inventoryProperties;
+    }
+
+    @PostConstruct
+    public void registerWarehouses() {
+        final List<InventoryProperties.Warehouse> warehouses = inventoryProperties.getWarehouses();
+        if (warehouses.isEmpty()) {
+            throw new IllegalStateException("inventory.warehouses must contain at least one warehouse");
+        }
+        warehouseIds = new String[warehouses.size()];
+        changedProducts = newChangedProductQueues(warehouses.size());
+        for (int warehouse = 0; warehouse < warehouseIds.length; warehouse++) {
+            warehouseIds[warehouse] = warehouses.get(warehouse).getId();
+            warehouseIndexes.put(warehouseIds[warehouse], warehouse);
+        }
+    }
+
+    public int getWarehouseCount() {
+        return warehouseIds.length;
+    }
+
+    public String getWarehouseId(final int warehouse) {
+        return warehouseIds[warehouse];
+    }
+
+    public int getWarehouseIndex(final String warehouseId) {
+        final Integer warehouse = warehouseIndexes.get(warehouseId);
+        if (warehouse == null) {
+            throw new IllegalArgumentException("Unknown warehouse " + warehouseId);
+        }
+        return warehouse;
+    }
+
+    public boolean tryReserve(final int warehouse, final String productId, final int quantity) {
+        if (quantity <= 0) {
+            return false;
+        }
+        final ProductStock productStock = stockOf(productId)[warehouse];
+        final boolean reserved = productStock.tryReserve(quantity);
+        if (reserved) {
+            stockChanged(warehouse, productId, productStock);
+        }
+        return reserved;
+    }
+
+    public int reserveUpTo(final int warehouse, final String productId, final int quantity) {
+        if (quantity <= 0) {
+            return 0;
+        }
+        final ProductStock productStock = stockOf(productId)[warehouse];
+        final int reserved = productStock.reserveUpTo(quantity);
+        if (reserved > 0) {
+            stockChanged(warehouse, productId, productStock);
+        }
+        return reserved;
+    }
+
+    public void release(final int warehouse, final String productId, final int quantity) {
+        if (quantity > 0) {
+            final ProductStock productStock = stockOf(productId)[warehouse];
+            productStock.release(quantity);
+            stockChanged(warehouse, productId, productStock);
+        }
+    }
+
+    /**
+     * Visits every product whose stock in the warehouse changed since the previous drain, with its current stock and
+     * the number of changes. Must only be called from one thread at a time.
+     */
+    public void drainChangedStock(final int warehouse, final ChangedStockVisitor visitor) {
+        String productId;
+        while ((productId = changedProducts[warehouse].poll()) != null) {
+            final ProductStock productStock = stockOf(productId)[warehouse];
+            final long changes = productStock.takeChanges();
+            visitor.onChangedStock(productId, productStock.available(), changes);
+        }
+    }
+
+    public long available(final int warehouse, final String productId) {
+        return stockOf(productId)[warehouse].available();
+    }
+
+    private void stockChanged(final int warehouse, final String productId, final ProductStock productStock) {
+        if (productStock.markChanged()) {
+            changedProducts[warehouse].offer(productId);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Queue<String>[] newChangedProductQueues(final int warehouses) {
+        final Queue<String>[] queues = new Queue[warehouses];
+        for (int warehouse = 0; warehouse < warehouses; warehouse++) {
+            queues[warehouse] = new ConcurrentLinkedQueue<>();
+        }
+        return queues;
+    }
+
+    private ProductStock[] stockOf(final String productId) {
+        final ProductStock[] productStock = products.get(productId);
+        if (productStock != null) {
+            return productStock;
+        }
+        return products.computeIfAbsent(productId, product -> {
+            final List<InventoryProperties.Warehouse> warehouses = inventoryProperties.getWarehouses();
+            final ProductStock[] warehouseStock = new ProductStock[warehouses.size()];
+            for (int warehouse = 0; warehouse < warehouseStock.length; warehouse++) {
+                final InventoryProperties.Warehouse warehouseProperties = warehouses.get(warehouse);
+                final long initialStock = warehouseProperties.getStock().getOrDefault(product, warehouseProperties.getDefaultStock());
+                warehouseStock[warehouse] = new ProductStock(inventoryProperties.getStripes(), initialStock);
+            }
+            log.info("Opening stock ledger for product:{} in {} warehouses", product, warehouseStock.length);
+            return warehouseStock;
+        });
+    }
+}
@@ -0,0 +1,108 @@
+package com.solace.acme.store.inventoryfraudcheckservice.service;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Available stock of one product, spread over a power of two number of cells that each sit on their own cache line.
+ * <p>
+ * A reservation takes the whole quantity from a single cell with a compare-and-set, starting at a cell picked by the
+ * calling thread, so concurrent reservations of a hot product mostly touch different cache lines. No cell ever goes
+ * negative, which means the product is never oversold. When no single cell holds enough stock, the caller gathers the
+ * units from several cells with {@link #reserveUpTo(int)} and hands them back if the total still falls short.
+ */
+final class ProductStock {
+
+    // 16 longs are 128 bytes, enough to keep neighbouring cells off each other's cache line including adjacent prefetch
+    private static final int CELL_STRIDE = 16;
+
+    private final int mask;
+    private final AtomicLongArray cells;
+    private final AtomicBoolean changed = new AtomicBoolean();
+    private final LongAdder changes = new LongAdder();
+
+    ProductStock(final int stripes, final long initialStock) {
+        final int cellCount = stripes <= 1 ? 1 : Integer.highestOneBit((stripes - 1) << 1);
+        this.mask = cellCount - 1;
+        this.cells = new AtomicLongArray(cellCount * CELL_STRIDE);
+        for (int cell = 0; cell < cellCount; cell++) {
+            cells.set(cell * CELL_STRIDE, initialStock / cellCount + (cell < initialStock % cellCount ? 1 : 0));
+        }
+    }
+
+    /**
+     * Reserves the quantity from a single cell, so it can fail while the product still holds enough stock spread over
+     * several cells.
+     */
+    boolean tryReserve(final int quantity) {
+        final int home = homeCell();
+        for (int i = 0; i <= mask; i++) {
+            final int index = ((home + i) & mask) * CELL_STRIDE;
+            long available;
+            while ((available = cells.get(index)) >= quantity) {
+                if (cells.compareAndSet(index, available, available - quantity)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Takes as much of the quantity as the cells hold, in one pass over the cells, and returns what was taken.
+     */
+    int reserveUpTo(final int quantity) {
+        final int home = homeCell();
+        int remaining = quantity;
+        for (int i = 0; i <= mask && remaining > 0; i++) {
+            final int index = ((home + i) & mask) * CELL_STRIDE;
+            long available;
+            while ((available = cells.get(index)) > 0) {
+                final long taken = Math.min(available, remaining);
+                if (cells.compareAndSet(index, available, available - taken)) {
+                    remaining -= (int) taken;
+                    break;
+                }
+            }
+        }
+        return quantity - remaining;
+    }
+
+    void release(final int quantity) {
+        cells.getAndAdd(homeCell() * CELL_STRIDE, quantity);
+    }
+
+    /**
+     * Sum of all cells. Exact when the product is quiescent, otherwise a value the stock passed through recently.
+     */
+    long available() {
+        long available = 0;
+        for (int cell = 0; cell <= mask; cell++) {
+            available += cells.get(cell * CELL_STRIDE);
+        }
+        return available;
+    }
+
+    /**
+     * Counts a change of the stock and returns true for the first change since the last {@link #takeChanges()}.
+     */
+    boolean markChanged() {
+        changes.increment();
+        return !changed.get() && changed.compareAndSet(false, true);
+    }
+
+    /**
+     * Returns the number of changes since the previous call. A change racing with this call is either counted now
+     * or marks the stock changed again.
+     */
+    long takeChanges() {
+        changed.set(false);
+        return changes.sumThenReset();
+    }
+
+    private int homeCell() {
+        final long threadId = Thread.currentThread().getId();
+        return (((int) (threadId ^ (threadId >>> 32)) * 0x9E3779B9) >>> 16) & mask;
+    }
+}
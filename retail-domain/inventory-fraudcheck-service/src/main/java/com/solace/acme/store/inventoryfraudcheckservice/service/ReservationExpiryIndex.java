@@ -0,0 +1,143 @@
+package com.solace.acme.store.inventoryfraudcheckservice.service;
+
+import com.solace.acme.store.inventoryfraudcheckservice.config.InventoryProperties;
+import com.solace.acme.store.inventoryfraudcheckservice.models.StockReservation;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Active stock reservations indexed by expiry time in buckets of a fixed width. A reservation is filed under the
+ * bucket its expiry falls into, and a bucket is handed out as a whole once its last instant has passed, so draining
+ * touches only the buckets and reservations that have expired. Reservations expire up to one bucket width late.
+ * <p>
+ * Draining takes every bucket that ended before now, so a reservation filed under a bucket that has already been
+ * drained is handed out with the next drain rather than kept forever. The reservations of a paid order are committed
+ * and leave the index before they expire.
+ * <p>
+ * A reservation is identified by its order and its reservation id, which numbers the reservations within the order.
+ */
+@Component
+public class ReservationExpiryIndex {
+
+    private InventoryProperties inventoryProperties;
+    private long bucketWidthMillis;
+    private final NavigableMap<Long, Map<ReservationKey, StockReservation>> buckets = new TreeMap<>();
+    private final Map<String, List<FiledReservation>> reservationsByOrder = new HashMap<>();
+    private int activeReservations;
+
+    @Autowired
+    public void setInventoryProperties(InventoryProperties inventoryProperties) {
+        this.inventoryProperties = inventoryProperties;
+    }
+
+    @PostConstruct
+    public void configureBuckets() {
+        bucketWidthMillis = Math.max(1, inventoryProperties.getExpiryBucketWidth().toMillis());
+    }
+
+    public synchronized void add(final StockReservation stockReservation, final long expiryMillis) {
+        final long bucket = expiryMillis / bucketWidthMillis;
+        buckets.computeIfAbsent(bucket, expiryBucket -> new LinkedHashMap<>()).put(ReservationKey.of(stockReservation), stockReservation);
+        reservationsByOrder.computeIfAbsent(stockReservation.getOrderId(), orderId -> new ArrayList<>(1))
+                .add(new FiledReservation(bucket, stockReservation.getReservationId()));
+        activeReservations++;
+    }
+
+    /**
+     * Returns the reservations the order still holds, none once they have been committed or have expired.
+     */
+    public synchronized List<StockReservation> reservationsOf(final String orderId) {
+        final List<FiledReservation> filedReservations = reservationsByOrder.get(orderId);
+        if (filedReservations == null) {
+            return List.of();
+        }
+        final List<StockReservation> reservations = new ArrayList<>(filedReservations.size());
+        for (FiledReservation filedReservation : filedReservations) {
+            final Map<ReservationKey, StockReservation> bucket = buckets.get(filedReservation.bucket());
+            final StockReservation stockReservation = bucket == null ? null : bucket.get(new ReservationKey(orderId, filedReservation.reservationId()));
+            if (stockReservation != null) {
+                reservations.add(stockReservation);
+            }
+        }
+        return reservations;
+    }
+
+    /**
+     * Removes the reservations of an order whose stock has been paid for, so they are never released. Returns the
+     * number of reservations committed, zero when the order holds none or they have expired already.
+     */
+    public synchronized int commit(final String orderId) {
+        final List<FiledReservation> filedReservations = reservationsByOrder.remove(orderId);
+        if (filedReservations == null) {
+            return 0;
+        }
+        int committed = 0;
+        for (FiledReservation filedReservation : filedReservations) {
+            final Map<ReservationKey, StockReservation> bucket = buckets.get(filedReservation.bucket());
+            if (bucket != null && bucket.remove(new ReservationKey(orderId, filedReservation.reservationId())) != null) {
+                committed++;
+                if (bucket.isEmpty()) {
+                    buckets.remove(filedReservation.bucket());
+                }
+            }
+        }
+        activeReservations -= committed;
+        return committed;
+    }
+
+    /**
+     * Hands every reservation of the buckets that ended before {@code nowMillis} to the consumer, outside the lock of
+     * the index.
+     */
+    public int drainExpired(final long nowMillis, final Consumer<StockReservation> expiredReservationConsumer) {
+        final List<StockReservation> expiredReservations = new ArrayList<>();
+        synchronized (this) {
+            final NavigableMap<Long, Map<ReservationKey, StockReservation>> expiredBuckets = buckets.headMap(nowMillis / bucketWidthMillis, false);
+            for (Map<ReservationKey, StockReservation> expiredBucket : expiredBuckets.values()) {
+                for (StockReservation stockReservation : expiredBucket.values()) {
+                    forget(stockReservation);
+                    expiredReservations.add(stockReservation);
+                }
+            }
+            expiredBuckets.clear();
+            activeReservations -= expiredReservations.size();
+        }
+        expiredReservations.forEach(expiredReservationConsumer);
+        return expiredReservations.size();
+    }
+
+    private void forget(final StockReservation stockReservation) {
+        final List<FiledReservation> filedReservations = reservationsByOrder.get(stockReservation.getOrderId());
+        if (filedReservations == null) {
+            return;
+        }
+        filedReservations.removeIf(filedReservation -> filedReservation.reservationId() == stockReservation.getReservationId());
+        if (filedReservations.isEmpty()) {
+            reservationsByOrder.remove(stockReservation.getOrderId());
+        }
+    }
+
+    public synchronized int size() {
+        return activeReservations;
+    }
+
+    private record FiledReservation(long bucket, int reservationId) {
+    }
+
+    private record ReservationKey(String orderId, int reservationId) {
+
+        private static ReservationKey of(final StockReservation stockReservation) {
+            return new ReservationKey(stockReservation.getOrderId(), stockReservation.getReservationId());
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.solace.acme.store.inventoryfraudcheckservice.service;
+
+import com.solace.acme.runtime.PublishRejectedException;
+import com.solace.acme.store.inventoryfraudcheckservice.config.InventoryProperties;
+import com.solace.acme.store.inventoryfraudcheckservice.models.StockReservation;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+@Slf4j
+@Component
+public class ReservationExpirySweeper {
+
+    private InventoryProperties inventoryProperties;
+    private ReservationExpiryIndex reservationExpiryIndex;
+    private InventoryLedger inventoryLedger;
+    private SolaceEventHandler solaceEventHandler;
+    private MeterRegistry meterRegistry;
+    private ScheduledExecutorService sweepExecutor;
+    private final LongAdder releasedReservations = new LongAdder();
+    private final LongAdder reclaimedQuantity = new LongAdder();
+    // releases the publisher rejected, announced again with the next sweep; their stock is already back in the ledger
+    private final Deque<StockReservation> unannouncedReleases = new ArrayDeque<>();
+
+    @Autowired
+    public void setInventoryProperties(InventoryProperties inventoryProperties) {
+        this.inventoryProperties = inventoryProperties;
+    }
+
+    @Autowired
+    public void setReservationExpiryIndex(ReservationExpiryIndex reservationExpiryIndex) {
+        this.reservationExpiryIndex = reservationExpiryIndex;
+    }
+
+    @Autowired
+    public void setInventoryLedger(InventoryLedger inventoryLedger) {
+        this.inventoryLedger = inventoryLedger;
+    }
+
+    @Autowired
+    public void setSolaceEventHandler(SolaceEventHandler solaceEventHandler) {
+        this.solaceEventHandler = solaceEventHandler;
+    }
+
+    @Autowired
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void startSweeper() {
+        FunctionCounter.builder("inventory.reservation.released", releasedReservations, LongAdder::sum)
+                .description("Expired stock reservations released")
+                .register(meterRegistry);
+        FunctionCounter.builder("inventory.stock.reclaimed", reclaimedQuantity, LongAdder::sum)
+                .description("Units of stock returned to the ledger by expired reservations")
+                .register(meterRegistry);
+        final long sweepIntervalMillis = inventoryProperties.getSweepInterval().toMillis();
+        sweepExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "reservation-expiry-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweepExecutor.scheduleWithFixedDelay(this::releaseExpiredReservations, sweepIntervalMillis, sweepIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    void releaseExpiredReservations() {
+        try {
+            announceReleases();
+            final List<StockReservation> expiredReservations = new ArrayList<>();
+            reservationExpiryIndex.drainExpired(System.currentTimeMillis(), expiredReservations::add);
+            if (expiredReservations.isEmpty()) {
+                return;
+            }
+            // return the stock of all expired reservations of a product in a warehouse in one go before announcing the releases
+            final Map<String, Map<String, Integer>> releasedQuantities = new HashMap<>();
+            for (StockReservation expiredReservation : expiredReservations) {
+                releasedQuantities.computeIfAbsent(expiredReservation.getWarehouseId(), warehouseId -> new HashMap<>())
+                        .merge(expiredReservation.getProductId(), expiredReservation.getQuantity(), Integer::sum);
+            }
+            long reclaimed = 0;
+            for (Map.Entry<String, Map<String, Integer>> warehouseReleases : releasedQuantities.entrySet()) {
+                final int warehouse = inventoryLedger.getWarehouseIndex(warehouseReleases.getKey());
+                for (Map.Entry<String, Integer> releasedQuantity : warehouseReleases.getValue().entrySet()) {
+                    inventoryLedger.release(warehouse, releasedQuantity.getKey(), releasedQuantity.getValue());
+                    reclaimed += releasedQuantity.getValue();
+                }
+            }
+            unannouncedReleases.addAll(expiredReservations);
+            announceReleases();
+            releasedReservations.add(expiredReservations.size());
+            reclaimedQuantity.add(reclaimed);
+            log.info("Released {} expired reservations, reclaimed {} units across {} warehouses, {} reservations remain active",
+                    expiredReservations.size(), reclaimed, releasedQuantities.size(), reservationExpiryIndex.size());
+        } catch (RuntimeException runtimeException) {
+            log.error("Error encountered while releasing expired reservations, exception :", runtimeException);
+        }
+    }
+
+    private void announceReleases() {
+        StockReservation release;
+        while ((release = unannouncedReleases.peek()) != null) {
+            try {
+                solaceEventHandler.publishStockReleasedEvent(release);
+            } catch (PublishRejectedException publishRejectedException) {
+                log.debug("Publisher rejected the release of reservation:{} of orderid:{}, {} releases left for the next sweep",
+                        release.getReservationId(), release.getOrderId(), unannouncedReleases.size());
+                return;
+            }
+            unannouncedReleases.poll();
+        }
+    }
+
+    @PreDestroy
+    public void stopSweeper() {
+        sweepExecutor.shutdownNow();
+    }
+}
@@ -1,34 +1,28 @@
 package com.solace.acme.store.inventoryfraudcheckservice.service;
 
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.solace.acme.runtime.ConnectionSettings;
+import com.solace.acme.runtime.PublishRejectedException;
+import com.solace.acme.runtime.ReceivedMessage;
+import com.solace.acme.runtime.SolaceRuntime;
+import com.solace.acme.runtime.TraceContext;
+import com.solace.acme.store.inventoryfraudcheckservice.config.InventoryProperties;
 import com.solace.acme.store.inventoryfraudcheckservice.config.SolaceConfigProperties;
 import com.solace.acme.store.inventoryfraudcheckservice.config.SolaceConnectionParameters;
 import com.solace.acme.store.inventoryfraudcheckservice.models.Order;
+import com.solace.acme.store.inventoryfraudcheckservice.models.Payment;
+import com.solace.acme.store.inventoryfraudcheckservice.models.StockLevelSnapshot;
 import com.solace.acme.store.inventoryfraudcheckservice.models.StockReservation;
-import com.solace.messaging.MessagingService;
-import com.solace.messaging.PubSubPlusClientException;
-import com.solace.messaging.config.SolaceProperties;
-import com.solace.messaging.config.profile.ConfigurationProfile;
-import com.solace.messaging.publisher.OutboundMessage;
-import com.solace.messaging.publisher.OutboundMessageBuilder;
-import com.solace.messaging.publisher.PersistentMessagePublisher;
-import com.solace.messaging.receiver.MessageReceiver;
-import com.solace.messaging.receiver.PersistentMessageReceiver;
-import com.solace.messaging.resources.Queue;
-import com.solace.messaging.resources.Topic;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.text.StringSubstitutor;
-import org.instancio.Instancio;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Properties;
-
-import static org.instancio.Select.field;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
 
 @Slf4j
 @Component
@@ -36,41 +30,25 @@ public class SolaceEventHandler {
 
     @Autowired
     private SolaceConfigProperties configProperties;
-    private PersistentMessagePublisher persistentMessagePublisher;
-    private OutboundMessageBuilder messageBuilder;
-    ObjectMapper objectMapper = new ObjectMapper();
+    @Autowired
+    private SolaceRuntime solaceRuntime;
+    @Autowired
+    private WarehouseAllocator warehouseAllocator;
+    @Autowired
+    private CustomerFraudCheck customerFraudCheck;
+    @Autowired
+    private ReservationExpiryIndex reservationExpiryIndex;
+    @Autowired
+    private InventoryProperties inventoryProperties;
 
 
     public boolean connectAndConfigureConsumers(final SolaceConnectionParameters solaceConnectionParameters) {
         try {
-            final Properties properties = setupPropertiesForConnection(solaceConnectionParameters);
-            final MessagingService messagingService = MessagingService.builder(ConfigurationProfile.V1).fromProperties(properties).build();
-            messagingService.connect();
-            setupConnectivityHandlingInMessagingService(messagingService);
-            messageBuilder = messagingService.messageBuilder();
-            persistentMessagePublisher = messagingService.createPersistentMessagePublisherBuilder().onBackPressureWait(1).build();
-
-            final PersistentMessageReceiver ordersCreatedEventReceiver = messagingService.createPersistentMessageReceiverBuilder().build(Queue.durableExclusiveQueue(configProperties.getOrderCreatedQueueName()));
-            ordersCreatedEventReceiver.setReceiveFailureListener(failedReceiveEvent -> System.out.println("### FAILED RECEIVE EVENT " + failedReceiveEvent));
-            ordersCreatedEventReceiver.start();
-            ordersCreatedEventReceiver.receiveAsync(buildOrdersCreatedEventHandler(ordersCreatedEventReceiver));
-
-            persistentMessagePublisher.start();
-            persistentMessagePublisher.setMessagePublishReceiptListener(publishReceipt -> {
-                final PubSubPlusClientException e = publishReceipt.getException();
-                if (e == null) {
-                    OutboundMessage outboundMessage = publishReceipt.getMessage();
-                    log.info(String.format("ACK for Message %s", outboundMessage));
-                } else {
-                    Object userContext = publishReceipt.getUserContext();
-                    if (userContext != null) {
-                        log.warn(String.format("NACK for Message %s - %s", userContext, e));
-                    } else {
-                        OutboundMessage outboundMessage = publishReceipt.getMessage();  // which message got NACKed?
-                        log.warn(String.format("NACK for Message %s - %s", outboundMessage, e));
-                    }
-                }
-            });
+            solaceRuntime.connect(new ConnectionSettings(solaceConnectionParameters.getHostUrl(), solaceConnectionParameters.getVpnName(),
+                    solaceConnectionParameters.getUserName(), solaceConnectionParameters.getPassword(),
+                    configProperties.getReconnectionAttempts(), configProperties.getConnectionRetriesPerHost()));
+            solaceRuntime.receive(configProperties.getOrderCreatedQueueName(), this::processOrderCreatedEvent);
+            solaceRuntime.receive(configProperties.getPaymentConfirmedQueueName(), this::processPaymentConfirmedEvent);
             log.info("Configuration of Receivers and Producers successful");
             return true;
         } catch (Exception exception) {
@@ -79,49 +57,86 @@ public class SolaceEventHandler {
         }
     }
 
-    private MessageReceiver.MessageHandler buildOrdersCreatedEventHandler(final PersistentMessageReceiver ordersCreatedEventReceiver) {
-        return (inboundMessage -> {
-            try {
-                final String inboundTopic = inboundMessage.getDestinationName();
-                log.info("Processing message on incoming topic :{} with payload:{}", inboundTopic, inboundMessage.getPayloadAsString());
-                boolean eventProcessed = reserveStockForCreatedOrder(inboundMessage.getPayloadAsString());
-                if (eventProcessed) {
-                    ordersCreatedEventReceiver.ack(inboundMessage);
-                }
-            } catch (RuntimeException runtimeException) {  // threw from send(), only thing that is throwing here
-                log.error("Runtime exception encountered while processing incoming event payload :{} on topic:{}. Error is :",
-                        inboundMessage.getPayloadAsString(), inboundMessage.getDestinationName(), runtimeException);
-            }
-        });
+    /**
+     * Checks and reserves stock for a created order. An order that cannot be decoded would fail on every redelivery, so
+     * it is acknowledged and logged.
+     */
+    private void processOrderCreatedEvent(final ReceivedMessage inboundMessage, final Runnable acknowledgement) {
+        final Order orderCreated;
+        try {
+            orderCreated = solaceRuntime.decode(inboundMessage, Order.class);
+        } catch (IOException ioException) {
+            log.error("Discarding undecodable Order event:{}, exception:", inboundMessage.getPayloadAsString(), ioException);
+            acknowledgement.run();
+            return;
+        }
+        reserveStockForCreatedOrder(orderCreated, TraceContext.fromMessage(inboundMessage));
+        acknowledgement.run();
     }
 
-    private boolean reserveStockForCreatedOrder(final String incomingOrderCreatedJson) {
+    /**
+     * Commits the stock reservations of a paid order, so the expiry sweeper does not hand its stock back. A payment
+     * that cannot be decoded is acknowledged, its reservations expire as if it had never arrived.
+     */
+    private void processPaymentConfirmedEvent(final ReceivedMessage inboundMessage, final Runnable acknowledgement) {
         try {
-            final Order orderCreated = objectMapper.readValue(incomingOrderCreatedJson, Order.class);
-            //this is usually the location where you would implement your
-            //fraud checking logic for e.g. validate the customer against a black list, check cumulative order value, cart quantity levels etc.
-            log.info("Fraud check for Order:{}, customer:{}, passed", orderCreated.getId(), orderCreated.getCustomerId());
-            //stock reservation logic and make api calls to reserve physical stock in your ERP
-            log.info("Stock reserved on product:{}, quantity:{} for orderid:{} and customerId:{}", orderCreated.getProduct(), orderCreated.getQuantity(), orderCreated.getId(), orderCreated.getCustomerId());
-            createAndPublishOrderStockReservedEvent(orderCreated);
-            createAndPublishOrderConfirmedEvent(orderCreated);
-            return true;
-        } catch (JsonProcessingException jsonProcessingException) {
-            log.error("Error encountered while processing Order event:{}, exception:", incomingOrderCreatedJson, jsonProcessingException);
-            return false;
+            final Payment paymentConfirmed = solaceRuntime.decode(inboundMessage, Payment.class);
+            final int committed = reservationExpiryIndex.commit(paymentConfirmed.getOrderId());
+            log.debug("Committed {} stock reservations of paid orderid:{}", committed, paymentConfirmed.getOrderId());
+        } catch (IOException ioException) {
+            log.error("Discarding undecodable Payment event:{}, exception:", inboundMessage.getPayloadAsString(), ioException);
+        }
+        acknowledgement.run();
+    }
+
+    /**
+     * Reserves stock for an order once: an order delivered again while it still holds reservations, for example after
+     * the publisher rejected its events, has the events of those reservations published again rather than being
+     * allocated a second time, so a later payment commits only the stock reserved for it.
+     */
+    private void reserveStockForCreatedOrder(final Order orderCreated, final TraceContext traceContext) {
+        final List<StockReservation> heldReservations = reservationExpiryIndex.reservationsOf(orderCreated.getId());
+        if (!heldReservations.isEmpty()) {
+            log.info("Stock already reserved for orderid:{}, publishing its {} reservations again", orderCreated.getId(), heldReservations.size());
+            for (StockReservation stockReservation : heldReservations) {
+                publishStockReservedEvent(stockReservation, traceContext);
+            }
+            createAndPublishOrderConfirmedEvent(orderCreated, traceContext);
+            return;
         }
+        //cumulative order count, order value and cart quantity per customer over a sliding window,
+        //this is also where you would validate the customer against a black list etc.
+        if (!customerFraudCheck.check(orderCreated)) {
+            publishOrderFailedEvent(createOrderEvent(orderCreated, Order.OrderState.FAILED), traceContext);
+            return;
+        }
+        log.info("Fraud check for Order:{}, customer:{}, passed", orderCreated.getId(), orderCreated.getCustomerId());
+        //stock reservation in the nearest warehouses holding stock, this is where you would also make api calls to reserve physical stock in your ERP
+        final List<WarehouseAllocation> allocations = warehouseAllocator.allocate(orderCreated);
+        if (allocations.isEmpty()) {
+            log.info("Insufficient stock on product:{}, quantity:{} for orderid:{} and customerId:{}", orderCreated.getProduct(), orderCreated.getQuantity(), orderCreated.getId(), orderCreated.getCustomerId());
+            publishOrderFailedEvent(createOrderEvent(orderCreated, Order.OrderState.FAILED), traceContext);
+            return;
+        }
+        // every reservation is filed before any is published, so stock allocated to the order always expires or is committed
+        final List<StockReservation> stockReservations = fileStockReservations(orderCreated, allocations);
+        for (StockReservation stockReservation : stockReservations) {
+            log.info("Stock reserved on product:{}, quantity:{} in warehouse:{} for orderid:{} and customerId:{}", orderCreated.getProduct(), stockReservation.getQuantity(), stockReservation.getWarehouseId(), orderCreated.getId(), orderCreated.getCustomerId());
+            publishStockReservedEvent(stockReservation, traceContext);
+        }
+        createAndPublishOrderConfirmedEvent(orderCreated, traceContext);
     }
 
-    private void createAndPublishOrderConfirmedEvent(Order orderCreatedEvent) {
-        final Order orderConfirmed = createOrderConfirmedEvent(orderCreatedEvent);
-        publishOrderConfirmedEvent(orderConfirmed);
+    private void createAndPublishOrderConfirmedEvent(Order orderCreatedEvent, TraceContext traceContext) {
+        final Order orderConfirmed = createOrderEvent(orderCreatedEvent, Order.OrderState.VALIDATED);
+        publishOrderConfirmedEvent(orderConfirmed, traceContext);
     }
 
-    private Order createOrderConfirmedEvent(final Order orderCreatedEvent) {
+    private Order createOrderEvent(final Order orderCreatedEvent, final Order.OrderState state) {
         return Order.builder()
                 .id(orderCreatedEvent.getId())
                 .customerId(orderCreatedEvent.getCustomerId())
-                .state(Order.OrderState.VALIDATED)
+                .state(state)
                 .product(orderCreatedEvent.getProduct())
                 .quantity(orderCreatedEvent.getQuantity())
                 .price(orderCreatedEvent.getPrice())
@@ -130,74 +145,78 @@ public class SolaceEventHandler {
                 .build();
     }
 
-    public void publishOrderConfirmedEvent(final Order orderConfirmed) {
+    public void publishOrderConfirmedEvent(final Order orderConfirmed, final TraceContext traceContext) {
+        solaceRuntime.publish(SolaceRuntime.topic(configProperties.getOrderConfirmedEventTopicString(),
+                "regionId", orderConfirmed.getDeliveryAddress().getCountry(), "orderId", orderConfirmed.getId()), orderConfirmed, traceContext);
+    }
+
+    public void publishOrderFailedEvent(final Order orderFailed, final TraceContext traceContext) {
+        solaceRuntime.publish(SolaceRuntime.topic(configProperties.getOrderFailedEventTopicString(),
+                "regionId", orderFailed.getDeliveryAddress().getCountry(), "orderId", orderFailed.getId()), orderFailed, traceContext);
+    }
+
+    /**
+     * Publishes the snapshot and returns the size of its payload in bytes, or -1 when it could not be published or the
+     * publisher rejected it. The next snapshot of the region carries the latest levels anyway.
+     */
+    public int publishStockLevelSnapshot(final StockLevelSnapshot stockLevelSnapshot) {
         try {
-            String orderConfirmedJson = objectMapper.writeValueAsString(orderConfirmed);
-            final OutboundMessage message = messageBuilder.build(orderConfirmedJson);
-            final Map<String, Object> params = new HashMap<>();
-            params.put("regionId", orderConfirmed.getDeliveryAddress().getCountry());
-            params.put("orderId", orderConfirmed.getId());
-            String topicString = StringSubstitutor.replace(configProperties.getOrderConfirmedEventTopicString(), params, "{", "}");
-            persistentMessagePublisher.publish(message, Topic.of(topicString));
-            log.info("Published OrderConfirmed event :{} on topic : {}", orderConfirmedJson, topicString);
-        } catch (final RuntimeException runtimeException) {
-            log.error("Error encountered while publishing event, exception :", runtimeException);
-        } catch (JsonProcessingException jsonProcessingException) {
-            log.error("Error encountered while converting OrderConfirmed to JSON string, exception :", jsonProcessingException);
+            return solaceRuntime.publish(SolaceRuntime.topic(configProperties.getStockLevelSnapshotTopicString(),
+                    "regionId", stockLevelSnapshot.getRegionId()), stockLevelSnapshot);
+        } catch (PublishRejectedException publishRejectedException) {
+            return -1;
         }
     }
 
-    private void createAndPublishOrderStockReservedEvent(Order orderCreatedEvent) {
-        final StockReservation stockReservation = createStockReservedEvent(orderCreatedEvent);
-        publishStockReservedEvent(stockReservation);
+    int serializedSize(final Object event) {
+        return solaceRuntime.serializedSize(event);
     }
 
-
-    public void publishStockReservedEvent(final StockReservation stockReservation) {
-        try {
-            String stockReservationJson = objectMapper.writeValueAsString(stockReservation);
-            final OutboundMessage message = messageBuilder.build(stockReservationJson);
-            final Map<String, Object> params = new HashMap<>();
-            params.put("orderId", stockReservation.getOrderId());
-            params.put("productId", stockReservation.getProductId());
-            params.put("reservationId", stockReservation.getReservationId());
-            String topicString = StringSubstitutor.replace(configProperties.getStockReservationTopicString(), params, "{", "}");
-            persistentMessagePublisher.publish(message, Topic.of(topicString));
-            log.info("Published StockReservation event :{} on topic : {}", stockReservationJson, topicString);
-        } catch (final RuntimeException runtimeException) {
-            log.error("Error encountered while publishing event, exception :", runtimeException);
-        } catch (JsonProcessingException jsonProcessingException) {
-            log.error("Error encountered while converting StockReservation to JSON string, exception :", jsonProcessingException);
+    /**
+     * Files a reservation per allocation with the expiry index. Reservations are numbered within the order, in the order
+     * of its allocations, so their ids stay the same across restarts and redeliveries.
+     */
+    private List<StockReservation> fileStockReservations(final Order orderCreatedEvent, final List<WarehouseAllocation> allocations) {
+        final long reservedAtMillis = System.currentTimeMillis();
+        final long expiryMillis = reservedAtMillis + inventoryProperties.getReservationTimeToLive().toMillis();
+        final List<StockReservation> stockReservations = new ArrayList<>(allocations.size());
+        for (int i = 0; i < allocations.size(); i++) {
+            final StockReservation stockReservation = createStockReservedEvent(orderCreatedEvent, allocations.get(i), i + 1, reservedAtMillis, expiryMillis);
+            reservationExpiryIndex.add(stockReservation, expiryMillis);
+            stockReservations.add(stockReservation);
         }
+        return stockReservations;
     }
 
-    private StockReservation createStockReservedEvent(final Order orderCreatedEvent) {
-        return Instancio.of(StockReservation.class)
-                .generate(field(StockReservation::getReservationId), gen -> gen.ints())
-                .set(field(StockReservation::getOrderId), orderCreatedEvent.getId())
-                .set(field(StockReservation::getCustomerId), orderCreatedEvent.getCustomerId())
-                .set(field(StockReservation::getProductId), orderCreatedEvent.getProduct())
-                .set(field(StockReservation::getQuantity), orderCreatedEvent.getQuantity())
-                .generate(field(StockReservation::getReservationTime), gen -> gen.temporal().localDateTime().asString())
-                .generate(field(StockReservation::getExpiryTime), gen -> gen.temporal().localDateTime().future().asString())
-                .create();
+
+    public void publishStockReservedEvent(final StockReservation stockReservation, final TraceContext traceContext) {
+        solaceRuntime.publish(stockReservationTopic(configProperties.getStockReservationTopicString(), stockReservation), stockReservation, traceContext);
     }
 
+    private StockReservation createStockReservedEvent(final Order orderCreatedEvent, final WarehouseAllocation allocation, final int reservationId,
+                                                      final long reservedAtMillis, final long expiryMillis) {
+        return StockReservation.builder()
+                .reservationId(reservationId)
+                .orderId(orderCreatedEvent.getId())
+                .customerId(orderCreatedEvent.getCustomerId())
+                .productId(orderCreatedEvent.getProduct())
+                .quantity(allocation.quantity())
+                .warehouseId(allocation.warehouseId())
+                .reservationTime(toLocalDateTime(reservedAtMillis))
+                .expiryTime(toLocalDateTime(expiryMillis))
+                .build();
+    }
+
+    private static String toLocalDateTime(final long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault()).toString();
+    }
 
-    private static void setupConnectivityHandlingInMessagingService(final MessagingService messagingService) {
-        messagingService.addServiceInterruptionListener(serviceEvent -> System.out.println("### SERVICE INTERRUPTION: " + serviceEvent.getCause()));
-        messagingService.addReconnectionAttemptListener(serviceEvent -> System.out.println("### RECONNECTING ATTEMPT: " + serviceEvent));
-        messagingService.addReconnectionListener(serviceEvent -> System.out.println("### RECONNECTED: " + serviceEvent));
+    public void publishStockReleasedEvent(final StockReservation stockReservation) {
+        solaceRuntime.publish(stockReservationTopic(configProperties.getStockReleasedTopicString(), stockReservation), stockReservation);
     }
 
-    private Properties setupPropertiesForConnection(final SolaceConnectionParameters solaceConnectionParameters) {
-        final Properties properties = new Properties();
-        properties.setProperty(SolaceProperties.TransportLayerProperties.HOST, solaceConnectionParameters.getHostUrl());
-        properties.setProperty(SolaceProperties.ServiceProperties.VPN_NAME, solaceConnectionParameters.getVpnName());
-        properties.setProperty(SolaceProperties.AuthenticationProperties.SCHEME_BASIC_USER_NAME, solaceConnectionParameters.getUserName());
-        properties.setProperty(SolaceProperties.AuthenticationProperties.SCHEME_BASIC_PASSWORD, solaceConnectionParameters.getPassword());
-        properties.setProperty(SolaceProperties.TransportLayerProperties.RECONNECTION_ATTEMPTS, configProperties.getReconnectionAttempts());
-        properties.setProperty(SolaceProperties.TransportLayerProperties.CONNECTION_RETRIES_PER_HOST, configProperties.getConnectionRetriesPerHost());
-        return properties;
+    private static String stockReservationTopic(final String topicTemplate, final StockReservation stockReservation) {
+        return SolaceRuntime.topic(topicTemplate, "orderId", stockReservation.getOrderId(), "productId", stockReservation.getProductId(),
+                "reservationId", stockReservation.getReservationId());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,167 @@
+package com.solace.acme.store.inventoryfraudcheckservice.service;
+
+import com.solace.acme.store.inventoryfraudcheckservice.config.InventoryProperties;
+import com.solace.acme.store.inventoryfraudcheckservice.models.StockLevel;
+import com.solace.acme.store.inventoryfraudcheckservice.models.StockLevelSnapshot;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Publishes the stock levels that changed since the previous tick, one snapshot message per region. The stock level
+ * of a region is the stock of the warehouses configured for it. Published bytes are compared against an estimate of
+ * the bytes one single-level event per stock change would have taken.
+ * <p>
+ * Subscribers only ever receive changed levels. The products of a region whose snapshot could not be published are
+ * therefore published again with the next tick, at their level by then, rather than waiting for their next change.
+ */
+@Slf4j
+@Component
+public class StockLevelPublisher {
+
+    private InventoryProperties inventoryProperties;
+    private InventoryLedger inventoryLedger;
+    private SolaceEventHandler solaceEventHandler;
+    private ScheduledExecutorService snapshotExecutor;
+    private final Map<String, int[]> regionWarehouses = new HashMap<>();
+    private final Map<String, Map<String, Long>> unpublishedChanges = new HashMap<>();
+    private long sequence;
+    private final LongAdder publishedBytes = new LongAdder();
+    private final LongAdder baselineBytes = new LongAdder();
+
+    @Autowired
+    public void setInventoryProperties(InventoryProperties inventoryProperties) {
+        this.inventoryProperties = inventoryProperties;
+    }
+
+    @Autowired
+    public void setInventoryLedger(InventoryLedger inventoryLedger) {
+        this.inventoryLedger = inventoryLedger;
+    }
+
+    @Autowired
+    public void setSolaceEventHandler(SolaceEventHandler solaceEventHandler) {
+        this.solaceEventHandler = solaceEventHandler;
+    }
+
+    @PostConstruct
+    public void startSnapshots() {
+        for (Map.Entry<String, List<String>> region : inventoryProperties.getRegionWarehouses().entrySet()) {
+            regionWarehouses.put(region.getKey(), region.getValue().stream().mapToInt(inventoryLedger::getWarehouseIndex).toArray());
+        }
+        final long snapshotIntervalMillis = inventoryProperties.getSnapshotInterval().toMillis();
+        snapshotExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "stock-level-snapshots");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotExecutor.scheduleWithFixedDelay(this::publishChangedStockLevels, snapshotIntervalMillis, snapshotIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    void publishChangedStockLevels() {
+        try {
+            final int warehouses = inventoryLedger.getWarehouseCount();
+            final List<Map<String, Long>> changesByWarehouse = new ArrayList<>(warehouses);
+            boolean anyChanges = !unpublishedChanges.isEmpty();
+            for (int warehouse = 0; warehouse < warehouses; warehouse++) {
+                final Map<String, Long> changes = new HashMap<>();
+                inventoryLedger.drainChangedStock(warehouse, (productId, available, changeCount) -> changes.put(productId, changeCount));
+                changesByWarehouse.add(changes);
+                anyChanges |= !changes.isEmpty();
+            }
+            if (!anyChanges) {
+                return;
+            }
+            final String snapshotTime = LocalDateTime.now().toString();
+            final long snapshotSequence = ++sequence;
+            long intervalBytes = 0;
+            long intervalBaselineBytes = 0;
+            int snapshots = 0;
+            for (Map.Entry<String, int[]> region : regionWarehouses.entrySet()) {
+                final Map<String, Long> regionChanges = new HashMap<>();
+                for (int warehouse : region.getValue()) {
+                    changesByWarehouse.get(warehouse).forEach((productId, changeCount) -> regionChanges.merge(productId, changeCount, Long::sum));
+                }
+                final Map<String, Long> retriedChanges = unpublishedChanges.remove(region.getKey());
+                if (retriedChanges != null) {
+                    retriedChanges.forEach((productId, changeCount) -> regionChanges.merge(productId, changeCount, Long::sum));
+                }
+                if (regionChanges.isEmpty()) {
+                    continue;
+                }
+                final List<StockLevel> stockLevels = new ArrayList<>(regionChanges.size());
+                long regionChangeCount = 0;
+                for (Map.Entry<String, Long> productChanges : regionChanges.entrySet()) {
+                    stockLevels.add(new StockLevel(productChanges.getKey(), regionAvailable(productChanges.getKey(), region.getValue())));
+                    regionChangeCount += productChanges.getValue();
+                }
+                final int bytes = publishStockLevelSnapshot(new StockLevelSnapshot(region.getKey(), snapshotSequence, snapshotTime, stockLevels));
+                if (bytes > 0) {
+                    intervalBytes += bytes;
+                    intervalBaselineBytes += regionChangeCount * singleChangeBytes(region.getKey(), snapshotSequence, snapshotTime, bytes, stockLevels.size());
+                    snapshots++;
+                } else {
+                    // a stream of changes has no full snapshot to recover from, so the products go out with the next tick
+                    unpublishedChanges.put(region.getKey(), regionChanges);
+                }
+            }
+            publishedBytes.add(intervalBytes);
+            baselineBytes.add(intervalBaselineBytes);
+            log.info("Published {} stock level snapshots in {} bytes, an estimated {} bytes as one event per stock change, {} regions left for the next tick",
+                    snapshots, intervalBytes, intervalBaselineBytes, unpublishedChanges.size());
+        } catch (RuntimeException runtimeException) {
+            log.error("Error encountered while publishing stock level snapshots, exception :", runtimeException);
+        }
+    }
+
+    private int publishStockLevelSnapshot(final StockLevelSnapshot stockLevelSnapshot) {
+        try {
+            return solaceEventHandler.publishStockLevelSnapshot(stockLevelSnapshot);
+        } catch (RuntimeException runtimeException) {
+            log.error("Error encountered while publishing the stock level snapshot of region:{}, exception :", stockLevelSnapshot.getRegionId(), runtimeException);
+            return -1;
+        }
+    }
+
+    /**
+     * Estimates the size of a snapshot holding a single level as the size of an empty snapshot plus the average size
+     * of a level in the published snapshot, rather than serializing a snapshot per changed product.
+     */
+    private long singleChangeBytes(final String regionId, final long snapshotSequence, final String snapshotTime, final int snapshotBytes, final int levels) {
+        final int envelopeBytes = solaceEventHandler.serializedSize(new StockLevelSnapshot(regionId, snapshotSequence, snapshotTime, List.of()));
+        return envelopeBytes + Math.max(0, snapshotBytes - envelopeBytes) / levels;
+    }
+
+    private long regionAvailable(final String productId, final int[] warehouses) {
+        long available = 0;
+        for (int warehouse : warehouses) {
+            available += inventoryLedger.available(warehouse, productId);
+        }
+        return available;
+    }
+
+    public long getPublishedBytes() {
+        return publishedBytes.sum();
+    }
+
+    public long getBaselineBytes() {
+        return baselineBytes.sum();
+    }
+
+    @PreDestroy
+    public void stopSnapshots() {
+        snapshotExecutor.shutdownNow();
+    }
+}
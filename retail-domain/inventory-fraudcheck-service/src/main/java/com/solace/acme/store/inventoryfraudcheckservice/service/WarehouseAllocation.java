@@ -0,0 +1,7 @@
+package com.solace.acme.store.inventoryfraudcheckservice.service;
+
+/**
+ * Quantity of an order reserved in one warehouse.
+ */
+public record WarehouseAllocation(String warehouseId, int quantity) {
+}
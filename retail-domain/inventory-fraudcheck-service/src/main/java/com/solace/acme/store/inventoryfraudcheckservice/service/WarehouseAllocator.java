@@ -0,0 +1,223 @@
+package com.solace.acme.store.inventoryfraudcheckservice.service;
+
+import com.solace.acme.store.inventoryfraudcheckservice.config.InventoryProperties;
+import com.solace.acme.store.inventoryfraudcheckservice.models.Order;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Routes the stock reservation of an order to warehouses by the delivery country.
+ * <p>
+ * The preference order of warehouses for every configured country is resolved once at startup into an array of
+ * ledger positions, configured warehouses first and the remaining ones after them, so allocating is a walk over a
+ * short array. An order is served whole from the first warehouse holding its quantity, gathered across the stock cells
+ * of that warehouse when no single cell holds it; when no warehouse does, it is split over the warehouses in
+ * preference order, and the partial reservations are returned if even that falls short.
+ * <p>
+ * Allocation decisions and the allocations per warehouse are registered as meters.
+ */
+@Slf4j
+@Component
+public class WarehouseAllocator {
+
+    private InventoryProperties inventoryProperties;
+    private InventoryLedger inventoryLedger;
+    private MeterRegistry meterRegistry;
+    private final Map<String, int[]> regionPreferences = new HashMap<>();
+    private int[] defaultPreference;
+    private LongAdder[] warehouseAllocations;
+    private final LongAdder preferredAllocations = new LongAdder();
+    private final LongAdder fallbackAllocations = new LongAdder();
+    private final LongAdder splitAllocations = new LongAdder();
+    private final LongAdder failedAllocations = new LongAdder();
+    private ScheduledExecutorService reportExecutor;
+
+    @Autowired
+    public void setInventoryProperties(InventoryProperties inventoryProperties) {
+        this.inventoryProperties = inventoryProperties;
+    }
+
+    @Autowired
+    public void setInventoryLedger(InventoryLedger inventoryLedger) {
+        this.inventoryLedger = inventoryLedger;
+    }
+
+    @Autowired
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void buildPreferenceIndex() {
+        defaultPreference = preferenceOf(Collections.emptyList());
+        for (Map.Entry<String, List<String>> regionWarehouses : inventoryProperties.getRegionWarehouses().entrySet()) {
+            regionPreferences.put(regionWarehouses.getKey(), preferenceOf(regionWarehouses.getValue()));
+        }
+        warehouseAllocations = new LongAdder[inventoryLedger.getWarehouseCount()];
+        for (int warehouse = 0; warehouse < warehouseAllocations.length; warehouse++) {
+            warehouseAllocations[warehouse] = new LongAdder();
+            FunctionCounter.builder("inventory.allocation.warehouse", warehouseAllocations[warehouse], LongAdder::sum)
+                    .description("Orders with stock reserved in the warehouse")
+                    .tag("warehouse", inventoryLedger.getWarehouseId(warehouse))
+                    .register(meterRegistry);
+        }
+        registerDecision("preferred", preferredAllocations);
+        registerDecision("fallback", fallbackAllocations);
+        registerDecision("split", splitAllocations);
+        registerDecision("failed", failedAllocations);
+        final long reportIntervalMillis = inventoryProperties.getReportInterval().toMillis();
+        reportExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "warehouse-allocation-report");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reportExecutor.scheduleWithFixedDelay(this::reportAllocations, reportIntervalMillis, reportIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void registerDecision(final String decision, final LongAdder allocations) {
+        FunctionCounter.builder("inventory.allocation", allocations, LongAdder::sum)
+                .description("Orders allocated to warehouses, by where their stock was reserved")
+                .tag("decision", decision)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Reserves the order quantity and returns where it was reserved, or an empty list when the warehouses together
+     * do not hold enough stock.
+     */
+    public List<WarehouseAllocation> allocate(final Order order) {
+        final int[] preference = preferenceFor(order);
+        final String productId = order.getProduct();
+        final int quantity = order.getQuantity();
+        for (int i = 0; i < preference.length; i++) {
+            if (reserveWhole(preference[i], productId, quantity)) {
+                recordAllocation(i == 0 ? preferredAllocations : fallbackAllocations, preference[i]);
+                return List.of(new WarehouseAllocation(inventoryLedger.getWarehouseId(preference[i]), quantity));
+            }
+        }
+        // no single warehouse holds the quantity, gather it across warehouses
+        final int[] reserved = new int[preference.length];
+        int allocatedWarehouses = 0;
+        int remaining = quantity;
+        for (int i = 0; i < preference.length && remaining > 0; i++) {
+            reserved[i] = inventoryLedger.reserveUpTo(preference[i], productId, remaining);
+            remaining -= reserved[i];
+            allocatedWarehouses += reserved[i] > 0 ? 1 : 0;
+        }
+        if (remaining > 0) {
+            for (int i = 0; i < preference.length; i++) {
+                inventoryLedger.release(preference[i], productId, reserved[i]);
+            }
+            failedAllocations.increment();
+            return Collections.emptyList();
+        }
+        final List<WarehouseAllocation> allocations = new ArrayList<>(allocatedWarehouses);
+        final LongAdder decision = allocatedWarehouses > 1 ? splitAllocations : reserved[0] > 0 ? preferredAllocations : fallbackAllocations;
+        decision.increment();
+        for (int i = 0; i < preference.length; i++) {
+            if (reserved[i] > 0) {
+                warehouseAllocations[preference[i]].increment();
+                allocations.add(new WarehouseAllocation(inventoryLedger.getWarehouseId(preference[i]), reserved[i]));
+            }
+        }
+        return allocations;
+    }
+
+    /**
+     * Reserves the whole quantity in the warehouse, from a single stock cell when one holds it and across its cells
+     * otherwise. Whatever was gathered is handed back when the warehouse falls short.
+     */
+    private boolean reserveWhole(final int warehouse, final String productId, final int quantity) {
+        if (inventoryLedger.tryReserve(warehouse, productId, quantity)) {
+            return true;
+        }
+        final int reserved = inventoryLedger.reserveUpTo(warehouse, productId, quantity);
+        if (reserved > 0 && reserved == quantity) {
+            return true;
+        }
+        inventoryLedger.release(warehouse, productId, reserved);
+        return false;
+    }
+
+    private void recordAllocation(final LongAdder decision, final int warehouse) {
+        decision.increment();
+        warehouseAllocations[warehouse].increment();
+    }
+
+    public long getPreferredAllocationCount() {
+        return preferredAllocations.sum();
+    }
+
+    public long getFallbackAllocationCount() {
+        return fallbackAllocations.sum();
+    }
+
+    public long getSplitAllocationCount() {
+        return splitAllocations.sum();
+    }
+
+    public long getFailedAllocationCount() {
+        return failedAllocations.sum();
+    }
+
+    public long getWarehouseAllocationCount(final int warehouse) {
+        return warehouseAllocations[warehouse].sum();
+    }
+
+    private int[] preferenceFor(final Order order) {
+        if (order.getDeliveryAddress() == null) {
+            return defaultPreference;
+        }
+        return regionPreferences.getOrDefault(order.getDeliveryAddress().getCountry(), defaultPreference);
+    }
+
+    private int[] preferenceOf(final List<String> preferredWarehouseIds) {
+        final Set<Integer> preference = new LinkedHashSet<>();
+        for (String warehouseId : preferredWarehouseIds) {
+            preference.add(inventoryLedger.getWarehouseIndex(warehouseId));
+        }
+        for (int warehouse = 0; warehouse < inventoryLedger.getWarehouseCount(); warehouse++) {
+            preference.add(warehouse);
+        }
+        return preference.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private void reportAllocations() {
+        final long preferred = preferredAllocations.sum();
+        final long fallback = fallbackAllocations.sum();
+        final long split = splitAllocations.sum();
+        final long failed = failedAllocations.sum();
+        final long allocated = preferred + fallback + split;
+        if (allocated + failed == 0) {
+            return;
+        }
+        final StringBuilder perWarehouse = new StringBuilder();
+        for (int warehouse = 0; warehouse < warehouseAllocations.length; warehouse++) {
+            perWarehouse.append(warehouse == 0 ? "" : ", ").append(inventoryLedger.getWarehouseId(warehouse)).append('=').append(warehouseAllocations[warehouse].sum());
+        }
+        log.info("Warehouse allocations: preferred:{}, fallback:{}, split:{} ({} % of allocated orders), failed:{}, per warehouse [{}]",
+                preferred, fallback, split, allocated == 0 ? 0 : Math.round(split * 1000.0 / allocated) / 10.0, failed, perWarehouse);
+    }
+
+    @PreDestroy
+    public void stopReporting() {
+        reportExecutor.shutdownNow();
+    }
+}
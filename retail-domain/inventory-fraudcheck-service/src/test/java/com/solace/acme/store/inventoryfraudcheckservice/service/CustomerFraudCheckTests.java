@@ -0,0 +1,89 @@
+package com.solace.acme.store.inventoryfraudcheckservice.service;
+
+import com.solace.acme.store.inventoryfraudcheckservice.config.FraudCheckProperties;
+import com.solace.acme.store.inventoryfraudcheckservice.models.Order;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CustomerFraudCheckTests {
+
+    private CustomerFraudCheck customerFraudCheck;
+
+    @BeforeEach
+    void startFraudCheck() {
+        final FraudCheckProperties fraudCheckProperties = new FraudCheckProperties();
+        fraudCheckProperties.setWindow(Duration.ofHours(1));
+        fraudCheckProperties.setBuckets(12);
+        fraudCheckProperties.setMaxOrders(2);
+        fraudCheckProperties.setMaxOrderValue(1000);
+        fraudCheckProperties.setMaxQuantity(10);
+        customerFraudCheck = new CustomerFraudCheck();
+        customerFraudCheck.setFraudCheckProperties(fraudCheckProperties);
+        customerFraudCheck.startIdleCustomerEviction();
+    }
+
+    @AfterEach
+    void stopFraudCheck() {
+        customerFraudCheck.stopIdleCustomerEviction();
+    }
+
+    @Test
+    void rejectsOrdersBeyondTheCustomerLimits() {
+        assertTrue(customerFraudCheck.check(order("order-1", "customer-1", 1, 100)));
+        assertTrue(customerFraudCheck.check(order("order-2", "customer-1", 1, 100)));
+        assertFalse(customerFraudCheck.check(order("order-3", "customer-1", 1, 100)));
+        assertFalse(customerFraudCheck.check(order("order-4", "customer-2", 11, 1)));
+        assertFalse(customerFraudCheck.check(order("order-5", "customer-3", 2, 600)));
+
+        assertEquals(3, customerFraudCheck.getRejectionCount());
+    }
+
+    @Test
+    void passesARedeliveredOrderWithoutCountingItTwice() {
+        final Order order = order("order-1", "customer-1", 1, 100);
+        assertTrue(customerFraudCheck.check(order));
+
+        assertTrue(customerFraudCheck.check(order));
+        assertTrue(customerFraudCheck.check(order));
+
+        assertTrue(customerFraudCheck.check(order("order-2", "customer-1", 1, 100)));
+        assertFalse(customerFraudCheck.check(order("order-3", "customer-1", 1, 100)));
+    }
+
+    @Test
+    void evictsIdleCustomersAndStartsAFreshWindowForThem() {
+        assertTrue(customerFraudCheck.check(order("order-1", "customer-1", 1, 100)));
+        assertTrue(customerFraudCheck.check(order("order-2", "customer-1", 1, 100)));
+
+        customerFraudCheck.evictIdleCustomers(System.currentTimeMillis());
+        assertEquals(1, customerFraudCheck.getTrackedCustomerCount());
+        customerFraudCheck.evictIdleCustomers(System.currentTimeMillis() + Duration.ofHours(2).toMillis());
+        assertEquals(0, customerFraudCheck.getTrackedCustomerCount());
+
+        assertTrue(customerFraudCheck.check(order("order-3", "customer-1", 1, 100)));
+        assertEquals(1, customerFraudCheck.getTrackedCustomerCount());
+    }
+
+    @Test
+    void evictedActivityRecordsNothing() {
+        final CustomerActivity customerActivity = new CustomerActivity(4, 1000);
+        assertNull(customerActivity.tryRecord(10_000, "order-1", 100, 1, 10, 10_000, 10));
+
+        assertFalse(customerActivity.evictIfIdle(10_000));
+        assertTrue(customerActivity.evictIfIdle(10_001));
+
+        assertEquals(CustomerActivity.EVICTED, customerActivity.tryRecord(10_002, "order-2", 100, 1, 10, 10_000, 10));
+    }
+
+    private static Order order(final String orderId, final String customerId, final int quantity, final double price) {
+        return Order.builder().id(orderId).customerId(customerId).product("Macbook").quantity(quantity).price(price).build();
+    }
+}
@@ -0,0 +1,110 @@
+package com.solace.acme.store.inventoryfraudcheckservice.service;
+
+import com.solace.acme.store.inventoryfraudcheckservice.config.InventoryProperties;
+import com.solace.acme.store.inventoryfraudcheckservice.models.StockReservation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReservationExpiryIndexTests {
+
+    private ReservationExpiryIndex reservationExpiryIndex;
+
+    @BeforeEach
+    void configureIndex() {
+        final InventoryProperties inventoryProperties = new InventoryProperties();
+        inventoryProperties.setExpiryBucketWidth(Duration.ofMillis(100));
+        reservationExpiryIndex = new ReservationExpiryIndex();
+        reservationExpiryIndex.setInventoryProperties(inventoryProperties);
+        reservationExpiryIndex.configureBuckets();
+    }
+
+    @Test
+    void drainsReservationsOnceTheirBucketHasEnded() {
+        reservationExpiryIndex.add(reservation(1, "order-1"), 1_050);
+        reservationExpiryIndex.add(reservation(2, "order-2"), 1_250);
+
+        assertEquals(List.of(), drainExpired(1_099));
+        assertEquals(List.of(1), drainExpired(1_100));
+        assertEquals(List.of(2), drainExpired(5_000));
+        assertEquals(0, reservationExpiryIndex.size());
+    }
+
+    @Test
+    void drainsReservationsFiledUnderBucketsThatHaveBeenDrainedAlready() {
+        reservationExpiryIndex.add(reservation(1, "order-1"), 1_050);
+        assertEquals(List.of(1), drainExpired(2_000));
+
+        reservationExpiryIndex.add(reservation(2, "order-2"), 1_050);
+        reservationExpiryIndex.add(reservation(3, "order-3"), 500);
+
+        assertEquals(List.of(3, 2), drainExpired(2_000));
+        assertEquals(0, reservationExpiryIndex.size());
+    }
+
+    @Test
+    void neverReleasesTheReservationsOfAPaidOrder() {
+        reservationExpiryIndex.add(reservation(1, "order-1"), 1_050);
+        reservationExpiryIndex.add(reservation(2, "order-1"), 1_150);
+        reservationExpiryIndex.add(reservation(3, "order-2"), 1_050);
+
+        assertEquals(2, reservationExpiryIndex.commit("order-1"));
+
+        assertEquals(1, reservationExpiryIndex.size());
+        assertEquals(List.of(3), drainExpired(5_000));
+    }
+
+    @Test
+    void commitsNothingOnceTheReservationsHaveExpired() {
+        reservationExpiryIndex.add(reservation(1, "order-1"), 1_050);
+        assertEquals(List.of(1), drainExpired(5_000));
+
+        assertEquals(0, reservationExpiryIndex.commit("order-1"));
+        assertEquals(0, reservationExpiryIndex.commit("unknown-order"));
+        assertEquals(0, reservationExpiryIndex.size());
+    }
+
+    @Test
+    void tellsReservationsWithTheSameIdApartByTheirOrder() {
+        reservationExpiryIndex.add(reservation(1, "order-1"), 1_050);
+        reservationExpiryIndex.add(reservation(1, "order-2"), 1_050);
+
+        assertEquals(1, reservationExpiryIndex.commit("order-1"));
+
+        assertEquals(1, reservationExpiryIndex.size());
+        assertEquals(List.of("order-2"), reservationExpiryIndex.reservationsOf("order-2").stream().map(StockReservation::getOrderId).toList());
+    }
+
+    @Test
+    void returnsTheReservationsAnOrderStillHolds() {
+        reservationExpiryIndex.add(reservation(1, "order-1"), 1_050);
+        reservationExpiryIndex.add(reservation(2, "order-1"), 3_050);
+
+        assertEquals(List.of(1, 2), reservationIdsOf("order-1"));
+        assertEquals(List.of(1), drainExpired(2_000));
+        assertEquals(List.of(2), reservationIdsOf("order-1"));
+        reservationExpiryIndex.commit("order-1");
+        assertEquals(List.of(), reservationIdsOf("order-1"));
+        assertEquals(List.of(), reservationIdsOf("unknown-order"));
+    }
+
+    private List<Integer> reservationIdsOf(final String orderId) {
+        return reservationExpiryIndex.reservationsOf(orderId).stream().map(StockReservation::getReservationId).toList();
+    }
+
+    private List<Integer> drainExpired(final long nowMillis) {
+        final List<Integer> expired = new ArrayList<>();
+        reservationExpiryIndex.drainExpired(nowMillis, stockReservation -> expired.add(stockReservation.getReservationId()));
+        return expired;
+    }
+
+    private static StockReservation reservation(final int reservationId, final String orderId) {
+        return StockReservation.builder().reservationId(reservationId).orderId(orderId).productId("Macbook").quantity(1)
+                .warehouseId("eu-central").build();
+    }
+}
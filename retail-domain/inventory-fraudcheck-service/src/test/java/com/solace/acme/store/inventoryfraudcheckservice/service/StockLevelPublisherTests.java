@@ -0,0 +1,147 @@
+package com.solace.acme.store.inventoryfraudcheckservice.service;
+
+import com.solace.acme.runtime.PublishRejectedException;
+import com.solace.acme.store.inventoryfraudcheckservice.config.InventoryProperties;
+import com.solace.acme.store.inventoryfraudcheckservice.models.StockLevel;
+import com.solace.acme.store.inventoryfraudcheckservice.models.StockLevelSnapshot;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StockLevelPublisherTests {
+
+    private static final int ENVELOPE_BYTES = 40;
+    private static final int LEVEL_BYTES = 20;
+
+    private final List<StockLevelSnapshot> publishedSnapshots = new ArrayList<>();
+    private Function<StockLevelSnapshot, Integer> publisher = StockLevelPublisherTests::snapshotBytes;
+    private InventoryLedger inventoryLedger;
+    private StockLevelPublisher stockLevelPublisher;
+
+    @BeforeEach
+    void startPublisher() {
+        final InventoryProperties inventoryProperties = new InventoryProperties();
+        inventoryProperties.setStripes(4);
+        inventoryProperties.setWarehouses(List.of(warehouse("eu-central"), warehouse("eu-west"), warehouse("us-east")));
+        inventoryProperties.setRegionWarehouses(Map.of("EU", List.of("eu-central", "eu-west"), "US", List.of("us-east")));
+        inventoryProperties.setSnapshotInterval(Duration.ofHours(1));
+        inventoryLedger = new InventoryLedger();
+        inventoryLedger.setInventoryProperties(inventoryProperties);
+        inventoryLedger.registerWarehouses();
+        stockLevelPublisher = new StockLevelPublisher();
+        stockLevelPublisher.setInventoryProperties(inventoryProperties);
+        stockLevelPublisher.setInventoryLedger(inventoryLedger);
+        stockLevelPublisher.setSolaceEventHandler(new SolaceEventHandler() {
+            @Override
+            public int publishStockLevelSnapshot(final StockLevelSnapshot stockLevelSnapshot) {
+                final int bytes = publisher.apply(stockLevelSnapshot);
+                if (bytes > 0) {
+                    publishedSnapshots.add(stockLevelSnapshot);
+                }
+                return bytes;
+            }
+
+            @Override
+            int serializedSize(final Object event) {
+                return snapshotBytes((StockLevelSnapshot) event);
+            }
+        });
+        stockLevelPublisher.startSnapshots();
+    }
+
+    @AfterEach
+    void stopPublisher() {
+        stockLevelPublisher.stopSnapshots();
+    }
+
+    @Test
+    void mergesTheChangesOfTheWarehousesOfARegion() {
+        inventoryLedger.tryReserve(0, "Macbook", 2);
+        inventoryLedger.tryReserve(1, "Macbook", 3);
+        inventoryLedger.tryReserve(1, "Iphone", 1);
+
+        stockLevelPublisher.publishChangedStockLevels();
+
+        assertEquals(1, publishedSnapshots.size(), "no snapshot for a region without changes");
+        assertEquals("EU", publishedSnapshots.get(0).getRegionId());
+        assertEquals(Map.of("Macbook", 195L, "Iphone", 199L), levelsOf(publishedSnapshots.get(0)));
+    }
+
+    @Test
+    void publishesNothingWhenNoStockChanged() {
+        stockLevelPublisher.publishChangedStockLevels();
+
+        assertEquals(List.of(), publishedSnapshots);
+        assertEquals(0, stockLevelPublisher.getPublishedBytes());
+    }
+
+    @Test
+    void publishesTheProductsOfARejectedSnapshotWithTheNextTick() {
+        inventoryLedger.tryReserve(0, "Macbook", 2);
+        inventoryLedger.tryReserve(2, "Macbook", 1);
+        publisher = snapshot -> snapshot.getRegionId().equals("EU") ? -1 : snapshotBytes(snapshot);
+        stockLevelPublisher.publishChangedStockLevels();
+        assertEquals(List.of("US"), publishedSnapshots.stream().map(StockLevelSnapshot::getRegionId).toList());
+
+        publisher = StockLevelPublisherTests::snapshotBytes;
+        inventoryLedger.tryReserve(1, "Macbook", 1);
+        stockLevelPublisher.publishChangedStockLevels();
+
+        assertEquals(List.of("US", "EU"), publishedSnapshots.stream().map(StockLevelSnapshot::getRegionId).toList());
+        assertEquals(Map.of("Macbook", 197L), levelsOf(publishedSnapshots.get(1)));
+    }
+
+    @Test
+    void publishesTheProductsOfAFailedSnapshotWithTheNextTickWithoutNewChanges() {
+        inventoryLedger.tryReserve(2, "Macbook", 1);
+        publisher = snapshot -> {
+            throw new PublishRejectedException("Publisher buffer of 1 messages is full");
+        };
+        stockLevelPublisher.publishChangedStockLevels();
+        assertEquals(List.of(), publishedSnapshots);
+
+        publisher = StockLevelPublisherTests::snapshotBytes;
+        stockLevelPublisher.publishChangedStockLevels();
+
+        assertEquals(Map.of("Macbook", 99L), levelsOf(publishedSnapshots.get(0)));
+        stockLevelPublisher.publishChangedStockLevels();
+        assertEquals(1, publishedSnapshots.size(), "published once");
+    }
+
+    @Test
+    void estimatesTheBytesOfOneEventPerStockChange() {
+        inventoryLedger.tryReserve(0, "Macbook", 1);
+        inventoryLedger.tryReserve(0, "Macbook", 1);
+        inventoryLedger.tryReserve(1, "Macbook", 1);
+        inventoryLedger.tryReserve(0, "Iphone", 1);
+
+        stockLevelPublisher.publishChangedStockLevels();
+
+        assertEquals(ENVELOPE_BYTES + 2 * LEVEL_BYTES, stockLevelPublisher.getPublishedBytes());
+        assertEquals(4 * (ENVELOPE_BYTES + LEVEL_BYTES), stockLevelPublisher.getBaselineBytes());
+    }
+
+    private static int snapshotBytes(final StockLevelSnapshot snapshot) {
+        return ENVELOPE_BYTES + LEVEL_BYTES * snapshot.getStockLevels().size();
+    }
+
+    private static Map<String, Long> levelsOf(final StockLevelSnapshot snapshot) {
+        return snapshot.getStockLevels().stream().collect(Collectors.toMap(StockLevel::getProductId, StockLevel::getAvailable));
+    }
+
+    private static InventoryProperties.Warehouse warehouse(final String id) {
+        final InventoryProperties.Warehouse warehouse = new InventoryProperties.Warehouse();
+        warehouse.setId(id);
+        warehouse.setDefaultStock(100);
+        return warehouse;
+    }
+}
@@ -0,0 +1,107 @@
+package com.solace.acme.store.inventoryfraudcheckservice.service;
+
+import com.solace.acme.store.inventoryfraudcheckservice.config.InventoryProperties;
+import com.solace.acme.store.inventoryfraudcheckservice.models.Order;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WarehouseAllocatorTests {
+
+    private static final String PRODUCT = "Macbook";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private InventoryLedger inventoryLedger;
+    private WarehouseAllocator warehouseAllocator;
+
+    @AfterEach
+    void stopReporting() {
+        if (warehouseAllocator != null) {
+            warehouseAllocator.stopReporting();
+        }
+    }
+
+    @Test
+    void gathersTheQuantityAcrossTheCellsOfThePreferredWarehouse() {
+        // four cells of two units each in eu-central, none of them holds the quantity on its own
+        startAllocator(8, 100);
+
+        final List<WarehouseAllocation> allocations = warehouseAllocator.allocate(order(5));
+
+        assertEquals(List.of(new WarehouseAllocation("eu-central", 5)), allocations);
+        assertEquals(3, inventoryLedger.available(0, PRODUCT));
+        assertEquals(100, inventoryLedger.available(1, PRODUCT));
+        assertEquals(1, allocations("preferred"));
+        assertEquals(1, meterRegistry.get("inventory.allocation.warehouse").tag("warehouse", "eu-central").functionCounter().count());
+    }
+
+    @Test
+    void fallsBackToTheNextWarehouseHoldingTheWholeQuantity() {
+        startAllocator(8, 100);
+
+        final List<WarehouseAllocation> allocations = warehouseAllocator.allocate(order(10));
+
+        assertEquals(List.of(new WarehouseAllocation("us-east", 10)), allocations);
+        assertEquals(8, inventoryLedger.available(0, PRODUCT));
+        assertEquals(1, allocations("fallback"));
+    }
+
+    @Test
+    void splitsTheQuantityWhenNoWarehouseHoldsItWhole() {
+        startAllocator(8, 4);
+
+        final List<WarehouseAllocation> allocations = warehouseAllocator.allocate(order(10));
+
+        assertEquals(List.of(new WarehouseAllocation("eu-central", 8), new WarehouseAllocation("us-east", 2)), allocations);
+        assertEquals(1, allocations("split"));
+    }
+
+    @Test
+    void returnsThePartialReservationsWhenTheWarehousesFallShort() {
+        startAllocator(8, 4);
+
+        assertEquals(List.of(), warehouseAllocator.allocate(order(20)));
+
+        assertEquals(8, inventoryLedger.available(0, PRODUCT));
+        assertEquals(4, inventoryLedger.available(1, PRODUCT));
+        assertEquals(1, allocations("failed"));
+    }
+
+    private void startAllocator(final long europeanStock, final long americanStock) {
+        final InventoryProperties inventoryProperties = new InventoryProperties();
+        inventoryProperties.setStripes(4);
+        inventoryProperties.setWarehouses(List.of(warehouse("eu-central", europeanStock), warehouse("us-east", americanStock)));
+        inventoryProperties.setRegionWarehouses(Map.of("GB", List.of("eu-central")));
+        inventoryProperties.setReportInterval(Duration.ofHours(1));
+        inventoryLedger = new InventoryLedger();
+        inventoryLedger.setInventoryProperties(inventoryProperties);
+        inventoryLedger.registerWarehouses();
+        warehouseAllocator = new WarehouseAllocator();
+        warehouseAllocator.setInventoryProperties(inventoryProperties);
+        warehouseAllocator.setInventoryLedger(inventoryLedger);
+        warehouseAllocator.setMeterRegistry(meterRegistry);
+        warehouseAllocator.buildPreferenceIndex();
+    }
+
+    private double allocations(final String decision) {
+        return meterRegistry.get("inventory.allocation").tag("decision", decision).functionCounter().count();
+    }
+
+    private static InventoryProperties.Warehouse warehouse(final String id, final long defaultStock) {
+        final InventoryProperties.Warehouse warehouse = new InventoryProperties.Warehouse();
+        warehouse.setId(id);
+        warehouse.setDefaultStock(defaultStock);
+        return warehouse;
+    }
+
+    private static Order order(final int quantity) {
+        return Order.builder().id("order-1").customerId("customer-1").product(PRODUCT).quantity(quantity)
+                .deliveryAddress(Order.DeliveryAddress.builder().country("GB").build()).build();
+    }
+}
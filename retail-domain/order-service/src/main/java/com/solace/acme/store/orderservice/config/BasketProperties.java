@@ -0,0 +1,20 @@
+package com.solace.acme.store.orderservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "basket")
+@Getter
+@Setter
+public class BasketProperties {
+    private int workerThreads;
+    private int queueCapacity;
+    private double permitsPerSecond;
+    private int burst;
+    private Duration orderCreationDelay;
+}
@@ -0,0 +1,21 @@
+package com.solace.acme.store.orderservice.config;
+
+import com.solace.acme.store.orderservice.model.Order;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+@Configuration
+@ConfigurationProperties(prefix = "order-cache")
+@Getter
+@Setter
+public class OrderCacheProperties {
+    private int maximumSize;
+    private Duration sweepInterval;
+    private Map<Order.OrderState, Duration> timeToLive = new EnumMap<>(Order.OrderState.class);
+}
@@ -0,0 +1,37 @@
+package com.solace.acme.store.orderservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+@ConfigurationProperties(prefix = "order-generator")
+@Getter
+@Setter
+public class OrderGeneratorProperties {
+    private long seed;
+    private int customers;
+    private double customerSkew;
+    private double productSkew;
+    private List<Product> catalogue = new ArrayList<>();
+    private List<Region> regions = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Product {
+        private String name;
+        private double price;
+    }
+
+    @Getter
+    @Setter
+    public static class Region {
+        private String country;
+        private int weight;
+        private List<String> cities = new ArrayList<>();
+    }
+}
@@ -0,0 +1,18 @@
+package com.solace.acme.store.orderservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "order-projection")
+@Getter
+@Setter
+public class OrderProjectionProperties {
+    private int applyLoops;
+    private String orderEventTopicPrefix;
+    private String paymentConfirmedTopicPrefix;
+    private String paymentFailedTopicPrefix;
+    private String shipmentEventTopicPrefix;
+}
@@ -2,17 +2,22 @@ package com.solace.acme.store.orderservice.controller;
 
 import com.solace.acme.store.orderservice.config.SolaceConnectionParameters;
 import com.solace.acme.store.orderservice.model.Order;
-import com.solace.acme.store.orderservice.model.OrderCache;
+import com.solace.acme.store.orderservice.service.BasketRejectedException;
 import com.solace.acme.store.orderservice.service.OrderService;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Controller
 @Slf4j
@@ -45,8 +50,16 @@ public class OrderController {
 
     @PostMapping(path = "/createNewBasket")
     @ResponseBody
-    public Order createNewBasket(final Model model) {
-        final Order newOrder = orderService.createBasket();
-        return newOrder;
+    public CompletableFuture<ResponseEntity<Order>> createNewBasket() {
+        return orderService.createBasketAsync()
+                .thenApply(ResponseEntity::ok)
+                .exceptionally(throwable -> {
+                    final Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+                    if (cause instanceof BasketRejectedException basketRejectedException) {
+                        log.debug("Basket request rejected, reason :{}", basketRejectedException.getReason());
+                        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1").build();
+                    }
+                    throw throwable instanceof CompletionException completionException ? completionException : new CompletionException(throwable);
+                });
     }
 }
@@ -1,30 +1,292 @@
 package com.solace.acme.store.orderservice.model;
 
-import lombok.Data;
-import lombok.Getter;
-import lombok.Setter;
-
-import java.util.HashMap;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 
-@Data
-@Getter
-@Setter
+/**
+ * Concurrent, bounded cache of the orders known to this service.
+ * <p>
+ * Orders expire after a time-to-live that depends on their {@link Order.OrderState}, and the oldest entry is evicted
+ * once the cache grows beyond its maximum size. Every put appends the entry to a FIFO queue of its state; since all
+ * entries of one queue share the same time-to-live, expiry only ever has to look at queue heads. Entries superseded by
+ * a later put stay in their queue and are skipped when they reach the head.
+ * <p>
+ * Secondary indexes by customer, state and region are maintained incrementally under the per-order lock of the
+ * backing {@link ConcurrentHashMap}, so they never disagree with the primary map for longer than one update.
+ */
 public class OrderCache {
 
+    private static final Order.OrderState[] STATES = Order.OrderState.values();
     private static volatile OrderCache orderCacheInstance;
-    private Map<String, Order> orderMap;
+
+    private final Map<String, CachedOrder> orders = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> ordersByCustomer = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> ordersByRegion = new ConcurrentHashMap<>();
+    private final Map<Order.OrderState, Set<String>> ordersByState = new EnumMap<>(Order.OrderState.class);
+    private final Map<Order.OrderState, Queue<CachedOrder>> expiryQueues = new EnumMap<>(Order.OrderState.class);
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder sizeEvictions = new LongAdder();
+    private final LongAdder expiryEvictions = new LongAdder();
+
+    private volatile int maximumSize = 100_000;
+    private volatile long[] timeToLiveNanos = new long[STATES.length];
 
     private OrderCache() {
+        for (Order.OrderState state : STATES) {
+            ordersByState.put(state, ConcurrentHashMap.newKeySet());
+            expiryQueues.put(state, new ConcurrentLinkedQueue<>());
+        }
+        Arrays.fill(timeToLiveNanos, Long.MAX_VALUE);
     }
 
     public static OrderCache getInstance() {
         if (orderCacheInstance == null) {
             synchronized (OrderCache.class) {
-                orderCacheInstance = new OrderCache();
-                orderCacheInstance.orderMap = new HashMap<>();
+                if (orderCacheInstance == null) {
+                    orderCacheInstance = new OrderCache();
+                }
             }
         }
         return orderCacheInstance;
     }
+
+    public void configure(final int maximumSize, final Map<Order.OrderState, Duration> timeToLive) {
+        final long[] configuredTimeToLive = new long[STATES.length];
+        for (Order.OrderState state : STATES) {
+            final Duration stateTimeToLive = timeToLive.get(state);
+            configuredTimeToLive[state.ordinal()] = stateTimeToLive == null ? Long.MAX_VALUE : stateTimeToLive.toNanos();
+        }
+        this.timeToLiveNanos = configuredTimeToLive;
+        this.maximumSize = maximumSize;
+    }
+
+    public void put(final Order order) {
+        final CachedOrder cachedOrder = new CachedOrder(order, System.nanoTime());
+        orders.compute(order.getId(), (orderId, previous) -> {
+            if (previous != null) {
+                unindex(previous);
+            }
+            index(cachedOrder);
+            return cachedOrder;
+        });
+        expiryQueues.get(cachedOrder.state).offer(cachedOrder);
+        if (orders.size() > maximumSize) {
+            evictOverflow();
+        }
+    }
+
+    public Order get(final String orderId) {
+        final CachedOrder cachedOrder = orders.get(orderId);
+        if (cachedOrder == null) {
+            misses.increment();
+            return null;
+        }
+        if (isExpired(cachedOrder, System.nanoTime())) {
+            if (remove(cachedOrder)) {
+                expiryEvictions.increment();
+            }
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return cachedOrder.order;
+    }
+
+    public List<Order> findByCustomer(final String customerId) {
+        return resolve(ordersByCustomer.get(customerId));
+    }
+
+    public List<Order> findByRegion(final String regionId) {
+        return resolve(ordersByRegion.get(regionId));
+    }
+
+    public List<Order> findByState(final Order.OrderState state) {
+        return resolve(ordersByState.get(state));
+    }
+
+    public int countByState(final Order.OrderState state) {
+        return ordersByState.get(state).size();
+    }
+
+    public int size() {
+        return orders.size();
+    }
+
+    /**
+     * Drops every order whose state time-to-live has elapsed. The work done is proportional to the number of expired
+     * and superseded entries, not to the size of the cache.
+     */
+    public int evictExpired() {
+        final long now = System.nanoTime();
+        int evicted = 0;
+        for (Queue<CachedOrder> expiryQueue : expiryQueues.values()) {
+            CachedOrder head;
+            while ((head = expiryQueue.peek()) != null) {
+                if (isCurrent(head) && !isExpired(head, now)) {
+                    break;
+                }
+                expiryQueue.poll();
+                if (remove(head)) {
+                    evicted++;
+                }
+            }
+        }
+        expiryEvictions.add(evicted);
+        return evicted;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getSizeEvictionCount() {
+        return sizeEvictions.sum();
+    }
+
+    public long getExpiryEvictionCount() {
+        return expiryEvictions.sum();
+    }
+
+    private void evictOverflow() {
+        // one thread trims at a time, the others carry on and the cache may briefly overshoot its maximum size
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            while (orders.size() > maximumSize) {
+                final CachedOrder oldest = pollOldest();
+                if (oldest == null) {
+                    return;
+                }
+                if (remove(oldest)) {
+                    sizeEvictions.increment();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private CachedOrder pollOldest() {
+        Queue<CachedOrder> oldestQueue = null;
+        CachedOrder oldest = null;
+        for (Queue<CachedOrder> expiryQueue : expiryQueues.values()) {
+            CachedOrder head;
+            while ((head = expiryQueue.peek()) != null && !isCurrent(head)) {
+                expiryQueue.poll();
+            }
+            if (head != null && (oldest == null || head.cachedAtNanos - oldest.cachedAtNanos < 0)) {
+                oldest = head;
+                oldestQueue = expiryQueue;
+            }
+        }
+        if (oldestQueue != null) {
+            oldestQueue.remove(oldest);
+        }
+        return oldest;
+    }
+
+    private boolean remove(final CachedOrder expected) {
+        final boolean[] removed = new boolean[1];
+        orders.computeIfPresent(expected.orderId, (orderId, current) -> {
+            if (current != expected) {
+                return current;
+            }
+            unindex(current);
+            removed[0] = true;
+            return null;
+        });
+        return removed[0];
+    }
+
+    private boolean isCurrent(final CachedOrder cachedOrder) {
+        return orders.get(cachedOrder.orderId) == cachedOrder;
+    }
+
+    private boolean isExpired(final CachedOrder cachedOrder, final long now) {
+        return now - cachedOrder.cachedAtNanos >= timeToLiveNanos[cachedOrder.state.ordinal()];
+    }
+
+    private void index(final CachedOrder cachedOrder) {
+        ordersByState.get(cachedOrder.state).add(cachedOrder.orderId);
+        addToIndex(ordersByCustomer, cachedOrder.customerId, cachedOrder.orderId);
+        addToIndex(ordersByRegion, cachedOrder.regionId, cachedOrder.orderId);
+    }
+
+    private void unindex(final CachedOrder cachedOrder) {
+        ordersByState.get(cachedOrder.state).remove(cachedOrder.orderId);
+        removeFromIndex(ordersByCustomer, cachedOrder.customerId, cachedOrder.orderId);
+        removeFromIndex(ordersByRegion, cachedOrder.regionId, cachedOrder.orderId);
+    }
+
+    private static void addToIndex(final Map<String, Set<String>> index, final String key, final String orderId) {
+        if (key == null) {
+            return;
+        }
+        index.compute(key, (indexKey, orderIds) -> {
+            final Set<String> updatedOrderIds = orderIds == null ? ConcurrentHashMap.newKeySet() : orderIds;
+            updatedOrderIds.add(orderId);
+            return updatedOrderIds;
+        });
+    }
+
+    private static void removeFromIndex(final Map<String, Set<String>> index, final String key, final String orderId) {
+        if (key == null) {
+            return;
+        }
+        index.computeIfPresent(key, (indexKey, orderIds) -> {
+            orderIds.remove(orderId);
+            return orderIds.isEmpty() ? null : orderIds;
+        });
+    }
+
+    private List<Order> resolve(final Set<String> orderIds) {
+        if (orderIds == null || orderIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final List<Order> resolvedOrders = new ArrayList<>(orderIds.size());
+        for (String orderId : orderIds) {
+            final Order order = get(orderId);
+            if (order != null) {
+                resolvedOrders.add(order);
+            }
+        }
+        return resolvedOrders;
+    }
+
+    private static final class CachedOrder {
+        private final String orderId;
+        private final Order order;
+        private final Order.OrderState state;
+        private final String customerId;
+        private final String regionId;
+        private final long cachedAtNanos;
+
+        private CachedOrder(final Order order, final long cachedAtNanos) {
+            this.orderId = order.getId();
+            this.order = order;
+            this.state = order.getState() == null ? Order.OrderState.INITIALIZED : order.getState();
+            this.customerId = order.getCustomerId();
+            this.regionId = order.getDeliveryAddress() == null ? null : order.getDeliveryAddress().getCountry();
+            this.cachedAtNanos = cachedAtNanos;
+        }
+    }
 }
@@ -0,0 +1,107 @@
+package com.solace.acme.store.orderservice.service;
+
+import com.solace.acme.store.orderservice.config.BasketProperties;
+import com.solace.acme.store.orderservice.model.Order;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Admission control in front of basket creation. A request first needs a token from the rate limiter and then a slot
+ * in the bounded queue of the basket workers; when either is exhausted it is rejected straight away instead of
+ * holding on to a request thread.
+ */
+@Slf4j
+@Component
+public class BasketAdmission {
+
+    static final String RATE_LIMITED = "rate_limited";
+    static final String QUEUE_FULL = "queue_full";
+
+    private BasketProperties basketProperties;
+    private MeterRegistry meterRegistry;
+    private TokenBucket tokenBucket;
+    private ThreadPoolExecutor basketWorkers;
+    private Timer queueWait;
+    private Counter rateLimitedRejections;
+    private Counter queueFullRejections;
+
+    @Autowired
+    public void setBasketProperties(BasketProperties basketProperties) {
+        this.basketProperties = basketProperties;
+    }
+
+    @Autowired
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void startBasketWorkers() {
+        tokenBucket = new TokenBucket(basketProperties.getPermitsPerSecond(), basketProperties.getBurst());
+        final AtomicInteger workerNumber = new AtomicInteger();
+        final int workerThreads = Math.max(1, basketProperties.getWorkerThreads());
+        basketWorkers = new ThreadPoolExecutor(workerThreads, workerThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, basketProperties.getQueueCapacity())),
+                runnable -> new Thread(runnable, "basket-worker-" + workerNumber.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        queueWait = Timer.builder("basket.admission.queue.wait")
+                .description("Time a basket request waited for a basket worker")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        rateLimitedRejections = rejectionCounter(RATE_LIMITED);
+        queueFullRejections = rejectionCounter(QUEUE_FULL);
+        Gauge.builder("basket.admission.queue.size", basketWorkers, executor -> executor.getQueue().size()).register(meterRegistry);
+    }
+
+    public CompletableFuture<Order> submit(final Supplier<Order> basketFactory) {
+        if (!tokenBucket.tryAcquire()) {
+            rateLimitedRejections.increment();
+            return CompletableFuture.failedFuture(new BasketRejectedException(RATE_LIMITED));
+        }
+        final long admittedAtNanos = System.nanoTime();
+        final CompletableFuture<Order> basket = new CompletableFuture<>();
+        try {
+            basketWorkers.execute(() -> {
+                queueWait.record(System.nanoTime() - admittedAtNanos, TimeUnit.NANOSECONDS);
+                try {
+                    basket.complete(basketFactory.get());
+                } catch (RuntimeException runtimeException) {
+                    log.error("Error encountered while creating basket, exception :", runtimeException);
+                    basket.completeExceptionally(runtimeException);
+                }
+            });
+        } catch (RejectedExecutionException rejectedExecutionException) {
+            queueFullRejections.increment();
+            basket.completeExceptionally(new BasketRejectedException(QUEUE_FULL));
+        }
+        return basket;
+    }
+
+    private Counter rejectionCounter(final String reason) {
+        return Counter.builder("basket.admission.rejections")
+                .description("Basket requests rejected by admission control")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stopBasketWorkers() {
+        basketWorkers.shutdownNow();
+    }
+}
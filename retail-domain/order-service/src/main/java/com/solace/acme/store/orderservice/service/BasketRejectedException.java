@@ -0,0 +1,14 @@
+package com.solace.acme.store.orderservice.service;
+
+import lombok.Getter;
+
+@Getter
+public class BasketRejectedException extends RuntimeException {
+
+    private final String reason;
+
+    public BasketRejectedException(final String reason) {
+        super("Basket creation rejected: " + reason, null, false, false);
+        this.reason = reason;
+    }
+}
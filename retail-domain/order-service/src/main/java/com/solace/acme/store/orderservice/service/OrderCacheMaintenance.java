@@ -0,0 +1,72 @@
+package com.solace.acme.store.orderservice.service;
+
+import com.solace.acme.store.orderservice.config.OrderCacheProperties;
+import com.solace.acme.store.orderservice.model.Order;
+import com.solace.acme.store.orderservice.model.OrderCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Component
+public class OrderCacheMaintenance implements MeterBinder {
+
+    private OrderCacheProperties orderCacheProperties;
+    private ScheduledExecutorService sweepExecutor;
+
+    @Autowired
+    public void setOrderCacheProperties(OrderCacheProperties orderCacheProperties) {
+        this.orderCacheProperties = orderCacheProperties;
+    }
+
+    @PostConstruct
+    public void configureOrderCache() {
+        OrderCache.getInstance().configure(orderCacheProperties.getMaximumSize(), orderCacheProperties.getTimeToLive());
+        final long sweepIntervalMillis = orderCacheProperties.getSweepInterval().toMillis();
+        sweepExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "order-cache-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweepExecutor.scheduleWithFixedDelay(this::evictExpiredOrders, sweepIntervalMillis, sweepIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void evictExpiredOrders() {
+        try {
+            final int evicted = OrderCache.getInstance().evictExpired();
+            if (evicted > 0) {
+                log.debug("Evicted {} expired orders, {} orders remain cached", evicted, OrderCache.getInstance().size());
+            }
+        } catch (RuntimeException runtimeException) {
+            log.error("Error encountered while evicting expired orders, exception :", runtimeException);
+        }
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry meterRegistry) {
+        final OrderCache orderCache = OrderCache.getInstance();
+        Gauge.builder("order.cache.size", orderCache, OrderCache::size).register(meterRegistry);
+        for (Order.OrderState state : Order.OrderState.values()) {
+            Gauge.builder("order.cache.orders", orderCache, cache -> cache.countByState(state)).tag("state", state.name()).register(meterRegistry);
+        }
+        FunctionCounter.builder("order.cache.gets", orderCache, OrderCache::getHitCount).tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("order.cache.gets", orderCache, OrderCache::getMissCount).tag("result", "miss").register(meterRegistry);
+        FunctionCounter.builder("order.cache.evictions", orderCache, OrderCache::getSizeEvictionCount).tag("cause", "size").register(meterRegistry);
+        FunctionCounter.builder("order.cache.evictions", orderCache, OrderCache::getExpiryEvictionCount).tag("cause", "expired").register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stopSweeper() {
+        sweepExecutor.shutdownNow();
+    }
+}
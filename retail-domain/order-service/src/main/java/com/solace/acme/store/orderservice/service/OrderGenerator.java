@@ -0,0 +1,171 @@
+package com.solace.acme.store.orderservice.service;
+
+import com.solace.acme.store.orderservice.config.OrderGeneratorProperties;
+import com.solace.acme.store.orderservice.model.Order;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Synthetic order source for baskets and load runs.
+ * <p>
+ * Products and customers are drawn from Zipf distributions over the configured catalogue and customer population, so
+ * a few best sellers and regular customers dominate like they do in a real shop, and delivery regions follow the
+ * configured weights. All lookup tables are built once; drawing an order is a handful of binary searches over
+ * cumulative distributions. Orders are reproducible for a given seed when drawn from {@link #nextOrder(SplittableRandom)}
+ * with a random created from {@link #newRandom()}.
+ */
+@Slf4j
+@Component
+public class OrderGenerator {
+
+    private static final String[] STREET_NAMES = {"Main Street", "High Street", "Station Road", "Church Lane", "Park Avenue",
+            "Mill Road", "King Street", "Queen Street", "Victoria Road", "Market Square"};
+    private static final char[] POSTAL_CODE_CHARACTERS = "ABCDEFGHJKLMNPRSTUVWXYZ0123456789".toCharArray();
+    private static final int EXPIRY_YEARS = 5;
+
+    private final long seed;
+    private final SplittableRandom seedSource;
+    private final ThreadLocal<SplittableRandom> threadRandom;
+
+    private final String[] productNames;
+    private final double[] productPrices;
+    private final double[] productDistribution;
+    private final String[] customerIds;
+    private final double[] customerDistribution;
+    private final String[] regionCountries;
+    private final String[][] regionCities;
+    private final double[] regionDistribution;
+    private final String[] expirationDates;
+
+    public OrderGenerator(final OrderGeneratorProperties generatorProperties) {
+        this.seed = generatorProperties.getSeed() != 0 ? generatorProperties.getSeed() : System.nanoTime();
+        this.seedSource = new SplittableRandom(seed);
+        this.threadRandom = ThreadLocal.withInitial(this::newRandom);
+
+        final List<OrderGeneratorProperties.Product> catalogue = generatorProperties.getCatalogue();
+        if (catalogue.isEmpty()) {
+            throw new IllegalArgumentException("order-generator.catalogue must contain at least one product");
+        }
+        productNames = catalogue.stream().map(OrderGeneratorProperties.Product::getName).toArray(String[]::new);
+        productPrices = catalogue.stream().mapToDouble(OrderGeneratorProperties.Product::getPrice).toArray();
+        productDistribution = zipfDistribution(productNames.length, generatorProperties.getProductSkew());
+
+        customerIds = new String[Math.max(1, generatorProperties.getCustomers())];
+        for (int i = 0; i < customerIds.length; i++) {
+            customerIds[i] = String.format("customer-%07d", i + 1);
+        }
+        customerDistribution = zipfDistribution(customerIds.length, generatorProperties.getCustomerSkew());
+
+        final List<OrderGeneratorProperties.Region> regions = generatorProperties.getRegions();
+        if (regions.isEmpty()) {
+            throw new IllegalArgumentException("order-generator.regions must contain at least one region");
+        }
+        regionCountries = regions.stream().map(OrderGeneratorProperties.Region::getCountry).toArray(String[]::new);
+        regionCities = regions.stream()
+                .map(region -> region.getCities().isEmpty() ? new String[]{region.getCountry()} : region.getCities().toArray(new String[0]))
+                .toArray(String[][]::new);
+        regionDistribution = cumulative(regions.stream().mapToDouble(OrderGeneratorProperties.Region::getWeight).toArray());
+
+        final LocalDate today = LocalDate.now();
+        expirationDates = new String[EXPIRY_YEARS];
+        for (int i = 0; i < EXPIRY_YEARS; i++) {
+            expirationDates[i] = today.plusYears(i + 1L).toString();
+        }
+        log.info("Order generator seeded with {}, {} products, {} customers, {} regions", seed, productNames.length, customerIds.length, regionCountries.length);
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns a new random stream split off the generator seed. The n-th call always returns the same stream for the
+     * same seed, so a load run that creates its randoms in a fixed order replays the same orders.
+     */
+    public SplittableRandom newRandom() {
+        synchronized (seedSource) {
+            return seedSource.split();
+        }
+    }
+
+    public Order nextOrder() {
+        return nextOrder(threadRandom.get());
+    }
+
+    public Order nextOrder(final SplittableRandom random) {
+        final int product = sample(productDistribution, random);
+        final int region = sample(regionDistribution, random);
+        final String[] cities = regionCities[region];
+        return Order.builder()
+                .id(new UUID(random.nextLong(), random.nextLong()).toString())
+                .customerId(customerIds[sample(customerDistribution, random)])
+                .state(Order.OrderState.INITIALIZED)
+                .product(productNames[product])
+                .quantity(random.nextInt(1, 6))
+                .price(productPrices[product])
+                .deliveryAddress(Order.DeliveryAddress.builder()
+                        .street(random.nextInt(1, 1000) + " " + STREET_NAMES[random.nextInt(STREET_NAMES.length)])
+                        .city(cities[random.nextInt(cities.length)])
+                        .postalCode(postalCode(random))
+                        .country(regionCountries[region])
+                        .build())
+                .paymentInfo(Order.PaymentInfo.builder()
+                        .cardNumber(cardNumber(random))
+                        .expirationDate(expirationDates[random.nextInt(EXPIRY_YEARS)])
+                        .cvv(random.nextInt(100, 1000))
+                        .build())
+                .build();
+    }
+
+    private static String postalCode(final SplittableRandom random) {
+        final char[] postalCode = new char[6];
+        for (int i = 0; i < postalCode.length; i++) {
+            postalCode[i] = POSTAL_CODE_CHARACTERS[random.nextInt(POSTAL_CODE_CHARACTERS.length)];
+        }
+        return new String(postalCode);
+    }
+
+    private static String cardNumber(final SplittableRandom random) {
+        final char[] cardNumber = new char[16];
+        cardNumber[0] = '4';
+        for (int i = 1; i < cardNumber.length; i++) {
+            cardNumber[i] = (char) ('0' + random.nextInt(10));
+        }
+        return new String(cardNumber);
+    }
+
+    private static int sample(final double[] distribution, final SplittableRandom random) {
+        final int index = Arrays.binarySearch(distribution, random.nextDouble());
+        return Math.min(index >= 0 ? index : -index - 1, distribution.length - 1);
+    }
+
+    /**
+     * Cumulative Zipf distribution over ranks 1..n, where the probability of rank k is proportional to 1/k^skew.
+     */
+    static double[] zipfDistribution(final int n, final double skew) {
+        final double[] weights = new double[n];
+        for (int rank = 1; rank <= n; rank++) {
+            weights[rank - 1] = 1.0 / Math.pow(rank, skew);
+        }
+        return cumulative(weights);
+    }
+
+    private static double[] cumulative(final double[] weights) {
+        final double[] distribution = new double[weights.length];
+        double total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            total += weights[i];
+            distribution[i] = total;
+        }
+        for (int i = 0; i < distribution.length; i++) {
+            distribution[i] /= total;
+        }
+        return distribution;
+    }
+}
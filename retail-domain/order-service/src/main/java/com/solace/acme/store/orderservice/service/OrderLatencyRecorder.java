@@ -0,0 +1,85 @@
+package com.solace.acme.store.orderservice.service;
+
+import com.solace.acme.runtime.TraceContext;
+import com.solace.acme.store.orderservice.model.Order;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency histograms of the retail pipeline, fed from the {@link TraceContext} carried by order events. Each stage is
+ * measured from the publish of the event it was derived from to its own publish: basket to created, created to
+ * validated (or failed), validated to paid and paid to shipped. The end-to-end histogram runs from the basket to the
+ * order reaching its final state.
+ */
+@Component
+public class OrderLatencyRecorder {
+
+    private static final Duration MINIMUM_EXPECTED_LATENCY = Duration.ofMillis(1);
+    private static final Duration MAXIMUM_EXPECTED_LATENCY = Duration.ofMinutes(5);
+
+    private MeterRegistry meterRegistry;
+    private final Map<Order.OrderState, Timer> stageLatencies = new EnumMap<>(Order.OrderState.class);
+    private final Map<Order.OrderState, Timer> endToEndLatencies = new EnumMap<>(Order.OrderState.class);
+
+    @Autowired
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void registerTimers() {
+        stageLatencies.put(Order.OrderState.CREATED, stageTimer("created"));
+        stageLatencies.put(Order.OrderState.VALIDATED, stageTimer("validated"));
+        stageLatencies.put(Order.OrderState.FAILED, stageTimer("failed"));
+        stageLatencies.put(Order.OrderState.PAYMENT_PROCESSED, stageTimer("paid"));
+        stageLatencies.put(Order.OrderState.SHIPPED, stageTimer("shipped"));
+        endToEndLatencies.put(Order.OrderState.SHIPPED, endToEndTimer("shipped"));
+        endToEndLatencies.put(Order.OrderState.FAILED, endToEndTimer("failed"));
+    }
+
+    /**
+     * Records the stage that took the order into {@code state}, and the end-to-end latency when that state is final.
+     * Traces of events published without one, or with a clock running behind, are ignored.
+     */
+    public void recordTransition(final Order.OrderState state, final TraceContext traceContext) {
+        if (traceContext == null || traceContext.publishedTimestamp() <= 0) {
+            return;
+        }
+        record(stageLatencies.get(state), traceContext.upstreamTimestamp(), traceContext.publishedTimestamp());
+        record(endToEndLatencies.get(state), traceContext.originTimestamp(), traceContext.publishedTimestamp());
+    }
+
+    private static void record(final Timer timer, final long fromTimestamp, final long toTimestamp) {
+        if (timer != null && fromTimestamp > 0 && toTimestamp >= fromTimestamp) {
+            timer.record(toTimestamp - fromTimestamp, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private Timer stageTimer(final String stage) {
+        return Timer.builder("order.pipeline.stage.latency")
+                .description("Time from the upstream event being published to the event of this stage being published")
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(MINIMUM_EXPECTED_LATENCY)
+                .maximumExpectedValue(MAXIMUM_EXPECTED_LATENCY)
+                .register(meterRegistry);
+    }
+
+    private Timer endToEndTimer(final String outcome) {
+        return Timer.builder("order.pipeline.latency")
+                .description("Time from basket creation to the order reaching its final state")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(MINIMUM_EXPECTED_LATENCY)
+                .maximumExpectedValue(MAXIMUM_EXPECTED_LATENCY)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,222 @@
+package com.solace.acme.store.orderservice.service;
+
+import com.solace.acme.runtime.ReceivedMessage;
+import com.solace.acme.runtime.SolaceRuntime;
+import com.solace.acme.runtime.TraceContext;
+import com.solace.acme.store.orderservice.config.OrderProjectionProperties;
+import com.solace.acme.store.orderservice.model.Order;
+import com.solace.acme.store.orderservice.model.OrderCache;
+import com.solace.acme.store.orderservice.model.Payment;
+import com.solace.acme.store.orderservice.model.Shipping;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Folds the confirmation, payment and shipment events of the order updates queue into {@link OrderCache}.
+ * <p>
+ * Events are routed by order id onto a fixed number of single threaded apply loops, so all updates of one order are
+ * applied one after the other by the same thread and never need a lock. States only ever move forward: an event that
+ * arrives after a later state has already been projected is acknowledged and dropped. The backlog of each loop is
+ * bounded by the receiver window, since a message is only acknowledged once it has been applied.
+ * <p>
+ * Cached orders are read by the HTTP threads, so a new state is applied to a copy that then replaces the cached order.
+ * An event that cannot be decoded or applied would fail again on every redelivery; it is acknowledged, logged and
+ * counted as discarded instead of holding up the queue.
+ */
+@Slf4j
+@Service
+public class OrderProjectionService {
+
+    private OrderProjectionProperties projectionProperties;
+    private SolaceRuntime solaceRuntime;
+    private MeterRegistry meterRegistry;
+    private OrderLatencyRecorder orderLatencyRecorder;
+    private ThreadPoolExecutor[] applyLoops;
+    private Timer orderEventLag;
+    private Timer paymentEventLag;
+    private Timer shipmentEventLag;
+    private Counter undecodableEvents;
+    private Counter failedEvents;
+
+    @Autowired
+    public void setProjectionProperties(OrderProjectionProperties projectionProperties) {
+        this.projectionProperties = projectionProperties;
+    }
+
+    @Autowired
+    public void setSolaceRuntime(SolaceRuntime solaceRuntime) {
+        this.solaceRuntime = solaceRuntime;
+    }
+
+    @Autowired
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Autowired
+    public void setOrderLatencyRecorder(OrderLatencyRecorder orderLatencyRecorder) {
+        this.orderLatencyRecorder = orderLatencyRecorder;
+    }
+
+    @PostConstruct
+    public void startApplyLoops() {
+        applyLoops = new ThreadPoolExecutor[Math.max(1, projectionProperties.getApplyLoops())];
+        for (int i = 0; i < applyLoops.length; i++) {
+            final String threadName = "order-projection-" + i;
+            applyLoops[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                    runnable -> new Thread(runnable, threadName));
+        }
+        orderEventLag = projectionLagTimer("order");
+        paymentEventLag = projectionLagTimer("payment");
+        shipmentEventLag = projectionLagTimer("shipment");
+        undecodableEvents = discardedEventCounter("undecodable");
+        failedEvents = discardedEventCounter("failed");
+        Gauge.builder("order.projection.backlog", this, OrderProjectionService::backlog).register(meterRegistry);
+    }
+
+    public void project(final ReceivedMessage inboundMessage, final Runnable acknowledgement) {
+        final long receivedAtMillis = System.currentTimeMillis();
+        final String inboundTopic = inboundMessage.getDestinationName();
+        try {
+            final List<ProjectedEvent> projectedEvents = toProjectedEvents(inboundTopic, inboundMessage, TraceContext.fromMessage(inboundMessage));
+            if (projectedEvents.isEmpty()) {
+                log.debug("No order state change carried by event on topic :{}", inboundTopic);
+                acknowledgement.run();
+                return;
+            }
+            final Long senderTimestamp = inboundMessage.getSenderTimestamp();
+            final long eventTimeMillis = senderTimestamp == null ? receivedAtMillis : senderTimestamp;
+            // a consolidated shipment updates several orders, possibly on different apply loops, ack once all are applied
+            final AtomicInteger pendingEvents = new AtomicInteger(projectedEvents.size());
+            final Runnable eventAcknowledgement = () -> {
+                if (pendingEvents.decrementAndGet() == 0) {
+                    acknowledgement.run();
+                }
+            };
+            for (ProjectedEvent projectedEvent : projectedEvents) {
+                applyLoopFor(projectedEvent.orderId()).execute(() -> apply(projectedEvent, eventTimeMillis, eventAcknowledgement));
+            }
+        } catch (IOException ioException) {
+            log.error("Discarding undecodable order update on topic :{}, exception :", inboundTopic, ioException);
+            undecodableEvents.increment();
+            acknowledgement.run();
+        }
+    }
+
+    private List<ProjectedEvent> toProjectedEvents(final String inboundTopic, final ReceivedMessage inboundMessage, final TraceContext traceContext) throws IOException {
+        if (inboundTopic.startsWith(projectionProperties.getOrderEventTopicPrefix())) {
+            final Order order = solaceRuntime.decode(inboundMessage, Order.class);
+            return List.of(new ProjectedEvent(order.getId(), order.getState(), order, orderEventLag, traceContext));
+        }
+        if (inboundTopic.startsWith(projectionProperties.getPaymentConfirmedTopicPrefix())) {
+            final Payment payment = solaceRuntime.decode(inboundMessage, Payment.class);
+            return List.of(new ProjectedEvent(payment.getOrderId(), Order.OrderState.PAYMENT_PROCESSED, null, paymentEventLag, traceContext));
+        }
+        if (inboundTopic.startsWith(projectionProperties.getPaymentFailedTopicPrefix())) {
+            final Payment payment = solaceRuntime.decode(inboundMessage, Payment.class);
+            return List.of(new ProjectedEvent(payment.getOrderId(), Order.OrderState.FAILED, null, paymentEventLag, traceContext));
+        }
+        if (inboundTopic.startsWith(projectionProperties.getShipmentEventTopicPrefix())) {
+            final Shipping shipping = solaceRuntime.decode(inboundMessage, Shipping.class);
+            // every order of a consolidated shipment has its own event, events that only list the orders stand for all of them
+            final List<String> orderIds = shipping.getOrderId() != null ? List.of(shipping.getOrderId()) : shipping.getOrderIds();
+            if (orderIds == null || orderIds.isEmpty()) {
+                throw new IOException("Shipment event names no order");
+            }
+            return orderIds.stream().map(orderId -> new ProjectedEvent(orderId, Order.OrderState.SHIPPED, null, shipmentEventLag, traceContext)).toList();
+        }
+        return List.of();
+    }
+
+    private void apply(final ProjectedEvent projectedEvent, final long eventTimeMillis, final Runnable acknowledgement) {
+        try {
+            final OrderCache orderCache = OrderCache.getInstance();
+            final Order cachedOrder = orderCache.get(projectedEvent.orderId());
+            if (cachedOrder == null) {
+                if (projectedEvent.order() != null) {
+                    // an order only known through its events, e.g. placed before a restart or already evicted
+                    orderCache.put(projectedEvent.order());
+                } else {
+                    log.debug("Order :{} is not cached, dropping {} update", projectedEvent.orderId(), projectedEvent.state());
+                }
+            } else if (progress(projectedEvent.state()) > progress(cachedOrder.getState())) {
+                orderCache.put(cachedOrder.toBuilder().state(projectedEvent.state()).build());
+                orderLatencyRecorder.recordTransition(projectedEvent.state(), projectedEvent.traceContext());
+            }
+            projectedEvent.lag().record(System.currentTimeMillis() - eventTimeMillis, TimeUnit.MILLISECONDS);
+        } catch (RuntimeException runtimeException) {
+            log.error("Discarding {} update of order :{} that could not be projected. Error is :", projectedEvent.state(), projectedEvent.orderId(), runtimeException);
+            failedEvents.increment();
+        } finally {
+            acknowledgement.run();
+        }
+    }
+
+    private static int progress(final Order.OrderState state) {
+        if (state == null) {
+            return 0;
+        }
+        return switch (state) {
+            case INITIALIZED -> 0;
+            case CREATED -> 1;
+            case VALIDATED -> 2;
+            case PAYMENT_PROCESSED -> 3;
+            case SHIPPED, FAILED -> 4;
+        };
+    }
+
+    private ThreadPoolExecutor applyLoopFor(final String orderId) {
+        final int hash = orderId == null ? 0 : orderId.hashCode();
+        return applyLoops[((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % applyLoops.length];
+    }
+
+    private int backlog() {
+        int backlog = 0;
+        for (ThreadPoolExecutor applyLoop : applyLoops) {
+            backlog += applyLoop.getQueue().size();
+        }
+        return backlog;
+    }
+
+    private Timer projectionLagTimer(final String eventType) {
+        return Timer.builder("order.projection.lag")
+                .description("Time from an order update being published to it being applied to the order cache")
+                .tag("event", eventType)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private Counter discardedEventCounter(final String reason) {
+        return Counter.builder("order.projection.discarded")
+                .description("Order updates acknowledged without being applied to the order cache")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stopApplyLoops() throws InterruptedException {
+        for (ThreadPoolExecutor applyLoop : applyLoops) {
+            applyLoop.shutdown();
+        }
+        for (ThreadPoolExecutor applyLoop : applyLoops) {
+            applyLoop.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private record ProjectedEvent(String orderId, Order.OrderState state, Order order, Timer lag, TraceContext traceContext) {
+    }
+}
@@ -1,83 +1,105 @@
 package com.solace.acme.store.orderservice.service;
 
 
+import com.solace.acme.runtime.PublishRejectedException;
+import com.solace.acme.runtime.TraceContext;
+import com.solace.acme.store.orderservice.config.BasketProperties;
 import com.solace.acme.store.orderservice.config.SolaceConnectionParameters;
 import com.solace.acme.store.orderservice.model.Order;
 import com.solace.acme.store.orderservice.model.OrderCache;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
-import org.instancio.Instancio;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDate;
-import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
-import static org.instancio.Select.field;
-
 
 @Service
 @Slf4j
 public class OrderService {
 
     private SolaceEventPublisher solaceEventPublisher;
+    private OrderLatencyRecorder orderLatencyRecorder;
+    private OrderGenerator orderGenerator;
+    private BasketAdmission basketAdmission;
+    private BasketProperties basketProperties;
+    private final ScheduledExecutorService orderCreationScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "order-creation"));
 
     @Autowired
     public void setSolaceEventPublisher(SolaceEventPublisher solaceEventPublisher) {
         this.solaceEventPublisher = solaceEventPublisher;
     }
 
+    @Autowired
+    public void setOrderLatencyRecorder(OrderLatencyRecorder orderLatencyRecorder) {
+        this.orderLatencyRecorder = orderLatencyRecorder;
+    }
+
+    @Autowired
+    public void setOrderGenerator(OrderGenerator orderGenerator) {
+        this.orderGenerator = orderGenerator;
+    }
+
+    @Autowired
+    public void setBasketAdmission(BasketAdmission basketAdmission) {
+        this.basketAdmission = basketAdmission;
+    }
+
+    @Autowired
+    public void setBasketProperties(BasketProperties basketProperties) {
+        this.basketProperties = basketProperties;
+    }
+
     public boolean connectToBroker(final SolaceConnectionParameters solaceConnectionParameters) {
         return solaceEventPublisher.connectToBroker(solaceConnectionParameters);
     }
 
+    public CompletableFuture<Order> createBasketAsync() {
+        return basketAdmission.submit(this::createBasket);
+    }
+
     public Order createBasket() {
+        final TraceContext traceContext = TraceContext.originate(System.currentTimeMillis());
         final Order order = generateNewOrderModelForBasket();
-        OrderCache.getInstance().getOrderMap().put(order.getId(), order);
-        scheduleOrderCreatedEvent(order);
+        OrderCache.getInstance().put(order);
+        scheduleOrderCreatedEvent(order, traceContext);
         return order;
     }
 
-    private void scheduleOrderCreatedEvent(final Order order) {
-        ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor();
-        executorService.schedule(() -> processOrderCreation(order), 15, TimeUnit.SECONDS);
-        executorService.shutdown();
+    private void scheduleOrderCreatedEvent(final Order order, final TraceContext traceContext) {
+        orderCreationScheduler.schedule(() -> processOrderCreation(order, traceContext), basketProperties.getOrderCreationDelay().toMillis(), TimeUnit.MILLISECONDS);
     }
 
 
-    void processOrderCreation(final Order order) {
-        order.setState(Order.OrderState.CREATED);
-        solaceEventPublisher.publishOrderCreatedEvent(order);
-        OrderCache.getInstance().getOrderMap().put(order.getId(), order);
+    void processOrderCreation(final Order order, final TraceContext traceContext) {
+        // the cached order is read by the HTTP threads, so it is replaced rather than changed, and before the event is
+        // published, so that a projected validation is never overwritten by the created state
+        final Order createdOrder = order.toBuilder().state(Order.OrderState.CREATED).build();
+        OrderCache.getInstance().put(createdOrder);
+        final TraceContext orderCreatedTraceContext = traceContext.derive();
+        final boolean published;
+        try {
+            published = solaceEventPublisher.publishOrderCreatedEvent(createdOrder, orderCreatedTraceContext);
+        } catch (PublishRejectedException publishRejectedException) {
+            log.debug("Publisher rejected the creation of order:{}, retrying after the creation delay", order.getId());
+            scheduleOrderCreatedEvent(order, traceContext);
+            return;
+        }
+        if (published) {
+            orderLatencyRecorder.recordTransition(Order.OrderState.CREATED, orderCreatedTraceContext);
+        }
     }
 
     private Order generateNewOrderModelForBasket() {
-        return Instancio.of(Order.class)
-                .generate(field(Order::getId), gen -> gen.string())
-                .generate(field(Order::getCustomerId), gen -> gen.string())
-                .set(field(Order::getState), Order.OrderState.INITIALIZED)
-                .generate(field(Order::getProduct), gen -> gen.oneOf("Hoodie", "Leather Jacket", "Spider-man lego set", "Iphone 15 Pro Max", "Apple watch Ultra 2", "Macbook"))
-                .generate(field(Order::getQuantity), gen -> gen.ints().range(1, 5))
-                .set(field(Order::getPrice), Math.round((Math.random() * 100) * 100.0) / 100.0)
-                .set(field(Order::getDeliveryAddress), (Instancio.of(Order.DeliveryAddress.class)
-                        .generate(field(Order.DeliveryAddress::getStreet), gen -> gen.string())
-                        .generate(field(Order.DeliveryAddress::getCity), gen -> gen.string())
-                        .generate(field(Order.DeliveryAddress::getState), gen -> gen.string())
-                        .set(field(Order.DeliveryAddress::getPostalCode), UUID.randomUUID().toString().replaceAll("[^a-zA-Z0-9]", "").substring(0, 6))
-                        .generate(field(Order.DeliveryAddress::getCountry), gen -> gen.string())
-                        .create()))
-                .set(field(Order::getPaymentInfo), (Instancio.of(Order.PaymentInfo.class)
-                        .generate(field(Order.PaymentInfo::getCardNumber), gen -> gen.id().pol().nip())
-                        .set(field(Order.PaymentInfo::getExpirationDate), generateFutureDate())
-                        .generate(field(Order.PaymentInfo::getCvv), gen -> gen.ints().range(100, 999))
-                        .create()))
-                .create();
+        return orderGenerator.nextOrder();
     }
 
-    private String generateFutureDate() {
-        LocalDate futureDate = LocalDate.now().plusYears((long) (Math.random() * 5) + 1);
-        return futureDate.toString();
+    @PreDestroy
+    public void stopOrderCreationScheduler() {
+        orderCreationScheduler.shutdownNow();
     }
 }
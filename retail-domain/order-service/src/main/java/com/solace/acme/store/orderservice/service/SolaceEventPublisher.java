@@ -1,76 +1,44 @@
 package com.solace.acme.store.orderservice.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.solace.acme.runtime.ConnectionSettings;
+import com.solace.acme.runtime.SolaceRuntime;
+import com.solace.acme.runtime.TraceContext;
 import com.solace.acme.store.orderservice.config.SolaceConfigProperties;
 import com.solace.acme.store.orderservice.config.SolaceConnectionParameters;
 import com.solace.acme.store.orderservice.model.Order;
-import com.solace.acme.store.orderservice.model.OrderCache;
-import com.solace.acme.store.orderservice.model.Payment;
-import com.solace.acme.store.orderservice.model.Shipping;
-import com.solace.messaging.MessagingService;
-import com.solace.messaging.PubSubPlusClientException;
-import com.solace.messaging.config.SolaceProperties;
-import com.solace.messaging.config.profile.ConfigurationProfile;
-import com.solace.messaging.publisher.OutboundMessage;
-import com.solace.messaging.publisher.OutboundMessageBuilder;
-import com.solace.messaging.publisher.PersistentMessagePublisher;
-import com.solace.messaging.receiver.MessageReceiver;
-import com.solace.messaging.receiver.PersistentMessageReceiver;
-import com.solace.messaging.resources.Queue;
-import com.solace.messaging.resources.Topic;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.text.StringSubstitutor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import javax.annotation.PreDestroy;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Properties;
-
 @Slf4j
 @Component
 public class SolaceEventPublisher {
 
     private SolaceConfigProperties configProperties;
-    private PersistentMessagePublisher publisher;
-    private OutboundMessageBuilder messageBuilder;
-    private MessagingService messagingService;
-    ObjectMapper objectMapper = new ObjectMapper();
+    private SolaceRuntime solaceRuntime;
+    private OrderProjectionService orderProjectionService;
 
     @Autowired
     public void setConfigProperties(SolaceConfigProperties configProperties) {
         this.configProperties = configProperties;
     }
 
+    @Autowired
+    public void setSolaceRuntime(SolaceRuntime solaceRuntime) {
+        this.solaceRuntime = solaceRuntime;
+    }
+
+    @Autowired
+    public void setOrderProjectionService(OrderProjectionService orderProjectionService) {
+        this.orderProjectionService = orderProjectionService;
+    }
+
     public boolean connectToBroker(final SolaceConnectionParameters solaceConnectionParameters) {
         try {
-            final Properties properties = setupPropertiesForConnection(solaceConnectionParameters);
-            messagingService = MessagingService.builder(ConfigurationProfile.V1).fromProperties(properties).build();
-            messagingService.connect(); // This is a blocking connect action
-            setupConnectivityHandlingInMessagingService(messagingService);
-            publisher = messagingService.createPersistentMessagePublisherBuilder()
-                    .onBackPressureWait(1)
-                    .build();
-            publisher.start();
-            messageBuilder = messagingService.messageBuilder();
-            publisher.setMessagePublishReceiptListener(publishReceipt -> {
-                final PubSubPlusClientException e = publishReceipt.getException();
-                if (e == null) {
-                    OutboundMessage outboundMessage = publishReceipt.getMessage();
-                    log.info(String.format("ACK for Message %s", outboundMessage));
-                } else {
-                    Object userContext = publishReceipt.getUserContext();
-                    if (userContext != null) {
-                        log.warn(String.format("NACK for Message %s - %s", userContext, e));
-                    } else {
-                        OutboundMessage outboundMessage = publishReceipt.getMessage();  // which message got NACKed?
-                        log.warn(String.format("NACK for Message %s - %s", outboundMessage, e));
-                    }
-                }
-            });
-
+            solaceRuntime.connect(new ConnectionSettings(solaceConnectionParameters.getHostUrl(), solaceConnectionParameters.getVpnName(),
+                    solaceConnectionParameters.getUserName(), solaceConnectionParameters.getPassword(),
+                    configProperties.getReconnectionAttempts(), configProperties.getConnectionRetriesPerHost()));
+            solaceRuntime.receive(configProperties.getOrderUpdatesQueueName(), orderProjectionService::project);
             return true;
         } catch (Exception exception) {
             log.error("Error encountered while connecting to the Solace broker, error :{}", exception.getMessage());
@@ -78,52 +46,8 @@ public class SolaceEventPublisher {
         }
     }
 
-    private Properties setupPropertiesForConnection(final SolaceConnectionParameters solaceConnectionParameters) {
-        final Properties properties = new Properties();
-        properties.setProperty(SolaceProperties.TransportLayerProperties.HOST, solaceConnectionParameters.getHostUrl()); // host:port
-        properties.setProperty(SolaceProperties.ServiceProperties.VPN_NAME, solaceConnectionParameters.getVpnName()); // message-vpn
-        properties.setProperty(SolaceProperties.AuthenticationProperties.SCHEME_BASIC_USER_NAME,
-                solaceConnectionParameters.getUserName());
-        properties.setProperty(SolaceProperties.AuthenticationProperties.SCHEME_BASIC_PASSWORD,
-                solaceConnectionParameters.getPassword());
-        properties.setProperty(SolaceProperties.TransportLayerProperties.RECONNECTION_ATTEMPTS,
-                configProperties.getReconnectionAttempts());
-        properties.setProperty(SolaceProperties.TransportLayerProperties.CONNECTION_RETRIES_PER_HOST,
-                configProperties.getConnectionRetriesPerHost());
-        return properties;
+    public boolean publishOrderCreatedEvent(final Order orderCreatedEvent, final TraceContext traceContext) {
+        return solaceRuntime.publish(SolaceRuntime.topic(configProperties.getOrderCreatedEventTopicString(),
+                "regionId", orderCreatedEvent.getDeliveryAddress().getCountry(), "orderId", orderCreatedEvent.getId()), orderCreatedEvent, traceContext) >= 0;
     }
-
-    private static void setupConnectivityHandlingInMessagingService(final MessagingService messagingService) {
-        messagingService.addServiceInterruptionListener(
-                serviceEvent -> System.out.println("### SERVICE INTERRUPTION: " + serviceEvent.getCause()));
-        messagingService.addReconnectionAttemptListener(
-                serviceEvent -> System.out.println("### RECONNECTING ATTEMPT: " + serviceEvent));
-        messagingService
-                .addReconnectionListener(serviceEvent -> System.out.println("### RECONNECTED: " + serviceEvent));
-    }
-
-    public void publishOrderCreatedEvent(final Order orderCreatedEvent) {
-        try {
-            final String orderCreatedEventJson = objectMapper.writeValueAsString(orderCreatedEvent);
-            final OutboundMessage message = messageBuilder.build(orderCreatedEventJson);
-            final Map<String, Object> params = new HashMap<>();
-            params.put("regionId", orderCreatedEvent.getDeliveryAddress().getCountry());
-            params.put("orderId", orderCreatedEvent.getId());
-            String topicString = StringSubstitutor.replace(configProperties.getOrderCreatedEventTopicString(), params, "{", "}");
-            publisher.publish(message, Topic.of(topicString));
-            log.info("Published OrderCreated event :{} on topic : {}", orderCreatedEventJson, topicString);
-        } catch (final RuntimeException runtimeException) {
-            log.error("Error encountered while publishing event, exception :", runtimeException);
-        } catch (JsonProcessingException jsonProcessingException) {
-            log.error("Error encountered while converting orderCreatedEventJson to JSON string, exception :", jsonProcessingException);
-        }
-    }
-
-    @PreDestroy
-    public void houseKeepingOnBeanDestroy() {
-        log.info("The bean is getting destroyed, doing housekeeping activities");
-        publisher.terminate(1000);
-        messagingService.disconnect();
-    }
-
 }
@@ -0,0 +1,39 @@
+package com.solace.acme.store.orderservice.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket, kept as the time at which the bucket would be full again rather than as a token count, so
+ * acquiring a permit is a single compare-and-set and no refill thread is needed. A rate of zero or less disables the
+ * limit.
+ */
+public class TokenBucket {
+
+    private final long nanosPerPermit;
+    private final long burstNanos;
+    private final AtomicLong fullAtNanos;
+
+    public TokenBucket(final double permitsPerSecond, final int burst) {
+        this.nanosPerPermit = permitsPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond) : 0L;
+        this.burstNanos = nanosPerPermit * Math.max(1, burst);
+        this.fullAtNanos = new AtomicLong(System.nanoTime());
+    }
+
+    public boolean tryAcquire() {
+        if (nanosPerPermit == 0) {
+            return true;
+        }
+        final long now = System.nanoTime();
+        while (true) {
+            final long fullAt = fullAtNanos.get();
+            final long nextFullAt = Math.max(fullAt - now, 0L) + now + nanosPerPermit;
+            if (nextFullAt - now > burstNanos) {
+                return false;
+            }
+            if (fullAtNanos.compareAndSet(fullAt, nextFullAt)) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.solace.acme.store.orderservice.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderCacheTests {
+
+    private final OrderCache orderCache = OrderCache.getInstance();
+
+    @BeforeEach
+    void emptyCache() {
+        // the cache is a singleton, expiring every state at once leaves nothing behind from earlier tests
+        final Map<Order.OrderState, Duration> expireImmediately = new EnumMap<>(Order.OrderState.class);
+        for (Order.OrderState state : Order.OrderState.values()) {
+            expireImmediately.put(state, Duration.ZERO);
+        }
+        orderCache.configure(100, expireImmediately);
+        orderCache.evictExpired();
+        orderCache.configure(100, Map.of());
+    }
+
+    @Test
+    void expiresOrdersByTheTimeToLiveOfTheirState() {
+        orderCache.configure(100, Map.of(Order.OrderState.SHIPPED, Duration.ZERO));
+        orderCache.put(order("order-1", "customer-1", Order.OrderState.SHIPPED));
+        orderCache.put(order("order-2", "customer-1", Order.OrderState.CREATED));
+
+        assertEquals(1, orderCache.evictExpired());
+        assertNull(orderCache.get("order-1"));
+        assertNotNull(orderCache.get("order-2"));
+        assertEquals(List.of("order-2"), orderCache.findByCustomer("customer-1").stream().map(Order::getId).toList());
+        assertEquals(0, orderCache.countByState(Order.OrderState.SHIPPED));
+    }
+
+    @Test
+    void expiredOrdersAreMissesEvenBeforeEviction() {
+        orderCache.configure(100, Map.of(Order.OrderState.FAILED, Duration.ZERO));
+        orderCache.put(order("order-1", "customer-1", Order.OrderState.FAILED));
+
+        assertNull(orderCache.get("order-1"));
+        assertEquals(0, orderCache.size());
+        assertTrue(orderCache.findByState(Order.OrderState.FAILED).isEmpty());
+    }
+
+    @Test
+    void stateChangeMovesTheOrderBetweenIndexes() {
+        orderCache.put(order("order-1", "customer-1", Order.OrderState.CREATED));
+        orderCache.put(order("order-1", "customer-1", Order.OrderState.VALIDATED));
+
+        assertEquals(0, orderCache.countByState(Order.OrderState.CREATED));
+        assertEquals(1, orderCache.countByState(Order.OrderState.VALIDATED));
+        assertEquals(Order.OrderState.VALIDATED, orderCache.findByCustomer("customer-1").get(0).getState());
+        assertEquals(1, orderCache.findByRegion("US").size());
+    }
+
+    @Test
+    void supersededEntriesDoNotExpireTheCurrentOne() {
+        orderCache.configure(100, Map.of(Order.OrderState.CREATED, Duration.ZERO));
+        orderCache.put(order("order-1", "customer-1", Order.OrderState.CREATED));
+        orderCache.put(order("order-1", "customer-1", Order.OrderState.VALIDATED));
+
+        assertEquals(0, orderCache.evictExpired());
+        assertEquals(Order.OrderState.VALIDATED, orderCache.get("order-1").getState());
+    }
+
+    @Test
+    void evictsTheOldestOrdersBeyondTheMaximumSize() {
+        orderCache.configure(2, Map.of());
+        orderCache.put(order("order-1", "customer-1", Order.OrderState.CREATED));
+        orderCache.put(order("order-2", "customer-2", Order.OrderState.VALIDATED));
+        orderCache.put(order("order-3", "customer-3", Order.OrderState.CREATED));
+
+        assertEquals(2, orderCache.size());
+        assertNull(orderCache.get("order-1"));
+        assertTrue(orderCache.findByCustomer("customer-1").isEmpty());
+        assertNotNull(orderCache.get("order-3"));
+    }
+
+    private static Order order(final String orderId, final String customerId, final Order.OrderState state) {
+        return Order.builder()
+                .id(orderId)
+                .customerId(customerId)
+                .state(state)
+                .deliveryAddress(Order.DeliveryAddress.builder().country("US").build())
+                .build();
+    }
+}
@@ -0,0 +1,93 @@
+package com.solace.acme.store.orderservice.service;
+
+import com.solace.acme.store.orderservice.config.BasketProperties;
+import com.solace.acme.store.orderservice.model.Order;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BasketAdmissionTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private BasketAdmission basketAdmission;
+
+    @AfterEach
+    void stopBasketWorkers() {
+        basketAdmission.stopBasketWorkers();
+    }
+
+    @Test
+    void rateLimitsRequestsBeyondTheBurst() {
+        basketAdmission = basketAdmission(1, 2, 1, 10);
+
+        assertEquals("order-1", basketAdmission.submit(() -> order("order-1")).join().getId());
+        assertEquals("order-2", basketAdmission.submit(() -> order("order-2")).join().getId());
+        assertRejected(basketAdmission.submit(() -> order("order-3")), BasketAdmission.RATE_LIMITED);
+        assertEquals(1, rejections(BasketAdmission.RATE_LIMITED));
+    }
+
+    @Test
+    void rejectsRequestsOnceTheWorkerQueueIsFull() throws InterruptedException {
+        basketAdmission = basketAdmission(0, 1, 1, 1);
+        final CountDownLatch workerStarted = new CountDownLatch(1);
+        final CountDownLatch releaseWorker = new CountDownLatch(1);
+
+        final CompletableFuture<Order> running = basketAdmission.submit(() -> {
+            workerStarted.countDown();
+            awaitUninterruptibly(releaseWorker);
+            return order("order-1");
+        });
+        assertTrue(workerStarted.await(5, TimeUnit.SECONDS));
+        final CompletableFuture<Order> queued = basketAdmission.submit(() -> order("order-2"));
+        assertRejected(basketAdmission.submit(() -> order("order-3")), BasketAdmission.QUEUE_FULL);
+        releaseWorker.countDown();
+
+        assertEquals("order-1", running.join().getId());
+        assertEquals("order-2", queued.join().getId());
+        assertEquals(1, rejections(BasketAdmission.QUEUE_FULL));
+    }
+
+    private BasketAdmission basketAdmission(final double permitsPerSecond, final int burst, final int workerThreads, final int queueCapacity) {
+        final BasketProperties basketProperties = new BasketProperties();
+        basketProperties.setPermitsPerSecond(permitsPerSecond);
+        basketProperties.setBurst(burst);
+        basketProperties.setWorkerThreads(workerThreads);
+        basketProperties.setQueueCapacity(queueCapacity);
+        final BasketAdmission admission = new BasketAdmission();
+        admission.setBasketProperties(basketProperties);
+        admission.setMeterRegistry(meterRegistry);
+        admission.startBasketWorkers();
+        return admission;
+    }
+
+    private double rejections(final String reason) {
+        return meterRegistry.get("basket.admission.rejections").tag("reason", reason).counter().count();
+    }
+
+    private static void assertRejected(final CompletableFuture<Order> basket, final String reason) {
+        final CompletionException completionException = assertThrows(CompletionException.class, basket::join);
+        assertEquals(reason, assertInstanceOf(BasketRejectedException.class, completionException.getCause()).getReason());
+    }
+
+    private static void awaitUninterruptibly(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Order order(final String orderId) {
+        return Order.builder().id(orderId).build();
+    }
+}
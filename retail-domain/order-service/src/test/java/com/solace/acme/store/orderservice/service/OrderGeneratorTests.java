@@ -0,0 +1,70 @@
+package com.solace.acme.store.orderservice.service;
+
+import com.solace.acme.store.orderservice.config.OrderGeneratorProperties;
+import com.solace.acme.store.orderservice.model.Order;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderGeneratorTests {
+
+    @Test
+    void sameSeedReplaysSameOrders() {
+        final SplittableRandom first = new OrderGenerator(generatorProperties(42)).newRandom();
+        final SplittableRandom second = new OrderGenerator(generatorProperties(42)).newRandom();
+        final OrderGenerator orderGenerator = new OrderGenerator(generatorProperties(42));
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(orderGenerator.nextOrder(first), orderGenerator.nextOrder(second));
+        }
+    }
+
+    @Test
+    void productsAndRegionsFollowConfiguredSkew() {
+        final OrderGenerator orderGenerator = new OrderGenerator(generatorProperties(7));
+        final SplittableRandom random = orderGenerator.newRandom();
+        final Map<String, Integer> products = new HashMap<>();
+        final Map<String, Integer> regions = new HashMap<>();
+
+        for (int i = 0; i < 100_000; i++) {
+            final Order order = orderGenerator.nextOrder(random);
+            products.merge(order.getProduct(), 1, Integer::sum);
+            regions.merge(order.getDeliveryAddress().getCountry(), 1, Integer::sum);
+        }
+
+        assertTrue(products.get("first") > products.get("second"));
+        assertTrue(products.get("second") > products.get("third"));
+        assertEquals(0.75, regions.get("US") / 100_000.0, 0.01);
+    }
+
+    private static OrderGeneratorProperties generatorProperties(final long seed) {
+        final OrderGeneratorProperties generatorProperties = new OrderGeneratorProperties();
+        generatorProperties.setSeed(seed);
+        generatorProperties.setCustomers(1000);
+        generatorProperties.setCustomerSkew(1.1);
+        generatorProperties.setProductSkew(1.0);
+        generatorProperties.setCatalogue(List.of(product("first", 10), product("second", 20), product("third", 30)));
+        generatorProperties.setRegions(List.of(region("US", 3), region("GB", 1)));
+        return generatorProperties;
+    }
+
+    private static OrderGeneratorProperties.Product product(final String name, final double price) {
+        final OrderGeneratorProperties.Product product = new OrderGeneratorProperties.Product();
+        product.setName(name);
+        product.setPrice(price);
+        return product;
+    }
+
+    private static OrderGeneratorProperties.Region region(final String country, final int weight) {
+        final OrderGeneratorProperties.Region region = new OrderGeneratorProperties.Region();
+        region.setCountry(country);
+        region.setWeight(weight);
+        return region;
+    }
+}
@@ -0,0 +1,162 @@
+package com.solace.acme.store.orderservice.service;
+
+import com.solace.acme.runtime.ReceivedMessage;
+import com.solace.acme.runtime.RuntimeMetrics;
+import com.solace.acme.runtime.SolaceRuntime;
+import com.solace.acme.runtime.TraceContext;
+import com.solace.acme.runtime.local.LocalBroker;
+import com.solace.acme.runtime.local.LocalTransport;
+import com.solace.acme.store.orderservice.config.OrderProjectionProperties;
+import com.solace.acme.store.orderservice.model.Order;
+import com.solace.acme.store.orderservice.model.OrderCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderProjectionServiceTests {
+
+    private static final String PAYMENT_CONFIRMED_TOPIC = "acmeretail/onlineservices/payment/updated/v1/GB/";
+    private static final String SHIPMENT_CREATED_TOPIC = "acmeretail/shipping/shipment/created/v1/GB/";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final OrderCache orderCache = OrderCache.getInstance();
+    private OrderProjectionService orderProjectionService;
+
+    @BeforeEach
+    void startProjection() {
+        orderCache.configure(100_000, Map.of());
+        startProjection(new OrderLatencyRecorder());
+    }
+
+    @AfterEach
+    void stopProjection() throws InterruptedException {
+        orderProjectionService.stopApplyLoops();
+    }
+
+    @Test
+    void replacesTheCachedOrderRatherThanChangingIt() throws InterruptedException {
+        final Order validatedOrder = cachedOrder(Order.OrderState.VALIDATED);
+
+        project(PAYMENT_CONFIRMED_TOPIC + "pay-1", paymentOf(validatedOrder));
+
+        final Order paidOrder = orderCache.get(validatedOrder.getId());
+        assertEquals(Order.OrderState.PAYMENT_PROCESSED, paidOrder.getState());
+        assertEquals(Order.OrderState.VALIDATED, validatedOrder.getState());
+        assertNotSame(validatedOrder, paidOrder);
+    }
+
+    @Test
+    void acknowledgesStatesThatDoNotMoveTheOrderForward() throws InterruptedException {
+        final Order shippedOrder = cachedOrder(Order.OrderState.SHIPPED);
+
+        project(PAYMENT_CONFIRMED_TOPIC + "pay-1", paymentOf(shippedOrder));
+
+        assertEquals(Order.OrderState.SHIPPED, orderCache.get(shippedOrder.getId()).getState());
+        assertEquals(0, discarded("failed"));
+    }
+
+    @Test
+    void acknowledgesAndCountsUndecodableEvents() throws InterruptedException {
+        project(PAYMENT_CONFIRMED_TOPIC + "pay-1", "{not json");
+
+        assertEquals(1, discarded("undecodable"));
+    }
+
+    @Test
+    void acknowledgesAndCountsShipmentsThatNameNoOrder() throws InterruptedException {
+        project(SHIPMENT_CREATED_TOPIC + "ship-1", "{\"id\":\"ship-1\",\"trackingNumber\":7}");
+
+        assertEquals(1, discarded("undecodable"));
+    }
+
+    @Test
+    void acknowledgesAndCountsEventsThatCannotBeApplied() throws InterruptedException {
+        orderProjectionService.stopApplyLoops();
+        startProjection(new OrderLatencyRecorder() {
+            @Override
+            public void recordTransition(final Order.OrderState state, final TraceContext traceContext) {
+                throw new IllegalStateException("recorder failure");
+            }
+        });
+        final Order validatedOrder = cachedOrder(Order.OrderState.VALIDATED);
+
+        project(PAYMENT_CONFIRMED_TOPIC + "pay-1", paymentOf(validatedOrder));
+
+        assertEquals(1, discarded("failed"));
+    }
+
+    private void startProjection(final OrderLatencyRecorder orderLatencyRecorder) {
+        final OrderProjectionProperties projectionProperties = new OrderProjectionProperties();
+        projectionProperties.setApplyLoops(2);
+        projectionProperties.setOrderEventTopicPrefix("acmeretail/onlineservices/order/");
+        projectionProperties.setPaymentConfirmedTopicPrefix("acmeretail/onlineservices/payment/updated/");
+        projectionProperties.setPaymentFailedTopicPrefix("acmeretail/onlineservices/payment/failed/");
+        projectionProperties.setShipmentEventTopicPrefix("acmeretail/shipping/shipment/");
+        orderProjectionService = new OrderProjectionService();
+        orderProjectionService.setProjectionProperties(projectionProperties);
+        orderProjectionService.setSolaceRuntime(new SolaceRuntime(new LocalTransport(new LocalBroker(10, 10)), RuntimeMetrics.disabled()));
+        orderProjectionService.setMeterRegistry(meterRegistry);
+        orderProjectionService.setOrderLatencyRecorder(orderLatencyRecorder);
+        orderProjectionService.startApplyLoops();
+    }
+
+    private void project(final String topic, final String payload) throws InterruptedException {
+        final CountDownLatch acknowledged = new CountDownLatch(1);
+        orderProjectionService.project(new TestMessage(topic, payload.getBytes(StandardCharsets.UTF_8)), acknowledged::countDown);
+        assertTrue(acknowledged.await(5, TimeUnit.SECONDS), "message was not acknowledged");
+    }
+
+    private double discarded(final String reason) {
+        return meterRegistry.counter("order.projection.discarded", "reason", reason).count();
+    }
+
+    private Order cachedOrder(final Order.OrderState state) {
+        final Order order = Order.builder().id(UUID.randomUUID().toString()).customerId("customer-1").state(state)
+                .deliveryAddress(Order.DeliveryAddress.builder().country("GB").build()).build();
+        orderCache.put(order);
+        return order;
+    }
+
+    private static String paymentOf(final Order order) {
+        return "{\"id\":\"pay-1\",\"orderId\":\"" + order.getId() + "\",\"ccy\":\"EUR\",\"amount\":10.0}";
+    }
+
+    private record TestMessage(String topic, byte[] payload) implements ReceivedMessage {
+
+        @Override
+        public String getDestinationName() {
+            return topic;
+        }
+
+        @Override
+        public byte[] getPayloadAsBytes() {
+            return payload;
+        }
+
+        @Override
+        public String getProperty(final String name) {
+            return null;
+        }
+
+        @Override
+        public Long getSenderTimestamp() {
+            return null;
+        }
+
+        @Override
+        public boolean isRedelivered() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.solace.acme.store.orderservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTests {
+
+    @Test
+    void admitsAFullBurstThenRejects() {
+        final TokenBucket tokenBucket = new TokenBucket(1, 5);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(tokenBucket.tryAcquire());
+        }
+        assertFalse(tokenBucket.tryAcquire());
+    }
+
+    @Test
+    void refillsAtTheConfiguredRate() throws InterruptedException {
+        final TokenBucket tokenBucket = new TokenBucket(50, 1);
+        assertTrue(tokenBucket.tryAcquire());
+        assertFalse(tokenBucket.tryAcquire());
+
+        Thread.sleep(40);
+
+        assertTrue(tokenBucket.tryAcquire());
+        assertFalse(tokenBucket.tryAcquire());
+    }
+
+    @Test
+    void zeroRateDisablesTheLimit() {
+        final TokenBucket tokenBucket = new TokenBucket(0, 1);
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(tokenBucket.tryAcquire());
+        }
+    }
+}
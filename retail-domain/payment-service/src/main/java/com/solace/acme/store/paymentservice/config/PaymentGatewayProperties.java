@@ -0,0 +1,39 @@
+package com.solace.acme.store.paymentservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "payment-gateway")
+@Getter
+@Setter
+public class PaymentGatewayProperties {
+    private int maxConcurrentCalls;
+    private Duration callTimeout;
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+    private Stub stub = new Stub();
+
+    @Getter
+    @Setter
+    public static class CircuitBreaker {
+        private int slidingWindowSize;
+        private int minimumCalls;
+        private double failureRateThreshold;
+        private Duration openDuration;
+        private int halfOpenCalls;
+    }
+
+    @Getter
+    @Setter
+    public static class Stub {
+        private Duration latency;
+        private Duration latencyJitter;
+        private double declineRate;
+        private double errorRate;
+        private double hangRate;
+    }
+}
@@ -0,0 +1,20 @@
+package com.solace.acme.store.paymentservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "settlement")
+@Getter
+@Setter
+public class SettlementProperties {
+    private String directory;
+    private Duration window;
+    private int maxBatchSize;
+    private long maxFileSizeBytes;
+    private int queueCapacity;
+}
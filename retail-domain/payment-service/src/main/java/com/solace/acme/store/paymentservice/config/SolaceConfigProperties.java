@@ -14,4 +14,5 @@ public class SolaceConfigProperties {
     private String connectionRetriesPerHost;
     private String orderConfirmedQueueName;
     private String paymentTopicString;
+    private String settlementBatchTopicString;
 }
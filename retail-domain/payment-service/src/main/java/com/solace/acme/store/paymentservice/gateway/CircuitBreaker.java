@@ -0,0 +1,125 @@
+package com.solace.acme.store.paymentservice.gateway;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Count based circuit breaker over the outcomes of the last calls. Once enough calls have been recorded and the
+ * failure rate reaches the threshold, the circuit opens and calls are refused for the open duration. After that a
+ * limited number of trial calls is let through; the circuit closes again when all of them succeed.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final boolean[] failures;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openDurationNanos;
+    private final int halfOpenCalls;
+
+    private State state = State.CLOSED;
+    private int recordedCalls;
+    private int failedCalls;
+    private int nextOutcome;
+    private long openedAtNanos;
+    private int trialCallsPermitted;
+    private int trialCallsSucceeded;
+
+    public CircuitBreaker(final String name, final int slidingWindowSize, final int minimumCalls, final double failureRateThreshold,
+                          final long openDurationNanos, final int halfOpenCalls) {
+        this.name = name;
+        this.failures = new boolean[slidingWindowSize];
+        this.minimumCalls = Math.min(minimumCalls, slidingWindowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationNanos = openDurationNanos;
+        this.halfOpenCalls = halfOpenCalls;
+    }
+
+    public synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAtNanos < openDurationNanos) {
+                return false;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialCallsPermitted >= halfOpenCalls) {
+                return false;
+            }
+            trialCallsPermitted++;
+        }
+        return true;
+    }
+
+    /**
+     * Whether {@link #tryAcquirePermission()} would grant a call now, without taking a trial call or changing state.
+     */
+    public synchronized boolean isCallPermitted() {
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> System.nanoTime() - openedAtNanos >= openDurationNanos;
+            case HALF_OPEN -> trialCallsPermitted < halfOpenCalls;
+        };
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++trialCallsSucceeded >= halfOpenCalls) {
+                transitionTo(State.CLOSED);
+            }
+            return;
+        }
+        if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            transitionTo(State.OPEN);
+            return;
+        }
+        if (state == State.CLOSED) {
+            record(true);
+            if (recordedCalls >= minimumCalls && (double) failedCalls / recordedCalls >= failureRateThreshold) {
+                transitionTo(State.OPEN);
+            }
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void record(final boolean failure) {
+        if (recordedCalls == failures.length) {
+            if (failures[nextOutcome]) {
+                failedCalls--;
+            }
+        } else {
+            recordedCalls++;
+        }
+        failures[nextOutcome] = failure;
+        if (failure) {
+            failedCalls++;
+        }
+        nextOutcome = (nextOutcome + 1) % failures.length;
+    }
+
+    private void transitionTo(final State newState) {
+        log.warn("Circuit breaker {} changed from {} to {}", name, state, newState);
+        state = newState;
+        recordedCalls = 0;
+        failedCalls = 0;
+        nextOutcome = 0;
+        trialCallsPermitted = 0;
+        trialCallsSucceeded = 0;
+        if (newState == State.OPEN) {
+            openedAtNanos = System.nanoTime();
+        }
+    }
+}
@@ -0,0 +1,4 @@
+package com.solace.acme.store.paymentservice.gateway;
+
+public record PaymentAuthorization(String paymentId, boolean approved, String declineReason) {
+}
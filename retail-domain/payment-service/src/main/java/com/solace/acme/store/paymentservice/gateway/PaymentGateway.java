@@ -0,0 +1,12 @@
+package com.solace.acme.store.paymentservice.gateway;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous Payment Service Provider integration. Implementations must never block the calling thread, the
+ * returned future completes once the provider has answered.
+ */
+public interface PaymentGateway {
+
+    CompletableFuture<PaymentAuthorization> authorize(PaymentRequest paymentRequest);
+}
@@ -0,0 +1,145 @@
+package com.solace.acme.store.paymentservice.gateway;
+
+import com.solace.acme.store.paymentservice.config.PaymentGatewayProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Guards the {@link PaymentGateway} with a bulkhead bounding the calls in flight, a timeout per call and a
+ * {@link CircuitBreaker}. Calls refused by the bulkhead or the open circuit fail immediately without reaching the
+ * gateway, so a slow provider never ties up the threads delivering messages.
+ * <p>
+ * Refused and failed calls by reason, the calls in flight and the state of the circuit are registered as meters.
+ */
+@Slf4j
+@Component
+public class PaymentGatewayClient {
+
+    private PaymentGatewayProperties gatewayProperties;
+    private PaymentGateway paymentGateway;
+    private MeterRegistry meterRegistry;
+    private Semaphore bulkhead;
+    private CircuitBreaker circuitBreaker;
+    private long callTimeoutMillis;
+    private final LongAdder bulkheadRejections = new LongAdder();
+    private final LongAdder circuitOpenRejections = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder gatewayErrors = new LongAdder();
+
+    @Autowired
+    public void setGatewayProperties(PaymentGatewayProperties gatewayProperties) {
+        this.gatewayProperties = gatewayProperties;
+    }
+
+    @Autowired
+    public void setPaymentGateway(PaymentGateway paymentGateway) {
+        this.paymentGateway = paymentGateway;
+    }
+
+    @Autowired
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void configure() {
+        final PaymentGatewayProperties.CircuitBreaker circuitBreakerProperties = gatewayProperties.getCircuitBreaker();
+        bulkhead = new Semaphore(gatewayProperties.getMaxConcurrentCalls());
+        circuitBreaker = new CircuitBreaker("payment-gateway", circuitBreakerProperties.getSlidingWindowSize(), circuitBreakerProperties.getMinimumCalls(),
+                circuitBreakerProperties.getFailureRateThreshold(), circuitBreakerProperties.getOpenDuration().toNanos(), circuitBreakerProperties.getHalfOpenCalls());
+        callTimeoutMillis = gatewayProperties.getCallTimeout().toMillis();
+        registerRejections(PaymentGatewayException.Reason.BULKHEAD_FULL, bulkheadRejections);
+        registerRejections(PaymentGatewayException.Reason.CIRCUIT_OPEN, circuitOpenRejections);
+        registerFailures(PaymentGatewayException.Reason.TIMEOUT, timeouts);
+        registerFailures(PaymentGatewayException.Reason.GATEWAY_ERROR, gatewayErrors);
+        Gauge.builder("payment.gateway.in.flight", this, PaymentGatewayClient::getCallsInFlight)
+                .description("Calls to the payment gateway in flight")
+                .register(meterRegistry);
+        Gauge.builder("payment.gateway.circuit.state", this, client -> client.getCircuitBreakerState().ordinal())
+                .description("State of the payment gateway circuit breaker, 0 closed, 1 open, 2 half open")
+                .register(meterRegistry);
+    }
+
+    private void registerRejections(final PaymentGatewayException.Reason reason, final LongAdder rejections) {
+        FunctionCounter.builder("payment.gateway.rejections", rejections, LongAdder::sum)
+                .description("Calls refused without reaching the payment gateway")
+                .tag("reason", reason.name().toLowerCase())
+                .register(meterRegistry);
+    }
+
+    private void registerFailures(final PaymentGatewayException.Reason reason, final LongAdder failures) {
+        FunctionCounter.builder("payment.gateway.failures", failures, LongAdder::sum)
+                .description("Calls to the payment gateway that failed")
+                .tag("reason", reason.name().toLowerCase())
+                .register(meterRegistry);
+    }
+
+    public CompletableFuture<PaymentAuthorization> authorize(final PaymentRequest paymentRequest) {
+        if (!bulkhead.tryAcquire()) {
+            bulkheadRejections.increment();
+            return CompletableFuture.failedFuture(new PaymentGatewayException(PaymentGatewayException.Reason.BULKHEAD_FULL,
+                    "Payment gateway calls in flight at limit of " + gatewayProperties.getMaxConcurrentCalls()));
+        }
+        if (!circuitBreaker.tryAcquirePermission()) {
+            bulkhead.release();
+            circuitOpenRejections.increment();
+            return CompletableFuture.failedFuture(new PaymentGatewayException(PaymentGatewayException.Reason.CIRCUIT_OPEN,
+                    "Payment gateway circuit breaker is " + circuitBreaker.getState()));
+        }
+        CompletableFuture<PaymentAuthorization> gatewayCall;
+        try {
+            gatewayCall = paymentGateway.authorize(paymentRequest);
+        } catch (RuntimeException runtimeException) {
+            gatewayCall = CompletableFuture.failedFuture(runtimeException);
+        }
+        final CompletableFuture<PaymentAuthorization> result = new CompletableFuture<>();
+        gatewayCall.orTimeout(callTimeoutMillis, TimeUnit.MILLISECONDS).whenComplete((paymentAuthorization, failure) -> {
+            bulkhead.release();
+            if (failure == null) {
+                // a declined payment is a healthy answer of the provider
+                circuitBreaker.onSuccess();
+                result.complete(paymentAuthorization);
+                return;
+            }
+            circuitBreaker.onFailure();
+            final Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+            if (cause instanceof TimeoutException) {
+                timeouts.increment();
+                result.completeExceptionally(new PaymentGatewayException(PaymentGatewayException.Reason.TIMEOUT,
+                        "Payment gateway did not answer within " + callTimeoutMillis + " ms"));
+            } else {
+                gatewayErrors.increment();
+                result.completeExceptionally(new PaymentGatewayException(PaymentGatewayException.Reason.GATEWAY_ERROR,
+                        "Payment gateway call failed", cause));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Whether a call made now would reach the gateway rather than be refused by the bulkhead or the open circuit.
+     */
+    public boolean isAcceptingCalls() {
+        return bulkhead.availablePermits() > 0 && circuitBreaker.isCallPermitted();
+    }
+
+    public int getCallsInFlight() {
+        return gatewayProperties.getMaxConcurrentCalls() - bulkhead.availablePermits();
+    }
+
+    public CircuitBreaker.State getCircuitBreakerState() {
+        return circuitBreaker.getState();
+    }
+}
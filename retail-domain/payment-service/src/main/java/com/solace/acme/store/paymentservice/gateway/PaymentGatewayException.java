@@ -0,0 +1,23 @@
+package com.solace.acme.store.paymentservice.gateway;
+
+import lombok.Getter;
+
+@Getter
+public class PaymentGatewayException extends RuntimeException {
+
+    public enum Reason {
+        BULKHEAD_FULL, CIRCUIT_OPEN, TIMEOUT, GATEWAY_ERROR
+    }
+
+    private final Reason reason;
+
+    public PaymentGatewayException(final Reason reason, final String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    public PaymentGatewayException(final Reason reason, final String message, final Throwable cause) {
+        super(message, cause);
+        this.reason = reason;
+    }
+}
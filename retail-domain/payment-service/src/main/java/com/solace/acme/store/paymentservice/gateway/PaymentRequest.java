@@ -0,0 +1,4 @@
+package com.solace.acme.store.paymentservice.gateway;
+
+public record PaymentRequest(String orderId, String customerId, double amount, String ccy) {
+}
@@ -0,0 +1,73 @@
+package com.solace.acme.store.paymentservice.gateway;
+
+import com.solace.acme.store.paymentservice.config.PaymentGatewayProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stand-in for a Payment Service Provider. Answers after the configured latency plus a random jitter, and
+ * declines, fails or never answers a configurable share of the payments, so the service can be run against a slow or
+ * unreliable provider locally. Answers are completed from a timer thread, no thread waits for the latency to pass.
+ */
+@Slf4j
+@Component
+public class StubPaymentGateway implements PaymentGateway {
+
+    private PaymentGatewayProperties.Stub stubProperties;
+    private ScheduledExecutorService responseScheduler;
+    private final AtomicLong paymentSequence = new AtomicLong();
+
+    @Autowired
+    public void setGatewayProperties(PaymentGatewayProperties gatewayProperties) {
+        this.stubProperties = gatewayProperties.getStub();
+    }
+
+    @PostConstruct
+    public void startResponseScheduler() {
+        responseScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "stub-payment-gateway");
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("Using the stub payment gateway with latency:{}, jitter:{}, decline rate:{}, error rate:{}, hang rate:{}",
+                stubProperties.getLatency(), stubProperties.getLatencyJitter(), stubProperties.getDeclineRate(), stubProperties.getErrorRate(), stubProperties.getHangRate());
+    }
+
+    @Override
+    public CompletableFuture<PaymentAuthorization> authorize(final PaymentRequest paymentRequest) {
+        final CompletableFuture<PaymentAuthorization> response = new CompletableFuture<>();
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final double outcome = random.nextDouble();
+        if (outcome < stubProperties.getHangRate()) {
+            return response;
+        }
+        final long jitterNanos = stubProperties.getLatencyJitter().toNanos();
+        final long latencyNanos = stubProperties.getLatency().toNanos() + (jitterNanos > 0 ? random.nextLong(jitterNanos) : 0);
+        final String paymentId = String.valueOf(paymentSequence.incrementAndGet());
+        final Runnable answer;
+        if (outcome < stubProperties.getHangRate() + stubProperties.getErrorRate()) {
+            answer = () -> response.completeExceptionally(new IllegalStateException("Stub payment gateway error for order " + paymentRequest.orderId()));
+        } else if (outcome < stubProperties.getHangRate() + stubProperties.getErrorRate() + stubProperties.getDeclineRate()) {
+            answer = () -> response.complete(new PaymentAuthorization(paymentId, false, "Declined by stub payment gateway"));
+        } else {
+            answer = () -> response.complete(new PaymentAuthorization(paymentId, true, null));
+        }
+        responseScheduler.schedule(answer, latencyNanos, TimeUnit.NANOSECONDS);
+        return response;
+    }
+
+    @PreDestroy
+    public void stopResponseScheduler() {
+        responseScheduler.shutdownNow();
+    }
+}
@@ -15,4 +15,5 @@ public class Payment {
     private String orderId;
     private String ccy;
     private double amount;
+    private Order.DeliveryAddress deliveryAddress;
 }
@@ -0,0 +1,25 @@
+package com.solace.acme.store.paymentservice.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class SettlementBatch {
+
+    private String batchId;
+    private String regionId;
+    private String windowStart;
+    private String windowEnd;
+    private int paymentCount;
+    private BigDecimal totalAmount;
+    private String fileName;
+    private long fileOffset;
+    private long length;
+}
@@ -1,83 +1,74 @@
 package com.solace.acme.store.paymentservice.service;
 
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.solace.acme.runtime.Acknowledgement;
+import com.solace.acme.runtime.ConnectionSettings;
+import com.solace.acme.runtime.PublishRejectedException;
+import com.solace.acme.runtime.QueueReceiver;
+import com.solace.acme.runtime.ReceivedMessage;
+import com.solace.acme.runtime.SolaceRuntime;
+import com.solace.acme.runtime.TraceContext;
 import com.solace.acme.store.paymentservice.config.SolaceConfigProperties;
 import com.solace.acme.store.paymentservice.config.SolaceConnectionParameters;
+import com.solace.acme.store.paymentservice.gateway.PaymentAuthorization;
+import com.solace.acme.store.paymentservice.gateway.PaymentGatewayClient;
+import com.solace.acme.store.paymentservice.gateway.PaymentGatewayException;
+import com.solace.acme.store.paymentservice.gateway.PaymentRequest;
 import com.solace.acme.store.paymentservice.models.Order;
 import com.solace.acme.store.paymentservice.models.Payment;
-import com.solace.messaging.MessagingService;
-import com.solace.messaging.PubSubPlusClientException;
-import com.solace.messaging.config.SolaceProperties;
-import com.solace.messaging.config.profile.ConfigurationProfile;
-import com.solace.messaging.publisher.OutboundMessage;
-import com.solace.messaging.publisher.OutboundMessageBuilder;
-import com.solace.messaging.publisher.PersistentMessagePublisher;
-import com.solace.messaging.receiver.MessageReceiver;
-import com.solace.messaging.receiver.PersistentMessageReceiver;
-import com.solace.messaging.resources.Queue;
-import com.solace.messaging.resources.Topic;
+import com.solace.acme.store.paymentservice.models.SettlementBatch;
+import com.solace.acme.store.paymentservice.settlement.SettlementAggregator;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.text.StringSubstitutor;
-import org.instancio.Instancio;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Properties;
+import java.io.IOException;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
-import static org.instancio.Select.field;
-
 @Slf4j
 @Component
 public class SolaceEventHandler {
 
     @Autowired
     private SolaceConfigProperties configProperties;
-    private PersistentMessagePublisher persistentMessagePublisher;
-    private OutboundMessageBuilder messageBuilder;
-    ObjectMapper objectMapper = new ObjectMapper();
+    @Autowired
+    private SolaceRuntime solaceRuntime;
+    @Autowired
+    private PaymentGatewayClient paymentGatewayClient;
+    @Autowired
+    private SettlementAggregator settlementAggregator;
+    private QueueReceiver ordersConfirmedEventReceiver;
+    private boolean ordersConfirmedEventReceiverPaused;
+    private boolean ordersConfirmedFlowRecheckScheduled;
+    private final ScheduledThreadPoolExecutor paymentOutcomeExecutor = newPaymentOutcomeExecutor();
+    private final ScheduledExecutorService paymentUpdateScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "payment-updates"));
 
     private enum EventVerb {
-        created, updated,
+        created, updated, failed, unknown,
+    }
+
+    private static ScheduledThreadPoolExecutor newPaymentOutcomeExecutor() {
+        final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> new Thread(runnable, "payment-outcomes"));
+        // payment retries still due on shutdown are dropped, the outcomes already received are published
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        return executor;
     }
 
 
     public boolean connectAndConfigureConsumers(final SolaceConnectionParameters solaceConnectionParameters) {
         try {
-            final Properties properties = setupPropertiesForConnection(solaceConnectionParameters);
-            final MessagingService messagingService = MessagingService.builder(ConfigurationProfile.V1).fromProperties(properties).build();
-            messagingService.connect();
-            setupConnectivityHandlingInMessagingService(messagingService);
-            messageBuilder = messagingService.messageBuilder();
-            persistentMessagePublisher = messagingService.createPersistentMessagePublisherBuilder().onBackPressureWait(1).build();
-
-            final PersistentMessageReceiver ordersConfirmedEventReceiver = messagingService.createPersistentMessageReceiverBuilder().build(Queue.durableExclusiveQueue(configProperties.getOrderConfirmedQueueName()));
-            ordersConfirmedEventReceiver.setReceiveFailureListener(failedReceiveEvent -> System.out.println("### FAILED RECEIVE EVENT " + failedReceiveEvent));
-            ordersConfirmedEventReceiver.start();
-            ordersConfirmedEventReceiver.receiveAsync(buildOrdersConfirmedEventHandler(ordersConfirmedEventReceiver));
-
-            persistentMessagePublisher.start();
-            persistentMessagePublisher.setMessagePublishReceiptListener(publishReceipt -> {
-                final PubSubPlusClientException e = publishReceipt.getException();
-                if (e == null) {
-                    OutboundMessage outboundMessage = publishReceipt.getMessage();
-                    log.info(String.format("ACK for Message %s", outboundMessage));
-                } else {
-                    Object userContext = publishReceipt.getUserContext();
-                    if (userContext != null) {
-                        log.warn(String.format("NACK for Message %s - %s", userContext, e));
-                    } else {
-                        OutboundMessage outboundMessage = publishReceipt.getMessage();  // which message got NACKed?
-                        log.warn(String.format("NACK for Message %s - %s", outboundMessage, e));
-                    }
-                }
-            });
+            solaceRuntime.connect(new ConnectionSettings(solaceConnectionParameters.getHostUrl(), solaceConnectionParameters.getVpnName(),
+                    solaceConnectionParameters.getUserName(), solaceConnectionParameters.getPassword(),
+                    configProperties.getReconnectionAttempts(), configProperties.getConnectionRetriesPerHost()));
+            settlementAggregator.setBatchListener(settlementBatch -> publishWithRetry(() -> publishSettlementBatch(settlementBatch)));
+            ordersConfirmedEventReceiver = solaceRuntime.receive(configProperties.getOrderConfirmedQueueName(),
+                    (inboundMessage, acknowledgement) -> processPaymentForConfirmedOrder(inboundMessage, TraceContext.fromMessage(inboundMessage), acknowledgement));
             log.info("Configuration of Receivers and Producers successful");
             return true;
         } catch (Exception exception) {
@@ -86,94 +77,181 @@ public class SolaceEventHandler {
         }
     }
 
-    private MessageReceiver.MessageHandler buildOrdersConfirmedEventHandler(final PersistentMessageReceiver ordersConfirmedEventReceiver) {
-        return (inboundMessage -> {
+    private void processPaymentForConfirmedOrder(final ReceivedMessage inboundMessage, final TraceContext traceContext, final Acknowledgement acknowledgement) {
+        final Order orderConfirmed;
+        try {
+            orderConfirmed = solaceRuntime.decode(inboundMessage, Order.class);
+        } catch (IOException ioException) {
+            log.error("Discarding undecodable Order event:{}, exception:", inboundMessage.getPayloadAsString(), ioException);
+            acknowledgement.run();
+            return;
+        }
+        if (orderConfirmed.getState() != Order.OrderState.VALIDATED) {
+            log.info("Skipping payment for Order:{} in state:{}", orderConfirmed.getId(), orderConfirmed.getState());
+            acknowledgement.run();
+            return;
+        }
+        authorizePayment(orderConfirmed, traceContext, acknowledgement);
+    }
+
+    /**
+     * The gateway answers on its own threads and hands the answer to the payment outcome thread, which publishes the
+     * outcome and then acknowledges the message, so neither the gateway timer nor the call timeout thread ever publish.
+     */
+    private void authorizePayment(final Order orderConfirmed, final TraceContext traceContext, final Acknowledgement acknowledgement) {
+        final PaymentRequest paymentRequest = new PaymentRequest(orderConfirmed.getId(), orderConfirmed.getCustomerId(), orderConfirmed.getPrice(),
+                String.valueOf(orderConfirmed.getPaymentInfo().getCvv()));
+        paymentGatewayClient.authorize(paymentRequest).whenCompleteAsync((paymentAuthorization, failure) -> {
             try {
-                final String inboundTopic = inboundMessage.getDestinationName();
-                log.info("Processing message on incoming topic :{} with payload:{}", inboundTopic, inboundMessage.getPayloadAsString());
-                boolean eventProcessed = processPaymentForConfirmedOrder(inboundMessage.getPayloadAsString());
-                if (eventProcessed) {
-                    ordersConfirmedEventReceiver.ack(inboundMessage);
-                }
+                completePayment(orderConfirmed, paymentAuthorization, failure, traceContext, acknowledgement);
             } catch (RuntimeException runtimeException) {
-                log.error("Runtime exception encountered while processing incoming event payload :{} on topic:{}. Error is :", inboundMessage.getPayloadAsString(), inboundMessage.getDestinationName(), runtimeException);
+                // a rejected publish included, the message stays unacknowledged
+                acknowledgement.fail();
+                log.error("Runtime exception encountered while completing payment for Order:{}. Error is :", orderConfirmed.getId(), runtimeException);
+            } finally {
+                updateOrdersConfirmedFlow();
             }
-        });
+        }, paymentOutcomeExecutor);
+        updateOrdersConfirmedFlow();
     }
 
-    private boolean processPaymentForConfirmedOrder(final String orderConfirmedEventJson) {
-        try {
-            final Order orderConfirmed = objectMapper.readValue(orderConfirmedEventJson, Order.class);
-            // this would be place where you implement your PSP or Payment Gateway integration
+    private void completePayment(final Order orderConfirmed, final PaymentAuthorization paymentAuthorization, final Throwable failure,
+                                 final TraceContext traceContext, final Acknowledgement acknowledgement) {
+        final String paymentRegion = orderConfirmed.getDeliveryAddress().getCountry();
+        if (failure != null) {
+            final Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+            final PaymentGatewayException.Reason reason = cause instanceof PaymentGatewayException paymentGatewayException
+                    ? paymentGatewayException.getReason() : PaymentGatewayException.Reason.GATEWAY_ERROR;
+            switch (reason) {
+                case BULKHEAD_FULL, CIRCUIT_OPEN -> {
+                    // the call never reached the provider, the order is still to be paid
+                    retryPayment(orderConfirmed, traceContext, acknowledgement, cause.getMessage());
+                    return;
+                }
+                case TIMEOUT -> {
+                    // the provider may still have authorized the payment, so it is not reported as failed
+                    log.warn("Payment gateway did not answer for Order:{}, payment outcome is unknown", orderConfirmed.getId());
+                    publishPaymentEvent(createPaymentEvent(orderConfirmed, null), paymentRegion, EventVerb.unknown, traceContext);
+                }
+                default -> {
+                    log.warn("Payment gateway call failed for Order:{}, error:{}", orderConfirmed.getId(), cause.getMessage());
+                    publishPaymentEvent(createPaymentEvent(orderConfirmed, null), paymentRegion, EventVerb.failed, traceContext);
+                }
+            }
+        } else if (!paymentAuthorization.approved()) {
+            log.info("Payment declined for Order:{}, reason:{}", orderConfirmed.getId(), paymentAuthorization.declineReason());
+            publishPaymentEvent(createPaymentEvent(orderConfirmed, paymentAuthorization.paymentId()), paymentRegion, EventVerb.failed, traceContext);
+        } else {
             log.info("Processed payment service integration for Order:{}, customer:{}", orderConfirmed.getId(), orderConfirmed.getCustomerId());
-            processPaymentCreatedEventForOrder(orderConfirmed);
+            final Payment payment = createPaymentEvent(orderConfirmed, paymentAuthorization.paymentId());
+            publishPaymentEvent(payment, paymentRegion, EventVerb.created, traceContext);
             // To emulate payment flows where there is a separate payment initialization and confirmation, we will be publishing a payment updated event with a delay.
-            schedulePaymentUpdatedEvent(orderConfirmed);
-            return true;
-        } catch (JsonProcessingException jsonProcessingException) {
-            log.error("Error encountered while processing Order event:{}, exception:", orderConfirmedEventJson, jsonProcessingException);
-            return false;
+            schedulePaymentUpdatedEvent(payment, paymentRegion, traceContext);
         }
+        acknowledgement.run();
     }
 
-    private void processPaymentCreatedEventForOrder(final Order orderConfirmed) {
-        final Payment paymentCreatedEvent = createPaymentCreatedEvent(orderConfirmed);
-        publishPaymentEvent(paymentCreatedEvent, orderConfirmed.getDeliveryAddress().getCountry(), EventVerb.created);
+    /**
+     * Keeps the message of a call the bulkhead or the open circuit refused unacknowledged and calls again a second later;
+     * the receiver is paused meanwhile, so no more orders are taken in. Retries still due on shutdown are dropped and
+     * their messages redelivered by the broker.
+     */
+    private void retryPayment(final Order orderConfirmed, final TraceContext traceContext, final Acknowledgement acknowledgement, final String refusal) {
+        log.debug("Retrying payment for Order:{} in a second, {}", orderConfirmed.getId(), refusal);
+        try {
+            paymentOutcomeExecutor.schedule(() -> authorizePayment(orderConfirmed, traceContext, acknowledgement), 1, TimeUnit.SECONDS);
+        } catch (RejectedExecutionException rejectedExecutionException) {
+            acknowledgement.fail();
+            log.debug("Left Order:{} unacknowledged while shutting down", orderConfirmed.getId());
+        }
     }
 
-    private void processPaymentUpdatedEventForOrder(final Order orderConfirmed) {
-        final Payment paymentUpdatedEvent = createPaymentCreatedEvent(orderConfirmed);
-        publishPaymentEvent(paymentUpdatedEvent, orderConfirmed.getDeliveryAddress().getCountry(), EventVerb.updated);
+    /**
+     * Stops delivery of confirmed orders while the payment gateway refuses calls, because every call slot is taken or
+     * the circuit is open, and restarts it once calls are accepted again, so orders wait in the queue rather than being
+     * refused. An open circuit accepts calls again after its open duration without any call completing, so a paused
+     * flow is checked again every second.
+     */
+    private synchronized void updateOrdersConfirmedFlow() {
+        final boolean acceptingCalls = paymentGatewayClient.isAcceptingCalls();
+        if (!acceptingCalls && !ordersConfirmedEventReceiverPaused) {
+            ordersConfirmedEventReceiver.pause();
+            ordersConfirmedEventReceiverPaused = true;
+        } else if (acceptingCalls && ordersConfirmedEventReceiverPaused) {
+            ordersConfirmedEventReceiver.resume();
+            ordersConfirmedEventReceiverPaused = false;
+        }
+        if (ordersConfirmedEventReceiverPaused && !ordersConfirmedFlowRecheckScheduled) {
+            try {
+                paymentOutcomeExecutor.schedule(this::recheckOrdersConfirmedFlow, 1, TimeUnit.SECONDS);
+                ordersConfirmedFlowRecheckScheduled = true;
+            } catch (RejectedExecutionException rejectedExecutionException) {
+                log.debug("Orders confirmed flow stays paused while shutting down");
+            }
+        }
     }
 
-    private void schedulePaymentUpdatedEvent(final Order orderConfirmed) {
-        ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor();
-        executorService.schedule(() -> processPaymentUpdatedEventForOrder(orderConfirmed), 15, TimeUnit.SECONDS);
-        executorService.shutdown();
+    private synchronized void recheckOrdersConfirmedFlow() {
+        ordersConfirmedFlowRecheckScheduled = false;
+        updateOrdersConfirmedFlow();
     }
 
-
-    private Payment createPaymentCreatedEvent(final Order orderConfirmed) {
-        return Instancio.of(Payment.class)
-                .generate(field(Payment::getId), gen -> gen.ints().asString())
-                .set(field(Payment::getOrderId), orderConfirmed.getId())
-                .set(field(Payment::getCcy), String.valueOf(orderConfirmed.getPaymentInfo().getCvv()))
-                .set(field(Payment::getAmount), orderConfirmed.getPrice())
-                .create();
+    private void schedulePaymentUpdatedEvent(final Payment payment, final String paymentRegion, final TraceContext traceContext) {
+        paymentUpdateScheduler.schedule(() -> publishWithRetry(() -> {
+            publishPaymentEvent(payment, paymentRegion, EventVerb.updated, traceContext);
+            settlementAggregator.settle(payment, paymentRegion);
+        }), 15, TimeUnit.SECONDS);
     }
 
-    public void publishPaymentEvent(final Payment paymentEvent, String paymentRegion, EventVerb verb) {
+    /**
+     * Publishes an event that was not derived from a received message, so no unacknowledged message brings it back when
+     * the publisher rejects it; it is retried a second later instead, until the scheduler has been shut down.
+     */
+    private void publishWithRetry(final Runnable publish) {
         try {
-            String paymentEventJson = objectMapper.writeValueAsString(paymentEvent);
-            final OutboundMessage message = messageBuilder.build(paymentEventJson);
-            final Map<String, Object> params = new HashMap<>();
-            params.put("verb", verb.name());
-            params.put("regionId", paymentRegion);
-            params.put("paymentId", paymentEvent.getId());
-            String topicString = StringSubstitutor.replace(configProperties.getPaymentTopicString(), params, "{", "}");
-            persistentMessagePublisher.publish(message, Topic.of(topicString));
-            log.info("Published Payment event :{} on topic : {}", paymentEventJson, topicString);
-        } catch (final RuntimeException runtimeException) {
-            log.error("Error encountered while publishing event, exception :", runtimeException);
-        } catch (JsonProcessingException jsonProcessingException) {
-            log.error("Error encountered while converting Payment to JSON string, exception :", jsonProcessingException);
+            publish.run();
+        } catch (PublishRejectedException publishRejectedException) {
+            try {
+                paymentUpdateScheduler.schedule(() -> publishWithRetry(publish), 1, TimeUnit.SECONDS);
+            } catch (RejectedExecutionException rejectedExecutionException) {
+                log.warn("Event rejected by the publisher while shutting down is lost, {}", publishRejectedException.getMessage());
+            }
         }
     }
 
-    private static void setupConnectivityHandlingInMessagingService(final MessagingService messagingService) {
-        messagingService.addServiceInterruptionListener(serviceEvent -> System.out.println("### SERVICE INTERRUPTION: " + serviceEvent.getCause()));
-        messagingService.addReconnectionAttemptListener(serviceEvent -> System.out.println("### RECONNECTING ATTEMPT: " + serviceEvent));
-        messagingService.addReconnectionListener(serviceEvent -> System.out.println("### RECONNECTED: " + serviceEvent));
+
+    private Payment createPaymentEvent(final Order orderConfirmed, final String paymentId) {
+        return Payment.builder()
+                .id(paymentId == null ? orderConfirmed.getId() : paymentId)
+                .orderId(orderConfirmed.getId())
+                .ccy(String.valueOf(orderConfirmed.getPaymentInfo().getCvv()))
+                .amount(orderConfirmed.getPrice())
+                .deliveryAddress(orderConfirmed.getDeliveryAddress())
+                .build();
+    }
+
+    public void publishPaymentEvent(final Payment paymentEvent, String paymentRegion, EventVerb verb, TraceContext traceContext) {
+        solaceRuntime.publish(SolaceRuntime.topic(configProperties.getPaymentTopicString(),
+                "verb", verb.name(), "regionId", paymentRegion, "paymentId", paymentEvent.getId()), paymentEvent, traceContext);
+    }
+
+    /**
+     * Runs once the runtime has drained: the gateway answers already received are published first, then the payment
+     * updates still due are published now rather than lost, and the last settlement batches are announced while the
+     * runtime can still publish them.
+     */
+    @PreDestroy
+    public void stopPaymentUpdateScheduler() throws InterruptedException {
+        paymentOutcomeExecutor.shutdown();
+        paymentOutcomeExecutor.awaitTermination(30, TimeUnit.SECONDS);
+        for (Runnable paymentUpdate : paymentUpdateScheduler.shutdownNow()) {
+            paymentUpdate.run();
+        }
+        settlementAggregator.stopWriter();
     }
 
-    private Properties setupPropertiesForConnection(final SolaceConnectionParameters solaceConnectionParameters) {
-        final Properties properties = new Properties();
-        properties.setProperty(SolaceProperties.TransportLayerProperties.HOST, solaceConnectionParameters.getHostUrl());
-        properties.setProperty(SolaceProperties.ServiceProperties.VPN_NAME, solaceConnectionParameters.getVpnName());
-        properties.setProperty(SolaceProperties.AuthenticationProperties.SCHEME_BASIC_USER_NAME, solaceConnectionParameters.getUserName());
-        properties.setProperty(SolaceProperties.AuthenticationProperties.SCHEME_BASIC_PASSWORD, solaceConnectionParameters.getPassword());
-        properties.setProperty(SolaceProperties.TransportLayerProperties.RECONNECTION_ATTEMPTS, configProperties.getReconnectionAttempts());
-        properties.setProperty(SolaceProperties.TransportLayerProperties.CONNECTION_RETRIES_PER_HOST, configProperties.getConnectionRetriesPerHost());
-        return properties;
+    public void publishSettlementBatch(final SettlementBatch settlementBatch) {
+        solaceRuntime.publish(SolaceRuntime.topic(configProperties.getSettlementBatchTopicString(),
+                "regionId", settlementBatch.getRegionId(), "batchId", settlementBatch.getBatchId()), settlementBatch);
     }
-}
\ No newline at end of file
+}
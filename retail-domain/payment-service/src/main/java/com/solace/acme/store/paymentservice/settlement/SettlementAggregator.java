@@ -0,0 +1,232 @@
+package com.solace.acme.store.paymentservice.settlement;
+
+import com.solace.acme.store.paymentservice.config.SettlementProperties;
+import com.solace.acme.store.paymentservice.models.Payment;
+import com.solace.acme.store.paymentservice.models.SettlementBatch;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Collects settled payments per region into micro-windows and appends each window's batch to the region's settlement
+ * file from a single writer thread. Every batch is written from one direct buffer and forced to disk once, and only
+ * then announced as a {@link SettlementBatch}. Callers only enqueue, no disk I/O happens on the message path.
+ */
+@Slf4j
+@Component
+public class SettlementAggregator {
+
+    private static final int RECORD_BUFFER_SIZE = 1 << 20;
+
+    private SettlementProperties settlementProperties;
+    private MeterRegistry meterRegistry;
+    private BlockingQueue<SettledPayment> settledPayments;
+    private ExecutorService writerExecutor;
+    private volatile boolean running;
+    private volatile Consumer<SettlementBatch> batchListener = settlementBatch -> {
+    };
+    private final Map<String, List<SettledPayment>> openBatches = new HashMap<>();
+    private final Map<String, SettlementFile> settlementFiles = new HashMap<>();
+    private final ByteBuffer recordBuffer = ByteBuffer.allocateDirect(RECORD_BUFFER_SIZE);
+    private Path directory;
+    private final LongAdder settledPaymentCount = new LongAdder();
+    private final LongAdder droppedPaymentCount = new LongAdder();
+    private final LongAdder batchCount = new LongAdder();
+
+    @Autowired
+    public void setSettlementProperties(SettlementProperties settlementProperties) {
+        this.settlementProperties = settlementProperties;
+    }
+
+    @Autowired
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void setBatchListener(final Consumer<SettlementBatch> batchListener) {
+        this.batchListener = batchListener;
+    }
+
+    @PostConstruct
+    public void startWriter() {
+        directory = Paths.get(settlementProperties.getDirectory());
+        settledPayments = new ArrayBlockingQueue<>(settlementProperties.getQueueCapacity());
+        registerPayments("settled", settledPaymentCount);
+        registerPayments("dropped", droppedPaymentCount);
+        FunctionCounter.builder("payment.settlement.batches", batchCount, LongAdder::sum)
+                .description("Settlement batches written and announced")
+                .register(meterRegistry);
+        Gauge.builder("payment.settlement.queued", settledPayments, BlockingQueue::size)
+                .description("Payments waiting for the settlement writer")
+                .register(meterRegistry);
+        running = true;
+        writerExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "settlement-writer"));
+        writerExecutor.execute(this::writeBatches);
+    }
+
+    private void registerPayments(final String outcome, final LongAdder payments) {
+        FunctionCounter.builder("payment.settlement.payments", payments, LongAdder::sum)
+                .description("Payments handed to settlement, by whether they were written or dropped on a full queue")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    public void settle(final Payment payment, final String regionId) {
+        if (!settledPayments.offer(new SettledPayment(regionId, payment, System.currentTimeMillis()))) {
+            droppedPaymentCount.increment();
+            log.error("Settlement queue full, payment:{} of order:{} is not settled", payment.getId(), payment.getOrderId());
+        }
+    }
+
+    private void writeBatches() {
+        final long windowMillis = settlementProperties.getWindow().toMillis();
+        long windowStart = System.currentTimeMillis() / windowMillis * windowMillis;
+        long windowEnd = windowStart + windowMillis;
+        final List<SettledPayment> drained = new ArrayList<>();
+        while (running || !settledPayments.isEmpty()) {
+            try {
+                final long now = System.currentTimeMillis();
+                if (now >= windowEnd) {
+                    flushBatches(windowStart, windowEnd);
+                    windowStart = now / windowMillis * windowMillis;
+                    windowEnd = windowStart + windowMillis;
+                    continue;
+                }
+                final SettledPayment settledPayment = settledPayments.poll(windowEnd - now, TimeUnit.MILLISECONDS);
+                if (settledPayment == null) {
+                    continue;
+                }
+                drained.add(settledPayment);
+                settledPayments.drainTo(drained);
+                for (SettledPayment payment : drained) {
+                    final List<SettledPayment> batch = openBatches.computeIfAbsent(payment.regionId(), regionId -> new ArrayList<>());
+                    batch.add(payment);
+                    if (batch.size() >= settlementProperties.getMaxBatchSize()) {
+                        flushBatch(payment.regionId(), batch, windowStart, System.currentTimeMillis());
+                    }
+                }
+                drained.clear();
+            } catch (InterruptedException interruptedException) {
+                running = false;
+            } catch (RuntimeException runtimeException) {
+                log.error("Error encountered while aggregating settlement batches, exception:", runtimeException);
+            }
+        }
+        flushBatches(windowStart, System.currentTimeMillis());
+        closeFiles();
+    }
+
+    private void flushBatches(final long windowStart, final long windowEnd) {
+        for (Map.Entry<String, List<SettledPayment>> openBatch : openBatches.entrySet()) {
+            if (!openBatch.getValue().isEmpty()) {
+                flushBatch(openBatch.getKey(), openBatch.getValue(), windowStart, windowEnd);
+            }
+        }
+    }
+
+    private void flushBatch(final String regionId, final List<SettledPayment> batch, final long windowStart, final long windowEnd) {
+        final SettlementFile settlementFile = settlementFiles.computeIfAbsent(regionId,
+                region -> new SettlementFile(directory, region, settlementProperties.getMaxFileSizeBytes()));
+        long fileOffset = -1;
+        try {
+            fileOffset = settlementFile.beginBatch();
+            BigDecimal totalAmount = BigDecimal.ZERO;
+            recordBuffer.clear();
+            for (SettledPayment settledPayment : batch) {
+                final Payment payment = settledPayment.payment();
+                final BigDecimal amount = BigDecimal.valueOf(payment.getAmount());
+                totalAmount = totalAmount.add(amount);
+                // the payment's ccy holds card data, not a currency, and never goes to disk
+                final byte[] record = (settledPayment.settledAtMillis() + "," + payment.getId() + "," + payment.getOrderId() + ","
+                        + amount.toPlainString() + "\n").getBytes(StandardCharsets.UTF_8);
+                if (recordBuffer.remaining() < record.length) {
+                    recordBuffer.flip();
+                    settlementFile.write(recordBuffer);
+                    recordBuffer.clear();
+                }
+                recordBuffer.put(record);
+            }
+            recordBuffer.flip();
+            settlementFile.write(recordBuffer);
+            settlementFile.force();
+            final SettlementBatch settlementBatch = SettlementBatch.builder()
+                    .batchId(batchId(settlementFile.getFileName(), fileOffset))
+                    .regionId(regionId)
+                    .windowStart(toDateTime(windowStart))
+                    .windowEnd(toDateTime(windowEnd))
+                    .paymentCount(batch.size())
+                    .totalAmount(totalAmount)
+                    .fileName(settlementFile.getFileName())
+                    .fileOffset(fileOffset)
+                    .length(settlementFile.position() - fileOffset)
+                    .build();
+            settledPaymentCount.add(batch.size());
+            batchCount.increment();
+            batch.clear();
+            batchListener.accept(settlementBatch);
+        } catch (IOException ioException) {
+            // the batch stays open and is written again with the next window, from where it started in the file
+            if (fileOffset >= 0) {
+                settlementFile.abortBatch(fileOffset);
+            }
+            log.error("Error encountered while writing settlement batch of {} payments for region:{}, exception:", batch.size(), regionId, ioException);
+        }
+    }
+
+    /**
+     * The file and offset a batch starts at, unique across restarts since every file name carries its creation time.
+     */
+    static String batchId(final String fileName, final long fileOffset) {
+        return fileName.substring(0, fileName.lastIndexOf('.')) + "-" + fileOffset;
+    }
+
+    private static String toDateTime(final long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault()).toString();
+    }
+
+    private void closeFiles() {
+        for (SettlementFile settlementFile : settlementFiles.values()) {
+            try {
+                settlementFile.close();
+            } catch (IOException ioException) {
+                log.error("Error encountered while closing settlement file:{}, exception:", settlementFile.getFileName(), ioException);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stopWriter() throws InterruptedException {
+        running = false;
+        writerExecutor.shutdown();
+        writerExecutor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    private record SettledPayment(String regionId, Payment payment, long settledAtMillis) {
+    }
+}
@@ -0,0 +1,97 @@
+package com.solace.acme.store.paymentservice.settlement;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Append-only settlement file of one region. Rolls over to a new file when a batch starts and the current file has
+ * reached its maximum size, so a batch never spans two files.
+ */
+final class SettlementFile implements Closeable {
+
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+    private final Path directory;
+    private final String regionId;
+    private final long maxFileSizeBytes;
+    private FileChannel channel;
+    private String fileName;
+    private int sequence;
+
+    SettlementFile(final Path directory, final String regionId, final long maxFileSizeBytes) {
+        this.directory = directory;
+        this.regionId = regionId;
+        this.maxFileSizeBytes = maxFileSizeBytes;
+    }
+
+    /**
+     * Returns the offset at which the next batch starts, rolling the file first if needed.
+     */
+    long beginBatch() throws IOException {
+        if (channel == null || channel.position() >= maxFileSizeBytes) {
+            roll();
+        }
+        return channel.position();
+    }
+
+    void write(final ByteBuffer records) throws IOException {
+        while (records.hasRemaining()) {
+            channel.write(records);
+        }
+    }
+
+    long position() throws IOException {
+        return channel.position();
+    }
+
+    void force() throws IOException {
+        channel.force(false);
+    }
+
+    /**
+     * Cuts off whatever a failed batch wrote from the offset it started at, so that writing the batch again does not
+     * duplicate records. When the file cannot be truncated it is closed, and the next batch starts a new file.
+     */
+    void abortBatch(final long batchStartOffset) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.truncate(batchStartOffset);
+            channel.force(false);
+        } catch (IOException ioException) {
+            try {
+                close();
+            } catch (IOException closeException) {
+                ioException.addSuppressed(closeException);
+            }
+        }
+    }
+
+    String getFileName() {
+        return fileName;
+    }
+
+    private void roll() throws IOException {
+        close();
+        Files.createDirectories(directory);
+        fileName = String.format("settlement-%s-%s-%04d.csv", regionId, LocalDateTime.now().format(FILE_TIMESTAMP), ++sequence);
+        channel = FileChannel.open(directory.resolve(fileName), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            final FileChannel closing = channel;
+            channel = null;
+            closing.close();
+        }
+    }
+}
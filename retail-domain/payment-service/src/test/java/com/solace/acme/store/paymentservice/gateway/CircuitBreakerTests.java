@@ -0,0 +1,110 @@
+package com.solace.acme.store.paymentservice.gateway;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTests {
+
+    private static final long NEVER = TimeUnit.HOURS.toNanos(1);
+
+    @Test
+    void staysClosedUntilTheMinimumCallsHaveBeenRecorded() {
+        final CircuitBreaker circuitBreaker = new CircuitBreaker("test", 10, 5, 0.5, NEVER, 2);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(circuitBreaker.tryAcquirePermission());
+            circuitBreaker.onFailure();
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+        circuitBreaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquirePermission());
+        assertFalse(circuitBreaker.isCallPermitted());
+    }
+
+    @Test
+    void opensOnlyOnceTheFailureRateReachesTheThreshold() {
+        final CircuitBreaker circuitBreaker = new CircuitBreaker("test", 10, 4, 0.5, NEVER, 2);
+        circuitBreaker.onSuccess();
+        circuitBreaker.onSuccess();
+        circuitBreaker.onSuccess();
+        circuitBreaker.onFailure();
+        circuitBreaker.onFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+        circuitBreaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    void forgetsOutcomesThatLeftTheSlidingWindow() {
+        final CircuitBreaker circuitBreaker = new CircuitBreaker("test", 4, 4, 0.75, NEVER, 2);
+        circuitBreaker.onFailure();
+        circuitBreaker.onFailure();
+        circuitBreaker.onSuccess();
+        circuitBreaker.onSuccess();
+        circuitBreaker.onSuccess();
+        circuitBreaker.onSuccess();
+
+        circuitBreaker.onFailure();
+        circuitBreaker.onFailure();
+
+        // the two early failures were pushed out, the window holds two failures out of four
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void closesWhenEveryTrialCallSucceeds() {
+        final CircuitBreaker circuitBreaker = openCircuitBreaker(0, 2);
+
+        assertTrue(circuitBreaker.isCallPermitted());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertFalse(circuitBreaker.tryAcquirePermission());
+        assertFalse(circuitBreaker.isCallPermitted());
+
+        circuitBreaker.onSuccess();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        circuitBreaker.onSuccess();
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    void opensAgainWhenATrialCallFails() {
+        final CircuitBreaker circuitBreaker = openCircuitBreaker(0, 2);
+        assertTrue(circuitBreaker.tryAcquirePermission());
+
+        circuitBreaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    void checkingForPermissionTakesNoTrialCall() {
+        final CircuitBreaker circuitBreaker = openCircuitBreaker(0, 1);
+
+        assertTrue(circuitBreaker.isCallPermitted());
+        assertTrue(circuitBreaker.isCallPermitted());
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertFalse(circuitBreaker.tryAcquirePermission());
+    }
+
+    private static CircuitBreaker openCircuitBreaker(final long openDurationNanos, final int halfOpenCalls) {
+        final CircuitBreaker circuitBreaker = new CircuitBreaker("test", 2, 2, 0.5, openDurationNanos, halfOpenCalls);
+        circuitBreaker.onFailure();
+        circuitBreaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        return circuitBreaker;
+    }
+}
@@ -0,0 +1,78 @@
+package com.solace.acme.store.paymentservice.settlement;
+
+import com.solace.acme.store.paymentservice.config.SettlementProperties;
+import com.solace.acme.store.paymentservice.models.Payment;
+import com.solace.acme.store.paymentservice.models.SettlementBatch;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class SettlementAggregatorTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @TempDir
+    Path settlementDirectory;
+
+    @Test
+    void writesOneRecordPerPaymentWithoutCardData() throws Exception {
+        final List<SettlementBatch> batches = new CopyOnWriteArrayList<>();
+        final SettlementAggregator settlementAggregator = startedAggregator(batches);
+        for (int i = 0; i < 5; i++) {
+            settlementAggregator.settle(Payment.builder().id("pay-" + i).orderId("order-" + i).ccy("737").amount(10.5).build(), "GB");
+        }
+        settlementAggregator.stopWriter();
+
+        assertEquals(5, batches.stream().mapToInt(SettlementBatch::getPaymentCount).sum());
+        assertEquals(0, new BigDecimal("52.5").compareTo(batches.stream().map(SettlementBatch::getTotalAmount).reduce(BigDecimal.ZERO, BigDecimal::add)));
+        final List<String> records = Files.readAllLines(settlementDirectory.resolve(batches.get(0).getFileName()));
+        assertEquals(5, records.size());
+        records.forEach(record -> {
+            assertEquals(4, record.split(",").length, record);
+            assertFalse(record.contains("737"), record);
+        });
+        assertEquals(5, meterRegistry.get("payment.settlement.payments").tag("outcome", "settled").functionCounter().count());
+        assertEquals(batches.size(), meterRegistry.get("payment.settlement.batches").functionCounter().count());
+    }
+
+    @Test
+    void namesEveryBatchByItsFileAndOffset() throws Exception {
+        final List<SettlementBatch> batches = new CopyOnWriteArrayList<>();
+        final SettlementAggregator settlementAggregator = startedAggregator(batches);
+        for (int i = 0; i < 10; i++) {
+            settlementAggregator.settle(Payment.builder().id("pay-" + i).orderId("order-" + i).amount(1).build(), i % 2 == 0 ? "GB" : "FR");
+        }
+        settlementAggregator.stopWriter();
+
+        final Set<String> batchIds = batches.stream().map(SettlementBatch::getBatchId).collect(Collectors.toSet());
+        assertEquals(batches.size(), batchIds.size());
+        batches.forEach(batch -> assertEquals(SettlementAggregator.batchId(batch.getFileName(), batch.getFileOffset()), batch.getBatchId()));
+    }
+
+    private SettlementAggregator startedAggregator(final List<SettlementBatch> batches) {
+        final SettlementProperties settlementProperties = new SettlementProperties();
+        settlementProperties.setDirectory(settlementDirectory.toString());
+        settlementProperties.setWindow(Duration.ofSeconds(10));
+        settlementProperties.setMaxBatchSize(2);
+        settlementProperties.setMaxFileSizeBytes(1 << 20);
+        settlementProperties.setQueueCapacity(100);
+        final SettlementAggregator settlementAggregator = new SettlementAggregator();
+        settlementAggregator.setSettlementProperties(settlementProperties);
+        settlementAggregator.setMeterRegistry(meterRegistry);
+        settlementAggregator.setBatchListener(batches::add);
+        settlementAggregator.startWriter();
+        return settlementAggregator;
+    }
+}
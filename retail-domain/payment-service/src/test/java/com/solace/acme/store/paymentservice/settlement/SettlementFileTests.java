@@ -0,0 +1,54 @@
+package com.solace.acme.store.paymentservice.settlement;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class SettlementFileTests {
+
+    @TempDir
+    Path settlementDirectory;
+
+    @Test
+    void abortedBatchLeavesNothingBehind() throws Exception {
+        try (SettlementFile settlementFile = new SettlementFile(settlementDirectory, "GB", 1 << 20)) {
+            final long firstBatch = settlementFile.beginBatch();
+            settlementFile.write(records("1,pay-1,order-1,10.0\n"));
+            settlementFile.force();
+            final long failedBatch = settlementFile.beginBatch();
+            settlementFile.write(records("2,pay-2,order-2,20.0\n"));
+            settlementFile.abortBatch(failedBatch);
+
+            final long retriedBatch = settlementFile.beginBatch();
+            settlementFile.write(records("2,pay-2,order-2,20.0\n"));
+            settlementFile.force();
+
+            assertEquals(0, firstBatch);
+            assertEquals(failedBatch, retriedBatch);
+            assertEquals("1,pay-1,order-1,10.0\n2,pay-2,order-2,20.0\n",
+                    Files.readString(settlementDirectory.resolve(settlementFile.getFileName())));
+        }
+    }
+
+    @Test
+    void rollsOverOnlyBetweenBatches() throws Exception {
+        try (SettlementFile settlementFile = new SettlementFile(settlementDirectory, "FR", 10)) {
+            settlementFile.beginBatch();
+            settlementFile.write(records("1,pay-1,order-1,10.0\n"));
+            final String firstFile = settlementFile.getFileName();
+            assertEquals(0, settlementFile.beginBatch());
+            assertNotEquals(firstFile, settlementFile.getFileName());
+        }
+    }
+
+    private static ByteBuffer records(final String records) {
+        return ByteBuffer.wrap(records.getBytes(StandardCharsets.UTF_8));
+    }
+}
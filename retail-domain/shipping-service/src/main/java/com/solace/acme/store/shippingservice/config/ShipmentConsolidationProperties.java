@@ -0,0 +1,20 @@
+package com.solace.acme.store.shippingservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "shipment-consolidation")
+@Getter
+@Setter
+public class ShipmentConsolidationProperties {
+    private Duration window;
+    private int maxOrdersPerShipment;
+    private Duration tickDuration;
+    private int wheelSize;
+    private Duration reportInterval;
+}
@@ -15,4 +15,17 @@ public class Payment {
     private String orderId;
     private String ccy;
     private double amount;
+    private DeliveryAddress deliveryAddress;
+
+    @Data
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class DeliveryAddress {
+        private String street;
+        private String city;
+        private String state;
+        private String postalCode;
+        private String country;
+    }
 }
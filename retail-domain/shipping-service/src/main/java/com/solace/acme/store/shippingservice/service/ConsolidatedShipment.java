@@ -0,0 +1,12 @@
+package com.solace.acme.store.shippingservice.service;
+
+import com.solace.acme.runtime.TraceContext;
+import com.solace.acme.store.shippingservice.models.Payment;
+
+import java.util.List;
+
+/**
+ * Payments shipped together, with the trace context and the acknowledgement of each payment at the same index.
+ */
+public record ConsolidatedShipment(String destination, List<Payment> payments, List<TraceContext> traceContexts, List<Runnable> acknowledgements) {
+}
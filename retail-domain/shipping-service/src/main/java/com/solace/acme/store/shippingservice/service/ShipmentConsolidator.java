@@ -0,0 +1,251 @@
+package com.solace.acme.store.shippingservice.service;
+
+import com.solace.acme.runtime.TraceContext;
+import com.solace.acme.store.shippingservice.config.ShipmentConsolidationProperties;
+import com.solace.acme.store.shippingservice.models.Payment;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Buffers confirmed payments per destination and ships them together. A destination is a full delivery address, only
+ * orders going to the same door can share a parcel. A consolidation window opens with the first payment for a
+ * destination and closes once it holds the maximum number of orders or its time is up, whichever comes first. Window
+ * deadlines are kept in a {@link TimingWheel} advanced once per tick.
+ */
+@Slf4j
+@Component
+public class ShipmentConsolidator {
+
+    private ShipmentConsolidationProperties consolidationProperties;
+    private MeterRegistry meterRegistry;
+    private ScheduledExecutorService consolidationExecutor;
+    private TimingWheel<ConsolidationWindow> timingWheel;
+    private final Map<String, ConsolidationWindow> openWindows = new HashMap<>();
+    private volatile Consumer<ConsolidatedShipment> shipmentListener = consolidatedShipment -> {
+    };
+    private long windowNanos;
+    private DistributionSummary ordersPerShipment;
+    private Timer addedLatency;
+
+    private final LongAdder consolidatedPayments = new LongAdder();
+    private final LongAdder shipments = new LongAdder();
+    private final LongAdder sizeClosedShipments = new LongAdder();
+    private final LongAdder addedLatencyNanos = new LongAdder();
+    private final AtomicLong maxAddedLatencyNanos = new AtomicLong();
+    private long reportedPayments;
+    private long reportedShipments;
+    private long reportedLatencyNanos;
+
+    @Autowired
+    public void setConsolidationProperties(ShipmentConsolidationProperties consolidationProperties) {
+        this.consolidationProperties = consolidationProperties;
+    }
+
+    @Autowired
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void setShipmentListener(final Consumer<ConsolidatedShipment> shipmentListener) {
+        this.shipmentListener = shipmentListener;
+    }
+
+    @PostConstruct
+    public void startConsolidation() {
+        windowNanos = consolidationProperties.getWindow().toNanos();
+        ordersPerShipment = DistributionSummary.builder("shipment.consolidation.orders")
+                .description("Orders shipped together in one consolidated shipment, its mean is the consolidation ratio")
+                .register(meterRegistry);
+        addedLatency = Timer.builder("shipment.consolidation.added.latency")
+                .description("Time a confirmed payment waited in its consolidation window before being shipped")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("shipment.consolidation.open.windows", this, ShipmentConsolidator::getOpenWindowCount).register(meterRegistry);
+        final long tickNanos = consolidationProperties.getTickDuration().toNanos();
+        timingWheel = new TimingWheel<>(tickNanos, consolidationProperties.getWheelSize(), System.nanoTime());
+        consolidationExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "shipment-consolidation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        consolidationExecutor.scheduleAtFixedRate(this::closeExpiredWindows, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+        final long reportIntervalMillis = consolidationProperties.getReportInterval().toMillis();
+        consolidationExecutor.scheduleWithFixedDelay(this::report, reportIntervalMillis, reportIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The normalized delivery address of the payment's order. A payment without one is shipped on its own.
+     */
+    public static String destinationOf(final Payment payment) {
+        final Payment.DeliveryAddress address = payment.getDeliveryAddress();
+        if (address == null) {
+            return "order:" + payment.getOrderId();
+        }
+        return String.join("|", normalized(address.getStreet()), normalized(address.getPostalCode()), normalized(address.getCity()),
+                normalized(address.getState()), normalized(address.getCountry()));
+    }
+
+    private static String normalized(final String addressLine) {
+        return addressLine == null ? "" : addressLine.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Adds the payment to the open window of its destination. The acknowledgement runs once the shipment holding the
+     * payment has been handed to the shipment listener.
+     */
+    public void consolidate(final Payment payment, final TraceContext traceContext, final Runnable acknowledgement) {
+        final String destination = destinationOf(payment);
+        final long now = System.nanoTime();
+        ConsolidationWindow closedWindow = null;
+        synchronized (this) {
+            ConsolidationWindow window = openWindows.get(destination);
+            if (window == null) {
+                window = new ConsolidationWindow(destination);
+                window.timeout = timingWheel.schedule(window, now + windowNanos);
+                openWindows.put(destination, window);
+            }
+            window.add(payment, traceContext, acknowledgement, now);
+            if (window.payments.size() >= consolidationProperties.getMaxOrdersPerShipment()) {
+                window.timeout.cancel();
+                openWindows.remove(destination);
+                closedWindow = window;
+            }
+        }
+        if (closedWindow != null) {
+            sizeClosedShipments.increment();
+            ship(closedWindow);
+        }
+    }
+
+    void closeExpiredWindows() {
+        try {
+            final List<ConsolidationWindow> expiredWindows = new ArrayList<>();
+            synchronized (this) {
+                timingWheel.advance(System.nanoTime(), window -> {
+                    openWindows.remove(window.destination, window);
+                    expiredWindows.add(window);
+                });
+            }
+            for (ConsolidationWindow expiredWindow : expiredWindows) {
+                ship(expiredWindow);
+            }
+        } catch (RuntimeException runtimeException) {
+            log.error("Error encountered while closing shipment consolidation windows, exception:", runtimeException);
+        }
+    }
+
+    /**
+     * Ships every open window now, whatever its size and deadline.
+     */
+    public void closeOpenWindows() {
+        final List<ConsolidationWindow> closedWindows;
+        synchronized (this) {
+            closedWindows = new ArrayList<>(openWindows.values());
+            for (ConsolidationWindow window : closedWindows) {
+                window.timeout.cancel();
+            }
+            openWindows.clear();
+        }
+        for (ConsolidationWindow closedWindow : closedWindows) {
+            ship(closedWindow);
+        }
+    }
+
+    private void ship(final ConsolidationWindow window) {
+        final long now = System.nanoTime();
+        long windowLatencyNanos = 0;
+        for (int i = 0; i < window.payments.size(); i++) {
+            final long paymentLatencyNanos = now - window.arrivalNanos[i];
+            addedLatency.record(paymentLatencyNanos, TimeUnit.NANOSECONDS);
+            windowLatencyNanos += paymentLatencyNanos;
+        }
+        final long oldestLatencyNanos = now - window.arrivalNanos[0];
+        maxAddedLatencyNanos.accumulateAndGet(oldestLatencyNanos, Math::max);
+        addedLatencyNanos.add(windowLatencyNanos);
+        consolidatedPayments.add(window.payments.size());
+        shipments.increment();
+        ordersPerShipment.record(window.payments.size());
+        shipmentListener.accept(new ConsolidatedShipment(window.destination, window.payments, window.traceContexts, window.acknowledgements));
+    }
+
+    private void report() {
+        final long payments = consolidatedPayments.sum();
+        final long shipped = shipments.sum();
+        final long latencyNanos = addedLatencyNanos.sum();
+        final long intervalPayments = payments - reportedPayments;
+        final long intervalShipments = shipped - reportedShipments;
+        final long intervalLatencyNanos = latencyNanos - reportedLatencyNanos;
+        reportedPayments = payments;
+        reportedShipments = shipped;
+        reportedLatencyNanos = latencyNanos;
+        log.info("Consolidated {} payments into {} shipments (ratio {}), average added latency {} ms, max {} ms, {} windows open",
+                intervalPayments, intervalShipments,
+                intervalShipments == 0 ? 0 : String.format("%.2f", (double) intervalPayments / intervalShipments),
+                intervalPayments == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(intervalLatencyNanos / intervalPayments),
+                TimeUnit.NANOSECONDS.toMillis(maxAddedLatencyNanos.getAndSet(0)), getOpenWindowCount());
+    }
+
+    public synchronized int getOpenWindowCount() {
+        return openWindows.size();
+    }
+
+    public long getConsolidatedPaymentCount() {
+        return consolidatedPayments.sum();
+    }
+
+    public long getShipmentCount() {
+        return shipments.sum();
+    }
+
+    public long getSizeClosedShipmentCount() {
+        return sizeClosedShipments.sum();
+    }
+
+    public long getAddedLatencyNanos() {
+        return addedLatencyNanos.sum();
+    }
+
+    @PreDestroy
+    public void stopConsolidation() {
+        consolidationExecutor.shutdownNow();
+    }
+
+    private final class ConsolidationWindow {
+        private final String destination;
+        private final List<Payment> payments = new ArrayList<>();
+        private final List<TraceContext> traceContexts = new ArrayList<>();
+        private final List<Runnable> acknowledgements = new ArrayList<>();
+        private final long[] arrivalNanos = new long[consolidationProperties.getMaxOrdersPerShipment()];
+        private TimingWheel.Timeout<ConsolidationWindow> timeout;
+
+        private ConsolidationWindow(final String destination) {
+            this.destination = destination;
+        }
+
+        private void add(final Payment payment, final TraceContext traceContext, final Runnable acknowledgement, final long now) {
+            arrivalNanos[payments.size()] = now;
+            payments.add(payment);
+            traceContexts.add(traceContext);
+            acknowledgements.add(acknowledgement);
+        }
+    }
+}
@@ -1,33 +1,25 @@
 package com.solace.acme.store.shippingservice.service;
 
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.solace.acme.runtime.ConnectionSettings;
+import com.solace.acme.runtime.PublishRejectedException;
+import com.solace.acme.runtime.ReceivedMessage;
+import com.solace.acme.runtime.SolaceRuntime;
+import com.solace.acme.runtime.TraceContext;
 import com.solace.acme.store.shippingservice.config.SolaceConfigProperties;
 import com.solace.acme.store.shippingservice.config.SolaceConnectionParameters;
 import com.solace.acme.store.shippingservice.models.Payment;
 import com.solace.acme.store.shippingservice.models.Shipping;
-import com.solace.messaging.MessagingService;
-import com.solace.messaging.PubSubPlusClientException;
-import com.solace.messaging.config.SolaceProperties;
-import com.solace.messaging.config.profile.ConfigurationProfile;
-import com.solace.messaging.publisher.OutboundMessage;
-import com.solace.messaging.publisher.OutboundMessageBuilder;
-import com.solace.messaging.publisher.PersistentMessagePublisher;
-import com.solace.messaging.receiver.MessageReceiver;
-import com.solace.messaging.receiver.PersistentMessageReceiver;
-import com.solace.messaging.resources.Queue;
-import com.solace.messaging.resources.Topic;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.text.StringSubstitutor;
 import org.instancio.Instancio;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Properties;
+import java.io.IOException;
+import java.util.List;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
@@ -39,9 +31,11 @@ public class SolaceEventHandler {
 
     @Autowired
     private SolaceConfigProperties configProperties;
-    private PersistentMessagePublisher persistentMessagePublisher;
-    private OutboundMessageBuilder messageBuilder;
-    ObjectMapper objectMapper = new ObjectMapper();
+    @Autowired
+    private SolaceRuntime solaceRuntime;
+    @Autowired
+    private ShipmentConsolidator shipmentConsolidator;
+    private final ScheduledExecutorService shipmentUpdateScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "shipment-updates"));
 
     private enum EventVerb {
         created, updated,
@@ -50,34 +44,13 @@ public class SolaceEventHandler {
 
     public boolean connectAndConfigureConsumers(final SolaceConnectionParameters solaceConnectionParameters) {
         try {
-            final Properties properties = setupPropertiesForConnection(solaceConnectionParameters);
-            final MessagingService messagingService = MessagingService.builder(ConfigurationProfile.V1).fromProperties(properties).build();
-            messagingService.connect();
-            setupConnectivityHandlingInMessagingService(messagingService);
-            messageBuilder = messagingService.messageBuilder();
-            persistentMessagePublisher = messagingService.createPersistentMessagePublisherBuilder().onBackPressureWait(1).build();
-
-            final PersistentMessageReceiver paymentConfirmedEventReceiver = messagingService.createPersistentMessageReceiverBuilder().build(Queue.durableExclusiveQueue(configProperties.getPaymentConfirmedQueueName()));
-            paymentConfirmedEventReceiver.setReceiveFailureListener(failedReceiveEvent -> System.out.println("### FAILED RECEIVE EVENT " + failedReceiveEvent));
-            paymentConfirmedEventReceiver.start();
-            paymentConfirmedEventReceiver.receiveAsync(buildPaymentsConfirmedEventHandler(paymentConfirmedEventReceiver));
-
-            persistentMessagePublisher.start();
-            persistentMessagePublisher.setMessagePublishReceiptListener(publishReceipt -> {
-                final PubSubPlusClientException e = publishReceipt.getException();
-                if (e == null) {
-                    OutboundMessage outboundMessage = publishReceipt.getMessage();
-                    log.info(String.format("ACK for Message %s", outboundMessage));
-                } else {
-                    Object userContext = publishReceipt.getUserContext();
-                    if (userContext != null) {
-                        log.warn(String.format("NACK for Message %s - %s", userContext, e));
-                    } else {
-                        OutboundMessage outboundMessage = publishReceipt.getMessage();  // which message got NACKed?
-                        log.warn(String.format("NACK for Message %s - %s", outboundMessage, e));
-                    }
-                }
-            });
+            solaceRuntime.connect(new ConnectionSettings(solaceConnectionParameters.getHostUrl(), solaceConnectionParameters.getVpnName(),
+                    solaceConnectionParameters.getUserName(), solaceConnectionParameters.getPassword(),
+                    configProperties.getReconnectionAttempts(), configProperties.getConnectionRetriesPerHost()));
+            shipmentConsolidator.setShipmentListener(this::processConsolidatedShipment);
+            // payments waiting in a consolidation window are unacknowledged, shipping them lets the drain complete
+            solaceRuntime.addDrainListener(shipmentConsolidator::closeOpenWindows);
+            solaceRuntime.receive(configProperties.getPaymentConfirmedQueueName(), this::processShipmentForConfirmedPayments);
             log.info("Configuration of Receivers and Producers successful");
             return true;
         } catch (Exception exception) {
@@ -86,100 +59,127 @@ public class SolaceEventHandler {
         }
     }
 
-    private MessageReceiver.MessageHandler buildPaymentsConfirmedEventHandler(final PersistentMessageReceiver paymentConfirmedEventReceiver) {
-        return (inboundMessage -> {
-            try {
-                final String inboundTopic = inboundMessage.getDestinationName();
-                log.info("Processing message on incoming topic :{} with payload:{}", inboundTopic, inboundMessage.getPayloadAsString());
-                boolean eventProcessed = processShipmentForConfirmedPayments(inboundMessage.getPayloadAsString());
-                if (eventProcessed) {
-                    paymentConfirmedEventReceiver.ack(inboundMessage);
-                }
-            } catch (RuntimeException runtimeException) {
-                log.error("Runtime exception encountered while processing incoming event payload :{} on topic:{}. Error is :", inboundMessage.getPayloadAsString(), inboundMessage.getDestinationName(), runtimeException);
-            }
-        });
+    private void processShipmentForConfirmedPayments(final ReceivedMessage inboundMessage, final Runnable acknowledgement) {
+        final Payment paymentConfirmed;
+        try {
+            paymentConfirmed = solaceRuntime.decode(inboundMessage, Payment.class);
+        } catch (IOException ioException) {
+            log.error("Discarding undecodable Payment event:{}, exception:", inboundMessage.getPayloadAsString(), ioException);
+            acknowledgement.run();
+            return;
+        }
+        // the payment is acknowledged once the consolidated shipment holding its order has been published
+        shipmentConsolidator.consolidate(paymentConfirmed, TraceContext.fromMessage(inboundMessage), acknowledgement);
     }
 
-    private boolean processShipmentForConfirmedPayments(final String paymentConfirmedEventJson) {
+    private void processConsolidatedShipment(final ConsolidatedShipment consolidatedShipment) {
+        final List<Shipping> shipmentCreatedEvents;
         try {
-            final Payment paymentConfirmed = objectMapper.readValue(paymentConfirmedEventJson, Payment.class);
+            final List<String> orderIds = consolidatedShipment.payments().stream().map(Payment::getOrderId).toList();
             // this would be place where you implement your 3PL integration
-            log.info("Processed shipping service integration for Order:{}", paymentConfirmed.getId());
-            processShipmentCreatedEvent(paymentConfirmed);
+            shipmentCreatedEvents = createShipmentCreatedEvents(orderIds);
+            log.info("Processed shipping service integration for {} Orders in shipment:{}", orderIds.size(), shipmentCreatedEvents.get(0).getId());
+        } catch (RuntimeException runtimeException) {
+            log.error("Discarding shipment of {} payments that could not be created. Error is :", consolidatedShipment.payments().size(), runtimeException);
+            consolidatedShipment.acknowledgements().forEach(Runnable::run);
+            return;
+        }
+        publishShipmentCreatedEvents(consolidatedShipment, shipmentCreatedEvents, 0);
+    }
+
+    /**
+     * Publishes the created event of every order in the shipment from {@code nextOrder} on, each on the topic of its own
+     * order and continuing the trace of its own payment, then acknowledges the payments. When the publisher rejects an
+     * event the payments stay unacknowledged and the remaining events are published a second later.
+     */
+    private void publishShipmentCreatedEvents(final ConsolidatedShipment consolidatedShipment, final List<Shipping> shipmentCreatedEvents, final int nextOrder) {
+        int order = nextOrder;
+        try {
+            for (; order < shipmentCreatedEvents.size(); order++) {
+                publishShipmentEvent(shipmentCreatedEvents.get(order), EventVerb.created, consolidatedShipment.traceContexts().get(order));
+            }
+        } catch (PublishRejectedException publishRejectedException) {
+            final int rejectedOrder = order;
+            try {
+                shipmentUpdateScheduler.schedule(() -> publishShipmentCreatedEvents(consolidatedShipment, shipmentCreatedEvents, rejectedOrder), 1, TimeUnit.SECONDS);
+            } catch (RejectedExecutionException rejectedExecutionException) {
+                log.warn("Shipment:{} rejected by the publisher while shutting down is left unacknowledged", shipmentCreatedEvents.get(0).getId());
+            }
+            return;
+        } catch (RuntimeException runtimeException) {
+            log.error("Discarding shipment:{} that could not be published. Error is :", shipmentCreatedEvents.get(0).getId(), runtimeException);
+            consolidatedShipment.acknowledgements().forEach(Runnable::run);
+            return;
+        }
+        try {
             // To emulate shipment flows where there is a separate shipment initialization and tracking code generation etc, we will be publishing a shipment updated event with a delay.
-            scheduleShipmentUpdatedEvent(paymentConfirmed);
-            return true;
-        } catch (JsonProcessingException jsonProcessingException) {
-            log.error("Error encountered while processing Payment event:{}, exception:", paymentConfirmedEventJson, jsonProcessingException);
-            return false;
+            for (int i = 0; i < shipmentCreatedEvents.size(); i++) {
+                scheduleShipmentUpdatedEvent(shipmentCreatedEvents.get(i), consolidatedShipment.traceContexts().get(i));
+            }
+        } catch (RejectedExecutionException rejectedExecutionException) {
+            log.warn("Updates of shipment:{} created while shutting down are not published", shipmentCreatedEvents.get(0).getId());
         }
+        consolidatedShipment.acknowledgements().forEach(Runnable::run);
     }
 
-    private void processShipmentCreatedEvent(final Payment paymentConfirmed) {
-        final Shipping shipmentCreatedEvent = createShipmentCreatedEvent(paymentConfirmed);
-        publishShipmentEvent(shipmentCreatedEvent, EventVerb.created);
+    private void scheduleShipmentUpdatedEvent(final Shipping shipmentCreatedEvent, final TraceContext traceContext) {
+        final Shipping shipmentUpdatedEvent = createShipmentUpdatedEvent(shipmentCreatedEvent);
+        shipmentUpdateScheduler.schedule(() -> publishShipmentUpdatedEvent(shipmentUpdatedEvent, traceContext), 15, TimeUnit.SECONDS);
     }
 
-    private void processShipmentUpdatedEvent(final Payment paymentConfirmed) {
-        final Shipping shippingUpdatedEvent = createShipmentUpdatedEvent(paymentConfirmed);
-        publishShipmentEvent(shippingUpdatedEvent, EventVerb.updated);
+    /**
+     * No unacknowledged message brings the update back when the publisher rejects it, so it is retried a second later
+     * instead, until the scheduler has been shut down.
+     */
+    private void publishShipmentUpdatedEvent(final Shipping shipmentUpdatedEvent, final TraceContext traceContext) {
+        try {
+            publishShipmentEvent(shipmentUpdatedEvent, EventVerb.updated, traceContext);
+        } catch (PublishRejectedException publishRejectedException) {
+            try {
+                shipmentUpdateScheduler.schedule(() -> publishShipmentUpdatedEvent(shipmentUpdatedEvent, traceContext), 1, TimeUnit.SECONDS);
+            } catch (RejectedExecutionException rejectedExecutionException) {
+                log.warn("Update of shipment:{} rejected by the publisher while shutting down is lost", shipmentUpdatedEvent.getId());
+            }
+        }
     }
 
-    private void scheduleShipmentUpdatedEvent(final Payment paymentConfirmed) {
-        ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor();
-        executorService.schedule(() -> processShipmentUpdatedEvent(paymentConfirmed), 15, TimeUnit.SECONDS);
-        executorService.shutdown();
+    /**
+     * Runs once the runtime has drained, the shipment updates still due are published now rather than lost.
+     */
+    @PreDestroy
+    public void stopShipmentUpdateScheduler() {
+        for (Runnable shipmentUpdate : shipmentUpdateScheduler.shutdownNow()) {
+            shipmentUpdate.run();
+        }
     }
 
 
-    private Shipping createShipmentCreatedEvent(final Payment paymentConfirmed) {
-        return Instancio.of(Shipping.class)
-                .generate(field(Shipping::getId), gen -> gen.ints().asString())
-                .set(field(Shipping::getOrderId), paymentConfirmed.getOrderId())
-                .create();
+    /**
+     * One created event per order of the shipment, all with the same shipment id and the ids of every order shipped
+     * together.
+     */
+    private List<Shipping> createShipmentCreatedEvents(final List<String> orderIds) {
+        final String shipmentId = Instancio.of(Shipping.class).generate(field(Shipping::getId), gen -> gen.ints().asString()).create().getId();
+        return orderIds.stream()
+                .map(orderId -> Instancio.of(Shipping.class)
+                        .set(field(Shipping::getId), shipmentId)
+                        .set(field(Shipping::getOrderId), orderId)
+                        .set(field(Shipping::getOrderIds), orderIds)
+                        .create())
+                .toList();
     }
 
-    private Shipping createShipmentUpdatedEvent(final Payment paymentConfirmed) {
+    private Shipping createShipmentUpdatedEvent(final Shipping shipmentCreatedEvent) {
         return Instancio.of(Shipping.class)
-                .generate(field(Shipping::getId), gen -> gen.ints().asString())
-                .set(field(Shipping::getOrderId), paymentConfirmed.getOrderId())
+                .set(field(Shipping::getId), shipmentCreatedEvent.getId())
+                .set(field(Shipping::getOrderId), shipmentCreatedEvent.getOrderId())
+                .set(field(Shipping::getOrderIds), shipmentCreatedEvent.getOrderIds())
                 .generate(field(Shipping::getTrackingNumber), gen -> gen.ints())
                 .create();
     }
 
-    public void publishShipmentEvent(final Shipping shipmentEvent, EventVerb verb) {
-        try {
-            String shipmentEventJson = objectMapper.writeValueAsString(shipmentEvent);
-            final OutboundMessage message = messageBuilder.build(shipmentEventJson);
-            final Map<String, Object> params = new HashMap<>();
-            params.put("verb", verb.name());
-            params.put("shipmentId", shipmentEvent.getId());
-            params.put("orderId", shipmentEvent.getOrderId());
-            String topicString = StringSubstitutor.replace(configProperties.getShippingTopicString(), params, "{", "}");
-            persistentMessagePublisher.publish(message, Topic.of(topicString));
-            log.info("Published Shipment event :{} on topic : {}", shipmentEventJson, topicString);
-        } catch (final RuntimeException runtimeException) {
-            log.error("Error encountered while publishing event, exception :", runtimeException);
-        } catch (JsonProcessingException jsonProcessingException) {
-            log.error("Error encountered while converting Shipping to JSON string, exception :", jsonProcessingException);
-        }
-    }
-
-    private static void setupConnectivityHandlingInMessagingService(final MessagingService messagingService) {
-        messagingService.addServiceInterruptionListener(serviceEvent -> System.out.println("### SERVICE INTERRUPTION: " + serviceEvent.getCause()));
-        messagingService.addReconnectionAttemptListener(serviceEvent -> System.out.println("### RECONNECTING ATTEMPT: " + serviceEvent));
-        messagingService.addReconnectionListener(serviceEvent -> System.out.println("### RECONNECTED: " + serviceEvent));
-    }
-
-    private Properties setupPropertiesForConnection(final SolaceConnectionParameters solaceConnectionParameters) {
-        final Properties properties = new Properties();
-        properties.setProperty(SolaceProperties.TransportLayerProperties.HOST, solaceConnectionParameters.getHostUrl());
-        properties.setProperty(SolaceProperties.ServiceProperties.VPN_NAME, solaceConnectionParameters.getVpnName());
-        properties.setProperty(SolaceProperties.AuthenticationProperties.SCHEME_BASIC_USER_NAME, solaceConnectionParameters.getUserName());
-        properties.setProperty(SolaceProperties.AuthenticationProperties.SCHEME_BASIC_PASSWORD, solaceConnectionParameters.getPassword());
-        properties.setProperty(SolaceProperties.TransportLayerProperties.RECONNECTION_ATTEMPTS, configProperties.getReconnectionAttempts());
-        properties.setProperty(SolaceProperties.TransportLayerProperties.CONNECTION_RETRIES_PER_HOST, configProperties.getConnectionRetriesPerHost());
-        return properties;
+    public void publishShipmentEvent(final Shipping shipmentEvent, EventVerb verb, TraceContext traceContext) {
+        solaceRuntime.publish(SolaceRuntime.topic(configProperties.getShippingTopicString(),
+                "verb", verb.name(), "shipmentId", shipmentEvent.getId(), "orderId", shipmentEvent.getOrderId()), shipmentEvent, traceContext);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,85 @@
+package com.solace.acme.store.shippingservice.service;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel. Adding and cancelling a timeout is constant time, advancing the wheel only visits the buckets
+ * of the ticks that have passed. Deadlines are rounded up to the tick duration. Not thread safe, callers synchronize.
+ */
+final class TimingWheel<T> {
+
+    private final long tickNanos;
+    private final long startNanos;
+    private final int mask;
+    private final ArrayDeque<Timeout<T>>[] buckets;
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    TimingWheel(final long tickNanos, final int wheelSize, final long startNanos) {
+        final int bucketCount = wheelSize <= 1 ? 1 : Integer.highestOneBit((wheelSize - 1) << 1);
+        this.tickNanos = tickNanos;
+        this.startNanos = startNanos;
+        this.mask = bucketCount - 1;
+        this.buckets = new ArrayDeque[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+    }
+
+    Timeout<T> schedule(final T item, final long deadlineNanos) {
+        final long deadlineTick = Math.max(currentTick, (deadlineNanos - startNanos + tickNanos - 1) / tickNanos);
+        final Timeout<T> timeout = new Timeout<>(item, deadlineTick);
+        buckets[(int) (deadlineTick & mask)].add(timeout);
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Expires every timeout whose deadline tick has passed by {@code nowNanos}. Timeouts further out than one turn of
+     * the wheel stay in their bucket until the turn in which they are due.
+     */
+    void advance(final long nowNanos, final Consumer<T> expired) {
+        final long targetTick = (nowNanos - startNanos) / tickNanos;
+        if (targetTick < currentTick) {
+            return;
+        }
+        final long lastTick = Math.min(targetTick, currentTick + mask);
+        for (long tick = currentTick; tick <= lastTick; tick++) {
+            final Iterator<Timeout<T>> timeouts = buckets[(int) (tick & mask)].iterator();
+            while (timeouts.hasNext()) {
+                final Timeout<T> timeout = timeouts.next();
+                if (timeout.cancelled) {
+                    timeouts.remove();
+                    size--;
+                } else if (timeout.deadlineTick <= targetTick) {
+                    timeouts.remove();
+                    size--;
+                    expired.accept(timeout.item);
+                }
+            }
+        }
+        currentTick = targetTick + 1;
+    }
+
+    int size() {
+        return size;
+    }
+
+    static final class Timeout<T> {
+        private final T item;
+        private final long deadlineTick;
+        private boolean cancelled;
+
+        private Timeout(final T item, final long deadlineTick) {
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+
+        void cancel() {
+            cancelled = true;
+        }
+    }
+}
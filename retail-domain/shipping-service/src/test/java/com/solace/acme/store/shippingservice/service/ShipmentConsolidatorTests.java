@@ -0,0 +1,122 @@
+package com.solace.acme.store.shippingservice.service;
+
+import com.solace.acme.runtime.TraceContext;
+import com.solace.acme.store.shippingservice.config.ShipmentConsolidationProperties;
+import com.solace.acme.store.shippingservice.models.Payment;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ShipmentConsolidatorTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final BlockingQueue<ConsolidatedShipment> shipments = new LinkedBlockingQueue<>();
+    private ShipmentConsolidator shipmentConsolidator;
+
+    @AfterEach
+    void stopConsolidation() {
+        if (shipmentConsolidator != null) {
+            shipmentConsolidator.stopConsolidation();
+        }
+    }
+
+    @Test
+    void shipsOnceTheWindowHoldsTheMaximumNumberOfOrders() {
+        startConsolidator(Duration.ofHours(1), 3);
+        final AtomicInteger acknowledged = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            shipmentConsolidator.consolidate(payment("order-" + i, address("1 Main Street", "GB")), trace(), acknowledged::incrementAndGet);
+        }
+
+        final ConsolidatedShipment shipment = shipments.poll();
+        assertNotNull(shipment);
+        assertEquals(List.of("order-0", "order-1", "order-2"), shipment.payments().stream().map(Payment::getOrderId).toList());
+        assertEquals(3, shipment.traceContexts().size());
+        shipment.acknowledgements().forEach(Runnable::run);
+        assertEquals(3, acknowledged.get());
+        assertEquals(0, shipmentConsolidator.getOpenWindowCount());
+        assertEquals(1, meterRegistry.summary("shipment.consolidation.orders").count());
+        assertEquals(3, meterRegistry.summary("shipment.consolidation.orders").totalAmount());
+        assertEquals(3, meterRegistry.timer("shipment.consolidation.added.latency").count());
+    }
+
+    @Test
+    void shipsOrdersForOtherAddressesInTheSameCountrySeparately() {
+        startConsolidator(Duration.ofHours(1), 10);
+        shipmentConsolidator.consolidate(payment("order-1", address("1 Main Street", "GB")), trace(), () -> {
+        });
+        shipmentConsolidator.consolidate(payment("order-2", address("2 Main Street", "GB")), trace(), () -> {
+        });
+        assertEquals(2, shipmentConsolidator.getOpenWindowCount());
+
+        shipmentConsolidator.closeOpenWindows();
+
+        assertEquals(1, shipments.poll().payments().size());
+        assertEquals(1, shipments.poll().payments().size());
+        assertNull(shipments.poll());
+    }
+
+    @Test
+    void shipsOnceTheWindowTimeIsUp() throws InterruptedException {
+        startConsolidator(Duration.ofMillis(50), 10);
+        shipmentConsolidator.consolidate(payment("order-1", address("1 Main Street", "GB")), trace(), () -> {
+        });
+
+        final ConsolidatedShipment shipment = shipments.poll(5, TimeUnit.SECONDS);
+
+        assertNotNull(shipment);
+        assertEquals(1, shipment.payments().size());
+        assertEquals(1, meterRegistry.timer("shipment.consolidation.added.latency").count());
+    }
+
+    @Test
+    void destinationIgnoresCaseAndSurroundingBlanks() {
+        assertEquals(ShipmentConsolidator.destinationOf(payment("order-1", address("1 Main Street", "GB"))),
+                ShipmentConsolidator.destinationOf(payment("order-2", address(" 1 MAIN STREET ", "gb"))));
+        assertNotEquals(ShipmentConsolidator.destinationOf(payment("order-1", address("1 Main Street", "GB"))),
+                ShipmentConsolidator.destinationOf(payment("order-2", address("1 Main Street", "IE"))));
+    }
+
+    @Test
+    void shipsPaymentsWithoutAnAddressOnTheirOwn() {
+        assertNotEquals(ShipmentConsolidator.destinationOf(payment("order-1", null)), ShipmentConsolidator.destinationOf(payment("order-2", null)));
+    }
+
+    private void startConsolidator(final Duration window, final int maxOrdersPerShipment) {
+        final ShipmentConsolidationProperties consolidationProperties = new ShipmentConsolidationProperties();
+        consolidationProperties.setWindow(window);
+        consolidationProperties.setMaxOrdersPerShipment(maxOrdersPerShipment);
+        consolidationProperties.setTickDuration(Duration.ofMillis(10));
+        consolidationProperties.setWheelSize(64);
+        consolidationProperties.setReportInterval(Duration.ofHours(1));
+        shipmentConsolidator = new ShipmentConsolidator();
+        shipmentConsolidator.setConsolidationProperties(consolidationProperties);
+        shipmentConsolidator.setMeterRegistry(meterRegistry);
+        shipmentConsolidator.setShipmentListener(shipments::add);
+        shipmentConsolidator.startConsolidation();
+    }
+
+    private static Payment payment(final String orderId, final Payment.DeliveryAddress deliveryAddress) {
+        return Payment.builder().id("payment-" + orderId).orderId(orderId).amount(10).deliveryAddress(deliveryAddress).build();
+    }
+
+    private static Payment.DeliveryAddress address(final String street, final String country) {
+        return Payment.DeliveryAddress.builder().street(street).city("London").postalCode("N1 9GU").country(country).build();
+    }
+
+    private static TraceContext trace() {
+        return TraceContext.originate(System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,84 @@
+package com.solace.acme.store.shippingservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TimingWheelTests {
+
+    private static final long TICK = 10;
+
+    @Test
+    void expiresTimeoutsOnceTheirTickHasPassed() {
+        final TimingWheel<String> timingWheel = new TimingWheel<>(TICK, 8, 0);
+        timingWheel.schedule("first", 20);
+        timingWheel.schedule("second", 40);
+        final List<String> expired = new ArrayList<>();
+
+        timingWheel.advance(19, expired::add);
+        assertEquals(List.of(), expired);
+        timingWheel.advance(20, expired::add);
+        assertEquals(List.of("first"), expired);
+        timingWheel.advance(45, expired::add);
+
+        assertEquals(List.of("first", "second"), expired);
+        assertEquals(0, timingWheel.size());
+    }
+
+    @Test
+    void roundsDeadlinesUpToTheNextTick() {
+        final TimingWheel<String> timingWheel = new TimingWheel<>(TICK, 8, 0);
+        timingWheel.schedule("timeout", 11);
+        final List<String> expired = new ArrayList<>();
+
+        timingWheel.advance(15, expired::add);
+        assertEquals(List.of(), expired);
+        timingWheel.advance(20, expired::add);
+
+        assertEquals(List.of("timeout"), expired);
+    }
+
+    @Test
+    void neverExpiresCancelledTimeouts() {
+        final TimingWheel<String> timingWheel = new TimingWheel<>(TICK, 8, 0);
+        timingWheel.schedule("cancelled", 20).cancel();
+        timingWheel.schedule("kept", 20);
+        final List<String> expired = new ArrayList<>();
+
+        timingWheel.advance(30, expired::add);
+
+        assertEquals(List.of("kept"), expired);
+        assertEquals(0, timingWheel.size());
+    }
+
+    @Test
+    void keepsTimeoutsBeyondOneTurnUntilTheirTurn() {
+        final TimingWheel<String> timingWheel = new TimingWheel<>(TICK, 8, 0);
+        // tick 10 shares its bucket with tick 2 on a wheel of eight buckets
+        timingWheel.schedule("next turn", 100);
+        final List<String> expired = new ArrayList<>();
+
+        timingWheel.advance(50, expired::add);
+        assertEquals(List.of(), expired);
+        assertEquals(1, timingWheel.size());
+        timingWheel.advance(100, expired::add);
+
+        assertEquals(List.of("next turn"), expired);
+    }
+
+    @Test
+    void expiresTimeoutsScheduledInThePastOnTheNextAdvance() {
+        final TimingWheel<String> timingWheel = new TimingWheel<>(TICK, 8, 0);
+        timingWheel.advance(50, expired -> {
+        });
+        timingWheel.schedule("late", 30);
+        final List<String> expired = new ArrayList<>();
+
+        timingWheel.advance(60, expired::add);
+
+        assertEquals(List.of("late"), expired);
+    }
+}
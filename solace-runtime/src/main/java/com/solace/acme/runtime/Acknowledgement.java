@@ -0,0 +1,12 @@
+package com.solace.acme.runtime;
+
+/**
+ * Settles a message delivered to an {@link InboundHandler}. Running it acknowledges the message. A handler that has to
+ * leave the message for the broker to redeliver, e.g. because the event derived from it could not be published, calls
+ * {@link #fail()} instead, so that the message no longer counts as in flight and draining does not wait for it. Only
+ * the first of the two calls is counted.
+ */
+public interface Acknowledgement extends Runnable {
+
+    void fail();
+}
@@ -0,0 +1,5 @@
+package com.solace.acme.runtime;
+
+public record ConnectionSettings(String hostUrl, String vpnName, String userName, String password,
+                                 String reconnectionAttempts, String connectionRetriesPerHost) {
+}
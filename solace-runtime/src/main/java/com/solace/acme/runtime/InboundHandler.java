@@ -0,0 +1,14 @@
+package com.solace.acme.runtime;
+
+/**
+ * Processes one message of a queue. The message is acknowledged when the handler runs the acknowledgement, which it
+ * may do on any thread once the message has been fully processed. Messages that are never acknowledged are
+ * redelivered by the broker; a handler leaving a message unacknowledged without throwing reports it through
+ * {@link Acknowledgement#fail()}. A message that would fail on every redelivery, e.g. one that cannot be decoded, is
+ * acknowledged and logged rather than left unacknowledged.
+ */
+@FunctionalInterface
+public interface InboundHandler {
+
+    void onMessage(ReceivedMessage message, Acknowledgement acknowledgement);
+}
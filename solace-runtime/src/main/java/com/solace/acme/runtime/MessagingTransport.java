@@ -0,0 +1,48 @@
+package com.solace.acme.runtime;
+
+import java.util.Properties;
+import java.util.function.Consumer;
+
+/**
+ * The messaging operations {@link SolaceRuntime} needs from a broker: persistent publish with receipts and exclusive
+ * queue receivers with client acknowledgement.
+ */
+public interface MessagingTransport extends AutoCloseable {
+
+    void connect(ConnectionSettings connectionSettings);
+
+    boolean isConnected();
+
+    void setPublishReceiptListener(PublishReceiptListener publishReceiptListener);
+
+    /**
+     * Publishes without waiting for the broker, the outcome is reported to the publish receipt listener together with
+     * the user context.
+     */
+    void publish(String topic, byte[] payload, Properties properties, Object userContext);
+
+    /**
+     * Total time publishing threads have spent waiting for buffer space, in nanoseconds. Transports that never make a
+     * publisher wait report 0.
+     */
+    default long getPublishBlockedNanos() {
+        return 0;
+    }
+
+    /**
+     * Binds a receiver to the durable exclusive queue, no message is delivered before {@link QueueReceiver#start()}.
+     */
+    QueueReceiver receive(String queueName, Consumer<ReceivedMessage> handler);
+
+    @Override
+    void close();
+
+    /**
+     * Called once per published message with the user context it was published with, and a null failure when the
+     * broker accepted it.
+     */
+    @FunctionalInterface
+    interface PublishReceiptListener {
+        void onReceipt(Object userContext, Throwable failure);
+    }
+}
@@ -0,0 +1,66 @@
+package com.solace.acme.runtime;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Encodes events in the encoding chosen for their topic and decodes them in the encoding their message names, so that
+ * consumers read either format and producers can be switched topic by topic once their consumers run this codec.
+ * <p>
+ * The encoding of a topic is the one of the longest configured topic prefix it starts with, or the default encoding.
+ * Both encodings go through Jackson with the same settings, the models need nothing specific to either.
+ */
+public class PayloadCodec {
+
+    private final ObjectMapper jsonMapper = configure(new ObjectMapper());
+    private final ObjectMapper smileMapper = configure(new ObjectMapper(new SmileFactory()));
+    private final PayloadEncoding defaultEncoding;
+    private final Map<String, PayloadEncoding> topicEncodings;
+
+    public PayloadCodec(final PayloadEncoding defaultEncoding, final Map<String, PayloadEncoding> topicEncodings) {
+        this.defaultEncoding = defaultEncoding;
+        this.topicEncodings = Map.copyOf(topicEncodings);
+    }
+
+    public static PayloadCodec json() {
+        return new PayloadCodec(PayloadEncoding.JSON, Map.of());
+    }
+
+    public PayloadEncoding encodingOf(final String topic) {
+        PayloadEncoding encoding = defaultEncoding;
+        int matchedPrefixLength = -1;
+        for (Map.Entry<String, PayloadEncoding> topicEncoding : topicEncodings.entrySet()) {
+            final String topicPrefix = topicEncoding.getKey();
+            if (topicPrefix.length() > matchedPrefixLength && topic.startsWith(topicPrefix)) {
+                encoding = topicEncoding.getValue();
+                matchedPrefixLength = topicPrefix.length();
+            }
+        }
+        return encoding;
+    }
+
+    public PayloadEncoding getDefaultEncoding() {
+        return defaultEncoding;
+    }
+
+    public byte[] encode(final Object event, final PayloadEncoding encoding) throws JsonProcessingException {
+        return mapper(encoding).writeValueAsBytes(event);
+    }
+
+    public <T> T decode(final byte[] payload, final PayloadEncoding encoding, final Class<T> eventType) throws IOException {
+        return mapper(encoding).readValue(payload, eventType);
+    }
+
+    private ObjectMapper mapper(final PayloadEncoding encoding) {
+        return encoding == PayloadEncoding.SMILE ? smileMapper : jsonMapper;
+    }
+
+    private static ObjectMapper configure(final ObjectMapper objectMapper) {
+        return objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+}
@@ -0,0 +1,36 @@
+package com.solace.acme.runtime;
+
+/**
+ * How an event is encoded in the message payload, named by the content type user property of the message.
+ */
+public enum PayloadEncoding {
+
+    /**
+     * JSON text, what every service has always published. Messages without a content type are JSON.
+     */
+    JSON("application/json"),
+    /**
+     * Smile, Jackson's binary JSON: the same data model and annotations as JSON, with field names written once per
+     * message and back-referenced after, numbers in binary and no quoting.
+     */
+    SMILE("application/x-jackson-smile");
+
+    public static final String CONTENT_TYPE_PROPERTY = "acme_content_type";
+
+    private final String contentType;
+
+    PayloadEncoding(final String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Returns the encoding of the content type, JSON when there is none or it is not known.
+     */
+    public static PayloadEncoding fromContentType(final String contentType) {
+        return SMILE.contentType.equals(contentType) ? SMILE : JSON;
+    }
+}
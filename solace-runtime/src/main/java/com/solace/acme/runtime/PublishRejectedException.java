@@ -0,0 +1,11 @@
+package com.solace.acme.runtime;
+
+/**
+ * Thrown by a transport publishing with {@link PublisherSettings.BackPressureStrategy#REJECT} when its buffer is full.
+ */
+public class PublishRejectedException extends RuntimeException {
+
+    public PublishRejectedException(final String message) {
+        super(message);
+    }
+}
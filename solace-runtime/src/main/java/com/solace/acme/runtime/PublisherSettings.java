@@ -0,0 +1,25 @@
+package com.solace.acme.runtime;
+
+/**
+ * How the publisher of a transport behaves when the broker takes messages slower than the service publishes them.
+ *
+ * @param bufferCapacity messages the publisher buffers before applying the strategy, ignored by {@code ELASTIC}
+ */
+public record PublisherSettings(BackPressureStrategy backPressureStrategy, int bufferCapacity) {
+
+    public enum BackPressureStrategy {
+        /**
+         * The publishing thread waits for buffer space.
+         */
+        WAIT,
+        /**
+         * The publish fails at once with a {@link PublishRejectedException}, the publishing thread never waits.
+         */
+        REJECT,
+        /**
+         * The buffer grows without bound, neither waiting nor failing but holding every message not yet sent in
+         * memory.
+         */
+        ELASTIC,
+    }
+}
@@ -0,0 +1,26 @@
+package com.solace.acme.runtime;
+
+/**
+ * Handle of an exclusive binding to a queue.
+ */
+public interface QueueReceiver {
+
+    /**
+     * Starts delivering messages to the handler the receiver was created with.
+     */
+    void start();
+
+    void ack(ReceivedMessage message);
+
+    /**
+     * Stops delivery of further messages until {@link #resume()}, messages already delivered can still be acknowledged.
+     */
+    void pause();
+
+    void resume();
+
+    /**
+     * Unbinds from the queue. Messages delivered but not acknowledged are redelivered to the next receiver.
+     */
+    void terminate();
+}
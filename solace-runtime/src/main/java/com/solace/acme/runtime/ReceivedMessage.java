@@ -0,0 +1,26 @@
+package com.solace.acme.runtime;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A message delivered from a queue, independent of the transport it arrived on.
+ */
+public interface ReceivedMessage {
+
+    String getDestinationName();
+
+    byte[] getPayloadAsBytes();
+
+    default String getPayloadAsString() {
+        return new String(getPayloadAsBytes(), StandardCharsets.UTF_8);
+    }
+
+    String getProperty(String name);
+
+    /**
+     * Epoch milliseconds at which the message was sent, or null when the sender did not stamp it.
+     */
+    Long getSenderTimestamp();
+
+    boolean isRedelivered();
+}
@@ -0,0 +1,169 @@
+package com.solace.acme.runtime;
+
+import com.solace.acme.runtime.tracing.Tracer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Micrometer meters of a {@link SolaceRuntime}: per queue for its receivers, per topic family for its publisher.
+ * <p>
+ * A topic family is the topic cut after its first {@code topicFamilyLevels} levels, e.g.
+ * {@code acmeretail/onlineservices/order/created} for every order created event whatever its region and order id, so
+ * that the number of publish meters stays bounded by the number of event types rather than growing with the ids in the
+ * topics. Topics beyond {@link #MAX_TOPIC_FAMILIES} distinct families are counted under {@code other}.
+ * <p>
+ * Meters are created once per queue and family and then only looked up, the per message cost is a few counter and
+ * timer updates. Without a meter registry the runtime records into an empty composite registry, whose meters do
+ * nothing.
+ * <ul>
+ *     <li>{@code acme.messaging.received}, {@code acme.messaging.received.bytes}: messages delivered to the handler</li>
+ *     <li>{@code acme.messaging.handler}: time spent in the handler, tagged {@code outcome} processed or failed when
+ *     it threw</li>
+ *     <li>{@code acme.messaging.acknowledged}, {@code acme.messaging.processing}: acknowledgements and the time from
+ *     delivery to acknowledgement, which includes the work handlers complete on other threads</li>
+ *     <li>{@code acme.messaging.in.flight}: messages delivered and neither acknowledged nor failed</li>
+ *     <li>{@code acme.messaging.publish}: time to serialize and hand the event to the transport, tagged
+ *     {@code outcome} published, rejected by the back-pressure strategy or failed, the count is the publish rate</li>
+ *     <li>{@code acme.messaging.published.bytes}: payload bytes published</li>
+ *     <li>{@code acme.messaging.publish.receipt}: time from publish to the broker receipt, tagged {@code outcome}
+ *     acked or nacked</li>
+ *     <li>{@code acme.messaging.publish.pending}: messages handed to the transport and not yet confirmed by the
+ *     broker, the occupancy of the publisher buffer and of the messages in transit</li>
+ *     <li>{@code acme.messaging.publish.blocked}: total time publishing threads have waited for buffer space</li>
+ * </ul>
+ */
+public class RuntimeMetrics {
+
+    static final int MAX_TOPIC_FAMILIES = 256;
+    private static final String OTHER_TOPIC_FAMILY = "other";
+
+    private final MeterRegistry meterRegistry;
+    private final int topicFamilyLevels;
+    private final Map<String, PublishMeters> publishMeters = new ConcurrentHashMap<>();
+
+    public RuntimeMetrics(final MeterRegistry meterRegistry, final int topicFamilyLevels) {
+        this.meterRegistry = meterRegistry;
+        this.topicFamilyLevels = topicFamilyLevels;
+    }
+
+    public static RuntimeMetrics disabled() {
+        return new RuntimeMetrics(new CompositeMeterRegistry(), 0);
+    }
+
+    void bindPublisher(final RuntimeStats stats, final MessagingTransport transport) {
+        Gauge.builder("acme.messaging.publish.pending", stats, RuntimeStats::getPublishPendingCount)
+                .description("Messages handed to the transport and not yet confirmed by the broker").register(meterRegistry);
+        FunctionCounter.builder("acme.messaging.publish.blocked", transport, blockedTransport -> blockedTransport.getPublishBlockedNanos() / 1e9)
+                .baseUnit("seconds").description("Time publishing threads have waited for buffer space").register(meterRegistry);
+    }
+
+    QueueMeters queueMeters(final String queueName) {
+        return new QueueMeters(meterRegistry, queueName);
+    }
+
+    PublishMeters publishMeters(final String topic) {
+        final String topicFamily = topicFamily(topic, topicFamilyLevels);
+        final PublishMeters meters = publishMeters.get(topicFamily);
+        if (meters != null) {
+            return meters;
+        }
+        if (publishMeters.size() >= MAX_TOPIC_FAMILIES) {
+            return publishMeters.computeIfAbsent(OTHER_TOPIC_FAMILY, family -> new PublishMeters(meterRegistry, family));
+        }
+        return publishMeters.computeIfAbsent(topicFamily, family -> new PublishMeters(meterRegistry, family));
+    }
+
+    /**
+     * Returns the topic up to, not including, the separator after its first levels, or the whole topic when it has no
+     * more levels than that.
+     */
+    static String topicFamily(final String topic, final int levels) {
+        int end = -1;
+        for (int level = 0; level < levels; level++) {
+            end = topic.indexOf('/', end + 1);
+            if (end < 0) {
+                return topic;
+            }
+        }
+        return levels <= 0 ? topic : topic.substring(0, end);
+    }
+
+    static final class QueueMeters {
+
+        final Counter received;
+        final Counter receivedBytes;
+        final Timer processed;
+        final Timer failed;
+        final Counter acknowledged;
+        final Timer processing;
+        final AtomicInteger inFlight = new AtomicInteger();
+
+        private QueueMeters(final MeterRegistry meterRegistry, final String queueName) {
+            received = Counter.builder("acme.messaging.received").tag("queue", queueName)
+                    .description("Messages delivered to the handler").register(meterRegistry);
+            receivedBytes = Counter.builder("acme.messaging.received.bytes").tag("queue", queueName).baseUnit("bytes")
+                    .description("Payload bytes delivered to the handler").register(meterRegistry);
+            processed = Timer.builder("acme.messaging.handler").tags("queue", queueName, "outcome", "processed")
+                    .description("Time spent in the message handler").register(meterRegistry);
+            failed = Timer.builder("acme.messaging.handler").tags("queue", queueName, "outcome", "failed")
+                    .description("Time spent in the message handler").register(meterRegistry);
+            acknowledged = Counter.builder("acme.messaging.acknowledged").tag("queue", queueName)
+                    .description("Messages acknowledged to the broker").register(meterRegistry);
+            processing = Timer.builder("acme.messaging.processing").tag("queue", queueName)
+                    .description("Time from delivery to acknowledgement").register(meterRegistry);
+            Gauge.builder("acme.messaging.in.flight", inFlight, AtomicInteger::get).tag("queue", queueName)
+                    .description("Messages delivered and not yet acknowledged").register(meterRegistry);
+        }
+
+        void acknowledged(final long deliveredAtNanos) {
+            acknowledged.increment();
+            processing.record(System.nanoTime() - deliveredAtNanos, TimeUnit.NANOSECONDS);
+            inFlight.decrementAndGet();
+        }
+    }
+
+    static final class PublishMeters {
+
+        final Timer published;
+        final Timer rejected;
+        final Timer failed;
+        final Counter publishedBytes;
+        final Timer receiptAcked;
+        final Timer receiptNacked;
+
+        private PublishMeters(final MeterRegistry meterRegistry, final String topicFamily) {
+            published = Timer.builder("acme.messaging.publish").tags("topic.family", topicFamily, "outcome", "published")
+                    .description("Time to serialize and hand an event to the transport").register(meterRegistry);
+            rejected = Timer.builder("acme.messaging.publish").tags("topic.family", topicFamily, "outcome", "rejected")
+                    .description("Time to serialize and hand an event to the transport").register(meterRegistry);
+            failed = Timer.builder("acme.messaging.publish").tags("topic.family", topicFamily, "outcome", "failed")
+                    .description("Time to serialize and hand an event to the transport").register(meterRegistry);
+            publishedBytes = Counter.builder("acme.messaging.published.bytes").tag("topic.family", topicFamily).baseUnit("bytes")
+                    .description("Payload bytes published").register(meterRegistry);
+            receiptAcked = Timer.builder("acme.messaging.publish.receipt").tags("topic.family", topicFamily, "outcome", "acked")
+                    .description("Time from publish to the broker receipt").register(meterRegistry);
+            receiptNacked = Timer.builder("acme.messaging.publish.receipt").tags("topic.family", topicFamily, "outcome", "nacked")
+                    .description("Time from publish to the broker receipt").register(meterRegistry);
+        }
+    }
+
+    /**
+     * Travels with a published message as the user context of its publish receipt, with the span of the publish when
+     * its trace is sampled.
+     */
+    record PendingPublish(String topic, PublishMeters meters, long publishedAtNanos, Tracer.ActiveSpan publishSpan) {
+
+        void receipt(final boolean acked) {
+            (acked ? meters.receiptAcked : meters.receiptNacked).record(System.nanoTime() - publishedAtNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
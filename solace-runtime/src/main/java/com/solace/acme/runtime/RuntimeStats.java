@@ -0,0 +1,70 @@
+package com.solace.acme.runtime;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters kept by {@link SolaceRuntime} for every service in the same way.
+ */
+public class RuntimeStats {
+
+    final LongAdder published = new LongAdder();
+    final LongAdder publishedBytes = new LongAdder();
+    final LongAdder publishFailures = new LongAdder();
+    final LongAdder publishReceiptsAcked = new LongAdder();
+    final LongAdder publishReceiptsNacked = new LongAdder();
+    final LongAdder received = new LongAdder();
+    final LongAdder receivedBytes = new LongAdder();
+    final LongAdder acknowledged = new LongAdder();
+    final LongAdder handlerFailures = new LongAdder();
+
+    public long getPublishedCount() {
+        return published.sum();
+    }
+
+    public long getPublishedBytes() {
+        return publishedBytes.sum();
+    }
+
+    public long getPublishFailureCount() {
+        return publishFailures.sum();
+    }
+
+    public long getPublishReceiptsAckedCount() {
+        return publishReceiptsAcked.sum();
+    }
+
+    public long getPublishReceiptsNackedCount() {
+        return publishReceiptsNacked.sum();
+    }
+
+    /**
+     * Messages handed to the transport that the broker has not confirmed yet, buffered or sent.
+     */
+    public long getPublishPendingCount() {
+        return Math.max(0, published.sum() - publishReceiptsAcked.sum() - publishReceiptsNacked.sum());
+    }
+
+    public long getReceivedCount() {
+        return received.sum();
+    }
+
+    public long getReceivedBytes() {
+        return receivedBytes.sum();
+    }
+
+    public long getAcknowledgedCount() {
+        return acknowledged.sum();
+    }
+
+    public long getHandlerFailureCount() {
+        return handlerFailures.sum();
+    }
+
+    /**
+     * Messages delivered to a handler that were neither acknowledged nor failed yet, whether the handler threw or
+     * reported the failure through the {@link Acknowledgement}.
+     */
+    public long getInFlightCount() {
+        return Math.max(0, received.sum() - acknowledged.sum() - handlerFailures.sum());
+    }
+}
@@ -0,0 +1,431 @@
+package com.solace.acme.runtime;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.solace.acme.runtime.tracing.Span;
+import com.solace.acme.runtime.tracing.Tracer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.text.StringSubstitutor;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Connection, persistent publisher and queue receivers of one service, set up the same way for every service. Events
+ * are serialized by a {@link PayloadCodec}, as JSON unless another encoding is configured for their topic, and decoded
+ * in the encoding named by their message. Publish receipts and inbound acknowledgements are counted in
+ * {@link RuntimeStats} and measured per queue and topic family in {@link RuntimeMetrics}, and the per message logging
+ * is kept at debug level so it stays off the hot path unless asked for. Sampled traces get a span for processing each message
+ * and for each publish, linked through the trace context in the user properties, see {@link Tracer}. The broker is
+ * reached through a {@link MessagingTransport}, a PubSub+ broker or the in-memory local broker.
+ * <p>
+ * Shutting down drains before disconnecting: delivery stops on every receiver, the messages already delivered are
+ * given time to be processed and acknowledged and the published ones to be confirmed by the broker, so that a restart
+ * neither redelivers work that was nearly done nor loses events still in the publisher buffer.
+ */
+@Slf4j
+public class SolaceRuntime implements AutoCloseable {
+
+    public static final Duration DEFAULT_DRAIN_TIMEOUT = Duration.ofSeconds(10);
+    private static final long DRAIN_POLL_MILLIS = 10;
+
+    private final RuntimeStats stats = new RuntimeStats();
+    private final MessagingTransport transport;
+    private final RuntimeMetrics metrics;
+    private final PayloadCodec payloadCodec;
+    private final Tracer tracer;
+    private final Duration drainTimeout;
+    private final List<DrainableReceiver> receivers = new CopyOnWriteArrayList<>();
+    private final List<Runnable> drainListeners = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    public SolaceRuntime(final MessagingTransport transport) {
+        this(transport, RuntimeMetrics.disabled());
+    }
+
+    public SolaceRuntime(final MessagingTransport transport, final RuntimeMetrics metrics) {
+        this(transport, metrics, DEFAULT_DRAIN_TIMEOUT);
+    }
+
+    public SolaceRuntime(final MessagingTransport transport, final RuntimeMetrics metrics, final Duration drainTimeout) {
+        this(transport, metrics, PayloadCodec.json(), drainTimeout);
+    }
+
+    public SolaceRuntime(final MessagingTransport transport, final RuntimeMetrics metrics, final PayloadCodec payloadCodec, final Duration drainTimeout) {
+        this(transport, metrics, payloadCodec, Tracer.disabled(), drainTimeout);
+    }
+
+    public SolaceRuntime(final MessagingTransport transport, final RuntimeMetrics metrics, final PayloadCodec payloadCodec, final Tracer tracer,
+                         final Duration drainTimeout) {
+        this.transport = transport;
+        this.metrics = metrics;
+        this.payloadCodec = payloadCodec;
+        this.tracer = tracer;
+        this.drainTimeout = drainTimeout;
+        metrics.bindPublisher(stats, transport);
+        transport.setPublishReceiptListener((userContext, failure) -> {
+            final RuntimeMetrics.PendingPublish pendingPublish = (RuntimeMetrics.PendingPublish) userContext;
+            pendingPublish.receipt(failure == null);
+            if (pendingPublish.publishSpan() != null) {
+                pendingPublish.publishSpan().end(failure == null ? Span.Status.OK : Span.Status.ERROR);
+            }
+            if (failure == null) {
+                stats.publishReceiptsAcked.increment();
+            } else {
+                stats.publishReceiptsNacked.increment();
+                log.warn("NACK for Message on topic {} - {}", pendingPublish.topic(), failure.toString());
+            }
+        });
+    }
+
+    /**
+     * Connects to the broker and starts the publisher. Blocks until connected.
+     */
+    public void connect(final ConnectionSettings connectionSettings) {
+        transport.connect(connectionSettings);
+    }
+
+    public boolean isConnected() {
+        return transport.isConnected();
+    }
+
+    /**
+     * Starts receiving from the durable exclusive queue. Exceptions thrown by the handler are logged and the message
+     * is left unacknowledged, as are the messages the handler fails through their {@link Acknowledgement}. Once the
+     * runtime drains the receiver stays paused, resuming it has no effect.
+     * <p>
+     * A message of a sampled trace is processed in a span, and handed to the handler carrying that span as its trace
+     * context, so that the events the handler publishes from it are children of the span.
+     */
+    public QueueReceiver receive(final String queueName, final InboundHandler handler) {
+        final QueueReceiver[] receiver = new QueueReceiver[1];
+        final RuntimeMetrics.QueueMeters queueMeters = metrics.queueMeters(queueName);
+        // the receiver is started only once assigned, so the acknowledgement below always finds it
+        receiver[0] = transport.receive(queueName, message -> {
+            final long deliveredAt = System.nanoTime();
+            final int payloadLength = message.getPayloadAsBytes().length;
+            stats.received.increment();
+            stats.receivedBytes.add(payloadLength);
+            queueMeters.received.increment();
+            queueMeters.receivedBytes.increment(payloadLength);
+            queueMeters.inFlight.incrementAndGet();
+            final Tracer.ActiveSpan processSpan = startProcessSpan(queueName, message);
+            final Delivery delivery = new Delivery(receiver[0], message, queueMeters, deliveredAt, processSpan);
+            try {
+                if (log.isDebugEnabled()) {
+                    log.debug("Processing message on incoming topic :{} with payload:{}", message.getDestinationName(), message.getPayloadAsString());
+                }
+                handler.onMessage(processSpan == null ? message : new TracedMessage(message, processSpan.getSpanId()), delivery);
+                queueMeters.processed.record(System.nanoTime() - deliveredAt, TimeUnit.NANOSECONDS);
+            } catch (PublishRejectedException publishRejectedException) {
+                // already counted as a rejected publish, the message stays unacknowledged for the broker to redeliver
+                delivery.fail();
+                log.debug("Left message on topic:{} unacknowledged, {}", message.getDestinationName(), publishRejectedException.getMessage());
+            } catch (RuntimeException runtimeException) {
+                delivery.fail();
+                log.error("Runtime exception encountered while processing incoming event payload :{} on topic:{}. Error is :",
+                        message.getPayloadAsString(), message.getDestinationName(), runtimeException);
+            }
+        });
+        final DrainableReceiver drainableReceiver = new DrainableReceiver(receiver[0]);
+        receivers.add(drainableReceiver);
+        receiver[0].start();
+        log.info("Receiving from queue:{}", queueName);
+        return drainableReceiver;
+    }
+
+
+    private Tracer.ActiveSpan startProcessSpan(final String queueName, final ReceivedMessage message) {
+        if (!tracer.isEnabled()) {
+            return null;
+        }
+        final String traceId = message.getProperty(TraceContext.CORRELATION_ID);
+        return tracer.isSampled(traceId) ? tracer.start(Span.Kind.PROCESS, queueName, traceId, message.getProperty(TraceContext.SPAN_ID)) : null;
+    }
+
+    /**
+     * Decodes the payload in the encoding named by the content type property of the message, JSON when it has none.
+     */
+    public <T> T decode(final ReceivedMessage message, final Class<T> eventType) throws IOException {
+        return payloadCodec.decode(message.getPayloadAsBytes(),
+                PayloadEncoding.fromContentType(message.getProperty(PayloadEncoding.CONTENT_TYPE_PROPERTY)), eventType);
+    }
+
+    /**
+     * Publishes the event on the topic and returns the size of its payload in bytes, or -1 when it could not be
+     * published. A trace context, when given, is derived for this publish and carried in the user properties, as is
+     * the content type of payloads that are not JSON. A publish of a sampled trace is a span that ends with the broker
+     * receipt, and the span the consumers of the event link theirs to.
+     *
+     * @throws PublishRejectedException when the publisher sheds the event under the {@code REJECT} back-pressure
+     *                                  strategy. A handler lets it propagate, so that the message the event was derived
+     *                                  from stays unacknowledged and is redelivered instead of lost.
+     */
+    public int publish(final String topic, final Object event, final TraceContext traceContext) {
+        final RuntimeMetrics.PublishMeters publishMeters = metrics.publishMeters(topic);
+        final long publishStart = System.nanoTime();
+        Tracer.ActiveSpan publishSpan = null;
+        try {
+            final PayloadEncoding encoding = payloadCodec.encodingOf(topic);
+            final byte[] payload = payloadCodec.encode(event, encoding);
+            Properties properties = null;
+            if (traceContext != null && tracer.isSampled(traceContext.correlationId())) {
+                publishSpan = tracer.start(Span.Kind.PUBLISH, topic, traceContext.correlationId(), traceContext.spanId());
+                properties = traceContext.derive(publishSpan.getSpanId()).toMessageProperties();
+            } else if (traceContext != null) {
+                properties = traceContext.derive().toMessageProperties();
+            }
+            if (encoding != PayloadEncoding.JSON) {
+                properties = properties == null ? new Properties() : properties;
+                properties.setProperty(PayloadEncoding.CONTENT_TYPE_PROPERTY, encoding.getContentType());
+            }
+            transport.publish(topic, payload, properties, new RuntimeMetrics.PendingPublish(topic, publishMeters, publishStart, publishSpan));
+            stats.published.increment();
+            stats.publishedBytes.add(payload.length);
+            publishMeters.published.record(System.nanoTime() - publishStart, TimeUnit.NANOSECONDS);
+            publishMeters.publishedBytes.increment(payload.length);
+            log.debug("Published {} on topic : {}", event.getClass().getSimpleName(), topic);
+            return payload.length;
+        } catch (final PublishRejectedException publishRejectedException) {
+            // the service chose to shed load rather than wait for the broker, counted but not logged per message
+            stats.publishFailures.increment();
+            publishMeters.rejected.record(System.nanoTime() - publishStart, TimeUnit.NANOSECONDS);
+            log.debug("Publish on topic :{} rejected, {}", topic, publishRejectedException.getMessage());
+            endFailedPublish(publishSpan);
+            throw publishRejectedException;
+        } catch (final RuntimeException runtimeException) {
+            stats.publishFailures.increment();
+            log.error("Error encountered while publishing event on topic :{}, exception :", topic, runtimeException);
+        } catch (JsonProcessingException jsonProcessingException) {
+            stats.publishFailures.increment();
+            log.error("Error encountered while encoding {}, exception :", event.getClass().getSimpleName(), jsonProcessingException);
+        }
+        publishMeters.failed.record(System.nanoTime() - publishStart, TimeUnit.NANOSECONDS);
+        endFailedPublish(publishSpan);
+        return -1;
+    }
+
+    private static void endFailedPublish(final Tracer.ActiveSpan publishSpan) {
+        if (publishSpan != null) {
+            publishSpan.end(Span.Status.ERROR);
+        }
+    }
+
+    public int publish(final String topic, final Object event) {
+        return publish(topic, event, null);
+    }
+
+    /**
+     * Size of the event payload in the default encoding.
+     */
+    public int serializedSize(final Object event) {
+        try {
+            return payloadCodec.encode(event, payloadCodec.getDefaultEncoding()).length;
+        } catch (JsonProcessingException jsonProcessingException) {
+            return 0;
+        }
+    }
+
+    /**
+     * Resolves the {@code {name}} placeholders of the topic template from alternating names and values.
+     */
+    public static String topic(final String topicTemplate, final Object... namesAndValues) {
+        final Map<String, Object> params = new HashMap<>();
+        for (int i = 0; i + 1 < namesAndValues.length; i += 2) {
+            params.put(String.valueOf(namesAndValues[i]), namesAndValues[i + 1]);
+        }
+        return StringSubstitutor.replace(topicTemplate, params, "{", "}");
+    }
+
+    public RuntimeStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Runs the listener once delivery has stopped for the drain, to hand on the messages a service holds back, e.g.
+     * for batching, rather than leaving them unacknowledged until the drain times out.
+     */
+    public void addDrainListener(final Runnable drainListener) {
+        drainListeners.add(drainListener);
+    }
+
+    /**
+     * Stops delivery on every receiver and waits, up to the drain timeout, for the delivered messages to be
+     * acknowledged or failed and for the publishes to be confirmed by the broker. Returns whether everything settled
+     * in time. Delivery is not restarted, only {@link #close()} is expected to follow.
+     */
+    public boolean drain() {
+        if (!draining.getAndSet(true)) {
+            receivers.forEach(DrainableReceiver::pause);
+            log.info("Draining, stopped delivery on {} receivers", receivers.size());
+            for (Runnable drainListener : drainListeners) {
+                try {
+                    drainListener.run();
+                } catch (RuntimeException runtimeException) {
+                    log.error("Runtime exception encountered in drain listener, exception :", runtimeException);
+                }
+            }
+        }
+        final long deadline = System.nanoTime() + drainTimeout.toNanos();
+        while (stats.getInFlightCount() > 0 || stats.getPublishPendingCount() > 0) {
+            if (System.nanoTime() - deadline >= 0) {
+                log.warn("Drain timed out after {} ms with {} messages in flight and {} publishes not confirmed",
+                        drainTimeout.toMillis(), stats.getInFlightCount(), stats.getPublishPendingCount());
+                return false;
+            }
+            try {
+                Thread.sleep(DRAIN_POLL_MILLIS);
+            } catch (InterruptedException interruptedException) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Drains, unless already drained with nothing left, then terminates the receivers, which flushes their
+     * acknowledgements, and disconnects.
+     */
+    @Override
+    public void close() {
+        if (!draining.get() || stats.getInFlightCount() > 0 || stats.getPublishPendingCount() > 0) {
+            drain();
+        }
+        receivers.forEach(DrainableReceiver::terminate);
+        transport.close();
+        tracer.close();
+        log.info("Closed after receiving {} and publishing {} messages", stats.getReceivedCount(), stats.getPublishedCount());
+    }
+
+    /**
+     * The message as handed to the handler while its processing is traced, naming the processing span as the one the
+     * events derived from it are published by.
+     */
+    private record TracedMessage(ReceivedMessage message, String processSpanId) implements ReceivedMessage {
+
+        @Override
+        public String getDestinationName() {
+            return message.getDestinationName();
+        }
+
+        @Override
+        public byte[] getPayloadAsBytes() {
+            return message.getPayloadAsBytes();
+        }
+
+        @Override
+        public String getPayloadAsString() {
+            return message.getPayloadAsString();
+        }
+
+        @Override
+        public String getProperty(final String name) {
+            return TraceContext.SPAN_ID.equals(name) ? processSpanId : message.getProperty(name);
+        }
+
+        @Override
+        public Long getSenderTimestamp() {
+            return message.getSenderTimestamp();
+        }
+
+        @Override
+        public boolean isRedelivered() {
+            return message.isRedelivered();
+        }
+    }
+
+    /**
+     * Settlement of one delivered message. The message is acknowledged to the broker whenever it is run, but only the
+     * first settlement is counted, so a message is either acknowledged or failed in the stats and the meters.
+     */
+    private final class Delivery implements Acknowledgement {
+
+        private final QueueReceiver receiver;
+        private final ReceivedMessage message;
+        private final RuntimeMetrics.QueueMeters queueMeters;
+        private final long deliveredAt;
+        private final Tracer.ActiveSpan processSpan;
+        private final AtomicBoolean settled = new AtomicBoolean();
+
+        private Delivery(final QueueReceiver receiver, final ReceivedMessage message, final RuntimeMetrics.QueueMeters queueMeters,
+                         final long deliveredAt, final Tracer.ActiveSpan processSpan) {
+            this.receiver = receiver;
+            this.message = message;
+            this.queueMeters = queueMeters;
+            this.deliveredAt = deliveredAt;
+            this.processSpan = processSpan;
+        }
+
+        @Override
+        public void run() {
+            receiver.ack(message);
+            if (settled.compareAndSet(false, true)) {
+                stats.acknowledged.increment();
+                queueMeters.acknowledged(deliveredAt);
+                if (processSpan != null) {
+                    processSpan.end(Span.Status.OK);
+                }
+            }
+        }
+
+        @Override
+        public void fail() {
+            if (settled.compareAndSet(false, true)) {
+                queueMeters.failed.record(System.nanoTime() - deliveredAt, TimeUnit.NANOSECONDS);
+                queueMeters.inFlight.decrementAndGet();
+                stats.handlerFailures.increment();
+                if (processSpan != null) {
+                    processSpan.end(Span.Status.ERROR);
+                }
+            }
+        }
+    }
+
+    /**
+     * Receiver handed to the service, which may pause and resume it for flow control, except that a draining runtime
+     * keeps it paused.
+     */
+    private final class DrainableReceiver implements QueueReceiver {
+
+        private final QueueReceiver receiver;
+
+        private DrainableReceiver(final QueueReceiver receiver) {
+            this.receiver = receiver;
+        }
+
+        @Override
+        public void start() {
+            receiver.start();
+        }
+
+        @Override
+        public void ack(final ReceivedMessage message) {
+            receiver.ack(message);
+        }
+
+        @Override
+        public synchronized void pause() {
+            receiver.pause();
+        }
+
+        @Override
+        public synchronized void resume() {
+            if (!draining.get()) {
+                receiver.resume();
+            }
+        }
+
+        @Override
+        public void terminate() {
+            receivers.remove(this);
+            receiver.terminate();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.solace.acme.runtime;
+
+import com.solace.acme.runtime.local.LocalBroker;
+import com.solace.acme.runtime.local.LocalTransport;
+import com.solace.acme.runtime.solace.SolaceTransport;
+import com.solace.acme.runtime.tracing.FileSpanExporter;
+import com.solace.acme.runtime.tracing.InMemorySpanExporter;
+import com.solace.acme.runtime.tracing.SpanExporter;
+import com.solace.acme.runtime.tracing.Tracer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+import java.nio.file.Paths;
+
+@AutoConfiguration
+@EnableConfigurationProperties(SolaceRuntimeProperties.class)
+public class SolaceRuntimeAutoConfiguration {
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean
+    public SolaceRuntime solaceRuntime(final SolaceRuntimeProperties runtimeProperties, final ObjectProvider<MeterRegistry> meterRegistry,
+                                       final ObjectProvider<SpanExporter> spanExporter, final Environment environment) {
+        return new SolaceRuntime(messagingTransport(runtimeProperties), runtimeMetrics(runtimeProperties.getMetrics(), meterRegistry.getIfUnique()),
+                new PayloadCodec(runtimeProperties.getPayload().getEncoding(), runtimeProperties.getPayload().getTopicEncodings()),
+                tracer(runtimeProperties.getTracing(), spanExporter.getIfUnique(), serviceName(environment)), runtimeProperties.getDrainTimeout());
+    }
+
+    /**
+     * Closed by the runtime once its last publish receipt is in, rather than by the context.
+     */
+    @Bean(destroyMethod = "")
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "solace-runtime.tracing", name = "enabled", havingValue = "true")
+    public SpanExporter spanExporter(final SolaceRuntimeProperties runtimeProperties, final Environment environment) {
+        final SolaceRuntimeProperties.Tracing tracingProperties = runtimeProperties.getTracing();
+        if (tracingProperties.getExporter() == SolaceRuntimeProperties.Tracing.Exporter.MEMORY) {
+            return new InMemorySpanExporter(tracingProperties.getBufferCapacity());
+        }
+        return new FileSpanExporter(Paths.get(tracingProperties.getDirectory(), serviceName(environment) + "-spans.jsonl"),
+                tracingProperties.getBufferCapacity());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public SolaceRuntimeLifecycle solaceRuntimeLifecycle(final SolaceRuntime solaceRuntime) {
+        return new SolaceRuntimeLifecycle(solaceRuntime);
+    }
+
+    private static RuntimeMetrics runtimeMetrics(final SolaceRuntimeProperties.Metrics metricsProperties, final MeterRegistry meterRegistry) {
+        if (!metricsProperties.isEnabled() || meterRegistry == null) {
+            return RuntimeMetrics.disabled();
+        }
+        return new RuntimeMetrics(meterRegistry, metricsProperties.getTopicFamilyLevels());
+    }
+
+    private static Tracer tracer(final SolaceRuntimeProperties.Tracing tracingProperties, final SpanExporter spanExporter, final String serviceName) {
+        if (!tracingProperties.isEnabled() || spanExporter == null) {
+            return Tracer.disabled();
+        }
+        return new Tracer(serviceName, tracingProperties.getSampleRatio(), spanExporter);
+    }
+
+    private static String serviceName(final Environment environment) {
+        return environment.getProperty("spring.application.name", "application");
+    }
+
+    private static MessagingTransport messagingTransport(final SolaceRuntimeProperties runtimeProperties) {
+        if (runtimeProperties.getTransport() == SolaceRuntimeProperties.Transport.SOLACE) {
+            return new SolaceTransport(new PublisherSettings(runtimeProperties.getPublisher().getBackPressure(),
+                    runtimeProperties.getPublisher().getBufferCapacity()));
+        }
+        final LocalBroker localBroker = LocalBroker.getInstance();
+        localBroker.configure(runtimeProperties.getLocal().getMaxQueueDepth(), runtimeProperties.getLocal().getMaxUnacknowledged());
+        runtimeProperties.getLocal().getQueues().forEach(localBroker::provisionQueue);
+        return new LocalTransport(localBroker);
+    }
+}
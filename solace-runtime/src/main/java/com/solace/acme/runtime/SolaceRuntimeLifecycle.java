@@ -0,0 +1,37 @@
+package com.solace.acme.runtime;
+
+import org.springframework.context.SmartLifecycle;
+
+/**
+ * Drains the {@link SolaceRuntime} when the application context closes, before any bean is destroyed, so that the
+ * handlers still have their executors and collaborators while they finish the messages already delivered. The
+ * runtime is closed later, as a bean, once the beans publishing through it are gone.
+ */
+public class SolaceRuntimeLifecycle implements SmartLifecycle {
+
+    private final SolaceRuntime solaceRuntime;
+    private volatile boolean running;
+
+    public SolaceRuntimeLifecycle(final SolaceRuntime solaceRuntime) {
+        this.solaceRuntime = solaceRuntime;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        try {
+            solaceRuntime.drain();
+        } finally {
+            running = false;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
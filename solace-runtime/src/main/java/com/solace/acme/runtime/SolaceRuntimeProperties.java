@@ -0,0 +1,114 @@
+package com.solace.acme.runtime;
+
+import com.solace.acme.runtime.local.LocalBroker;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "solace-runtime")
+@Getter
+@Setter
+public class SolaceRuntimeProperties {
+
+    public enum Transport {
+        SOLACE, LOCAL,
+    }
+
+    /**
+     * SOLACE connects to a PubSub+ broker, LOCAL to the in-memory broker shared by the services of this JVM.
+     */
+    private Transport transport = Transport.SOLACE;
+    /**
+     * How long shutdown waits for delivered messages to be acknowledged and published ones to be confirmed, before
+     * disconnecting anyway. Messages left unacknowledged are redelivered to the next instance.
+     */
+    private Duration drainTimeout = SolaceRuntime.DEFAULT_DRAIN_TIMEOUT;
+    private Publisher publisher = new Publisher();
+    private Payload payload = new Payload();
+    private Local local = new Local();
+    private Metrics metrics = new Metrics();
+    private Tracing tracing = new Tracing();
+
+    @Getter
+    @Setter
+    public static class Publisher {
+        /**
+         * What a publish does once the buffer is full: WAIT blocks the publishing thread, REJECT fails the publish,
+         * ELASTIC grows the buffer. Only applies to the SOLACE transport, the local broker never makes a publisher wait.
+         */
+        private PublisherSettings.BackPressureStrategy backPressure = PublisherSettings.BackPressureStrategy.WAIT;
+        private int bufferCapacity = 256;
+    }
+
+    @Getter
+    @Setter
+    public static class Payload {
+        /**
+         * Encoding of the events published on topics without an encoding of their own. Consumers decode any encoding,
+         * switch a producer only once the services consuming its topics run a runtime that does.
+         */
+        private PayloadEncoding encoding = PayloadEncoding.JSON;
+        /**
+         * Encodings by topic prefix, the longest matching prefix applies, e.g.
+         * {@code "[acmebank/solace/core]": SMILE}.
+         */
+        private Map<String, PayloadEncoding> topicEncodings = new LinkedHashMap<>();
+    }
+
+    @Getter
+    @Setter
+    public static class Local {
+        private int maxQueueDepth = LocalBroker.DEFAULT_MAX_QUEUE_DEPTH;
+        private int maxUnacknowledged = LocalBroker.DEFAULT_MAX_UNACKNOWLEDGED;
+        /**
+         * Topic subscriptions of the queues, by queue name. On a PubSub+ broker these are configured on the broker.
+         */
+        private Map<String, List<String>> queues = new LinkedHashMap<>();
+    }
+
+    @Getter
+    @Setter
+    public static class Metrics {
+        /**
+         * Registers the receiver and publisher meters with the meter registry of the service, when it has one.
+         */
+        private boolean enabled = true;
+        /**
+         * Leading topic levels that name a topic family, the publish meters are kept per family.
+         */
+        private int topicFamilyLevels = 4;
+    }
+
+    @Getter
+    @Setter
+    public static class Tracing {
+
+        public enum Exporter {
+            FILE, MEMORY,
+        }
+
+        /**
+         * Records spans for the sampled traces and propagates span ids in the user properties.
+         */
+        private boolean enabled = false;
+        /**
+         * Share of the traces recorded, decided from the correlation id so that every service keeps the same ones.
+         */
+        private double sampleRatio = 0.01;
+        /**
+         * FILE appends the spans as JSON lines to {@code <directory>/<spring.application.name>-spans.jsonl}, MEMORY
+         * keeps the latest ones in an InMemorySpanExporter bean. A SpanExporter bean of the service replaces either.
+         */
+        private Exporter exporter = Exporter.FILE;
+        private String directory = "traces";
+        /**
+         * Spans buffered by the exporter, queued for the file writer or kept in memory.
+         */
+        private int bufferCapacity = 65536;
+    }
+}
@@ -0,0 +1,75 @@
+package com.solace.acme.runtime;
+
+import java.util.Properties;
+import java.util.UUID;
+
+/**
+ * Correlation id and timestamps carried in the user properties of every event derived from one basket or banking
+ * transaction. Each publish stamps its own time and the time of the event it was derived from, so the latency of every
+ * stage of the pipeline can be read off a single message. Timestamps are epoch milliseconds of the publishing host.
+ * <p>
+ * The correlation id is also the trace id of the spans recorded for the events, and the span id, when the trace is
+ * sampled, is the span that published the message, the parent of the span that processes it.
+ */
+public record TraceContext(String correlationId, long originTimestamp, long upstreamTimestamp, long publishedTimestamp, String spanId) {
+
+    public static final String CORRELATION_ID = "acme_correlation_id";
+    public static final String ORIGIN_TIMESTAMP = "acme_origin_ts";
+    public static final String UPSTREAM_TIMESTAMP = "acme_upstream_ts";
+    public static final String PUBLISHED_TIMESTAMP = "acme_published_ts";
+    public static final String SPAN_ID = "acme_span_id";
+
+    public static TraceContext originate(final long originTimestamp) {
+        return new TraceContext(UUID.randomUUID().toString(), originTimestamp, originTimestamp, originTimestamp, null);
+    }
+
+    /**
+     * Returns the trace carried by the message, or null for messages published without one.
+     */
+    public static TraceContext fromMessage(final ReceivedMessage message) {
+        final String correlationId = message.getProperty(CORRELATION_ID);
+        if (correlationId == null) {
+            return null;
+        }
+        final long publishedTimestamp = parseTimestamp(message.getProperty(PUBLISHED_TIMESTAMP));
+        return new TraceContext(correlationId, parseTimestamp(message.getProperty(ORIGIN_TIMESTAMP)),
+                parseTimestamp(message.getProperty(UPSTREAM_TIMESTAMP)), publishedTimestamp, message.getProperty(SPAN_ID));
+    }
+
+    /**
+     * The trace of an event derived from the one this trace belongs to, published now.
+     */
+    public TraceContext derive() {
+        return derive(spanId);
+    }
+
+    /**
+     * The trace of an event derived from the one this trace belongs to, published now by the span.
+     */
+    public TraceContext derive(final String publishSpanId) {
+        return new TraceContext(correlationId, originTimestamp, publishedTimestamp, System.currentTimeMillis(), publishSpanId);
+    }
+
+    public Properties toMessageProperties() {
+        final Properties properties = new Properties();
+        properties.setProperty(CORRELATION_ID, correlationId);
+        properties.setProperty(ORIGIN_TIMESTAMP, Long.toString(originTimestamp));
+        properties.setProperty(UPSTREAM_TIMESTAMP, Long.toString(upstreamTimestamp));
+        properties.setProperty(PUBLISHED_TIMESTAMP, Long.toString(publishedTimestamp));
+        if (spanId != null) {
+            properties.setProperty(SPAN_ID, spanId);
+        }
+        return properties;
+    }
+
+    private static long parseTimestamp(final String timestamp) {
+        if (timestamp == null) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(timestamp);
+        } catch (NumberFormatException numberFormatException) {
+            return 0L;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.solace.acme.runtime.local;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory stand-in for the broker, for running services without a PubSub+ broker and for load tests where the
+ * broker should not be the bottleneck. It keeps the guarantees the services rely on: a publish is only accepted once
+ * it has been spooled to every queue whose subscriptions match its topic, messages stay on a queue until acknowledged,
+ * and unacknowledged messages are redelivered when their receiver goes away. Nothing survives the JVM.
+ * <p>
+ * Subscriptions change rarely, so they are kept in an immutable {@link SubscriptionTree} that is rebuilt on every
+ * change and read without locking on the publish path.
+ */
+@Slf4j
+public final class LocalBroker {
+
+    public static final int DEFAULT_MAX_QUEUE_DEPTH = 1_000_000;
+    public static final int DEFAULT_MAX_UNACKNOWLEDGED = 10_000;
+
+    private static volatile LocalBroker sharedInstance;
+
+    private final Map<String, LocalQueue> queues = new ConcurrentHashMap<>();
+    private final Map<String, Set<LocalQueue>> subscriptions = new LinkedHashMap<>();
+    private volatile int maxQueueDepth;
+    private volatile int maxUnacknowledged;
+    private volatile SubscriptionTree<LocalQueue> subscriptionTree = SubscriptionTree.of(Map.of());
+
+    public LocalBroker(final int maxQueueDepth, final int maxUnacknowledged) {
+        this.maxQueueDepth = maxQueueDepth;
+        this.maxUnacknowledged = maxUnacknowledged;
+    }
+
+    /**
+     * The broker shared by every service started in this JVM.
+     */
+    public static LocalBroker getInstance() {
+        if (sharedInstance == null) {
+            synchronized (LocalBroker.class) {
+                if (sharedInstance == null) {
+                    sharedInstance = new LocalBroker(DEFAULT_MAX_QUEUE_DEPTH, DEFAULT_MAX_UNACKNOWLEDGED);
+                }
+            }
+        }
+        return sharedInstance;
+    }
+
+    /**
+     * Sets the limits of the queues created from now on.
+     */
+    public void configure(final int maxQueueDepth, final int maxUnacknowledged) {
+        this.maxQueueDepth = maxQueueDepth;
+        this.maxUnacknowledged = maxUnacknowledged;
+    }
+
+    /**
+     * Creates the queue if it does not exist yet and adds the topic subscriptions to it.
+     */
+    public synchronized void provisionQueue(final String queueName, final Collection<String> topicSubscriptions) {
+        final LocalQueue queue = queue(queueName);
+        for (String topicSubscription : topicSubscriptions) {
+            if (!SubscriptionTree.isValidSubscription(topicSubscription)) {
+                throw new IllegalArgumentException("Invalid topic subscription " + topicSubscription + " for queue " + queueName);
+            }
+            subscriptions.computeIfAbsent(topicSubscription, subscription -> new LinkedHashSet<>()).add(queue);
+        }
+        subscriptionTree = SubscriptionTree.of(subscriptions);
+        log.info("Provisioned local queue:{} with subscriptions:{}", queueName, topicSubscriptions);
+    }
+
+    public synchronized void removeSubscription(final String queueName, final String topicSubscription) {
+        final Set<LocalQueue> subscribers = subscriptions.get(topicSubscription);
+        if (subscribers != null && subscribers.remove(queues.get(queueName)) && subscribers.isEmpty()) {
+            subscriptions.remove(topicSubscription);
+        }
+        subscriptionTree = SubscriptionTree.of(subscriptions);
+    }
+
+    /**
+     * Spools the message to every queue subscribed to the topic. Returns the number of queues it was spooled to, or
+     * -1 when it was refused because one of them is full, in which case it was spooled to none.
+     */
+    public int publish(final String topic, final byte[] payload, final Properties properties) {
+        final List<LocalQueue> matchingQueues = subscriptionTree.match(topic);
+        for (int i = 0; i < matchingQueues.size(); i++) {
+            if (!matchingQueues.get(i).reserve()) {
+                for (int j = 0; j < i; j++) {
+                    matchingQueues.get(j).release();
+                }
+                return -1;
+            }
+        }
+        final LocalMessage message = new LocalMessage(topic, payload, properties, System.currentTimeMillis());
+        for (int i = 0; i < matchingQueues.size(); i++) {
+            matchingQueues.get(i).enqueue(i == 0 ? message : message.copy(false));
+        }
+        return matchingQueues.size();
+    }
+
+    LocalQueue queue(final String queueName) {
+        return queues.computeIfAbsent(queueName, name -> new LocalQueue(name, maxQueueDepth, maxUnacknowledged));
+    }
+
+    public int getQueueDepth(final String queueName) {
+        final LocalQueue queue = queues.get(queueName);
+        return queue == null ? 0 : queue.getDepth();
+    }
+
+    public List<String> getQueueNames() {
+        return new ArrayList<>(queues.keySet());
+    }
+}
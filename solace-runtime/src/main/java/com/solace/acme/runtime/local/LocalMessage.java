@@ -0,0 +1,78 @@
+package com.solace.acme.runtime.local;
+
+import com.solace.acme.runtime.ReceivedMessage;
+
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * One delivery of a published message to one queue. The payload and properties are shared by the deliveries of the
+ * same publish to every matching queue and are never modified.
+ */
+final class LocalMessage implements ReceivedMessage {
+
+    private static final AtomicIntegerFieldUpdater<LocalMessage> SETTLED = AtomicIntegerFieldUpdater.newUpdater(LocalMessage.class, "settled");
+
+    private final String topic;
+    private final byte[] payload;
+    private final Properties properties;
+    private final long senderTimestamp;
+    private final boolean redelivered;
+    private volatile int settled;
+
+    LocalMessage(final String topic, final byte[] payload, final Properties properties, final long senderTimestamp) {
+        this(topic, payload, properties, senderTimestamp, false);
+    }
+
+    private LocalMessage(final String topic, final byte[] payload, final Properties properties, final long senderTimestamp, final boolean redelivered) {
+        this.topic = topic;
+        this.payload = payload;
+        this.properties = properties;
+        this.senderTimestamp = senderTimestamp;
+        this.redelivered = redelivered;
+    }
+
+    /**
+     * A new delivery of the same message, for another queue or for the next receiver of the same queue.
+     */
+    LocalMessage copy(final boolean redelivery) {
+        return new LocalMessage(topic, payload, properties, senderTimestamp, redelivery);
+    }
+
+    @Override
+    public String getDestinationName() {
+        return topic;
+    }
+
+    @Override
+    public byte[] getPayloadAsBytes() {
+        return payload;
+    }
+
+    @Override
+    public String getProperty(final String name) {
+        return properties == null ? null : properties.getProperty(name);
+    }
+
+    @Override
+    public Long getSenderTimestamp() {
+        return senderTimestamp;
+    }
+
+    @Override
+    public boolean isRedelivered() {
+        return redelivered;
+    }
+
+    /**
+     * Settles this delivery, either by an acknowledgement or by handing it back to the queue. Only the first caller
+     * wins, so a late acknowledgement of a delivery that was already requeued is ignored.
+     */
+    boolean settle() {
+        return SETTLED.compareAndSet(this, 0, 1);
+    }
+
+    boolean isSettled() {
+        return settled != 0;
+    }
+}
@@ -0,0 +1,202 @@
+package com.solace.acme.runtime.local;
+
+import com.solace.acme.runtime.QueueReceiver;
+import com.solace.acme.runtime.ReceivedMessage;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Durable exclusive queue of the {@link LocalBroker}. Messages are spooled until acknowledged: the depth counts both
+ * the messages waiting and the ones delivered but not yet acknowledged, and publishes are refused once it reaches the
+ * maximum. At most one receiver is bound at a time and gets the messages in order on its own dispatcher thread, which
+ * stops handing out messages while the receiver holds the maximum number of unacknowledged ones.
+ */
+@Slf4j
+final class LocalQueue {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final String name;
+    private final int maxDepth;
+    private final int maxUnacknowledged;
+    private final Queue<LocalMessage> spooled = new ConcurrentLinkedQueue<>();
+    // messages handed back by a terminated receiver, delivered before anything spooled after them
+    private final Queue<LocalMessage> redeliveries = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicReference<Receiver> boundReceiver = new AtomicReference<>();
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder redelivered = new LongAdder();
+
+    LocalQueue(final String name, final int maxDepth, final int maxUnacknowledged) {
+        this.name = name;
+        this.maxDepth = maxDepth;
+        this.maxUnacknowledged = maxUnacknowledged;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    int getDepth() {
+        return depth.get();
+    }
+
+    long getEnqueuedCount() {
+        return enqueued.sum();
+    }
+
+    long getRedeliveredCount() {
+        return redelivered.sum();
+    }
+
+    /**
+     * Reserves room for one message, the reservation is used by {@link #enqueue} or given back by {@link #release}.
+     */
+    boolean reserve() {
+        if (depth.incrementAndGet() > maxDepth) {
+            depth.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    void release() {
+        depth.decrementAndGet();
+    }
+
+    void enqueue(final LocalMessage message) {
+        spooled.offer(message);
+        enqueued.increment();
+        final Receiver receiver = boundReceiver.get();
+        if (receiver != null) {
+            receiver.wakeUp();
+        }
+    }
+
+    QueueReceiver bind(final Consumer<ReceivedMessage> handler) {
+        final Receiver receiver = new Receiver(handler);
+        if (!boundReceiver.compareAndSet(null, receiver)) {
+            throw new IllegalStateException("Queue " + name + " already has a receiver bound");
+        }
+        return receiver;
+    }
+
+    private final class Receiver implements QueueReceiver, Runnable {
+
+        private final Consumer<ReceivedMessage> handler;
+        private final Thread dispatcher;
+        private final Queue<LocalMessage> unacknowledged = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger unacknowledgedCount = new AtomicInteger();
+        private volatile boolean paused;
+        private volatile boolean terminated;
+        private volatile boolean parked;
+
+        private Receiver(final Consumer<ReceivedMessage> handler) {
+            this.handler = handler;
+            this.dispatcher = new Thread(this, "local-broker-" + name);
+            this.dispatcher.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (!terminated) {
+                trimAcknowledged();
+                final LocalMessage message = paused || unacknowledgedCount.get() >= maxUnacknowledged ? null : next();
+                if (message == null) {
+                    parked = true;
+                    if (!terminated && (paused || unacknowledgedCount.get() >= maxUnacknowledged || spooled.isEmpty() && redeliveries.isEmpty())) {
+                        LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    }
+                    parked = false;
+                    continue;
+                }
+                unacknowledgedCount.incrementAndGet();
+                unacknowledged.offer(message);
+                try {
+                    handler.accept(message);
+                } catch (RuntimeException runtimeException) {
+                    log.error("Receiver of queue:{} failed to process message on topic:{}", name, message.getDestinationName(), runtimeException);
+                }
+            }
+        }
+
+        @Override
+        public void start() {
+            dispatcher.start();
+        }
+
+        @Override
+        public void ack(final ReceivedMessage message) {
+            final LocalMessage localMessage = (LocalMessage) message;
+            if (terminated || !localMessage.settle()) {
+                return;
+            }
+            depth.decrementAndGet();
+            if (unacknowledgedCount.getAndDecrement() == maxUnacknowledged) {
+                wakeUp();
+            }
+        }
+
+        @Override
+        public void pause() {
+            paused = true;
+        }
+
+        @Override
+        public void resume() {
+            paused = false;
+            wakeUp();
+        }
+
+        @Override
+        public void terminate() {
+            if (terminated) {
+                return;
+            }
+            terminated = true;
+            LockSupport.unpark(dispatcher);
+            if (Thread.currentThread() != dispatcher) {
+                try {
+                    dispatcher.join(TimeUnit.SECONDS.toMillis(1));
+                } catch (InterruptedException interruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            // hand everything not acknowledged back to the queue, ahead of the messages not delivered yet
+            LocalMessage message;
+            while ((message = unacknowledged.poll()) != null) {
+                if (message.settle()) {
+                    redeliveries.offer(message.copy(true));
+                    redelivered.increment();
+                }
+            }
+            boundReceiver.compareAndSet(this, null);
+        }
+
+        private LocalMessage next() {
+            final LocalMessage redelivery = redeliveries.poll();
+            return redelivery != null ? redelivery : spooled.poll();
+        }
+
+        private void wakeUp() {
+            if (parked) {
+                LockSupport.unpark(dispatcher);
+            }
+        }
+
+        private void trimAcknowledged() {
+            LocalMessage head;
+            while ((head = unacknowledged.peek()) != null && head.isSettled()) {
+                unacknowledged.poll();
+            }
+        }
+    }
+}
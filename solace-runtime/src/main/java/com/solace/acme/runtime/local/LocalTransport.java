@@ -0,0 +1,74 @@
+package com.solace.acme.runtime.local;
+
+import com.solace.acme.runtime.ConnectionSettings;
+import com.solace.acme.runtime.MessagingTransport;
+import com.solace.acme.runtime.QueueReceiver;
+import com.solace.acme.runtime.ReceivedMessage;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * {@link MessagingTransport} on a {@link LocalBroker} of the same JVM. Publish receipts are delivered on the publishing
+ * thread, as soon as the broker has spooled or refused the message.
+ */
+@Slf4j
+public class LocalTransport implements MessagingTransport {
+
+    private final LocalBroker broker;
+    private final List<QueueReceiver> receivers = new CopyOnWriteArrayList<>();
+    private volatile PublishReceiptListener publishReceiptListener = (userContext, failure) -> {
+    };
+    private volatile boolean connected;
+
+    public LocalTransport(final LocalBroker broker) {
+        this.broker = broker;
+    }
+
+    @Override
+    public void connect(final ConnectionSettings connectionSettings) {
+        connected = true;
+        log.info("Connected to the local broker, ignoring broker url:{}", connectionSettings.hostUrl());
+    }
+
+    @Override
+    public boolean isConnected() {
+        return connected;
+    }
+
+    @Override
+    public void setPublishReceiptListener(final PublishReceiptListener publishReceiptListener) {
+        this.publishReceiptListener = publishReceiptListener;
+    }
+
+    @Override
+    public void publish(final String topic, final byte[] payload, final Properties properties, final Object userContext) {
+        if (!connected) {
+            throw new IllegalStateException("Not connected to the local broker");
+        }
+        if (broker.publish(topic, payload, properties) < 0) {
+            publishReceiptListener.onReceipt(userContext, new IllegalStateException("Queue spool quota exceeded"));
+        } else {
+            publishReceiptListener.onReceipt(userContext, null);
+        }
+    }
+
+    @Override
+    public QueueReceiver receive(final String queueName, final Consumer<ReceivedMessage> handler) {
+        final QueueReceiver receiver = broker.queue(queueName).bind(handler);
+        receivers.add(receiver);
+        return receiver;
+    }
+
+    @Override
+    public void close() {
+        for (QueueReceiver receiver : receivers) {
+            receiver.terminate();
+        }
+        receivers.clear();
+        connected = false;
+    }
+}
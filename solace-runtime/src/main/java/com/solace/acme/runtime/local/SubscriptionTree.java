@@ -0,0 +1,131 @@
+package com.solace.acme.runtime.local;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable trie of topic subscriptions with the Solace wildcard rules: a level of {@code *} matches any one level, a
+ * level ending in {@code *} matches any level starting with the given prefix, and a last level of {@code >} matches
+ * one or more remaining levels. Matching walks the topic once, level by level, without splitting it.
+ */
+final class SubscriptionTree<T> {
+
+    private final Node<T> root;
+
+    private SubscriptionTree(final Node<T> root) {
+        this.root = root;
+    }
+
+    static <T> SubscriptionTree<T> of(final Map<String, ? extends Iterable<T>> subscribersBySubscription) {
+        final Node<T> root = new Node<>();
+        subscribersBySubscription.forEach((subscription, subscribers) -> {
+            final Node<T> node = root.insert(subscription, 0);
+            for (T subscriber : subscribers) {
+                if (!node.subscribers.contains(subscriber)) {
+                    node.subscribers.add(subscriber);
+                }
+            }
+        });
+        return new SubscriptionTree<>(root);
+    }
+
+    /**
+     * Returns every subscriber with at least one subscription matching the topic, each of them once.
+     */
+    List<T> match(final String topic) {
+        final List<T> matches = new ArrayList<>(4);
+        root.match(topic, 0, matches);
+        return matches;
+    }
+
+    static boolean isValidSubscription(final String subscription) {
+        if (subscription == null || subscription.isEmpty()) {
+            return false;
+        }
+        int levelStart = 0;
+        while (true) {
+            final int levelEnd = levelEnd(subscription, levelStart);
+            final String level = subscription.substring(levelStart, levelEnd);
+            if (level.isEmpty() || level.indexOf('*') >= 0 && level.indexOf('*') != level.length() - 1
+                    || level.equals(">") && levelEnd != subscription.length()) {
+                return false;
+            }
+            if (levelEnd == subscription.length()) {
+                return true;
+            }
+            levelStart = levelEnd + 1;
+        }
+    }
+
+    private static int levelEnd(final String topic, final int levelStart) {
+        final int separator = topic.indexOf('/', levelStart);
+        return separator < 0 ? topic.length() : separator;
+    }
+
+    private static <T> void addAll(final List<T> matches, final List<T> subscribers) {
+        for (int i = 0; i < subscribers.size(); i++) {
+            final T subscriber = subscribers.get(i);
+            if (!matches.contains(subscriber)) {
+                matches.add(subscriber);
+            }
+        }
+    }
+
+    private static final class Node<T> {
+        private final Map<String, Node<T>> literals = new HashMap<>();
+        private final Map<String, Node<T>> prefixes = new HashMap<>();
+        private final List<T> subscribers = new ArrayList<>(1);
+        private Node<T> anyLevel;
+        private Node<T> remainingLevels;
+
+        private Node<T> insert(final String subscription, final int levelStart) {
+            final int levelEnd = levelEnd(subscription, levelStart);
+            final String level = subscription.substring(levelStart, levelEnd);
+            final Node<T> child;
+            if (level.equals(">") && levelEnd == subscription.length()) {
+                child = remainingLevels == null ? remainingLevels = new Node<>() : remainingLevels;
+            } else if (level.equals("*")) {
+                child = anyLevel == null ? anyLevel = new Node<>() : anyLevel;
+            } else if (level.endsWith("*")) {
+                child = prefixes.computeIfAbsent(level.substring(0, level.length() - 1), prefix -> new Node<>());
+            } else {
+                child = literals.computeIfAbsent(level, literal -> new Node<>());
+            }
+            return levelEnd == subscription.length() ? child : child.insert(subscription, levelEnd + 1);
+        }
+
+        private void match(final String topic, final int levelStart, final List<T> matches) {
+            final int levelEnd = levelEnd(topic, levelStart);
+            final boolean lastLevel = levelEnd == topic.length();
+            if (remainingLevels != null) {
+                addAll(matches, remainingLevels.subscribers);
+            }
+            if (!literals.isEmpty()) {
+                final Node<T> literal = literals.get(topic.substring(levelStart, levelEnd));
+                if (literal != null) {
+                    literal.matchNext(topic, levelEnd, lastLevel, matches);
+                }
+            }
+            if (anyLevel != null) {
+                anyLevel.matchNext(topic, levelEnd, lastLevel, matches);
+            }
+            if (!prefixes.isEmpty()) {
+                for (Map.Entry<String, Node<T>> prefix : prefixes.entrySet()) {
+                    if (topic.startsWith(prefix.getKey(), levelStart) && prefix.getKey().length() <= levelEnd - levelStart) {
+                        prefix.getValue().matchNext(topic, levelEnd, lastLevel, matches);
+                    }
+                }
+            }
+        }
+
+        private void matchNext(final String topic, final int levelEnd, final boolean lastLevel, final List<T> matches) {
+            if (lastLevel) {
+                addAll(matches, subscribers);
+            } else {
+                match(topic, levelEnd + 1, matches);
+            }
+        }
+    }
+}
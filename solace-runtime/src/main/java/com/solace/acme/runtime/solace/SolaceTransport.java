@@ -0,0 +1,209 @@
+package com.solace.acme.runtime.solace;
+
+import com.solace.acme.runtime.ConnectionSettings;
+import com.solace.acme.runtime.MessagingTransport;
+import com.solace.acme.runtime.PublishRejectedException;
+import com.solace.acme.runtime.PublisherSettings;
+import com.solace.acme.runtime.QueueReceiver;
+import com.solace.acme.runtime.ReceivedMessage;
+import com.solace.messaging.MessagingService;
+import com.solace.messaging.PersistentMessagePublisherBuilder;
+import com.solace.messaging.PubSubPlusClientException;
+import com.solace.messaging.config.SolaceProperties;
+import com.solace.messaging.config.profile.ConfigurationProfile;
+import com.solace.messaging.publisher.OutboundMessage;
+import com.solace.messaging.publisher.OutboundMessageBuilder;
+import com.solace.messaging.publisher.PersistentMessagePublisher;
+import com.solace.messaging.receiver.InboundMessage;
+import com.solace.messaging.receiver.PersistentMessageReceiver;
+import com.solace.messaging.resources.Queue;
+import com.solace.messaging.resources.Topic;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * {@link MessagingTransport} on a PubSub+ broker through the Solace Java API.
+ * <p>
+ * The publisher buffers messages until the API has sent them and applies the back-pressure strategy of its
+ * {@link PublisherSettings} once the buffer is full. A publish that finds the publisher not ready is counted as
+ * blocked for as long as it takes; with {@code REJECT} it is refused instead, so the publishing thread never waits.
+ */
+@Slf4j
+public class SolaceTransport implements MessagingTransport {
+
+    private final PublisherSettings publisherSettings;
+    private final List<PersistentMessageReceiver> receivers = new CopyOnWriteArrayList<>();
+    private final LongAdder publishBlockedNanos = new LongAdder();
+    private volatile PublishReceiptListener publishReceiptListener = (userContext, failure) -> {
+    };
+    private volatile MessagingService messagingService;
+    private volatile PersistentMessagePublisher publisher;
+    private volatile OutboundMessageBuilder messageBuilder;
+
+    public SolaceTransport(final PublisherSettings publisherSettings) {
+        this.publisherSettings = publisherSettings;
+    }
+
+    @Override
+    public void connect(final ConnectionSettings connectionSettings) {
+        messagingService = MessagingService.builder(ConfigurationProfile.V1).fromProperties(connectionProperties(connectionSettings)).build();
+        messagingService.connect();
+        messagingService.addServiceInterruptionListener(serviceEvent -> log.warn("Service interruption: {}", serviceEvent.getCause()));
+        messagingService.addReconnectionAttemptListener(serviceEvent -> log.warn("Reconnecting: {}", serviceEvent));
+        messagingService.addReconnectionListener(serviceEvent -> log.info("Reconnected: {}", serviceEvent));
+        messageBuilder = messagingService.messageBuilder();
+        publisher = publisherBuilder(messagingService.createPersistentMessagePublisherBuilder(), publisherSettings).build();
+        publisher.start();
+        publisher.setMessagePublishReceiptListener(publishReceipt ->
+                publishReceiptListener.onReceipt(publishReceipt.getUserContext(), publishReceipt.getException()));
+    }
+
+    @Override
+    public boolean isConnected() {
+        return messagingService != null && messagingService.isConnected();
+    }
+
+    @Override
+    public void setPublishReceiptListener(final PublishReceiptListener publishReceiptListener) {
+        this.publishReceiptListener = publishReceiptListener;
+    }
+
+    @Override
+    public void publish(final String topic, final byte[] payload, final Properties properties, final Object userContext) {
+        final OutboundMessage message = properties == null ? messageBuilder.build(payload) : messageBuilder.build(payload, properties);
+        if (publisher.isReady()) {
+            try {
+                publisher.publish(message, Topic.of(topic), userContext);
+            } catch (PubSubPlusClientException.PublisherOverflowException publisherOverflowException) {
+                // another thread filled the buffer between the readiness check and this publish
+                throw bufferFull();
+            }
+            return;
+        }
+        if (publisherSettings.backPressureStrategy() == PublisherSettings.BackPressureStrategy.REJECT) {
+            throw bufferFull();
+        }
+        final long blockedSince = System.nanoTime();
+        try {
+            publisher.publish(message, Topic.of(topic), userContext);
+        } finally {
+            publishBlockedNanos.add(System.nanoTime() - blockedSince);
+        }
+    }
+
+    private PublishRejectedException bufferFull() {
+        return new PublishRejectedException("Publisher buffer of " + publisherSettings.bufferCapacity() + " messages is full");
+    }
+
+    @Override
+    public long getPublishBlockedNanos() {
+        return publishBlockedNanos.sum();
+    }
+
+    @Override
+    public QueueReceiver receive(final String queueName, final Consumer<ReceivedMessage> handler) {
+        final PersistentMessageReceiver receiver = messagingService.createPersistentMessageReceiverBuilder().build(Queue.durableExclusiveQueue(queueName));
+        receiver.setReceiveFailureListener(failedReceiveEvent -> log.error("Failed to receive from queue:{}, {}", queueName, failedReceiveEvent));
+        receivers.add(receiver);
+        return new QueueReceiver() {
+            @Override
+            public void start() {
+                receiver.start();
+                receiver.receiveAsync(inboundMessage -> handler.accept(new SolaceReceivedMessage(inboundMessage)));
+            }
+
+            @Override
+            public void ack(final ReceivedMessage message) {
+                receiver.ack(((SolaceReceivedMessage) message).inboundMessage);
+            }
+
+            @Override
+            public void pause() {
+                receiver.pause();
+            }
+
+            @Override
+            public void resume() {
+                receiver.resume();
+            }
+
+            @Override
+            public void terminate() {
+                receivers.remove(receiver);
+                receiver.terminate(1000);
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        for (PersistentMessageReceiver receiver : receivers) {
+            receiver.terminate(1000);
+        }
+        receivers.clear();
+        if (publisher != null) {
+            publisher.terminate(1000);
+        }
+        if (messagingService != null) {
+            messagingService.disconnect();
+        }
+    }
+
+    private static PersistentMessagePublisherBuilder publisherBuilder(final PersistentMessagePublisherBuilder builder, final PublisherSettings publisherSettings) {
+        return switch (publisherSettings.backPressureStrategy()) {
+            case WAIT -> builder.onBackPressureWait(publisherSettings.bufferCapacity());
+            case REJECT -> builder.onBackPressureReject(publisherSettings.bufferCapacity());
+            case ELASTIC -> builder.onBackPressureElastic();
+        };
+    }
+
+    private static Properties connectionProperties(final ConnectionSettings connectionSettings) {
+        final Properties properties = new Properties();
+        properties.setProperty(SolaceProperties.TransportLayerProperties.HOST, connectionSettings.hostUrl());
+        properties.setProperty(SolaceProperties.ServiceProperties.VPN_NAME, connectionSettings.vpnName());
+        properties.setProperty(SolaceProperties.AuthenticationProperties.SCHEME_BASIC_USER_NAME, connectionSettings.userName());
+        properties.setProperty(SolaceProperties.AuthenticationProperties.SCHEME_BASIC_PASSWORD, connectionSettings.password());
+        properties.setProperty(SolaceProperties.TransportLayerProperties.RECONNECTION_ATTEMPTS, connectionSettings.reconnectionAttempts());
+        properties.setProperty(SolaceProperties.TransportLayerProperties.CONNECTION_RETRIES_PER_HOST, connectionSettings.connectionRetriesPerHost());
+        properties.setProperty(SolaceProperties.ServiceProperties.GENERATE_SEND_TIMESTAMPS, "true");
+        return properties;
+    }
+
+    private record SolaceReceivedMessage(InboundMessage inboundMessage) implements ReceivedMessage {
+
+        @Override
+        public String getDestinationName() {
+            return inboundMessage.getDestinationName();
+        }
+
+        @Override
+        public byte[] getPayloadAsBytes() {
+            return inboundMessage.getPayloadAsBytes();
+        }
+
+        @Override
+        public String getPayloadAsString() {
+            return inboundMessage.getPayloadAsString();
+        }
+
+        @Override
+        public String getProperty(final String name) {
+            return inboundMessage.getProperty(name);
+        }
+
+        @Override
+        public Long getSenderTimestamp() {
+            return inboundMessage.getSenderTimestamp();
+        }
+
+        @Override
+        public boolean isRedelivered() {
+            return inboundMessage.isRedelivered();
+        }
+    }
+}
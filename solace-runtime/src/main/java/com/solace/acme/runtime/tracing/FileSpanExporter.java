@@ -0,0 +1,122 @@
+package com.solace.acme.runtime.tracing;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Appends spans to a file, one JSON object per line, from a single writer thread. Exporting only enqueues; when the
+ * writer falls behind and the queue is full the span is dropped and counted rather than slowing the messaging threads.
+ */
+@Slf4j
+public class FileSpanExporter implements SpanExporter {
+
+    private static final int WRITE_BATCH_SIZE = 1024;
+
+    private final Path file;
+    private final BlockingQueue<Span> pendingSpans;
+    private final ExecutorService writerExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "span-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final LongAdder droppedSpans = new LongAdder();
+    private volatile boolean running = true;
+
+    public FileSpanExporter(final Path file, final int queueCapacity) {
+        this.file = file;
+        this.pendingSpans = new ArrayBlockingQueue<>(queueCapacity);
+        writerExecutor.execute(this::writeSpans);
+    }
+
+    @Override
+    public void export(final Span span) {
+        if (!pendingSpans.offer(span)) {
+            droppedSpans.increment();
+        }
+    }
+
+    public long getDroppedSpanCount() {
+        return droppedSpans.sum();
+    }
+
+    private void writeSpans() {
+        final List<Span> drained = new ArrayList<>(WRITE_BATCH_SIZE);
+        final StringBuilder line = new StringBuilder(256);
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                while (running || !pendingSpans.isEmpty()) {
+                    final Span span = pendingSpans.poll(100, TimeUnit.MILLISECONDS);
+                    if (span == null) {
+                        continue;
+                    }
+                    drained.add(span);
+                    pendingSpans.drainTo(drained, WRITE_BATCH_SIZE - 1);
+                    for (Span drainedSpan : drained) {
+                        line.setLength(0);
+                        writer.append(appendJson(line, drainedSpan).append('\n'));
+                    }
+                    drained.clear();
+                    writer.flush();
+                }
+            }
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+        } catch (IOException ioException) {
+            log.error("Error encountered while writing spans to {}, spans are no longer exported. Exception:", file, ioException);
+        }
+    }
+
+    static StringBuilder appendJson(final StringBuilder json, final Span span) {
+        json.append("{\"traceId\":\"").append(span.traceId())
+                .append("\",\"spanId\":\"").append(span.spanId()).append('"');
+        if (span.parentSpanId() != null) {
+            json.append(",\"parentSpanId\":\"").append(span.parentSpanId()).append('"');
+        }
+        json.append(",\"kind\":\"").append(span.kind())
+                .append("\",\"name\":\"").append(span.name())
+                .append("\",\"service\":\"").append(span.serviceName())
+                .append("\",\"startEpochMicros\":").append(span.startEpochMicros())
+                .append(",\"durationNanos\":").append(span.durationNanos())
+                .append(",\"status\":\"").append(span.status()).append("\"}");
+        return json;
+    }
+
+    /**
+     * Writes the spans still queued and closes the file.
+     */
+    @Override
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        writerExecutor.shutdown();
+        try {
+            if (!writerExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                log.warn("Span writer did not finish in time, {} spans not written", pendingSpans.size());
+            }
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+        }
+        if (droppedSpans.sum() > 0) {
+            log.warn("Dropped {} spans while the span writer was behind", droppedSpans.sum());
+        }
+    }
+}
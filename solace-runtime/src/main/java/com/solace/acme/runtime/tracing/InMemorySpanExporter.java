@@ -0,0 +1,43 @@
+package com.solace.acme.runtime.tracing;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the latest spans in memory, for tests and for load test runs that read the traces back in the same JVM. Once
+ * full the oldest span makes room for the newest.
+ */
+public class InMemorySpanExporter implements SpanExporter {
+
+    private final int capacity;
+    private final ArrayDeque<Span> spans;
+
+    public InMemorySpanExporter(final int capacity) {
+        this.capacity = capacity;
+        this.spans = new ArrayDeque<>(capacity);
+    }
+
+    @Override
+    public synchronized void export(final Span span) {
+        if (spans.size() == capacity) {
+            spans.pollFirst();
+        }
+        spans.addLast(span);
+    }
+
+    public synchronized List<Span> getSpans() {
+        return new ArrayList<>(spans);
+    }
+
+    /**
+     * Returns the spans of the trace, in the order they ended.
+     */
+    public synchronized List<Span> getSpans(final String traceId) {
+        return spans.stream().filter(span -> span.traceId().equals(traceId)).toList();
+    }
+
+    public synchronized void clear() {
+        spans.clear();
+    }
+}
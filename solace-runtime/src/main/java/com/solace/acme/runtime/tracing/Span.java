@@ -0,0 +1,25 @@
+package com.solace.acme.runtime.tracing;
+
+/**
+ * A finished span, as handed to the {@link SpanExporter}. The trace id is the correlation id of the basket or banking
+ * transaction the event belongs to, the name is the queue a message was processed from or the topic it was published
+ * on.
+ */
+public record Span(String traceId, String spanId, String parentSpanId, Kind kind, String name, String serviceName,
+                   long startEpochMicros, long durationNanos, Status status) {
+
+    public enum Kind {
+        /**
+         * From the delivery of a message to its acknowledgement, or the failure of its handler.
+         */
+        PROCESS,
+        /**
+         * From handing an event to the publisher to the broker receipt.
+         */
+        PUBLISH,
+    }
+
+    public enum Status {
+        OK, ERROR,
+    }
+}
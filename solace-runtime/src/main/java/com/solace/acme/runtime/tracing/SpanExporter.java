@@ -0,0 +1,18 @@
+package com.solace.acme.runtime.tracing;
+
+/**
+ * Receives every finished span of the sampled traces. Called on the messaging threads, so an exporter hands the span
+ * on and returns, any I/O happens elsewhere.
+ */
+@FunctionalInterface
+public interface SpanExporter extends AutoCloseable {
+
+    void export(Span span);
+
+    /**
+     * Writes out the spans still buffered. Called once, when the runtime closes.
+     */
+    @Override
+    default void close() {
+    }
+}
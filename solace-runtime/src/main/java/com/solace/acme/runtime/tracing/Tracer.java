@@ -0,0 +1,89 @@
+package com.solace.acme.runtime.tracing;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Starts the spans of one service and hands them to the exporter once ended.
+ * <p>
+ * Sampling is decided per trace from a hash of the trace id, so every service with the same sample ratio keeps or
+ * drops the same traces without carrying a decision along: a sampled order is traced end to end. A trace that is not
+ * sampled costs a hash lookup per message, a sampled span two clock reads, an id and a record for the exporter.
+ */
+public class Tracer {
+
+    private final String serviceName;
+    private final long sampleThreshold;
+    private final SpanExporter exporter;
+    private final long epochOffsetNanos = System.currentTimeMillis() * 1_000_000 - System.nanoTime();
+
+    /**
+     * @param sampleRatio share of the traces recorded, from 0 for none to 1 for all
+     */
+    public Tracer(final String serviceName, final double sampleRatio, final SpanExporter exporter) {
+        this.serviceName = serviceName;
+        this.sampleThreshold = Math.round(Math.max(0, Math.min(1, sampleRatio)) * (1L << 31));
+        this.exporter = exporter;
+    }
+
+    public static Tracer disabled() {
+        return new Tracer("", 0, span -> {
+        });
+    }
+
+    public boolean isEnabled() {
+        return sampleThreshold > 0;
+    }
+
+    public boolean isSampled(final String traceId) {
+        // spreads the bits of the string hash before keeping its upper 31 bits
+        return traceId != null && (traceId.hashCode() * 0x9E3779B9 >>> 1) < sampleThreshold;
+    }
+
+    /**
+     * Starts a span of a sampled trace, the parent span id is null for the span that starts the trace.
+     */
+    public ActiveSpan start(final Span.Kind kind, final String name, final String traceId, final String parentSpanId) {
+        return new ActiveSpan(kind, name, traceId, parentSpanId);
+    }
+
+    public void close() {
+        exporter.close();
+    }
+
+    private static String newSpanId() {
+        long spanId;
+        do {
+            spanId = ThreadLocalRandom.current().nextLong();
+        } while (spanId == 0);
+        return Long.toHexString(spanId);
+    }
+
+    /**
+     * A span that has started and not ended yet. It is ended once, by whichever thread completes its work.
+     */
+    public final class ActiveSpan {
+
+        private final Span.Kind kind;
+        private final String name;
+        private final String traceId;
+        private final String parentSpanId;
+        private final String spanId = newSpanId();
+        private final long startNanos = System.nanoTime();
+
+        private ActiveSpan(final Span.Kind kind, final String name, final String traceId, final String parentSpanId) {
+            this.kind = kind;
+            this.name = name;
+            this.traceId = traceId;
+            this.parentSpanId = parentSpanId;
+        }
+
+        public String getSpanId() {
+            return spanId;
+        }
+
+        public void end(final Span.Status status) {
+            exporter.export(new Span(traceId, spanId, parentSpanId, kind, name, serviceName,
+                    (startNanos + epochOffsetNanos) / 1_000, System.nanoTime() - startNanos, status));
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.solace.acme.runtime;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PayloadCodecTests {
+
+    private static final TestEvent EVENT = new TestEvent("order-1", "GB", 12.5);
+
+    @Test
+    void roundTripsJson() throws Exception {
+        final PayloadCodec payloadCodec = PayloadCodec.json();
+
+        final byte[] payload = payloadCodec.encode(EVENT, PayloadEncoding.JSON);
+
+        assertTrue(new String(payload, StandardCharsets.UTF_8).startsWith("{"));
+        assertEquals(EVENT, payloadCodec.decode(payload, PayloadEncoding.JSON, TestEvent.class));
+    }
+
+    @Test
+    void roundTripsSmile() throws Exception {
+        final PayloadCodec payloadCodec = PayloadCodec.json();
+
+        final byte[] payload = payloadCodec.encode(EVENT, PayloadEncoding.SMILE);
+
+        // every Smile document starts with the ":)\n" header
+        assertEquals(':', payload[0]);
+        assertEquals(')', payload[1]);
+        assertEquals('\n', payload[2]);
+        assertEquals(EVENT, payloadCodec.decode(payload, PayloadEncoding.SMILE, TestEvent.class));
+    }
+
+    @Test
+    void ignoresPropertiesUnknownToTheConsumer() throws Exception {
+        final byte[] payload = "{\"id\":\"order-1\",\"region\":\"GB\",\"amount\":12.5,\"addedLater\":true}".getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(EVENT, PayloadCodec.json().decode(payload, PayloadEncoding.JSON, TestEvent.class));
+    }
+
+    @Test
+    void encodesTopicsInTheEncodingOfTheirLongestMatchingPrefix() {
+        final PayloadCodec payloadCodec = new PayloadCodec(PayloadEncoding.JSON, Map.of(
+                "acmeretail/onlineservices/", PayloadEncoding.SMILE,
+                "acmeretail/onlineservices/order/", PayloadEncoding.JSON));
+
+        assertEquals(PayloadEncoding.SMILE, payloadCodec.encodingOf("acmeretail/onlineservices/payment/updated/v1/GB/pay-1"));
+        assertEquals(PayloadEncoding.JSON, payloadCodec.encodingOf("acmeretail/onlineservices/order/created/v2/GB/order-1"));
+        assertEquals(PayloadEncoding.JSON, payloadCodec.encodingOf("acmeretail/shipping/shipment/created/v1/GB/ship-1"));
+    }
+
+    @Test
+    void encodesTopicsWithoutAPrefixInTheDefaultEncoding() {
+        final PayloadCodec payloadCodec = new PayloadCodec(PayloadEncoding.SMILE, Map.of("acmebank/solace/core/", PayloadEncoding.JSON));
+
+        assertEquals(PayloadEncoding.JSON, payloadCodec.encodingOf("acmebank/solace/core/deposit/v1/Euro/10.0/1"));
+        assertEquals(PayloadEncoding.SMILE, payloadCodec.encodingOf("acmebank/solace/fraud/detected/v1/1"));
+    }
+
+    @Test
+    void decodesMessagesInTheEncodingTheyName() {
+        assertEquals(PayloadEncoding.SMILE, PayloadEncoding.fromContentType(PayloadEncoding.SMILE.getContentType()));
+        assertEquals(PayloadEncoding.JSON, PayloadEncoding.fromContentType(PayloadEncoding.JSON.getContentType()));
+        assertEquals(PayloadEncoding.JSON, PayloadEncoding.fromContentType(null));
+        assertEquals(PayloadEncoding.JSON, PayloadEncoding.fromContentType("text/plain"));
+    }
+
+    private record TestEvent(String id, String region, double amount) {
+    }
+}
@@ -0,0 +1,55 @@
+package com.solace.acme.runtime;
+
+import com.solace.acme.runtime.local.LocalBroker;
+import com.solace.acme.runtime.local.LocalTransport;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RuntimeMetricsTests {
+
+    @Test
+    void cutsTopicsToTheirFamily() {
+        assertEquals("acmeretail/onlineservices/order/created",
+                RuntimeMetrics.topicFamily("acmeretail/onlineservices/order/created/v2/DE/order-1", 4));
+        assertEquals("acmeretail/shipping", RuntimeMetrics.topicFamily("acmeretail/shipping", 4));
+        assertEquals("acmeretail/shipping/shipment", RuntimeMetrics.topicFamily("acmeretail/shipping/shipment", 0));
+    }
+
+    @Test
+    void measuresReceiversPerQueueAndPublishersPerTopicFamily() throws Exception {
+        final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        final LocalBroker broker = new LocalBroker(10, 10);
+        broker.provisionQueue("orders", List.of("orders/>"));
+        try (SolaceRuntime solaceRuntime = new SolaceRuntime(new LocalTransport(broker), new RuntimeMetrics(meterRegistry, 2))) {
+            solaceRuntime.connect(new ConnectionSettings("tcp://localhost:55555", "default", "default", "default", "1", "1"));
+            solaceRuntime.receive("orders", (message, acknowledgement) -> {
+                if (message.getDestinationName().endsWith("/2")) {
+                    throw new IllegalStateException("handler failure");
+                }
+                acknowledgement.run();
+            });
+            solaceRuntime.publish("orders/created/1", Map.of("id", 1));
+            solaceRuntime.publish("orders/created/2", Map.of("id", 2));
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+            while (meterRegistry.get("acme.messaging.handler").timers().stream().mapToLong(timer -> timer.count()).sum() < 2) {
+                assertTrue(System.nanoTime() < deadline, "both messages handled");
+                Thread.sleep(10);
+            }
+
+            assertEquals(2, meterRegistry.get("acme.messaging.received").tag("queue", "orders").counter().count());
+            assertEquals(1, meterRegistry.get("acme.messaging.handler").tags("queue", "orders", "outcome", "processed").timer().count());
+            assertEquals(1, meterRegistry.get("acme.messaging.handler").tags("queue", "orders", "outcome", "failed").timer().count());
+            assertEquals(1, meterRegistry.get("acme.messaging.acknowledged").tag("queue", "orders").counter().count());
+            assertEquals(0, meterRegistry.get("acme.messaging.in.flight").tag("queue", "orders").gauge().value());
+            assertEquals(2, meterRegistry.get("acme.messaging.publish").tags("topic.family", "orders/created", "outcome", "published").timer().count());
+            assertEquals(2, meterRegistry.get("acme.messaging.publish.receipt").tags("topic.family", "orders/created", "outcome", "acked").timer().count());
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.solace.acme.runtime;
+
+import com.solace.acme.runtime.local.LocalBroker;
+import com.solace.acme.runtime.local.LocalTransport;
+import com.solace.acme.runtime.tracing.InMemorySpanExporter;
+import com.solace.acme.runtime.tracing.Span;
+import com.solace.acme.runtime.tracing.Tracer;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SolaceRuntimeTests {
+
+    @Test
+    void drainWaitsForDeliveredMessagesAndKeepsReceiversPaused() throws Exception {
+        final LocalBroker broker = new LocalBroker(10, 10);
+        broker.provisionQueue("orders", List.of("orders/>"));
+        final ScheduledExecutorService acknowledger = Executors.newSingleThreadScheduledExecutor();
+        final List<Runnable> pendingAcknowledgements = new CopyOnWriteArrayList<>();
+        final AtomicInteger drainListenerCalls = new AtomicInteger();
+        try (SolaceRuntime solaceRuntime = connectedRuntime(broker, Duration.ofSeconds(5))) {
+            final QueueReceiver receiver = solaceRuntime.receive("orders", (message, acknowledgement) -> pendingAcknowledgements.add(acknowledgement));
+            solaceRuntime.addDrainListener(drainListenerCalls::incrementAndGet);
+            solaceRuntime.publish("orders/created/1", Map.of("id", 1));
+            solaceRuntime.publish("orders/created/2", Map.of("id", 2));
+            awaitReceived(solaceRuntime, 2);
+            acknowledger.schedule(() -> pendingAcknowledgements.forEach(Runnable::run), 100, TimeUnit.MILLISECONDS);
+
+            assertTrue(solaceRuntime.drain());
+            assertEquals(2, solaceRuntime.getStats().getAcknowledgedCount());
+            assertEquals(1, drainListenerCalls.get());
+
+            receiver.resume();
+            solaceRuntime.publish("orders/created/3", Map.of("id", 3));
+            Thread.sleep(100);
+            assertEquals(2, solaceRuntime.getStats().getReceivedCount(), "no delivery once drained");
+            assertTrue(solaceRuntime.drain());
+            assertEquals(1, drainListenerCalls.get());
+        } finally {
+            acknowledger.shutdownNow();
+        }
+        assertEquals(1, broker.getQueueDepth("orders"));
+    }
+
+    @Test
+    void drainGivesUpOnMessagesNeverAcknowledged() throws Exception {
+        final LocalBroker broker = new LocalBroker(10, 10);
+        broker.provisionQueue("payments", List.of("payments/>"));
+        try (SolaceRuntime solaceRuntime = connectedRuntime(broker, Duration.ofMillis(100))) {
+            solaceRuntime.receive("payments", (message, acknowledgement) -> {
+            });
+            solaceRuntime.publish("payments/created/1", Map.of("id", 1));
+            awaitReceived(solaceRuntime, 1);
+
+            assertFalse(solaceRuntime.drain());
+            assertEquals(1, solaceRuntime.getStats().getInFlightCount());
+        }
+        assertEquals(1, broker.getQueueDepth("payments"), "left for redelivery");
+    }
+
+    @Test
+    void drainDoesNotWaitForMessagesTheHandlerFailed() throws Exception {
+        final LocalBroker broker = new LocalBroker(10, 10);
+        broker.provisionQueue("payments", List.of("payments/>"));
+        try (SolaceRuntime solaceRuntime = connectedRuntime(broker, Duration.ofSeconds(5))) {
+            solaceRuntime.receive("payments", (message, acknowledgement) -> {
+                acknowledgement.fail();
+                // only the first settlement counts
+                acknowledgement.fail();
+            });
+            solaceRuntime.publish("payments/created/1", Map.of("id", 1));
+            awaitReceived(solaceRuntime, 1);
+
+            final long drainStarted = System.nanoTime();
+            assertTrue(solaceRuntime.drain());
+            assertTrue(System.nanoTime() - drainStarted < TimeUnit.SECONDS.toNanos(1), "drain returned without waiting for the timeout");
+            assertEquals(0, solaceRuntime.getStats().getInFlightCount());
+            assertEquals(1, solaceRuntime.getStats().getHandlerFailureCount());
+            assertEquals(0, solaceRuntime.getStats().getAcknowledgedCount());
+        }
+        assertEquals(1, broker.getQueueDepth("payments"), "left for redelivery");
+    }
+
+    @Test
+    void leavesTheMessageUnacknowledgedWhenItsPublishIsRejected() throws Exception {
+        final LocalBroker broker = new LocalBroker(10, 10);
+        broker.provisionQueue("orders", List.of("orders/>"));
+        final LocalTransport rejectingPayments = new LocalTransport(broker) {
+            @Override
+            public void publish(final String topic, final byte[] payload, final Properties properties, final Object userContext) {
+                if (topic.startsWith("payments/")) {
+                    throw new PublishRejectedException("Publisher buffer of 1 messages is full");
+                }
+                super.publish(topic, payload, properties, userContext);
+            }
+        };
+        try (SolaceRuntime solaceRuntime = new SolaceRuntime(rejectingPayments, RuntimeMetrics.disabled(), Duration.ofMillis(100))) {
+            solaceRuntime.connect(new ConnectionSettings("tcp://localhost:55555", "default", "default", "default", "1", "1"));
+            solaceRuntime.receive("orders", (message, acknowledgement) -> {
+                solaceRuntime.publish("payments/created/1", Map.of("orderId", 1));
+                acknowledgement.run();
+            });
+            solaceRuntime.publish("orders/created/1", Map.of("id", 1));
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+            while (solaceRuntime.getStats().getHandlerFailureCount() < 1) {
+                assertTrue(System.nanoTime() < deadline, "handler failed on the rejected publish");
+                Thread.sleep(10);
+            }
+
+            assertEquals(0, solaceRuntime.getStats().getAcknowledgedCount());
+            assertEquals(1, solaceRuntime.getStats().getPublishFailureCount());
+        }
+        assertEquals(1, broker.getQueueDepth("orders"), "left for redelivery");
+    }
+
+    @Test
+    void encodesPerTopicAndDecodesWhateverTheMessageNames() throws Exception {
+        final LocalBroker broker = new LocalBroker(10, 10);
+        broker.provisionQueue("transactions", List.of("transactions/>"));
+        final PayloadCodec payloadCodec = new PayloadCodec(PayloadEncoding.JSON, Map.of("transactions/transfer", PayloadEncoding.SMILE));
+        final BlockingQueue<ReceivedMessage> deliveries = new LinkedBlockingQueue<>();
+        try (SolaceRuntime solaceRuntime = new SolaceRuntime(new LocalTransport(broker), RuntimeMetrics.disabled(), payloadCodec, Duration.ofSeconds(1))) {
+            solaceRuntime.connect(new ConnectionSettings("tcp://localhost:55555", "default", "default", "default", "1", "1"));
+            solaceRuntime.receive("transactions", (message, acknowledgement) -> {
+                deliveries.add(message);
+                acknowledgement.run();
+            });
+            final Map<String, Object> transaction = Map.of("transactionNum", 42, "accountNum", "1000004242", "amount", 17.5);
+            solaceRuntime.publish("transactions/deposit/1", transaction);
+            solaceRuntime.publish("transactions/transfer/2", transaction, TraceContext.originate(1L));
+
+            final ReceivedMessage jsonMessage = deliveries.poll(1, TimeUnit.SECONDS);
+            final ReceivedMessage smileMessage = deliveries.poll(1, TimeUnit.SECONDS);
+            assertNull(jsonMessage.getProperty(PayloadEncoding.CONTENT_TYPE_PROPERTY));
+            assertEquals(PayloadEncoding.SMILE.getContentType(), smileMessage.getProperty(PayloadEncoding.CONTENT_TYPE_PROPERTY));
+            assertEquals(1L, TraceContext.fromMessage(smileMessage).originTimestamp());
+            assertEquals(transaction, solaceRuntime.decode(jsonMessage, Map.class));
+            assertEquals(transaction, solaceRuntime.decode(smileMessage, Map.class));
+        }
+    }
+
+    @Test
+    void linksTheSpansOfOneTraceAcrossServices() throws Exception {
+        final LocalBroker broker = new LocalBroker(10, 10);
+        broker.provisionQueue("orders", List.of("orders/>"));
+        final InMemorySpanExporter spanExporter = new InMemorySpanExporter(100);
+        final TraceContext origin = TraceContext.originate(System.currentTimeMillis());
+        try (SolaceRuntime orderService = tracedRuntime(broker, new Tracer("order-service", 1, spanExporter));
+             SolaceRuntime paymentService = tracedRuntime(broker, new Tracer("payment-service", 1, spanExporter))) {
+            paymentService.receive("orders", (message, acknowledgement) -> {
+                paymentService.publish("payments/created/1", Map.of("orderId", 1), TraceContext.fromMessage(message));
+                acknowledgement.run();
+            });
+            orderService.publish("orders/created/1", Map.of("id", 1), origin);
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+            while (spanExporter.getSpans(origin.correlationId()).size() < 3) {
+                assertTrue(System.nanoTime() < deadline, "order publish, order processing and payment publish spans");
+                Thread.sleep(10);
+            }
+        }
+
+        final Map<Span.Kind, List<Span>> spans = spanExporter.getSpans(origin.correlationId()).stream()
+                .collect(Collectors.groupingBy(Span::kind));
+        final Span orderPublished = spans.get(Span.Kind.PUBLISH).stream().filter(span -> span.serviceName().equals("order-service")).findFirst().orElseThrow();
+        final Span orderProcessed = spans.get(Span.Kind.PROCESS).get(0);
+        final Span paymentPublished = spans.get(Span.Kind.PUBLISH).stream().filter(span -> span.serviceName().equals("payment-service")).findFirst().orElseThrow();
+        assertNull(orderPublished.parentSpanId());
+        assertEquals(orderPublished.spanId(), orderProcessed.parentSpanId());
+        assertEquals("orders", orderProcessed.name());
+        assertEquals(orderProcessed.spanId(), paymentPublished.parentSpanId());
+        assertTrue(spans.values().stream().flatMap(List::stream).allMatch(span -> span.status() == Span.Status.OK));
+    }
+
+    @Test
+    void samplesTheSameTracesInEveryService() {
+        final Tracer orderServiceTracer = new Tracer("order-service", 0.25, span -> {
+        });
+        final Tracer paymentServiceTracer = new Tracer("payment-service", 0.25, span -> {
+        });
+        int sampled = 0;
+        for (int i = 0; i < 10_000; i++) {
+            final String traceId = TraceContext.originate(i).correlationId();
+            assertEquals(orderServiceTracer.isSampled(traceId), paymentServiceTracer.isSampled(traceId));
+            sampled += orderServiceTracer.isSampled(traceId) ? 1 : 0;
+        }
+        assertTrue(sampled > 2_000 && sampled < 3_000, "about a quarter sampled, was " + sampled);
+        assertFalse(Tracer.disabled().isSampled(TraceContext.originate(0).correlationId()));
+    }
+
+    private static SolaceRuntime tracedRuntime(final LocalBroker broker, final Tracer tracer) {
+        final SolaceRuntime solaceRuntime = new SolaceRuntime(new LocalTransport(broker), RuntimeMetrics.disabled(), PayloadCodec.json(), tracer, Duration.ofSeconds(1));
+        solaceRuntime.connect(new ConnectionSettings("tcp://localhost:55555", "default", "default", "default", "1", "1"));
+        return solaceRuntime;
+    }
+
+    private static SolaceRuntime connectedRuntime(final LocalBroker broker, final Duration drainTimeout) {
+        final SolaceRuntime solaceRuntime = new SolaceRuntime(new LocalTransport(broker), RuntimeMetrics.disabled(), drainTimeout);
+        solaceRuntime.connect(new ConnectionSettings("tcp://localhost:55555", "default", "default", "default", "1", "1"));
+        return solaceRuntime;
+    }
+
+    private static void awaitReceived(final SolaceRuntime solaceRuntime, final long count) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (solaceRuntime.getStats().getReceivedCount() < count) {
+            assertTrue(System.nanoTime() < deadline, "messages delivered");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.solace.acme.runtime.local;
+
+import com.solace.acme.runtime.ConnectionSettings;
+import com.solace.acme.runtime.QueueReceiver;
+import com.solace.acme.runtime.ReceivedMessage;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalBrokerTests {
+
+    @Test
+    void matchesSolaceWildcards() {
+        final SubscriptionTree<String> subscriptionTree = SubscriptionTree.of(Map.of(
+                "acmeretail/onlineservices/order/created/v2/>", List.of("all-orders"),
+                "acmeretail/onlineservices/*/*/v2/DE/>", List.of("germany"),
+                "acmeretail/online*/payment/created/v1/FR", List.of("france", "all-orders")));
+
+        assertEquals(Set.of("all-orders", "germany"), Set.copyOf(subscriptionTree.match("acmeretail/onlineservices/order/created/v2/DE/order-1")));
+        assertEquals(Set.of("all-orders", "france"), Set.copyOf(subscriptionTree.match("acmeretail/onlineservices/payment/created/v1/FR")));
+        assertTrue(subscriptionTree.match("acmeretail/onlineservices/order/created/v2").isEmpty());
+        assertTrue(subscriptionTree.match("acmeretail/onlineservices/order/updated/v2/DE").isEmpty());
+        assertFalse(SubscriptionTree.isValidSubscription("acmeretail/>/order"));
+        assertFalse(SubscriptionTree.isValidSubscription("acmeretail/on*line"));
+    }
+
+    @Test
+    void redeliversUnacknowledgedMessagesToTheNextReceiver() throws Exception {
+        final LocalBroker broker = new LocalBroker(10, 2);
+        broker.provisionQueue("orders", List.of("orders/>"));
+        final LocalTransport transport = connectedTransport(broker, new ArrayList<>());
+        for (int i = 0; i < 3; i++) {
+            transport.publish("orders/" + i, new byte[]{(byte) i}, null, "orders/" + i);
+        }
+
+        final BlockingQueue<ReceivedMessage> firstDeliveries = new LinkedBlockingQueue<>();
+        final QueueReceiver firstReceiver = transport.receive("orders", firstDeliveries::add);
+        firstReceiver.start();
+        final ReceivedMessage first = firstDeliveries.poll(1, TimeUnit.SECONDS);
+        final ReceivedMessage second = firstDeliveries.poll(1, TimeUnit.SECONDS);
+        assertNull(firstDeliveries.poll(50, TimeUnit.MILLISECONDS), "at most two unacknowledged messages per receiver");
+        firstReceiver.ack(first);
+        firstReceiver.terminate();
+        firstReceiver.ack(second);
+
+        final BlockingQueue<ReceivedMessage> secondDeliveries = new LinkedBlockingQueue<>();
+        final QueueReceiver secondReceiver = transport.receive("orders", secondDeliveries::add);
+        secondReceiver.start();
+        final ReceivedMessage redelivered = secondDeliveries.poll(1, TimeUnit.SECONDS);
+        assertEquals("orders/1", redelivered.getDestinationName());
+        assertTrue(redelivered.isRedelivered());
+        assertEquals(2, broker.getQueueDepth("orders"));
+        transport.close();
+    }
+
+    @Test
+    void refusesPublishesBeyondTheQueueDepth() {
+        final LocalBroker broker = new LocalBroker(2, 2);
+        broker.provisionQueue("payments", List.of("payments/*"));
+        final List<String> refused = new ArrayList<>();
+        final LocalTransport transport = connectedTransport(broker, refused);
+        for (int i = 0; i < 3; i++) {
+            transport.publish("payments/" + i, new byte[0], null, "payments/" + i);
+        }
+
+        assertEquals(List.of("payments/2"), refused);
+        assertEquals(2, broker.getQueueDepth("payments"));
+    }
+
+    private static LocalTransport connectedTransport(final LocalBroker broker, final List<String> refused) {
+        final LocalTransport transport = new LocalTransport(broker);
+        transport.setPublishReceiptListener((userContext, failure) -> {
+            if (failure != null) {
+                refused.add((String) userContext);
+            }
+        });
+        transport.connect(new ConnectionSettings("tcp://localhost:55555", "default", "default", "default", "1", "1"));
+        return transport;
+    }
+}